@@ -51,6 +51,13 @@
 			</p>
 		<%}%> 
 
+        <% String nextPageToken = (String)request.getAttribute("nextPageToken");
+        if ( nextPageToken != null ) { %>
+			<p>
+				<A href="<%= request.getContextPath() %>/searchcomments?pageToken=<%= java.net.URLEncoder.encode(nextPageToken, "UTF-8") %><%= customerId != null ? "&customerId=" + java.net.URLEncoder.encode(customerId, "UTF-8") : "" %>">Next</A>
+			</p>
+		<%}%>
+
 
 
 
@@ -54,6 +54,14 @@
                 </TR>
             </TABLE>
 
+            <c:if test="${nextPageToken != null}">
+                <c:url var="nextPageUrl" value="/finditems">
+                    <c:param name="productId" value="${productId}"/>
+                    <c:param name="pageToken" value="${nextPageToken}"/>
+                </c:url>
+                <P><A href="${nextPageUrl}">Next</A></P>
+            </c:if>
+
 
 
     <%--FOOTER--%>
@@ -37,6 +37,6 @@ CREATE TABLE T_COMMENT(
 id VARCHAR(10), PRIMARY KEY(id), 
 title VARCHAR(50) NOT NULL, 
 text VARCHAR(500) NOT NULL, 
-date TIMESTAMP NOT NULL,
-customer_fk VARCHAR(10) NOT NULL, INDEX customer_fk_ind (customer_fk), FOREIGN KEY (customer_fk) REFERENCES T_CUSTOMER(id)
+date TIMESTAMP NOT NULL, INDEX date_ind (date),
+customer_fk VARCHAR(10) NOT NULL, INDEX customer_fk_ind (customer_fk, date), FOREIGN KEY (customer_fk) REFERENCES T_CUSTOMER(id)
 ) ENGINE=INNODB;
@@ -2,6 +2,7 @@ package com.yaps.petstore.common.delegate;
 
 import com.yaps.petstore.common.dto.CategoryDTO;
 import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.PageDTO;
 import com.yaps.petstore.common.dto.ProductDTO;
 import com.yaps.petstore.common.exception.*;
 import com.yaps.petstore.common.rmi.RMIConstant;
@@ -106,6 +107,13 @@ public abstract class CatalogDelegate implements CatalogServiceRemote {
         return getCatalogService().findProducts(categoryId);
     }
 
+    /**
+     * Delegates the call to the {@link CatalogServiceRemote#findProducts(String, String, int) CatalogServiceRemote().findProducts} method.
+     */
+    public PageDTO findProducts(String categoryId, String pageToken, int pageSize) throws FinderException, CheckException, RemoteException {
+        return getCatalogService().findProducts(categoryId, pageToken, pageSize);
+    }
+
     // ======================================
     // =        Item Business methods       =
     // ======================================
@@ -151,6 +159,13 @@ public abstract class CatalogDelegate implements CatalogServiceRemote {
         return getCatalogService().findItems(productId);
     }
 
+    /**
+     * Delegates the call to the {@link CatalogServiceRemote#findItems(String, String, int) CatalogServiceRemote().findItems} method.
+     */
+    public PageDTO findItems(String productId, String pageToken, int pageSize) throws FinderException, CheckException, RemoteException {
+        return getCatalogService().findItems(productId, pageToken, pageSize);
+    }
+
     /**
      * Delegates the call to the {@link CatalogServiceRemote#searchItems(String) CatalogServiceRemote().searchItems} method.
      */
@@ -2,6 +2,7 @@ package com.yaps.petstore.common.delegate;
 
 import com.yaps.petstore.common.dto.CategoryDTO;
 import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.PageDTO;
 import com.yaps.petstore.common.dto.ProductDTO;
 import com.yaps.petstore.common.exception.*;
 
@@ -174,6 +175,21 @@ public interface CatalogServiceRemote extends Remote {
      */
     Collection findProducts(String categoryId) throws FinderException, RemoteException;
 
+    /**
+     * This method returns one page of the products for a given category, ordered by id.
+     * The next page is asked with the token of the previous one.
+     *
+     * @param categoryId category identifier cannot be null.
+     * @param pageToken  token of the next page returned with the previous page, null for the first page
+     * @param pageSize   maximum number of products in the page
+     * @return a page of ProductDTO
+     * @throws FinderException is thrown if a DomainException is caught
+     *                         or a system failure is occurs
+     * @throws CheckException  is thrown if a invalid data is found
+     * @throws RemoteException is thrown if a remote call fails
+     */
+    PageDTO findProducts(String categoryId, String pageToken, int pageSize) throws FinderException, CheckException, RemoteException;
+
     // ======================================
     // =        Item Business methods       =
     // ======================================
@@ -261,6 +277,21 @@ public interface CatalogServiceRemote extends Remote {
      */
     Collection findItems(String productId) throws FinderException, RemoteException;
 
+    /**
+     * This method returns one page of the items for a given product, ordered by id.
+     * The next page is asked with the token of the previous one.
+     *
+     * @param productId product identifier cannot be null.
+     * @param pageToken token of the next page returned with the previous page, null for the first page
+     * @param pageSize  maximum number of items in the page
+     * @return a page of ItemDTO
+     * @throws FinderException is thrown if a DomainException is caught
+     *                         or a system failure is occurs
+     * @throws CheckException  is thrown if a invalid data is found
+     * @throws RemoteException is thrown if a remote call fails
+     */
+    PageDTO findItems(String productId, String pageToken, int pageSize) throws FinderException, CheckException, RemoteException;
+
     /**
      * This method return all the items that match a given keyword. It uses the Item domain object
      * to get the data. It then transforms this collection of Item object into a
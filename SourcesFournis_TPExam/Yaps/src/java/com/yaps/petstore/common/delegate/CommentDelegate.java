@@ -4,6 +4,7 @@ import java.rmi.RemoteException;
 import java.util.Collection;
 
 import com.yaps.petstore.common.dto.CommentDTO;
+import com.yaps.petstore.common.dto.PageDTO;
 import com.yaps.petstore.common.exception.CheckException;
 import com.yaps.petstore.common.exception.CreateException;
 import com.yaps.petstore.common.exception.FinderException;
@@ -41,6 +42,16 @@ public abstract class CommentDelegate implements CommentServiceRemote{
 	public Collection findCommentsFromCustomer(String customerId) throws FinderException, RemoteException {
 		return getCommentService().findCommentsFromCustomer(customerId);
 	}
+
+	@Override
+	public PageDTO findComments(String pageToken, int pageSize) throws FinderException, CheckException, RemoteException {
+		return getCommentService().findComments(pageToken, pageSize);
+	}
+
+	@Override
+	public PageDTO findCommentsFromCustomer(String customerId, String pageToken, int pageSize) throws FinderException, CheckException, RemoteException {
+		return getCommentService().findCommentsFromCustomer(customerId, pageToken, pageSize);
+	}
 	
 	// ======================================
     // =            Protected methods         =
@@ -1,6 +1,7 @@
 package com.yaps.petstore.common.delegate;
 
 import com.yaps.petstore.common.dto.CommentDTO;
+import com.yaps.petstore.common.dto.PageDTO;
 import com.yaps.petstore.common.exception.*;
 
 import java.rmi.Remote;
@@ -96,4 +97,32 @@ public interface CommentServiceRemote extends Remote {
      * @throws RemoteException         is thrown if a remote call fails
      */
     Collection findCommentsFromCustomer(String customerId) throws FinderException, RemoteException;
+
+    /**
+     * This method returns one page of the comments from the system, the most recent first.
+     * The next page is asked with the token of the previous one.
+     *
+     * @param pageToken token of the next page returned with the previous page, null for the first page
+     * @param pageSize  maximum number of comments in the page
+     * @return a page of CommentDTO
+     * @throws FinderException is thrown if a DomainException is caught
+     *                         or a system failure is occurs
+     * @throws CheckException  is thrown if the token or the page size is invalid
+     * @throws RemoteException is thrown if a remote call fails
+     */
+    PageDTO findComments(String pageToken, int pageSize) throws FinderException, CheckException, RemoteException;
+
+    /**
+     * This method returns one page of the comments from a specified customer, the most recent first.
+     *
+     * @param customerId identifier
+     * @param pageToken  token of the next page returned with the previous page, null for the first page
+     * @param pageSize   maximum number of comments in the page
+     * @return a page of CommentDTO
+     * @throws FinderException is thrown if a DomainException is caught
+     *                         or a system failure is occurs
+     * @throws CheckException  is thrown if a invalid data is found
+     * @throws RemoteException is thrown if a remote call fails
+     */
+    PageDTO findCommentsFromCustomer(String customerId, String pageToken, int pageSize) throws FinderException, CheckException, RemoteException;
 }
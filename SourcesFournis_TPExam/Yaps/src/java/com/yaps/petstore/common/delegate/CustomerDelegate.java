@@ -1,6 +1,7 @@
 package com.yaps.petstore.common.delegate;
 
 import com.yaps.petstore.common.dto.CustomerDTO;
+import com.yaps.petstore.common.dto.PageDTO;
 import com.yaps.petstore.common.exception.*;
 import com.yaps.petstore.common.rmi.RMIConstant;
 
@@ -69,6 +70,13 @@ public abstract class CustomerDelegate implements CustomerServiceRemote {
         return getCustomerService().findCustomers();
     }
 
+    /**
+     * Delegates the call to the {@link CustomerServiceRemote#findCustomers(String, int) CustomerServiceRemote().findCustomers} method.
+     */
+    public PageDTO findCustomers(final String pageToken, final int pageSize) throws FinderException, CheckException, RemoteException {
+        return getCustomerService().findCustomers(pageToken, pageSize);
+    }
+
     // ======================================
     // =            Protected methods         =
     // ======================================
@@ -1,6 +1,7 @@
 package com.yaps.petstore.common.delegate;
 
 import com.yaps.petstore.common.dto.CustomerDTO;
+import com.yaps.petstore.common.dto.PageDTO;
 import com.yaps.petstore.common.exception.*;
 
 import java.rmi.Remote;
@@ -99,4 +100,18 @@ public interface CustomerServiceRemote extends Remote {
      * @throws RemoteException         is thrown if a remote call fails
      */
     Collection findCustomers() throws FinderException, RemoteException;
+
+    /**
+     * This method returns one page of the customers from the system, ordered by id.
+     * The next page is asked with the token of the previous one.
+     *
+     * @param pageToken token of the next page returned with the previous page, null for the first page
+     * @param pageSize  maximum number of customers in the page
+     * @return a page of CustomerDTO
+     * @throws FinderException is thrown if a DomainException is caught
+     *                         or a system failure is occurs
+     * @throws CheckException  is thrown if the page size is invalid
+     * @throws RemoteException is thrown if a remote call fails
+     */
+    PageDTO findCustomers(String pageToken, int pageSize) throws FinderException, CheckException, RemoteException;
 }
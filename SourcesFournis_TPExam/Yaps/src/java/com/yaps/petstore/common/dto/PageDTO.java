@@ -0,0 +1,66 @@
+package com.yaps.petstore.common.dto;
+
+import java.util.Collection;
+
+/**
+ * This class follows the Data Transfert Object design pattern and for that implements the
+ * markup interface DataTransfertObject. It is one page of a listing: a collection of DTOs
+ * and the token to give back to the service to get the next page.
+ */
+public final class PageDTO implements DataTransfertObject {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private Collection<?> _elements;
+    private String _nextPageToken;
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    public PageDTO() {
+    }
+
+    public PageDTO(final Collection<?> elements, final String nextPageToken) {
+        _elements = elements;
+        _nextPageToken = nextPageToken;
+    }
+
+    // ======================================
+    // =         Getters and Setters        =
+    // ======================================
+    /**
+     * @return the DTOs of this page
+     */
+    public Collection<?> getElements() {
+        return _elements;
+    }
+
+    public void setElements(final Collection<?> elements) {
+        _elements = elements;
+    }
+
+    /**
+     * @return the token of the next page, null if this page is the last one
+     */
+    public String getNextPageToken() {
+        return _nextPageToken;
+    }
+
+    public void setNextPageToken(final String nextPageToken) {
+        _nextPageToken = nextPageToken;
+    }
+
+    public boolean hasNextPage() {
+        return _nextPageToken != null;
+    }
+
+    public String toString() {
+        final StringBuffer buf = new StringBuffer();
+        buf.append("PageDTO{");
+        buf.append("size=").append(_elements == null ? 0 : _elements.size());
+        buf.append(",nextPageToken=").append(getNextPageToken());
+        buf.append('}');
+        return buf.toString();
+    }
+}
@@ -1,8 +1,11 @@
 package com.yaps.petstore.server.domain.category;
 
 import com.yaps.petstore.server.domain.DomainObject;
+import com.yaps.petstore.server.domain.item.ItemDAO;
+import com.yaps.petstore.server.domain.product.ProductDAO;
 import com.yaps.petstore.server.util.persistence.AbstractDataAccessObject;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
@@ -21,39 +24,55 @@ public final class CategoryDAO extends AbstractDataAccessObject {
     // Used to get a unique id with the UniqueIdGenerator
     private static final String COUNTER_NAME = "Category";
 
+    // Statement templates
+    private static final String INSERT_SQL = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES (?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM " + TABLE + " WHERE ID = ?";
+    private static final String UPDATE_SQL = "UPDATE " + TABLE + " SET NAME = ?, DESCRIPTION = ? WHERE ID = ?";
+    private static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = ?";
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM " + TABLE;
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    public CategoryDAO() {
+        super(ENTITY_CACHE_SIZE, ENTITY_CACHE_TIME_TO_LIVE);
+    }
+
     // ======================================
     // =           Business methods         =
     // ======================================
-    protected String getInsertSqlStatement(final DomainObject object) {
+    protected String getInsertSqlStatement() {
+        return INSERT_SQL;
+    }
+
+    protected void bindInsertSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
         final Category category = (Category) object;
-        final String sql;
-        sql = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES ('" + category.getId() + "', '" + category.getName() + "', '" + category.getDescription() + "' )";
-        return sql;
+        statement.setString(1, category.getId());
+        statement.setString(2, category.getName());
+        statement.setString(3, category.getDescription());
     }
 
-    protected String getDeleteSqlStatement(final String id) {
-        final String sql;
-        sql = "DELETE FROM " + TABLE + " WHERE ID = '" + id + "'";
-        return sql;
+    protected String getDeleteSqlStatement() {
+        return DELETE_SQL;
     }
 
-    protected String getUpdateSqlStatement(final DomainObject object) {
+    protected String getUpdateSqlStatement() {
+        return UPDATE_SQL;
+    }
+
+    protected void bindUpdateSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
         final Category category = (Category) object;
-        final String sql;
-        sql = "UPDATE " + TABLE + " SET NAME = '" + category.getName() + "', DESCRIPTION = '" + category.getDescription() + "' WHERE ID = '" + category.getId() + "' ";
-        return sql;
+        statement.setString(1, category.getName());
+        statement.setString(2, category.getDescription());
+        statement.setString(3, category.getId());
     }
 
-    protected String getSelectSqlStatement(final String id) {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = '" + id + "' ";
-        return sql;
+    protected String getSelectSqlStatement() {
+        return SELECT_SQL;
     }
 
     protected String getSelectAllSqlStatement() {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE;
-        return sql;
+        return SELECT_ALL_SQL;
     }
 
     protected DomainObject transformResultset2DomainObject(final ResultSet resultSet) throws SQLException {
@@ -65,4 +84,14 @@ public final class CategoryDAO extends AbstractDataAccessObject {
 	protected String getCounterName() {
 		return COUNTER_NAME;
 	}
+
+    protected DomainObject copy(final DomainObject object) {
+        final Category category = (Category) object;
+        return new Category(category.getId(), category.getName(), category.getDescription());
+    }
+
+    protected Class<?>[] getCascadedDAOClasses() {
+        // The database deletes them with the row
+        return new Class<?>[]{ProductDAO.class, ItemDAO.class};
+    }
 }
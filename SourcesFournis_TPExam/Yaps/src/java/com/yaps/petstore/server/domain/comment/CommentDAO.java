@@ -1,9 +1,16 @@
 package com.yaps.petstore.server.domain.comment;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
 
+import com.yaps.petstore.common.exception.DataAccessException;
+import com.yaps.petstore.common.exception.ObjectNotFoundException;
 import com.yaps.petstore.server.domain.DomainObject;
 import com.yaps.petstore.server.domain.customer.Customer;
 import com.yaps.petstore.server.domain.order.Order;
@@ -18,45 +25,89 @@ public class CommentDAO extends AbstractDataAccessObject{
     // Used to get a unique id with the UniqueIdGenerator
     private static final String COUNTER_NAME = "Comment";
 
+    // Statement templates
+    private static final String INSERT_SQL = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM " + TABLE + " WHERE ID = ?";
+    private static final String UPDATE_SQL = "UPDATE " + TABLE + " SET TITLE = ?, TEXT = ?, CUSTOMER_FK = ? WHERE ID = ?";
+    private static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = ?";
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM " + TABLE;
+    private static final String WHERE_CUSTOMER = "CUSTOMER_FK = ?";
+    // Comments are listed from the most recent one, the id breaks the ties
+    private static final String ORDER_BY_DATE = "DATE DESC, ID DESC";
+    private static final String SEEK_DATE = "(DATE < ? OR (DATE = ? AND ID < ?))";
+
     // ======================================
     // =           Business methods         =
     // ======================================
-    protected String getInsertSqlStatement(final DomainObject object) {
-        final Comment comment = (Comment) object;
-        final String sql;
-        sql = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES ('" + comment.getId() + "', '" 
-        + comment.getTitle() + "', '" 
-        + comment.getText() + "', '" 
-        + new Timestamp(comment.getDate().getTime()) + "', '" 
-        + comment.getCustomer().getId() + "' )";
-        return sql;
+    /**
+     * This method returns a page of comments, the most recent first. The page starts
+     * right after the comment (<code>afterDate</code>, <code>afterId</code>), which
+     * is the last comment of the previous page.
+     *
+     * @param customerId only the comments of this customer are returned (may be null)
+     * @param afterDate date of the last comment of the previous page, null for the first page
+     * @param afterId id of the last comment of the previous page
+     * @param maxResults maximum number of comments returned
+     * @return collection of Comment
+     * @throws ObjectNotFoundException is thrown if the page is empty
+     * @throws DataAccessException     is thrown if there's a persistent problem
+     */
+    public Collection<DomainObject> selectPage(final String customerId, final Date afterDate, final String afterId, final int maxResults) throws ObjectNotFoundException {
+        final StringBuffer whereClause = new StringBuffer();
+        final List<Object> parameters = new ArrayList<Object>();
+        if (customerId != null) {
+            whereClause.append(WHERE_CUSTOMER);
+            parameters.add(customerId);
+        }
+        if (afterDate != null) {
+            if (whereClause.length() > 0)
+                whereClause.append(" AND ");
+            whereClause.append(SEEK_DATE);
+            final Timestamp date = new Timestamp(afterDate.getTime());
+            parameters.add(date);
+            parameters.add(date);
+            parameters.add(afterId);
+        }
+        return selectAllWhere(whereClause.toString(), parameters.toArray(), ORDER_BY_DATE, maxResults);
     }
 
-    protected String getDeleteSqlStatement(final String id) {
-        final String sql;
-        sql = "DELETE FROM " + TABLE + " WHERE ID = '" + id + "'";
-        return sql;
+    protected String getInsertSqlStatement() {
+        return INSERT_SQL;
     }
 
-    protected String getUpdateSqlStatement(final DomainObject object) {
+    protected void bindInsertSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
         final Comment comment = (Comment) object;
-        final String sql;
+        statement.setString(1, comment.getId());
+        statement.setString(2, comment.getTitle());
+        statement.setString(3, comment.getText());
+        statement.setTimestamp(4, new Timestamp(comment.getDate().getTime()));
+        statement.setString(5, comment.getCustomer().getId());
+    }
+
+    protected String getDeleteSqlStatement() {
+        return DELETE_SQL;
+    }
+
+    protected String getUpdateSqlStatement() {
         //TODO:
         //upate DATE = '" + order.getStreet1() + "',?
-        sql = "UPDATE " + TABLE + " SET TITLE = '" + comment.getTitle() + "', TEXT = '" + comment.getText() + "', CUSTOMER_FK = '" + comment.getCustomer().getId() + "' WHERE ID = '" + comment.getId() + "' ";
-        return sql;
+        return UPDATE_SQL;
+    }
+
+    protected void bindUpdateSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
+        final Comment comment = (Comment) object;
+        statement.setString(1, comment.getTitle());
+        statement.setString(2, comment.getText());
+        statement.setString(3, comment.getCustomer().getId());
+        statement.setString(4, comment.getId());
     }
 
-    protected String getSelectSqlStatement(final String id) {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = '" + id + "' ";
-        return sql;
+    protected String getSelectSqlStatement() {
+        return SELECT_SQL;
     }
 
     protected String getSelectAllSqlStatement() {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE;
-        return sql;
+        return SELECT_ALL_SQL;
     }
 
     protected DomainObject transformResultset2DomainObject(final ResultSet resultSet) throws SQLException {
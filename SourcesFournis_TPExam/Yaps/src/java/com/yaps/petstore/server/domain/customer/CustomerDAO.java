@@ -3,6 +3,7 @@ package com.yaps.petstore.server.domain.customer;
 import com.yaps.petstore.server.domain.DomainObject;
 import com.yaps.petstore.server.util.persistence.AbstractDataAccessObject;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 
@@ -21,39 +22,46 @@ public final class CustomerDAO extends AbstractDataAccessObject {
     // Used to get a unique id with the UniqueIdGenerator
     private static final String COUNTER_NAME = "Customer";
 
+    // Statement templates
+    private static final String INSERT_SQL = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM " + TABLE + " WHERE ID = ?";
+    private static final String UPDATE_SQL = "UPDATE " + TABLE + " SET FIRSTNAME = ?, LASTNAME = ?, PASSWORD = ?, TELEPHONE = ?, EMAIL = ?, STREET1 = ?, STREET2 = ?, CITY = ?, STATE = ?, ZIPCODE = ?, COUNTRY = ?, CREDITCARDNUMBER = ?, CREDITCARDTYPE = ?, CREDITCARDEXPIRYDATE = ? WHERE ID = ?";
+    private static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = ?";
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM " + TABLE;
+
     // ======================================
     // =           Business methods         =
     // ======================================
-    protected String getInsertSqlStatement(final DomainObject object) {
+    protected String getInsertSqlStatement() {
+        return INSERT_SQL;
+    }
+
+    protected void bindInsertSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
         final Customer customer = (Customer) object;
-        final String sql;
-        sql = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES ('" + customer.getId() + "', '" + customer.getFirstname() + "','" + customer.getLastname() + "','" + customer.getPassword() + "', '" + customer.getTelephone() + "', '" + customer.getEmail() + "', '" + customer.getStreet1() + "', '" + customer.getStreet2() + "', '" + customer.getCity() + "', '" + customer.getState() + "', '" + customer.getZipcode() + "', '" + customer.getCountry() + "', '" + customer.getCreditCardNumber() + "', '" + customer.getCreditCardType() + "', '" + customer.getCreditCardExpiryDate() + "' )";
-        return sql;
+        statement.setString(1, customer.getId());
+        bindValues(statement, customer, 2);
+    }
+
+    protected String getDeleteSqlStatement() {
+        return DELETE_SQL;
     }
 
-    protected String getDeleteSqlStatement(final String id) {
-        final String sql;
-        sql = "DELETE FROM " + TABLE + " WHERE ID = '" + id + "'";
-        return sql;
+    protected String getUpdateSqlStatement() {
+        return UPDATE_SQL;
     }
 
-    protected String getUpdateSqlStatement(final DomainObject object) {
+    protected void bindUpdateSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
         final Customer customer = (Customer) object;
-        final String sql;
-        sql = "UPDATE " + TABLE + " SET FIRSTNAME = '" + customer.getFirstname() + "', LASTNAME = '" + customer.getLastname() + "', PASSWORD = '" + customer.getPassword() + "', TELEPHONE = '" + customer.getTelephone() + "', EMAIL = '" + customer.getEmail() + "', STREET1 = '" + customer.getStreet1() + "', STREET2 = '" + customer.getStreet2() + "', CITY = '" + customer.getCity() + "', STATE = '" + customer.getState() + "', ZIPCODE = '" + customer.getZipcode() + "', COUNTRY = '" + customer.getCountry() + "', CREDITCARDNUMBER = '" + customer.getCreditCardNumber() + "', CREDITCARDTYPE = '" + customer.getCreditCardType() + "', CREDITCARDEXPIRYDATE = '" + customer.getCreditCardExpiryDate() + "' WHERE ID = '" + customer.getId() + "' ";
-        return sql;
+        bindValues(statement, customer, 1);
+        statement.setString(15, customer.getId());
     }
 
-    protected String getSelectSqlStatement(final String id) {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = '" + id + "' ";
-        return sql;
+    protected String getSelectSqlStatement() {
+        return SELECT_SQL;
     }
 
     protected String getSelectAllSqlStatement() {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE;
-        return sql;
+        return SELECT_ALL_SQL;
     }
 
     protected DomainObject transformResultset2DomainObject(final ResultSet resultSet) throws SQLException {
@@ -77,4 +85,26 @@ public final class CustomerDAO extends AbstractDataAccessObject {
 	protected String getCounterName() {
 		return COUNTER_NAME;
 	}
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    // Binds every column but the id, in the order of the COLUMNS constant
+    private void bindValues(final PreparedStatement statement, final Customer customer, final int first) throws SQLException {
+        int index = first;
+        statement.setString(index++, customer.getFirstname());
+        statement.setString(index++, customer.getLastname());
+        statement.setString(index++, customer.getPassword());
+        statement.setString(index++, customer.getTelephone());
+        statement.setString(index++, customer.getEmail());
+        statement.setString(index++, customer.getStreet1());
+        statement.setString(index++, customer.getStreet2());
+        statement.setString(index++, customer.getCity());
+        statement.setString(index++, customer.getState());
+        statement.setString(index++, customer.getZipcode());
+        statement.setString(index++, customer.getCountry());
+        statement.setString(index++, customer.getCreditCardNumber());
+        statement.setString(index++, customer.getCreditCardType());
+        statement.setString(index, customer.getCreditCardExpiryDate());
+    }
 }
@@ -2,16 +2,13 @@ package com.yaps.petstore.server.domain.item;
 
 import com.yaps.petstore.common.exception.DataAccessException;
 import com.yaps.petstore.common.exception.ObjectNotFoundException;
-import com.yaps.petstore.common.logging.Trace;
 import com.yaps.petstore.server.domain.DomainObject;
 import com.yaps.petstore.server.domain.product.Product;
 import com.yaps.petstore.server.util.persistence.AbstractDataAccessObject;
 
-import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.Collection;
 
 /**
@@ -29,6 +26,22 @@ public final class ItemDAO extends AbstractDataAccessObject {
     // Used to get a unique id with the UniqueIdGenerator
     private static final String COUNTER_NAME = "Item";
 
+    // Statement templates
+    private static final String INSERT_SQL = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM " + TABLE + " WHERE ID = ?";
+    private static final String UPDATE_SQL = "UPDATE " + TABLE + " SET NAME = ?, UNITCOST = ?, IMAGEPATH = ?, PRODUCT_FK = ? WHERE ID = ?";
+    private static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = ?";
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM " + TABLE;
+    private static final String WHERE_PRODUCT = "PRODUCT_FK = ?";
+    private static final String WHERE_KEYWORD = "(ID LIKE ?) OR (NAME LIKE ?)";
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    public ItemDAO() {
+        super(ENTITY_CACHE_SIZE, ENTITY_CACHE_TIME_TO_LIVE);
+    }
+
     // ======================================
     // =           Business methods         =
     // ======================================
@@ -53,47 +66,21 @@ public final class ItemDAO extends AbstractDataAccessObject {
      * @throws DataAccessException     is thrown if there's a persistent problem
      */
     public Collection selectAll(final String productId) throws ObjectNotFoundException {
-        final String mname = "selectAll";
-        Trace.entering(getCname(), mname, productId);
-
-        Connection connection = null;
-        Statement statement = null;
-        ResultSet resultSet = null;
-        final Collection items = new ArrayList();
-
-        try {
-            // Gets a database connection
-            connection = getConnection();
-            statement = connection.createStatement();
-
-            // Select a Row
-            final String sql = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE PRODUCT_FK = '" + productId + "'";
-            resultSet = statement.executeQuery(sql);
-
-            while (resultSet.next()) {
-                // Set data to the collection
-                items.add(transformResultset2DomainObject(resultSet));
-            }
-
-            if (items.isEmpty())
-                throw new ObjectNotFoundException();
-
-        } catch (SQLException e) {
-            // A Severe SQL Exception is caught
-            displaySqlException(e);
-            throw new DataAccessException("Cannot get data from the database: " + e.getMessage(), e);
-        } finally {
-            // Close
-            try {
-                if (resultSet != null) resultSet.close();
-                if (statement != null) statement.close();
-                if (connection != null) connection.close();
-            } catch (SQLException e) {
-                displaySqlException("Cannot close connection", e);
-                throw new DataAccessException("Cannot close the database connection", e);
-            }
-        }
-        return items;
+        return selectAllWhere(WHERE_PRODUCT, new Object[]{productId}, "");
+    }
+
+    /**
+     * This method returns a page of items ordered by id for a given product id.
+     *
+     * @param productId
+     * @param afterId id of the last item of the previous page, null for the first page
+     * @param maxResults maximum number of items returned
+     * @return collection of Items
+     * @throws ObjectNotFoundException is thrown if the page is empty
+     * @throws DataAccessException     is thrown if there's a persistent problem
+     */
+    public Collection<DomainObject> selectPage(final String productId, final String afterId, final int maxResults) throws ObjectNotFoundException {
+        return selectPage(WHERE_PRODUCT, new Object[]{productId}, afterId, maxResults);
     }
 
     /**
@@ -105,79 +92,46 @@ public final class ItemDAO extends AbstractDataAccessObject {
      * @throws DataAccessException     is thrown if there's a persistent problem
      */
     public Collection search(final String keyword) throws ObjectNotFoundException {
-        final String mname = "search";
-        Trace.entering(getCname(), mname, keyword);
-
-        Connection connection = null;
-        Statement statement = null;
-        ResultSet resultSet = null;
-        final Collection items = new ArrayList();
-
-        try {
-            // Gets a database connection
-            connection = getConnection();
-            statement = connection.createStatement();
-
-            // Select a Row
-            final String sql = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE (ID LIKE '%" + keyword + "%') OR (NAME LIKE '%" + keyword + "%')";
-            resultSet = statement.executeQuery(sql);
-
-            while (resultSet.next()) {
-                // Set data to the collection
-                items.add(transformResultset2DomainObject(resultSet));
-            }
-
-            if (items.isEmpty())
-                throw new ObjectNotFoundException();
-
-        } catch (SQLException e) {
-            // A Severe SQL Exception is caught
-            displaySqlException(e);
-            throw new DataAccessException("Cannot get data from the database: " + e.getMessage(), e);
-        } finally {
-            // Close
-            try {
-                if (resultSet != null) resultSet.close();
-                if (statement != null) statement.close();
-                if (connection != null) connection.close();
-            } catch (SQLException e) {
-                displaySqlException("Cannot close connection", e);
-                throw new DataAccessException("Cannot close the database connection", e);
-            }
-        }
-        return items;
+        final String pattern = "%" + keyword + "%";
+        return selectAllWhere(WHERE_KEYWORD, new Object[]{pattern, pattern}, "");
+    }
+
+    protected String getInsertSqlStatement() {
+        return INSERT_SQL;
     }
 
-    protected String getInsertSqlStatement(final DomainObject object) {
+    protected void bindInsertSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
         final Item item = (Item) object;
-        final String sql;
-        sql = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES ('" + item.getId() + "', '" + item.getName() + "', '" + item.getUnitCost() + "', '" + item.getImagePath() + "', '" + item.getProduct().getId() + "' )";
-        return sql;
+        statement.setString(1, item.getId());
+        statement.setString(2, item.getName());
+        statement.setDouble(3, item.getUnitCost());
+        statement.setString(4, item.getImagePath());
+        statement.setString(5, item.getProduct().getId());
     }
 
-    protected String getDeleteSqlStatement(final String id) {
-        final String sql;
-        sql = "DELETE FROM " + TABLE + " WHERE ID = '" + id + "'";
-        return sql;
+    protected String getDeleteSqlStatement() {
+        return DELETE_SQL;
     }
 
-    protected String getUpdateSqlStatement(final DomainObject object) {
+    protected String getUpdateSqlStatement() {
+        return UPDATE_SQL;
+    }
+
+    protected void bindUpdateSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
         final Item item = (Item) object;
-        final String sql;
-        sql = "UPDATE " + TABLE + " SET NAME = '" + item.getName() + "', UNITCOST = '" + item.getUnitCost() + "', IMAGEPATH = '" + item.getImagePath() + "', PRODUCT_FK = '" + item.getProduct().getId() + "' WHERE ID = '" + item.getId() + "' ";
-        return sql;
+        statement.setString(1, item.getName());
+        statement.setDouble(2, item.getUnitCost());
+        statement.setString(3, item.getImagePath());
+        statement.setString(4, item.getProduct().getId());
+        statement.setString(5, item.getId());
     }
 
-    protected String getSelectSqlStatement(final String id) {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = '" + id + "' ";
-        return sql;
+    protected String getSelectSqlStatement() {
+        return SELECT_SQL;
     }
 
     protected String getSelectAllSqlStatement() {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE;
-        return sql;
+        return SELECT_ALL_SQL;
     }
 
     protected DomainObject transformResultset2DomainObject(final ResultSet resultSet) throws SQLException {
@@ -190,4 +144,11 @@ public final class ItemDAO extends AbstractDataAccessObject {
 	protected String getCounterName() {
 		return COUNTER_NAME;
 	}
+
+    protected DomainObject copy(final DomainObject object) {
+        final Item item = (Item) object;
+        final Item copy = new Item(item.getId(), item.getName(), item.getUnitCost(), new Product(item.getProduct().getId()));
+        copy.setImagePath(item.getImagePath());
+        return copy;
+    }
 }
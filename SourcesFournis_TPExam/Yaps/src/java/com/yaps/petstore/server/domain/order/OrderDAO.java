@@ -4,6 +4,7 @@ import com.yaps.petstore.server.domain.DomainObject;
 import com.yaps.petstore.server.domain.customer.Customer;
 import com.yaps.petstore.server.util.persistence.AbstractDataAccessObject;
 
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Timestamp;
@@ -23,46 +24,69 @@ public final class OrderDAO extends AbstractDataAccessObject {
     // Used to get a unique id with the UniqueIdGenerator
     private static final String COUNTER_NAME = "Order";
 
+    // Statement templates
+    private static final String INSERT_SQL = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM " + TABLE + " WHERE ID = ?";
+    private static final String UPDATE_SQL = "UPDATE " + TABLE + " SET FIRSTNAME = ?, LASTNAME = ?, STREET1 = ?, STREET2 = ?, CITY = ?, STATE = ?, ZIPCODE = ?, COUNTRY = ?, CREDITCARDNUMBER = ?, CREDITCARDTYPE = ?, CREDITCARDEXPIRYDATE = ?, CUSTOMER_FK = ? WHERE ID = ?";
+    private static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = ?";
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM " + TABLE;
+
     // ======================================
     // =           Business methods         =
     // ======================================
-    protected String getInsertSqlStatement(final DomainObject object) {
+    protected String getInsertSqlStatement() {
+        return INSERT_SQL;
+    }
+
+    protected void bindInsertSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
         final Order order = (Order) object;
-        final String sql;
-        sql = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES ('" + order.getId() + "', '" 
-        + new Timestamp(order.getOrderDate().getTime()) + "', '" 
-        + order.getFirstname() + "', '" + order.getLastname() + "', '" 
-        + order.getStreet1() + "', '" + order.getStreet2() + "', '" 
-        + order.getCity() + "', '" + order.getState() + "', '" 
-        + order.getZipcode() + "', '" + order.getCountry() + "', '" 
-        + order.getCreditCardNumber() + "', '" + order.getCreditCardType() + "', '" 
-        + order.getCreditCardExpiryDate() + "', '" + order.getCustomer().getId() + "' )";
-        return sql;
+        statement.setString(1, order.getId());
+        statement.setTimestamp(2, new Timestamp(order.getOrderDate().getTime()));
+        statement.setString(3, order.getFirstname());
+        statement.setString(4, order.getLastname());
+        statement.setString(5, order.getStreet1());
+        statement.setString(6, order.getStreet2());
+        statement.setString(7, order.getCity());
+        statement.setString(8, order.getState());
+        statement.setString(9, order.getZipcode());
+        statement.setString(10, order.getCountry());
+        statement.setString(11, order.getCreditCardNumber());
+        statement.setString(12, order.getCreditCardType());
+        statement.setString(13, order.getCreditCardExpiryDate());
+        statement.setString(14, order.getCustomer().getId());
+    }
+
+    protected String getDeleteSqlStatement() {
+        return DELETE_SQL;
     }
 
-    protected String getDeleteSqlStatement(final String id) {
-        final String sql;
-        sql = "DELETE FROM " + TABLE + " WHERE ID = '" + id + "'";
-        return sql;
+    protected String getUpdateSqlStatement() {
+        return UPDATE_SQL;
     }
 
-    protected String getUpdateSqlStatement(final DomainObject object) {
+    protected void bindUpdateSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
         final Order order = (Order) object;
-        final String sql;
-        sql = "UPDATE " + TABLE + " SET FIRSTNAME = '" + order.getFirstname() + "', LASTNAME = '" + order.getLastname() + "', STREET1 = '" + order.getStreet1() + "', STREET2 = '" + order.getStreet2() + "', CITY = '" + order.getCity() + "', STATE = '" + order.getState() + "', ZIPCODE = '" + order.getZipcode() + "', COUNTRY = '" + order.getCountry() + "', CREDITCARDNUMBER = '" + order.getCreditCardNumber() + "', CREDITCARDTYPE = '" + order.getCreditCardType() + "', CREDITCARDEXPIRYDATE = '" + order.getCreditCardExpiryDate() + "', CUSTOMER_FK = '" + order.getCustomer().getId() + "' WHERE ID = '" + order.getId() + "' ";
-        return sql;
+        statement.setString(1, order.getFirstname());
+        statement.setString(2, order.getLastname());
+        statement.setString(3, order.getStreet1());
+        statement.setString(4, order.getStreet2());
+        statement.setString(5, order.getCity());
+        statement.setString(6, order.getState());
+        statement.setString(7, order.getZipcode());
+        statement.setString(8, order.getCountry());
+        statement.setString(9, order.getCreditCardNumber());
+        statement.setString(10, order.getCreditCardType());
+        statement.setString(11, order.getCreditCardExpiryDate());
+        statement.setString(12, order.getCustomer().getId());
+        statement.setString(13, order.getId());
     }
 
-    protected String getSelectSqlStatement(final String id) {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = '" + id + "' ";
-        return sql;
+    protected String getSelectSqlStatement() {
+        return SELECT_SQL;
     }
 
     protected String getSelectAllSqlStatement() {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE;
-        return sql;
+        return SELECT_ALL_SQL;
     }
 
     protected DomainObject transformResultset2DomainObject(final ResultSet resultSet) throws SQLException {
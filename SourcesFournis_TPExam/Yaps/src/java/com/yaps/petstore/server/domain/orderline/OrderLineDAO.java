@@ -5,14 +5,11 @@ import com.yaps.petstore.server.domain.item.Item;
 import com.yaps.petstore.server.domain.order.Order;
 import com.yaps.petstore.common.exception.DataAccessException;
 import com.yaps.petstore.common.exception.ObjectNotFoundException;
-import com.yaps.petstore.common.logging.Trace;
 import com.yaps.petstore.server.util.persistence.AbstractDataAccessObject;
 
-import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.Collection;
 
 public final class OrderLineDAO extends AbstractDataAccessObject {
@@ -25,6 +22,14 @@ public final class OrderLineDAO extends AbstractDataAccessObject {
     // Used to get a unique id with the UniqueIdGenerator
     private static final String COUNTER_NAME = "OrderLine";
 
+    // Statement templates
+    private static final String INSERT_SQL = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES (?, ?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM " + TABLE + " WHERE ID = ?";
+    private static final String UPDATE_SQL = "UPDATE " + TABLE + " SET QUANTITY = ?, UNITCOST = ?, ITEM_FK = ? WHERE ID = ?";
+    private static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = ?";
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM " + TABLE;
+    private static final String WHERE_ORDER = "ORDER_FK = ?";
+
 
     // ======================================
     // =           Business methods         =
@@ -49,81 +54,44 @@ public final class OrderLineDAO extends AbstractDataAccessObject {
      * @throws DataAccessException     is thrown if there's a persistent problem
      */
     public Collection selectAll(final String orderId) throws ObjectNotFoundException {
-        final String mname = "selectAll";
-        Trace.entering(getCname(), mname, orderId);
-
-        Connection connection = null;
-        Statement statement = null;
-        ResultSet resultSet = null;
-        final Collection orderLines = new ArrayList();
-        OrderLine orderLine;
-
-        try {
-            // Gets a database connection
-            connection = getConnection();
-            statement = connection.createStatement();
-
-            // Select a Row
-            final String sql = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ORDER_FK = '" + orderId + "'";
-            resultSet = statement.executeQuery(sql);
-
-            while (resultSet.next()) {
-                orderLine = new OrderLine(resultSet.getString(1), resultSet.getInt(2), resultSet.getDouble(3), new Order(resultSet.getString(4)), new Item(resultSet.getString(5)));
-                // Set data to the collection
-                orderLines.add(orderLine);
-            }
-
-            if (orderLines.isEmpty())
-                throw new ObjectNotFoundException();
-
-        } catch (SQLException e) {
-            // A Severe SQL Exception is caught
-            displaySqlException(e);
-            throw new DataAccessException("Cannot get data from the database: " + e.getMessage(), e);
-        } finally {
-            // Close
-            try {
-                if (resultSet != null) resultSet.close();
-                if (statement != null) statement.close();
-                if (connection != null) connection.close();
-            } catch (SQLException e) {
-                displaySqlException("Cannot close connection", e);
-                throw new DataAccessException("Cannot close the database connection", e);
-            }
-        }
-        return orderLines;
+        return selectAllWhere(WHERE_ORDER, new Object[]{orderId}, "");
+    }
+
+    protected String getInsertSqlStatement() {
+        return INSERT_SQL;
     }
 
-    protected String getInsertSqlStatement(final DomainObject object) {
+    protected void bindInsertSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
         final OrderLine orderLine = (OrderLine) object;
-        final String sql;
-        sql = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES ('" + orderLine.getId() + "', '" + orderLine.getQuantity() + "', '" + orderLine.getUnitCost() + "', '" + orderLine.getOrder().getId() + "', '" + orderLine.getItem().getId() + "' )";
-        return sql;
+        statement.setString(1, orderLine.getId());
+        statement.setInt(2, orderLine.getQuantity());
+        statement.setDouble(3, orderLine.getUnitCost());
+        statement.setString(4, orderLine.getOrder().getId());
+        statement.setString(5, orderLine.getItem().getId());
+    }
+
+    protected String getDeleteSqlStatement() {
+        return DELETE_SQL;
     }
 
-    protected String getDeleteSqlStatement(final String id) {
-        final String sql;
-        sql = "DELETE FROM " + TABLE + " WHERE ID = '" + id + "'";
-        return sql;
+    protected String getUpdateSqlStatement() {
+        return UPDATE_SQL;
     }
 
-    protected String getUpdateSqlStatement(final DomainObject object) {
+    protected void bindUpdateSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
         final OrderLine orderLine = (OrderLine) object;
-        final String sql;
-        sql = "UPDATE " + TABLE + " SET QUANTITY = '" + orderLine.getQuantity() + "', UNITCOST = '" + orderLine.getUnitCost() + "', ITEM_FK = '" + orderLine.getItem().getId() + "' WHERE ID = '" + orderLine.getId() + "' ";
-        return sql;
+        statement.setInt(1, orderLine.getQuantity());
+        statement.setDouble(2, orderLine.getUnitCost());
+        statement.setString(3, orderLine.getItem().getId());
+        statement.setString(4, orderLine.getId());
     }
 
-    protected String getSelectSqlStatement(final String id) {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = '" + id + "' ";
-        return sql;
+    protected String getSelectSqlStatement() {
+        return SELECT_SQL;
     }
 
     protected String getSelectAllSqlStatement() {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE;
-        return sql;
+        return SELECT_ALL_SQL;
     }
 
     protected DomainObject transformResultset2DomainObject(final ResultSet resultSet) throws SQLException {
@@ -2,16 +2,14 @@ package com.yaps.petstore.server.domain.product;
 
 import com.yaps.petstore.common.exception.DataAccessException;
 import com.yaps.petstore.common.exception.ObjectNotFoundException;
-import com.yaps.petstore.common.logging.Trace;
 import com.yaps.petstore.server.domain.DomainObject;
 import com.yaps.petstore.server.domain.category.Category;
+import com.yaps.petstore.server.domain.item.ItemDAO;
 import com.yaps.petstore.server.util.persistence.AbstractDataAccessObject;
 
-import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.Collection;
 
 /**
@@ -29,6 +27,21 @@ public final class ProductDAO extends AbstractDataAccessObject {
     // Used to get a unique id with the UniqueIdGenerator
     private static final String COUNTER_NAME = "Product";
 
+    // Statement templates
+    private static final String INSERT_SQL = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES (?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM " + TABLE + " WHERE ID = ?";
+    private static final String UPDATE_SQL = "UPDATE " + TABLE + " SET NAME = ?, DESCRIPTION = ?, CATEGORY_FK = ? WHERE ID = ?";
+    private static final String SELECT_SQL = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = ?";
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM " + TABLE;
+    private static final String WHERE_CATEGORY = "CATEGORY_FK = ?";
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    public ProductDAO() {
+        super(ENTITY_CACHE_SIZE, ENTITY_CACHE_TIME_TO_LIVE);
+    }
+
     // ======================================
     // =           Business methods         =
     // ======================================
@@ -53,79 +66,57 @@ public final class ProductDAO extends AbstractDataAccessObject {
      * @throws DataAccessException     is thrown if there's a persistent problem
      */
     public Collection selectAll(final String categoryId) throws ObjectNotFoundException {
-        final String mname = "selectAll";
-        Trace.entering(getCname(), mname, categoryId);
-
-        Connection connection = null;
-        Statement statement = null;
-        ResultSet resultSet = null;
-        final Collection products = new ArrayList();
-
-        try {
-            // Gets a database connection
-            connection = getConnection();
-            statement = connection.createStatement();
-
-            // Select a Row
-            final String sql = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE CATEGORY_FK = '" + categoryId + "'";
-            resultSet = statement.executeQuery(sql);
-
-            while (resultSet.next()) {
-                // Set data to the collection
-                products.add(transformResultset2DomainObject(resultSet));
-            }
-
-            if (products.isEmpty())
-                throw new ObjectNotFoundException();
-
-        } catch (SQLException e) {
-            // A Severe SQL Exception is caught
-            displaySqlException(e);
-            throw new DataAccessException("Cannot get data from the database: " + e.getMessage(), e);
-        } finally {
-            // Close
-            try {
-                if (resultSet != null) resultSet.close();
-                if (statement != null) statement.close();
-                if (connection != null) connection.close();
-            } catch (SQLException e) {
-                displaySqlException("Cannot close connection", e);
-                throw new DataAccessException("Cannot close the database connection", e);
-            }
-        }
-        return products;
+        return selectAllWhere(WHERE_CATEGORY, new Object[]{categoryId}, "");
     }
 
-    protected String getInsertSqlStatement(final DomainObject object) {
+    /**
+     * This method returns a page of products ordered by id for a given category id.
+     *
+     * @param categoryId
+     * @param afterId id of the last product of the previous page, null for the first page
+     * @param maxResults maximum number of products returned
+     * @return collection of Products
+     * @throws ObjectNotFoundException is thrown if the page is empty
+     * @throws DataAccessException     is thrown if there's a persistent problem
+     */
+    public Collection<DomainObject> selectPage(final String categoryId, final String afterId, final int maxResults) throws ObjectNotFoundException {
+        return selectPage(WHERE_CATEGORY, new Object[]{categoryId}, afterId, maxResults);
+    }
+
+    protected String getInsertSqlStatement() {
+        return INSERT_SQL;
+    }
+
+    protected void bindInsertSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
         final Product product = (Product) object;
-        final String sql;
-        sql = "INSERT INTO " + TABLE + "(" + COLUMNS + ") VALUES ('" + product.getId() + "', '" + product.getName() + "', '" + product.getDescription() + "', '" + product.getCategory().getId() + "' )";
-        return sql;
+        statement.setString(1, product.getId());
+        statement.setString(2, product.getName());
+        statement.setString(3, product.getDescription());
+        statement.setString(4, product.getCategory().getId());
+    }
+
+    protected String getDeleteSqlStatement() {
+        return DELETE_SQL;
     }
 
-    protected String getDeleteSqlStatement(final String id) {
-        final String sql;
-        sql = "DELETE FROM " + TABLE + " WHERE ID = '" + id + "'";
-        return sql;
+    protected String getUpdateSqlStatement() {
+        return UPDATE_SQL;
     }
 
-    protected String getUpdateSqlStatement(final DomainObject object) {
+    protected void bindUpdateSqlStatement(final PreparedStatement statement, final DomainObject object) throws SQLException {
         final Product product = (Product) object;
-        final String sql;
-        sql = "UPDATE " + TABLE + " SET NAME = '" + product.getName() + "', DESCRIPTION = '" + product.getDescription() + "', CATEGORY_FK = '" + product.getCategory().getId() + "' WHERE ID = '" + product.getId() + "' ";
-        return sql;
+        statement.setString(1, product.getName());
+        statement.setString(2, product.getDescription());
+        statement.setString(3, product.getCategory().getId());
+        statement.setString(4, product.getId());
     }
 
-    protected String getSelectSqlStatement(final String id) {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE + " WHERE ID = '" + id + "' ";
-        return sql;
+    protected String getSelectSqlStatement() {
+        return SELECT_SQL;
     }
 
     protected String getSelectAllSqlStatement() {
-        final String sql;
-        sql = "SELECT " + COLUMNS + " FROM " + TABLE;
-        return sql;
+        return SELECT_ALL_SQL;
     }
 
     protected DomainObject transformResultset2DomainObject(final ResultSet resultSet) throws SQLException {
@@ -137,4 +128,14 @@ public final class ProductDAO extends AbstractDataAccessObject {
 	protected String getCounterName() {
 		return COUNTER_NAME;
 	}
+
+    protected DomainObject copy(final DomainObject object) {
+        final Product product = (Product) object;
+        return new Product(product.getId(), product.getName(), product.getDescription(), new Category(product.getCategory().getId()));
+    }
+
+    protected Class<?>[] getCascadedDAOClasses() {
+        // The database deletes them with the row
+        return new Class<?>[]{ItemDAO.class};
+    }
 }
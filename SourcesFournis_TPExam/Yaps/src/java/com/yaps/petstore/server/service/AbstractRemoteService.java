@@ -2,8 +2,10 @@ package com.yaps.petstore.server.service;
 
 import java.rmi.RemoteException;
 import java.rmi.server.UnicastRemoteObject;
+import java.util.List;
 
 import com.yaps.petstore.common.exception.CheckException;
+import com.yaps.petstore.server.domain.DomainObject;
 
 /**
  * A service is a class that follows the Facade Design Pattern. It gives a set of services
@@ -18,6 +20,9 @@ public abstract class AbstractRemoteService extends UnicastRemoteObject {
     // Used for logging
     protected final transient String _cname = this.getClass().getName();
 
+    // Largest page a client can ask for
+    protected static final int MAX_PAGE_SIZE = 100;
+
     // ======================================
     // =            Constructors            =
     // ======================================
@@ -29,6 +34,26 @@ public abstract class AbstractRemoteService extends UnicastRemoteObject {
     		throw new CheckException("Id should not be null or empty");    	
     }
 
+    protected void checkPageSize(final int pageSize) throws CheckException {
+    	if ( pageSize <= 0 || pageSize > MAX_PAGE_SIZE )
+    		throw new CheckException("Page size should be between 1 and " + MAX_PAGE_SIZE);
+    }
+
+    /**
+     * The services read one object more than the page size to know if there is a
+     * next page. This method removes this extra object from the list.
+     *
+     * @param objects  objects read for the page
+     * @param pageSize size of the page
+     * @return the last object of the page if there is a next page, null otherwise
+     */
+    protected DomainObject trimPage(final List<? extends DomainObject> objects, final int pageSize) {
+    	if ( objects.size() <= pageSize )
+    		return null;
+    	objects.subList(pageSize, objects.size()).clear();
+    	return objects.get(pageSize - 1);
+    }
+
 	public String getCname() {
 		return this.getClass().getName();
 	}
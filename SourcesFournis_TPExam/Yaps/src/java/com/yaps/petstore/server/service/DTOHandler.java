@@ -0,0 +1,20 @@
+package com.yaps.petstore.server.service;
+
+import com.yaps.petstore.common.dto.DataTransfertObject;
+
+/**
+ * This interface is implemented by the callers of the streaming finders of the
+ * services (exports, batches) running in the JVM of the services. Each DTO is given
+ * to the handler as soon as its row is read and is not kept by the service, so a
+ * listing of a whole table runs in constant memory. A handler is not sent to a
+ * remote service: the remote clients read the large listings by pages.
+ */
+public interface DTOHandler {
+
+    /**
+     * This method is called once for each object of the listing.
+     *
+     * @param dto the DTO of the current object
+     */
+    void handleDTO(DataTransfertObject dto);
+}
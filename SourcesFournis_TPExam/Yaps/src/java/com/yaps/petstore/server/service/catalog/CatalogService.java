@@ -2,10 +2,13 @@ package com.yaps.petstore.server.service.catalog;
 
 import com.yaps.petstore.common.delegate.CatalogServiceRemote;
 import com.yaps.petstore.common.dto.CategoryDTO;
+import com.yaps.petstore.common.dto.DataTransfertObject;
 import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.PageDTO;
 import com.yaps.petstore.common.dto.ProductDTO;
 import com.yaps.petstore.common.exception.*;
 import com.yaps.petstore.common.logging.Trace;
+import com.yaps.petstore.server.domain.DomainObject;
 import com.yaps.petstore.server.domain.category.Category;
 import com.yaps.petstore.server.domain.category.CategoryDAO;
 import com.yaps.petstore.server.domain.item.Item;
@@ -13,11 +16,16 @@ import com.yaps.petstore.server.domain.item.ItemDAO;
 import com.yaps.petstore.server.domain.product.Product;
 import com.yaps.petstore.server.domain.product.ProductDAO;
 import com.yaps.petstore.server.service.AbstractRemoteService;
+import com.yaps.petstore.server.service.DTOHandler;
+import com.yaps.petstore.server.util.persistence.RowHandler;
 
 import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 
 /**
  * This class is a facade for all catalog services.
@@ -275,6 +283,30 @@ public final class CatalogService extends AbstractRemoteService implements Catal
         return productsDTO;
     }
 
+    public PageDTO findProducts(final String categoryId, final String pageToken, final int pageSize) throws FinderException, CheckException {
+        final String mname = "findProducts";
+        Trace.entering(getCname(), mname, new Object[]{categoryId, pageToken, new Integer(pageSize)});
+
+        checkId(categoryId);
+        checkPageSize(pageSize);
+
+        // Finds the products of the page, and one more to know if there is a next page
+        List<DomainObject> products;
+        try {
+            products = new ArrayList<DomainObject>(_productDAO.selectPage(categoryId, pageToken, pageSize + 1));
+        } catch (ObjectNotFoundException e) {
+            // An empty page is not an error
+            products = new ArrayList<DomainObject>();
+        }
+        final DomainObject last = trimPage(products, pageSize);
+
+        // Transforms domain objects into DTOs, the id of the last one is the next page token
+        final PageDTO page = new PageDTO(transformProducts2DTOs(products), last == null ? null : last.getId());
+
+        Trace.exiting(getCname(), mname, page);
+        return page;
+    }
+
     // ======================================
     // =        Item Business methods       =
     // ======================================
@@ -394,20 +426,64 @@ public final class CatalogService extends AbstractRemoteService implements Catal
         }
     }
 
+    /**
+     * The whole listing is returned to the remote clients, it holds all the items:
+     * the large catalogs are read by pages, or streamed with {@link #findItems(DTOHandler)}.
+     */
     public Collection findItems() throws FinderException {
         final String mname = "findItems";
         Trace.entering(_cname, mname);
 
-        // Finds all the objects
-        final Collection items = _itemDAO.findAll();
-
-        // Transforms domain objects into DTOs
-        final Collection itemsDTO = transformItems2DTOs(items);
+        final Collection<DataTransfertObject> itemsDTO = new ArrayList<DataTransfertObject>();
+        findItems(new DTOHandler() {
+            public void handleDTO(final DataTransfertObject dto) {
+                itemsDTO.add(dto);
+            }
+        });
+        if (itemsDTO.isEmpty())
+            throw new ObjectNotFoundException();
 
         Trace.exiting(_cname, mname, new Integer(itemsDTO.size()));
         return itemsDTO;
     }
 
+    /**
+     * This method gives the DTO of each item, with its product, to a handler as the
+     * rows are read through a cursor. Only the products are kept in memory.
+     *
+     * @param handler receives the ItemDTOs, it must not call the services while the cursor is open
+     * @return the number of items read, 0 if there is none
+     * @throws FinderException is thrown if the products cannot be read
+     */
+    public int findItems(final DTOHandler handler) throws FinderException {
+        final String mname = "findItems";
+        Trace.entering(_cname, mname, handler);
+
+        // Reads the products first: the handler must not query the database while
+        // the cursor holds its connection
+        final Map<String, Product> products = new HashMap<String, Product>();
+        try {
+            for (Object object : _productDAO.findAll()) {
+                final Product product = (Product) object;
+                products.put(product.getId(), product);
+            }
+        } catch (ObjectNotFoundException e) {
+            // No product, no item
+            return 0;
+        }
+
+        // Reads the items through a cursor, each DTO is handed over at once
+        final int count = _itemDAO.selectAll(new RowHandler() {
+            public void handleRow(final DomainObject object) {
+                final Item item = (Item) object;
+                handler.handleDTO(transformItem2DTO(item, products.get(item.getProduct().getId())));
+            }
+        });
+
+        Trace.exiting(_cname, mname, new Integer(count));
+        return count;
+    }
+
     public Collection findItems(final String productId) throws FinderException {
         final String mname = "findItems";
         Trace.entering(getCname(), mname, productId);
@@ -422,6 +498,30 @@ public final class CatalogService extends AbstractRemoteService implements Catal
         return itemsDTO;
     }
 
+    public PageDTO findItems(final String productId, final String pageToken, final int pageSize) throws FinderException, CheckException {
+        final String mname = "findItems";
+        Trace.entering(getCname(), mname, new Object[]{productId, pageToken, new Integer(pageSize)});
+
+        checkId(productId);
+        checkPageSize(pageSize);
+
+        // Finds the items of the page, and one more to know if there is a next page
+        List<DomainObject> items;
+        try {
+            items = new ArrayList<DomainObject>(_itemDAO.selectPage(productId, pageToken, pageSize + 1));
+        } catch (ObjectNotFoundException e) {
+            // An empty page is not an error
+            items = new ArrayList<DomainObject>();
+        }
+        final DomainObject last = trimPage(items, pageSize);
+
+        // Transforms domain objects into DTOs, the id of the last one is the next page token
+        final PageDTO page = new PageDTO(transformItems2DTOs(items), last == null ? null : last.getId());
+
+        Trace.exiting(getCname(), mname, page);
+        return page;
+    }
+
     public Collection searchItems(final String keyword) throws FinderException {
         final String mname = "searchItems";
         Trace.entering(getCname(), mname, keyword);
@@ -487,11 +587,6 @@ public final class CatalogService extends AbstractRemoteService implements Catal
 
     // Item
     private ItemDTO transformItem2DTO(final Item item) {
-        final ItemDTO itemDTO = new ItemDTO();
-        itemDTO.setId(item.getId());
-        itemDTO.setName(item.getName());
-        itemDTO.setUnitCost(item.getUnitCost());
-        itemDTO.setImagePath(item.getImagePath());
         // Retreives the data for the linked object
         Product product = null;
         try {
@@ -499,6 +594,15 @@ public final class CatalogService extends AbstractRemoteService implements Catal
         } catch (FinderException e) {
             // No exception can occur
         }
+        return transformItem2DTO(item, product);
+    }
+
+    private ItemDTO transformItem2DTO(final Item item, final Product product) {
+        final ItemDTO itemDTO = new ItemDTO();
+        itemDTO.setId(item.getId());
+        itemDTO.setName(item.getName());
+        itemDTO.setUnitCost(item.getUnitCost());
+        itemDTO.setImagePath(item.getImagePath());
         itemDTO.setProductId(product.getId());
         itemDTO.setProductName(product.getName());
         itemDTO.setProductDescription(product.getDescription());
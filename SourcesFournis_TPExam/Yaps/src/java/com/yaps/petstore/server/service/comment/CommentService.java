@@ -2,18 +2,25 @@ package com.yaps.petstore.server.service.comment;
 
 import com.yaps.petstore.common.delegate.CommentServiceRemote;
 import com.yaps.petstore.common.dto.CommentDTO;
+import com.yaps.petstore.common.dto.DataTransfertObject;
+import com.yaps.petstore.common.dto.PageDTO;
 import com.yaps.petstore.common.exception.*;
 import com.yaps.petstore.common.logging.Trace;
+import com.yaps.petstore.server.domain.DomainObject;
 import com.yaps.petstore.server.domain.comment.Comment;
 import com.yaps.petstore.server.domain.comment.CommentDAO;
 import com.yaps.petstore.server.domain.customer.Customer;
 import com.yaps.petstore.server.domain.customer.CustomerDAO;
 import com.yaps.petstore.server.service.AbstractRemoteService;
+import com.yaps.petstore.server.service.DTOHandler;
+import com.yaps.petstore.server.util.persistence.RowHandler;
 
 import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * This class is a facade for all comment services.
@@ -25,6 +32,7 @@ public final class CommentService extends AbstractRemoteService implements Comme
     // ======================================
     private static final CommentDAO _dao = new CommentDAO();
     private static final CustomerDAO _customerDAO = new CustomerDAO();
+    private static final String TOKEN_SEPARATOR = ":";
 
     // ======================================
     // =            Constructors            =
@@ -132,27 +140,54 @@ public final class CommentService extends AbstractRemoteService implements Comme
         }
     }
 
+    /**
+     * The whole listing is returned to the remote clients, it holds all the comments:
+     * the large listings are read by pages, or streamed with {@link #findComments(DTOHandler)}.
+     */
     public Collection findComments() throws FinderException {
         final String mname = "findComments";
         Trace.entering(getCname(), mname);
 
-        // Finds all the objects
-        final Collection comments = _dao.selectAllWhere("", " DATE DESC ");
-
-        // Transforms domain objects into DTOs
-        final Collection commentsDTO = transformComments2DTOs(comments);
+        final Collection<DataTransfertObject> commentsDTO = new ArrayList<DataTransfertObject>();
+        findComments(new DTOHandler() {
+            public void handleDTO(final DataTransfertObject dto) {
+                commentsDTO.add(dto);
+            }
+        });
+        if (commentsDTO.isEmpty())
+            throw new ObjectNotFoundException();
 
         Trace.exiting(getCname(), mname, new Integer(commentsDTO.size()));
         return commentsDTO;
     }
 
+    /**
+     * This method gives the DTO of each comment, the most recent first, to a handler
+     * as the rows are read through a cursor. Nothing is kept in memory.
+     *
+     * @param handler receives the CommentDTOs, it must not call the services while the cursor is open
+     * @return the number of comments read, 0 if there is none
+     */
+    public int findComments(final DTOHandler handler) {
+        final String mname = "findComments";
+        Trace.entering(getCname(), mname, handler);
+
+        final int count = _dao.selectAllWhere("", null, " DATE DESC ", new RowHandler() {
+            public void handleRow(final DomainObject object) {
+                handler.handleDTO(transformComment2DTO((Comment) object));
+            }
+        });
+
+        Trace.exiting(getCname(), mname, new Integer(count));
+        return count;
+    }
+
     public Collection findCommentsFromCustomer(String customerId) throws FinderException {
         final String mname = "findCommentsFromCustomer";
         Trace.entering(getCname(), mname);
 
         // Finds all the objects
-        String whereClause = "CUSTOMER_FK = '" + customerId + "'";
-        final Collection comments = _dao.selectAllWhere(whereClause, " DATE DESC ");
+        final Collection<DomainObject> comments = _dao.selectAllWhere("CUSTOMER_FK = ?", new Object[]{customerId}, " DATE DESC ");
 
         // Transforms domain objects into DTOs
         final Collection commentsDTO = transformComments2DTOs(comments);
@@ -161,9 +196,64 @@ public final class CommentService extends AbstractRemoteService implements Comme
         return commentsDTO;
     }
 
+    public PageDTO findComments(final String pageToken, final int pageSize) throws FinderException, CheckException {
+        final String mname = "findComments";
+        Trace.entering(getCname(), mname, new Object[]{pageToken, new Integer(pageSize)});
+
+        final PageDTO page = findCommentPage(null, pageToken, pageSize);
+
+        Trace.exiting(getCname(), mname, page);
+        return page;
+    }
+
+    public PageDTO findCommentsFromCustomer(final String customerId, final String pageToken, final int pageSize) throws FinderException, CheckException {
+        final String mname = "findCommentsFromCustomer";
+        Trace.entering(getCname(), mname, new Object[]{customerId, pageToken, new Integer(pageSize)});
+
+        checkId(customerId);
+        final PageDTO page = findCommentPage(customerId, pageToken, pageSize);
+
+        Trace.exiting(getCname(), mname, page);
+        return page;
+    }
+
     // ======================================
     // =          Private Methods           =
     // ======================================
+    /**
+     * Comments are listed from the most recent one, so a page token is made of the
+     * date and the id of the last comment of the previous page: "time:id".
+     */
+    private PageDTO findCommentPage(final String customerId, final String pageToken, final int pageSize) throws FinderException, CheckException {
+        checkPageSize(pageSize);
+
+        Date afterDate = null;
+        String afterId = null;
+        if (pageToken != null) {
+            final int separator = pageToken.indexOf(TOKEN_SEPARATOR);
+            try {
+                afterDate = new Date(Long.parseLong(pageToken.substring(0, separator)));
+                afterId = pageToken.substring(separator + 1);
+            } catch (RuntimeException e) {
+                throw new CheckException("Invalid page token " + pageToken);
+            }
+        }
+
+        // Finds the comments of the page, and one more to know if there is a next page
+        List<DomainObject> comments;
+        try {
+            comments = new ArrayList<DomainObject>(_dao.selectPage(customerId, afterDate, afterId, pageSize + 1));
+        } catch (ObjectNotFoundException e) {
+            // An empty page is not an error
+            comments = new ArrayList<DomainObject>();
+        }
+        final Comment last = (Comment) trimPage(comments, pageSize);
+
+        // Transforms domain objects into DTOs
+        final String nextPageToken = last == null ? null : last.getDate().getTime() + TOKEN_SEPARATOR + last.getId();
+        return new PageDTO(transformComments2DTOs(comments), nextPageToken);
+    }
+
     private CommentDTO transformComment2DTO(final Comment comment) {
         final CommentDTO commentDTO = new CommentDTO();
         commentDTO.setId(comment.getId());
@@ -2,8 +2,10 @@ package com.yaps.petstore.server.service.customer;
 
 import com.yaps.petstore.common.delegate.CustomerServiceRemote;
 import com.yaps.petstore.common.dto.CustomerDTO;
+import com.yaps.petstore.common.dto.PageDTO;
 import com.yaps.petstore.common.exception.*;
 import com.yaps.petstore.common.logging.Trace;
+import com.yaps.petstore.server.domain.DomainObject;
 import com.yaps.petstore.server.domain.customer.Customer;
 import com.yaps.petstore.server.domain.customer.CustomerDAO;
 import com.yaps.petstore.server.service.AbstractRemoteService;
@@ -13,6 +15,7 @@ import java.rmi.RemoteException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * This class is a facade for all customer services.
@@ -184,6 +187,29 @@ public final class CustomerService extends AbstractRemoteService implements Cust
         return customersDTO;
     }
 
+    public PageDTO findCustomers(final String pageToken, final int pageSize) throws FinderException, CheckException {
+        final String mname = "findCustomers";
+        Trace.entering(getCname(), mname, new Object[]{pageToken, new Integer(pageSize)});
+
+        checkPageSize(pageSize);
+
+        // Finds the customers of the page, and one more to know if there is a next page
+        List<DomainObject> customers;
+        try {
+            customers = new ArrayList<DomainObject>(_dao.selectPage("", null, pageToken, pageSize + 1));
+        } catch (ObjectNotFoundException e) {
+            // An empty page is not an error
+            customers = new ArrayList<DomainObject>();
+        }
+        final DomainObject last = trimPage(customers, pageSize);
+
+        // Transforms domain objects into DTOs, the id of the last one is the next page token
+        final PageDTO page = new PageDTO(transformCustomers2DTOs(customers), last == null ? null : last.getId());
+
+        Trace.exiting(getCname(), mname, page);
+        return page;
+    }
+
     // ======================================
     // =          Private Methods           =
     // ======================================
@@ -19,6 +19,7 @@ import com.yaps.petstore.server.domain.orderline.OrderLine;
 import com.yaps.petstore.server.domain.orderline.OrderLineDAO;
 import com.yaps.petstore.server.service.AbstractRemoteService;
 import com.yaps.petstore.server.service.creditcard.CreditCardService;
+import com.yaps.petstore.server.util.persistence.TransactionContext;
 
 import java.rmi.RemoteException;
 import java.util.ArrayList;
@@ -71,31 +72,39 @@ public final class OrderService extends AbstractRemoteService implements OrderSe
         order.setCreditCardNumber(orderDTO.getCreditCardNumber());
         order.setCreditCardType(orderDTO.getCreditCardType());
 
-        // Checks if the credit card is valid
+        // Checks if the credit card is valid, before holding a database connection
         getCreditCardService().verifyCreditCard(order.getCreditCard());
 
-        // Creates the order
-        _orderDAO.insert(order);
-
-        // Creates all the orderLines linked with the order
-        Collection orderLines = new ArrayList();
-        for (Iterator iterator = orderDTO.getOrderLines().iterator(); iterator.hasNext();) {
-            final OrderLineDTO orderLineDTO = (OrderLineDTO) iterator.next();
-            // Finds the item
-            Item item = null;
-            try {
-                item = (Item)_itemDAO.findByPrimaryKey(orderLineDTO.getItemId());
-            } catch (FinderException e) {
-                throw new CreateException("Item must exist to create an order line");
+        // The order and its lines are created in one transaction
+        TransactionContext.begin();
+        try {
+            // Creates the order
+            _orderDAO.insert(order);
+
+            // Creates all the orderLines linked with the order
+            final Collection<OrderLine> orderLines = new ArrayList<OrderLine>();
+            for (Object object : orderDTO.getOrderLines()) {
+                final OrderLineDTO orderLineDTO = (OrderLineDTO) object;
+                // Finds the item
+                Item item = null;
+                try {
+                    item = (Item)_itemDAO.findByPrimaryKey(orderLineDTO.getItemId());
+                } catch (FinderException e) {
+                    throw new CreateException("Item must exist to create an order line");
+                }
+                // Transforms OrderLine DTO into domain object
+                final OrderLine orderLine = new OrderLine(orderLineDTO.getQuantity(), orderLineDTO.getUnitCost(), order, item);
+                orderLines.add(orderLine);
             }
-            // Transforms OrderLine DTO into domain object
-            final OrderLine orderLine = new OrderLine(orderLineDTO.getQuantity(), orderLineDTO.getUnitCost(), order, item);
-            // Creates the order line
-            _orderLineDAO.insert(orderLine);
-            orderLines.add(orderLine);
+            // Creates the order lines in one batch
+            _orderLineDAO.insertAll(orderLines);
+            // Sets orderLines into the order
+            order.setOrderLines(orderLines);
+
+            TransactionContext.commit();
+        } finally {
+            TransactionContext.end();
         }
-        // Sets orderLines into the order
-        order.setOrderLines(orderLines);
 
         // Transforms domain object into DTO
         final OrderDTO result = transformOrder2DTO(order);
@@ -130,18 +139,25 @@ public final class OrderService extends AbstractRemoteService implements OrderSe
 
         final Order order = new Order();
 
-        // Checks if the object exists
+        TransactionContext.begin();
         try {
-        	_orderDAO.findByPrimaryKey(orderId);
-        } catch (FinderException e) {
-            throw new RemoveException("Order must exist to be deleted");
-        }
+            // Checks if the object exists
+            try {
+            	_orderDAO.findByPrimaryKey(orderId);
+            } catch (FinderException e) {
+                throw new RemoveException("Order must exist to be deleted");
+            }
 
-        // Deletes the object
-        try {
-        	_orderDAO.remove(orderId);
-        } catch (ObjectNotFoundException e) {
-            throw new RemoveException("Customer must exist to be deleted");
+            // Deletes the object
+            try {
+            	_orderDAO.remove(orderId);
+            } catch (ObjectNotFoundException e) {
+                throw new RemoveException("Customer must exist to be deleted");
+            }
+
+            TransactionContext.commit();
+        } finally {
+            TransactionContext.end();
         }
     }
 
@@ -15,12 +15,20 @@ import java.util.Collection;
  * This class follows the Data Acces Object (DAO) Design Pattern.
  * It uses JDBC to store object values in a database.
  * Every concrete DAO class should extends this class.
+ * <p/>
+ * A DAO can keep the objects it reads by id in an {@link EntityCache} by calling
+ * the {@link #AbstractDataAccessObject(int, long) constructor} with a cache size and
+ * redefining {@link #copy(DomainObject)}. The cached objects are removed when the
+ * DAO writes them, and again after the commit when the write is made in a
+ * {@link TransactionContext}.
  */
 public abstract class AbstractDataAccessObject implements DataAccessConstants {
 
     // ======================================
     // =             Attributes             =
     // ======================================
+    // Objects read by id, null if the DAO has no cache
+    private final EntityCache _cache;
 
     // Used for logging
     private final transient String _cname = this.getClass().getName();
@@ -38,6 +46,27 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
         }
     }
 
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    /**
+     * Builds a DAO without cache: every select reads the database.
+     */
+    protected AbstractDataAccessObject() {
+        _cache = null;
+    }
+
+    /**
+     * Builds a DAO that keeps the objects read by {@link #select(String) select} in
+     * memory. The cache is shared by all the instances of the concrete DAO class.
+     *
+     * @param cacheSize       maximum number of objects in the cache
+     * @param cacheTimeToLive time (in ms) an object stays in the cache
+     */
+    protected AbstractDataAccessObject(final int cacheSize, final long cacheTimeToLive) {
+        _cache = EntityCache.getInstance(getClass().getName(), cacheSize, cacheTimeToLive);
+    }
+
     // ======================================
     // =           Business methods         =
     // ======================================
@@ -64,18 +93,31 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
         final String mname = "select";
         Trace.entering(getCname(), mname, id);
 
+        // A transaction may see its own uncommitted work, it neither reads nor fills the cache
+        final boolean cached = _cache != null && id != null && !TransactionContext.isActive();
+        long generation = 0;
+        if (cached) {
+            final DomainObject object = _cache.get(id);
+            if (object != null) {
+                Trace.exiting(getCname(), mname, object);
+                return copy(object);
+            }
+            generation = _cache.getGeneration();
+        }
+
         Connection connection = null;
-        Statement statement = null;
+        PreparedStatement statement = null;
         ResultSet resultSet = null;
         DomainObject object;
 
         try {
             // Gets a database connection
             connection = getConnection();
-            statement = connection.createStatement();
+            statement = connection.prepareStatement(getSelectSqlStatement());
+            statement.setString(1, id);
 
             // Select a Row
-            resultSet = statement.executeQuery(getSelectSqlStatement(id));
+            resultSet = statement.executeQuery();
             if (!resultSet.next())
                 throw new ObjectNotFoundException();
 
@@ -98,6 +140,13 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
             }
         }
 
+        // The caller gets its own copy, it may change it
+        if (cached) {
+            final DomainObject copy = copy(object);
+            if (copy != null)
+                _cache.put(copy, generation);
+        }
+
         Trace.exiting(getCname(), mname, object);
         return object;
     }
@@ -132,26 +181,54 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
      * @throws DataAccessException     is thrown if there's a persistent problem
      */
     public final Collection selectAllWhere(String whereClause, String orderByClause) throws ObjectNotFoundException {
+    	return selectAllWhere(whereClause, null, orderByClause);
+    }
+    /**
+     * This method return all the objects from the database.
+     *
+     * @param whereClause where part of the SQL query, with a ? for each parameter
+     * @param parameters values of the parameters of the where clause, in order (may be null)
+     * @param orderByClause ORDER BY part of the SQL query
+     * @return collection of DomainObject
+     * @throws ObjectNotFoundException is thrown if the collection is empty
+     * @throws DataAccessException     is thrown if there's a persistent problem
+     */
+    public final Collection<DomainObject> selectAllWhere(String whereClause, Object[] parameters, String orderByClause) throws ObjectNotFoundException {
+    	return selectAllWhere(whereClause, parameters, orderByClause, 0);
+    }
+    /**
+     * This method return at most <code>maxResults</code> objects from the database.
+     *
+     * @param whereClause where part of the SQL query, with a ? for each parameter
+     * @param parameters values of the parameters of the where clause, in order (may be null)
+     * @param orderByClause ORDER BY part of the SQL query
+     * @param maxResults maximum number of objects returned, 0 for no limit
+     * @return collection of DomainObject
+     * @throws ObjectNotFoundException is thrown if the collection is empty
+     * @throws DataAccessException     is thrown if there's a persistent problem
+     */
+    public final Collection<DomainObject> selectAllWhere(String whereClause, Object[] parameters, String orderByClause, int maxResults) throws ObjectNotFoundException {
         final String mname = "selectAll";
         Trace.entering(getCname(), mname);
 
         Connection connection = null;
-        Statement statement = null;
+        PreparedStatement statement = null;
         ResultSet resultSet = null;
-        final Collection objects = new ArrayList();
+        final Collection<DomainObject> objects = new ArrayList<DomainObject>();
 
         try {
             // Gets a database connection
             connection = getConnection();
-            statement = connection.createStatement();
 
             // Select a Row
-            String query = getSelectAllSqlStatement();
-            if ( whereClause != null && !"".equals(whereClause) )
-            	query += " WHERE " + whereClause;
-            if ( orderByClause != null && !"".equals(orderByClause) )
-            	query += " ORDER BY " + orderByClause;
-            resultSet = statement.executeQuery(query);
+            String query = getSelectAllSqlStatement(whereClause, orderByClause);
+            if ( maxResults > 0 )
+            	query += " LIMIT ?";
+            statement = connection.prepareStatement(query);
+            bindParameters(statement, parameters);
+            if ( maxResults > 0 )
+            	statement.setInt(parameters == null ? 1 : parameters.length + 1, maxResults);
+            resultSet = statement.executeQuery();
 
             while (resultSet.next()) {
                 // Set data to the collection
@@ -181,6 +258,122 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
         return objects;
     }
 
+    /**
+     * This method returns a page of objects ordered by id. The page starts right
+     * after the object <code>afterId</code> (keyset pagination): the database seeks
+     * the first row of the page with the primary key index instead of skipping the
+     * rows of the previous pages, so every page costs the same.
+     *
+     * @param whereClause where part of the SQL query, with a ? for each parameter (may be empty)
+     * @param parameters values of the parameters of the where clause, in order (may be null)
+     * @param afterId id of the last object of the previous page, null for the first page
+     * @param maxResults maximum number of objects returned
+     * @return collection of DomainObject
+     * @throws ObjectNotFoundException is thrown if the page is empty
+     * @throws DataAccessException     is thrown if there's a persistent problem
+     */
+    public final Collection<DomainObject> selectPage(String whereClause, Object[] parameters, final String afterId, final int maxResults) throws ObjectNotFoundException {
+        if (afterId != null) {
+            whereClause = (whereClause == null || "".equals(whereClause)) ? "ID > ?" : "(" + whereClause + ") AND ID > ?";
+            final int length = parameters == null ? 0 : parameters.length;
+            final Object[] seekParameters = new Object[length + 1];
+            if (length > 0)
+                System.arraycopy(parameters, 0, seekParameters, 0, length);
+            seekParameters[length] = afterId;
+            parameters = seekParameters;
+        }
+        return selectAllWhere(whereClause, parameters, "ID", maxResults);
+    }
+
+    /**
+     * This method reads all the objects from the database one row at a time and
+     * gives them to a handler, with the default fetch size.
+     *
+     * @param handler receives each object read
+     * @return the number of objects read
+     * @throws DataAccessException is thrown if there's a persistent problem
+     */
+    public final int selectAll(final RowHandler handler) {
+        return selectAllWhere("", null, "", STREAM_FETCH_SIZE, handler);
+    }
+
+    /**
+     * This method reads the objects from the database one row at a time and gives
+     * them to a handler, with the default fetch size.
+     *
+     * @param whereClause where part of the SQL query, with a ? for each parameter
+     * @param parameters values of the parameters of the where clause, in order (may be null)
+     * @param orderByClause ORDER BY part of the SQL query
+     * @param handler receives each object read
+     * @return the number of objects read
+     * @throws DataAccessException is thrown if there's a persistent problem
+     */
+    public final int selectAllWhere(String whereClause, Object[] parameters, String orderByClause, final RowHandler handler) {
+        return selectAllWhere(whereClause, parameters, orderByClause, STREAM_FETCH_SIZE, handler);
+    }
+
+    /**
+     * This method reads the objects from the database one row at a time and gives
+     * them to a handler. The rows go through a forward-only, read-only cursor that
+     * fetches <code>fetchSize</code> rows at a time, and each row is transformed
+     * into an object only when the handler is ready for it, so the memory used does
+     * not depend on the number of rows. Unlike {@link #selectAllWhere(String, Object[], String)}
+     * an empty result is not an error.
+     *
+     * @param whereClause where part of the SQL query, with a ? for each parameter
+     * @param parameters values of the parameters of the where clause, in order (may be null)
+     * @param orderByClause ORDER BY part of the SQL query
+     * @param fetchSize number of rows fetched from the database at a time
+     * @param handler receives each object read
+     * @return the number of objects read
+     * @throws DataAccessException is thrown if there's a persistent problem
+     */
+    public final int selectAllWhere(String whereClause, Object[] parameters, String orderByClause, final int fetchSize, final RowHandler handler) {
+        final String mname = "selectAllWhere";
+        Trace.entering(getCname(), mname, new Integer(fetchSize));
+
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        int count = 0;
+
+        try {
+            // Gets a database connection
+            connection = getConnection();
+
+            // Opens a cursor on the rows
+            statement = connection.prepareStatement(getSelectAllSqlStatement(whereClause, orderByClause),
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            statement.setFetchSize(fetchSize);
+            bindParameters(statement, parameters);
+            resultSet = statement.executeQuery();
+
+            while (resultSet.next()) {
+                // Gives the current row to the handler
+                handler.handleRow(transformResultset2DomainObject(resultSet));
+                count++;
+            }
+
+        } catch (SQLException e) {
+            // A Severe SQL Exception is caught
+            displaySqlException(e);
+            throw new DataAccessException("Cannot get data from the database: " + e.getMessage(), e);
+        } finally {
+            // Close
+            try {
+                if (resultSet != null) resultSet.close();
+                if (statement != null) statement.close();
+                if (connection != null) connection.close();
+            } catch (SQLException e) {
+                displaySqlException("Cannot close connection", e);
+                throw new DataAccessException("Cannot close the database connection", e);
+            }
+        }
+
+        Trace.exiting(getCname(), mname, new Integer(count));
+        return count;
+    }
+
     /**
      * This method inserts an object into the database.
      *
@@ -193,19 +386,21 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
         Trace.entering(getCname(), mname, object);
 
         Connection connection = null;
-        Statement statement = null;
+        PreparedStatement statement = null;
 
         try {
             // Gets a database connection
             connection = getConnection();
-            statement = connection.createStatement();
+            statement = connection.prepareStatement(getInsertSqlStatement());
 
             // Sets the object Id if necessary
             if ( object.getId() == null )
             	object.setId("" + getUniqueId());
 
             // Inserts a Row
-            statement.executeUpdate(getInsertSqlStatement(object));
+            bindInsertSqlStatement(statement, object);
+            statement.executeUpdate();
+            evict(object.getId());
 
         } catch (SQLException e) {
             // The data already exists in the database
@@ -230,6 +425,85 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
         }
     }
 
+    /**
+     * This method inserts several objects into the database in a single transaction.
+     * The rows are sent with JDBC batches of {@link DataAccessConstants#BATCH_SIZE BATCH_SIZE}
+     * statements, and the objects without id get their ids from one block of the
+     * UniqueIdGenerator. Either all the objects are inserted or none.
+     *
+     * @param objects collection of DomainObject to be inserted
+     * @throws DuplicateKeyException is thrown when one of the objects is already in the persistent layer
+     * @throws DataAccessException   is thrown if there's a persistent problem
+     */
+    public final void insertAll(final Collection<? extends DomainObject> objects) throws DuplicateKeyException {
+        final String mname = "insertAll";
+        Trace.entering(getCname(), mname, new Integer(objects.size()));
+
+        if (objects.isEmpty())
+            return;
+
+        // Sets the ids that are missing with a single call to the generator
+        int missing = 0;
+        for (DomainObject object : objects) {
+            if (object.getId() == null)
+                missing++;
+        }
+        if (missing > 0) {
+            final String[] ids = getUniqueIds(missing);
+            int i = 0;
+            for (DomainObject object : objects) {
+                if (object.getId() == null)
+                    object.setId(ids[i++]);
+            }
+        }
+
+        Connection connection = null;
+        PreparedStatement statement = null;
+
+        try {
+            // Gets a database connection
+            connection = getConnection();
+            connection.setAutoCommit(false);
+            statement = connection.prepareStatement(getInsertSqlStatement());
+
+            // Inserts the rows
+            int count = 0;
+            for (DomainObject object : objects) {
+                bindInsertSqlStatement(statement, object);
+                statement.addBatch();
+                if (++count % BATCH_SIZE == 0)
+                    statement.executeBatch();
+            }
+            if (count % BATCH_SIZE != 0)
+                statement.executeBatch();
+            connection.commit();
+            evictAll(objects);
+
+        } catch (SQLException e) {
+            rollback(connection);
+            // The data already exists in the database
+            if (e.getErrorCode() == DATA_ALREADY_EXIST) {
+                throw new DuplicateKeyException();
+            } else {
+                // A Severe SQL Exception is caught
+                displaySqlException(e);
+                throw new DataAccessException("Cannot insert data into the database", e);
+            }
+        } finally {
+            // Close
+            try {
+                if (statement != null) statement.close();
+                if (connection != null) {
+                    connection.setAutoCommit(true);
+                    connection.close();
+                }
+            } catch (SQLException e) {
+                displaySqlException("Cannot close connection", e);
+                throw new DataAccessException("Cannot close the database connection", e);
+            }
+        }
+    }
+
     /**
      * This method updates an object in the database.
      *
@@ -242,16 +516,18 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
         Trace.entering(getCname(), mname, object);
 
         Connection connection = null;
-        Statement statement = null;
+        PreparedStatement statement = null;
 
         try {
             // Gets a database connection
             connection = getConnection();
-            statement = connection.createStatement();
+            statement = connection.prepareStatement(getUpdateSqlStatement());
 
             // Update a Row
-            if (statement.executeUpdate(getUpdateSqlStatement(object)) == 0)
+            bindUpdateSqlStatement(statement, object);
+            if (statement.executeUpdate() == 0)
                 throw new ObjectNotFoundException();
+            evict(object.getId());
 
         } catch (SQLException e) {
             // A Severe SQL Exception is caught
@@ -269,6 +545,67 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
         }
     }
 
+    /**
+     * This method updates several objects in the database in a single transaction.
+     * The rows are sent with JDBC batches of {@link DataAccessConstants#BATCH_SIZE BATCH_SIZE}
+     * statements. Either all the objects are updated or none.
+     *
+     * @param objects collection of DomainObject to be updated
+     * @throws ObjectNotFoundException is thrown if one of the objects is not found in the database
+     * @throws DataAccessException     is thrown if there's a persistent problem
+     */
+    public final void updateAll(final Collection<? extends DomainObject> objects) throws ObjectNotFoundException {
+        final String mname = "updateAll";
+        Trace.entering(getCname(), mname, new Integer(objects.size()));
+
+        if (objects.isEmpty())
+            return;
+
+        Connection connection = null;
+        PreparedStatement statement = null;
+
+        try {
+            // Gets a database connection
+            connection = getConnection();
+            connection.setAutoCommit(false);
+            statement = connection.prepareStatement(getUpdateSqlStatement());
+
+            // Updates the rows
+            int count = 0;
+            for (DomainObject object : objects) {
+                bindUpdateSqlStatement(statement, object);
+                statement.addBatch();
+                if (++count % BATCH_SIZE == 0)
+                    checkUpdateCounts(statement.executeBatch());
+            }
+            if (count % BATCH_SIZE != 0)
+                checkUpdateCounts(statement.executeBatch());
+            connection.commit();
+            evictAll(objects);
+
+        } catch (ObjectNotFoundException e) {
+            rollback(connection);
+            throw e;
+        } catch (SQLException e) {
+            rollback(connection);
+            // A Severe SQL Exception is caught
+            displaySqlException(e);
+            throw new DataAccessException("Cannot update data into the database", e);
+        } finally {
+            // Close
+            try {
+                if (statement != null) statement.close();
+                if (connection != null) {
+                    connection.setAutoCommit(true);
+                    connection.close();
+                }
+            } catch (SQLException e) {
+                displaySqlException("Cannot close connection", e);
+                throw new DataAccessException("Cannot close the database connection", e);
+            }
+        }
+    }
+
     /**
      * This method deletes an object from the database.
      *
@@ -281,16 +618,19 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
         Trace.entering(getCname(), mname, id);
 
         Connection connection = null;
-        Statement statement = null;
+        PreparedStatement statement = null;
 
         try {
             // Gets a database connection
             connection = getConnection();
-            statement = connection.createStatement();
+            statement = connection.prepareStatement(getDeleteSqlStatement());
+            statement.setString(1, id);
 
             // Delete a Row
-            if (statement.executeUpdate(getDeleteSqlStatement(id)) == 0)
+            if (statement.executeUpdate() == 0)
                 throw new ObjectNotFoundException();
+            evict(id);
+            clearCascadedCaches();
 
         } catch (SQLException e) {
             // A Severe SQL Exception is caught
@@ -318,6 +658,16 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
         return UniqueIdGenerator.getInstance().getUniqueId(getCounterName());
     }
 
+    /**
+     * This method returns a block of unique identifers generated by the system.
+     *
+     * @param count number of identifiers
+     * @return the unique identifers
+     */
+    public final String[] getUniqueIds(final int count) {
+        return UniqueIdGenerator.getInstance().getUniqueIds(getCounterName(), count);
+    }
+
     /**
      * This method returns a unique identifer generated by the system. 
      *
@@ -329,19 +679,45 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
     }
 
     protected abstract String getCounterName();
+
+    /**
+     * @return the cache of this DAO, null if it has no cache
+     */
+    public final EntityCache getCache() {
+        return _cache;
+    }
     
     /**
-     * This method returns a database connection.
+     * This method returns a database connection borrowed from the {@link ConnectionPool}.
+     * Closing the connection gives it back to the pool.
+     * <p/>
+     * When the thread is in a {@link TransactionContext}, the connection of the
+     * transaction is returned instead. Closing or committing it has no effect, the
+     * transaction is committed by the service.
+     * <p/>
+     * When the {@link MemoryDatabase} is enabled, the connection goes to the memory
+     * database instead of MySQL.
      *
      * @return a JDBC connection to the petstore database
      * @throws SQLException if a SQl expcetion if found
      */
     public static final Connection getConnection() throws SQLException {
-        final Connection connection;
-        connection = DriverManager.getConnection(URL_DB, USER_DB, PASSWD_DB);
+        Connection connection = TransactionContext.getConnection();
+        if (connection == null)
+            connection = openConnection();
         return connection;
     }
 
+    /**
+     * @return a new connection to the database selected by the configuration
+     * @throws SQLException if the connection cannot be opened
+     */
+    static Connection openConnection() throws SQLException {
+        if (MemoryDatabase.isEnabled())
+            return MemoryDatabase.getInstance().getConnection();
+        return ConnectionPool.getInstance().getConnection();
+    }
+
     /**
      * This method displays all information of an SQL exception. Its error code, state,
      * sql message and ultimately the stacktrace of the Exception
@@ -375,44 +751,155 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
     }
 
     /**
-     * This method returns an insert sql statement
+     * This method rolls back the current transaction of a connection. An error
+     * during the rollback is only logged so that the original exception is thrown.
+     *
+     * @param connection connection to roll back (may be null)
+     */
+    protected static void rollback(final Connection connection) {
+        if (connection == null)
+            return;
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            displaySqlException("Cannot rollback the transaction", e);
+        }
+    }
+
+    /**
+     * This method removes an object from the cache of the DAO. In a transaction it is
+     * removed again when the transaction ends, as another thread may have cached the
+     * old row meanwhile.
+     *
+     * @param id identifier of the object written
+     */
+    private void evict(final String id) {
+        if (_cache == null)
+            return;
+        _cache.remove(id);
+        if (TransactionContext.isActive()) {
+            TransactionContext.afterCompletion(new Runnable() {
+                public void run() {
+                    _cache.remove(id);
+                }
+            });
+        }
+    }
+
+    private void evictAll(final Collection<? extends DomainObject> objects) {
+        if (_cache == null)
+            return;
+        for (DomainObject object : objects) {
+            evict(object.getId());
+        }
+    }
+
+    /**
+     * This method empties the caches of the DAOs whose rows are deleted with the rows
+     * of this DAO (ON DELETE CASCADE).
+     */
+    private void clearCascadedCaches() {
+        final Class<?>[] classes = getCascadedDAOClasses();
+        for (int i = 0; i < classes.length; i++) {
+            final EntityCache cache = EntityCache.getInstance(classes[i].getName());
+            if (cache == null)
+                continue;
+            cache.clear();
+            if (TransactionContext.isActive()) {
+                TransactionContext.afterCompletion(new Runnable() {
+                    public void run() {
+                        cache.clear();
+                    }
+                });
+            }
+        }
+    }
+
+    /**
+     * This method checks that every statement of an update batch has modified a row.
+     *
+     * @param counts update counts returned by the batch
+     * @throws ObjectNotFoundException if one of the statements has not found its row
+     */
+    private static void checkUpdateCounts(final int[] counts) throws ObjectNotFoundException {
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] == 0)
+                throw new ObjectNotFoundException();
+        }
+    }
+
+    /**
+     * This method binds the parameters of a where clause to a prepared statement.
+     *
+     * @param statement  prepared statement to bind
+     * @param parameters values of the parameters, in order (may be null)
+     * @throws SQLException if a parameter cannot be set
+     */
+    protected static void bindParameters(final PreparedStatement statement, final Object[] parameters) throws SQLException {
+        if (parameters == null)
+            return;
+        for (int i = 0; i < parameters.length; i++) {
+            statement.setObject(i + 1, parameters[i]);
+        }
+    }
+
+    /**
+     * This method returns the parameterized insert sql statement
      * This method follows the "Template Method" Design Pattern. It is used by
      * the {@link #insert(DomainObject) insert} method. Every concrete class must redefine this method.
      *
-     * @param object DomainObject to insert in the database
-     * @return an insert sql statement
+     * @return an insert sql statement with a ? for each value
      */
-    protected abstract String getInsertSqlStatement(DomainObject object);
+    protected abstract String getInsertSqlStatement();
 
     /**
-     * This method returns a remove sql statement
+     * This method sets the values of an object into the parameters of the insert sql statement.
+     * This method follows the "Template Method" Design Pattern. It is used by
+     * the {@link #insert(DomainObject) insert} method. Every concrete class must redefine this method.
+     *
+     * @param statement statement prepared with {@link #getInsertSqlStatement()}
+     * @param object    DomainObject to insert in the database
+     * @throws SQLException if a parameter cannot be set
+     */
+    protected abstract void bindInsertSqlStatement(PreparedStatement statement, DomainObject object) throws SQLException;
+
+    /**
+     * This method returns the parameterized remove sql statement. Its only parameter is the id.
      * This method follows the "Template Method" Design Pattern. It is used by
      * the {@link #remove(String) remove} method. Every concrete class must redefine this method.
      *
-     * @param id of the domain object to remove
      * @return a remove sql statement
      */
-    protected abstract String getDeleteSqlStatement(String id);
+    protected abstract String getDeleteSqlStatement();
+
+    /**
+     * This method returns the parameterized update sql statement
+     * This method follows the "Template Method" Design Pattern. It is used by
+     * the {@link #update(DomainObject) update} method. Every concrete class must redefine this method.
+     *
+     * @return an update sql statement with a ? for each value
+     */
+    protected abstract String getUpdateSqlStatement();
 
     /**
-     * This method returns an update sql statement
+     * This method sets the values of an object into the parameters of the update sql statement.
      * This method follows the "Template Method" Design Pattern. It is used by
      * the {@link #update(DomainObject) update} method. Every concrete class must redefine this method.
      *
-     * @param object DomainObject to update in the database
-     * @return an update sql statement
+     * @param statement statement prepared with {@link #getUpdateSqlStatement()}
+     * @param object    DomainObject to update in the database
+     * @throws SQLException if a parameter cannot be set
      */
-    protected abstract String getUpdateSqlStatement(DomainObject object);
+    protected abstract void bindUpdateSqlStatement(PreparedStatement statement, DomainObject object) throws SQLException;
 
     /**
-     * This method returns a select sql statement
+     * This method returns the parameterized select sql statement. Its only parameter is the id.
      * This method follows the "Template Method" Design Pattern. It is used by
      * the {@link #select(String) select} method. Every concrete class must redefine this method.
      *
-     * @param id of the domain object to select
      * @return a select sql statement
      */
-    protected abstract String getSelectSqlStatement(String id);
+    protected abstract String getSelectSqlStatement();
 
     /**
      * This method returns a select * sql statement
@@ -423,6 +910,22 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
      */
     protected abstract String getSelectAllSqlStatement();
 
+    /**
+     * This method adds the where and order by clauses to the select * sql statement.
+     *
+     * @param whereClause where part of the SQL query (may be null or empty)
+     * @param orderByClause ORDER BY part of the SQL query (may be null or empty)
+     * @return a select sql statement
+     */
+    private String getSelectAllSqlStatement(final String whereClause, final String orderByClause) {
+        String query = getSelectAllSqlStatement();
+        if ( whereClause != null && !"".equals(whereClause) )
+        	query += " WHERE " + whereClause;
+        if ( orderByClause != null && !"".equals(orderByClause) )
+        	query += " ORDER BY " + orderByClause;
+        return query;
+    }
+
     /**
      * This method takes a resultset and transforms it into a Domain Object.
      * This method follows the "Template Method" Design Pattern. It is used by
@@ -433,6 +936,29 @@ public abstract class AbstractDataAccessObject implements DataAccessConstants {
      * @throws SQLException
      */
     protected abstract DomainObject transformResultset2DomainObject(ResultSet resultSet) throws SQLException;
+
+    /**
+     * This method returns a copy of an object read by this DAO, with the same values
+     * as the ones set by {@link #transformResultset2DomainObject(ResultSet)}. It is
+     * used to keep the cached objects apart from the ones given to the callers. A DAO
+     * built with a cache must redefine this method, its objects are not cached otherwise.
+     *
+     * @param object object read by this DAO
+     * @return a copy of the object, null if the objects of this DAO cannot be copied
+     */
+    protected DomainObject copy(final DomainObject object) {
+        return null;
+    }
+
+    /**
+     * This method returns the DAO classes whose rows are deleted by the database when
+     * a row of this DAO is deleted. Their caches are emptied by {@link #remove(String) remove}.
+     *
+     * @return the DAO classes, none by default
+     */
+    protected Class<?>[] getCascadedDAOClasses() {
+        return new Class<?>[0];
+    }
 	protected String getCname() {
 		return _cname;
 	}
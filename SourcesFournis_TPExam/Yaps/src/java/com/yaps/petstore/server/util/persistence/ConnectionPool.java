@@ -0,0 +1,366 @@
+package com.yaps.petstore.server.util.persistence;
+
+import com.yaps.petstore.common.logging.Trace;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class is a bounded pool of JDBC connections to the petstore database.
+ * It follows the Singleton design pattern and is configured with the POOL_*
+ * values of {@link DataAccessConstants}.
+ * <p/>
+ * Connections are validated when they have been idle for too long, idle
+ * connections above the minimum size are closed, and connections that are
+ * borrowed for too long are reported as leaks with the stack trace of the caller.
+ */
+public final class ConnectionPool implements DataAccessConstants {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    // A handle to the unique Singleton instance.
+    private static ConnectionPool _instance = null;
+
+    // Idle connections, the most recently used one first
+    private final LinkedList<PooledConnection> _idle = new LinkedList<PooledConnection>();
+    // Borrowed connections
+    private final Map<PooledConnection, PooledConnection> _active = new ConcurrentHashMap<PooledConnection, PooledConnection>();
+    // One permit per connection that can still be borrowed
+    private final Semaphore _permits = new Semaphore(POOL_MAX_SIZE, true);
+    private final Timer _housekeeper = new Timer("petstore-connection-pool", true);
+    private volatile boolean _shutdown = false;
+
+    // Statistics
+    private final AtomicLong _borrowCount = new AtomicLong();
+    private final AtomicLong _totalWaitTime = new AtomicLong();
+    private final AtomicLong _maxWaitTime = new AtomicLong();
+    private final AtomicLong _timeoutCount = new AtomicLong();
+    private final AtomicLong _leakCount = new AtomicLong();
+    private final AtomicLong _createdCount = new AtomicLong();
+    private final AtomicLong _destroyedCount = new AtomicLong();
+    private final AtomicLong _statementCacheHits = new AtomicLong();
+    private final AtomicLong _statementCacheMisses = new AtomicLong();
+
+    // Used for logging
+    private final String _cname = this.getClass().getName();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    /**
+     * The constructor is made private to prevent others from instantiating this class.
+     */
+    private ConnectionPool() {
+        _housekeeper.schedule(new TimerTask() {
+            public void run() {
+                housekeep();
+            }
+        }, POOL_HOUSEKEEPING_INTERVAL, POOL_HOUSEKEEPING_INTERVAL);
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * This method is used by other classes to get a unique instance of the ConnectionPool
+     *
+     * @return The unique instance of this class.
+     */
+    public static synchronized ConnectionPool getInstance() {
+        if (null == _instance) {
+            _instance = new ConnectionPool();
+        }
+        return _instance;
+    }
+
+    /**
+     * This method borrows a connection from the pool. The caller must close the
+     * connection to give it back.
+     *
+     * @return a JDBC connection to the petstore database
+     * @throws SQLException if no connection is available before the borrow timeout
+     *                      or if a new connection cannot be opened
+     */
+    public Connection getConnection() throws SQLException {
+        final String mname = "getConnection";
+
+        final long start = System.currentTimeMillis();
+        try {
+            if (!_permits.tryAcquire(POOL_BORROW_TIMEOUT, TimeUnit.MILLISECONDS)) {
+                _timeoutCount.incrementAndGet();
+                Trace.warning(_cname, mname, "No connection available after " + POOL_BORROW_TIMEOUT + " ms " + this);
+                throw new SQLException("Timeout waiting for a database connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection");
+        }
+        recordWait(System.currentTimeMillis() - start);
+
+        try {
+            PooledConnection pooled = takeIdle();
+            if (pooled == null)
+                pooled = create();
+            _active.put(pooled, pooled);
+            return pooled.borrow();
+        } catch (SQLException e) {
+            _permits.release();
+            throw e;
+        } catch (RuntimeException e) {
+            _permits.release();
+            throw e;
+        }
+    }
+
+    /**
+     * This method closes all the idle connections and stops the housekeeping.
+     * Borrowed connections are closed when they are given back.
+     */
+    public static synchronized void shutdown() {
+        if (_instance == null)
+            return;
+        _instance._shutdown = true;
+        _instance._housekeeper.cancel();
+        synchronized (_instance._idle) {
+            while (!_instance._idle.isEmpty()) {
+                _instance.destroy(_instance._idle.removeFirst());
+            }
+        }
+        _instance = null;
+    }
+
+    // ======================================
+    // =             Statistics             =
+    // ======================================
+    /**
+     * @return the number of connections currently borrowed
+     */
+    public int getActiveCount() {
+        return _active.size();
+    }
+
+    /**
+     * @return the number of open connections waiting in the pool
+     */
+    public int getIdleCount() {
+        synchronized (_idle) {
+            return _idle.size();
+        }
+    }
+
+    /**
+     * @return the number of connections borrowed since the pool was created
+     */
+    public long getBorrowCount() {
+        return _borrowCount.get();
+    }
+
+    /**
+     * @return the average time (in ms) a caller waited for a connection
+     */
+    public long getAverageWaitTime() {
+        final long borrows = _borrowCount.get();
+        return borrows == 0 ? 0 : _totalWaitTime.get() / borrows;
+    }
+
+    /**
+     * @return the longest time (in ms) a caller waited for a connection
+     */
+    public long getMaxWaitTime() {
+        return _maxWaitTime.get();
+    }
+
+    /**
+     * @return the number of callers that gave up waiting for a connection
+     */
+    public long getTimeoutCount() {
+        return _timeoutCount.get();
+    }
+
+    /**
+     * @return the number of connections reported as leaked
+     */
+    public long getLeakCount() {
+        return _leakCount.get();
+    }
+
+    /**
+     * @return the number of physical connections opened since the pool was created
+     */
+    public long getCreatedCount() {
+        return _createdCount.get();
+    }
+
+    /**
+     * @return the number of physical connections closed since the pool was created
+     */
+    public long getDestroyedCount() {
+        return _destroyedCount.get();
+    }
+
+    /**
+     * @return the number of prepared statements found in the statement cache
+     */
+    public long getStatementCacheHitCount() {
+        return _statementCacheHits.get();
+    }
+
+    /**
+     * @return the number of prepared statements that had to be prepared
+     */
+    public long getStatementCacheMissCount() {
+        return _statementCacheMisses.get();
+    }
+
+    public String toString() {
+        final StringBuffer buf = new StringBuffer();
+        buf.append("ConnectionPool{");
+        buf.append("active=").append(getActiveCount());
+        buf.append(",idle=").append(getIdleCount());
+        buf.append(",max=").append(POOL_MAX_SIZE);
+        buf.append(",borrows=").append(getBorrowCount());
+        buf.append(",avgWait=").append(getAverageWaitTime()).append("ms");
+        buf.append(",maxWait=").append(getMaxWaitTime()).append("ms");
+        buf.append(",timeouts=").append(getTimeoutCount());
+        buf.append(",leaks=").append(getLeakCount());
+        buf.append(",created=").append(getCreatedCount());
+        buf.append(",destroyed=").append(getDestroyedCount());
+        buf.append(",statementHits=").append(getStatementCacheHitCount());
+        buf.append(",statementMisses=").append(getStatementCacheMissCount());
+        buf.append("}");
+        return buf.toString();
+    }
+
+    // ======================================
+    // =         Package methods            =
+    // ======================================
+    /**
+     * This method is called by a logical connection when it is closed.
+     *
+     * @param pooled connection given back to the pool
+     */
+    void release(final PooledConnection pooled) {
+        final String mname = "release";
+
+        _active.remove(pooled);
+        try {
+            if (_shutdown || pooled.isBroken() || pooled.getPhysicalConnection().isClosed()) {
+                destroy(pooled);
+            } else {
+                pooled.reset();
+                pooled.giveBack();
+                synchronized (_idle) {
+                    _idle.addFirst(pooled);
+                }
+            }
+        } catch (SQLException e) {
+            AbstractDataAccessObject.displaySqlException("Cannot give the connection back to the pool", e);
+            destroy(pooled);
+        } finally {
+            _permits.release();
+        }
+        Trace.finest(_cname, mname, toString());
+    }
+
+    void recordStatementCacheHit() {
+        _statementCacheHits.incrementAndGet();
+    }
+
+    void recordStatementCacheMiss() {
+        _statementCacheMisses.incrementAndGet();
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    private PooledConnection takeIdle() {
+        while (true) {
+            final PooledConnection pooled;
+            synchronized (_idle) {
+                if (_idle.isEmpty())
+                    return null;
+                pooled = _idle.removeFirst();
+            }
+            // Connections used recently are trusted, older ones are checked first
+            if (System.currentTimeMillis() - pooled.getLastUsedTime() < POOL_VALIDATION_INTERVAL || pooled.validate())
+                return pooled;
+            destroy(pooled);
+        }
+    }
+
+    private PooledConnection create() throws SQLException {
+        final Connection physical = DriverManager.getConnection(URL_DB, USER_DB, PASSWD_DB);
+        _createdCount.incrementAndGet();
+        return new PooledConnection(this, physical);
+    }
+
+    private void destroy(final PooledConnection pooled) {
+        pooled.destroy();
+        _destroyedCount.incrementAndGet();
+    }
+
+    private void recordWait(final long waitTime) {
+        _borrowCount.incrementAndGet();
+        _totalWaitTime.addAndGet(waitTime);
+        long max = _maxWaitTime.get();
+        while (waitTime > max && !_maxWaitTime.compareAndSet(max, waitTime)) {
+            max = _maxWaitTime.get();
+        }
+    }
+
+    /**
+     * This method is run periodically. It reports leaked connections, closes
+     * connections idle for too long and refills the pool up to its minimum size.
+     */
+    private void housekeep() {
+        final String mname = "housekeep";
+        final long now = System.currentTimeMillis();
+
+        // Leak detection
+        for (PooledConnection pooled : _active.keySet()) {
+            if (!pooled.isLeakReported() && now - pooled.getBorrowTime() > POOL_LEAK_THRESHOLD) {
+                pooled.setLeakReported(true);
+                _leakCount.incrementAndGet();
+                Trace.warning(_cname, mname, "Connection not closed after " + (now - pooled.getBorrowTime()) + " ms");
+                final Throwable site = pooled.getBorrowSite();
+                if (site != null)
+                    Trace.throwing(_cname, mname, site);
+            }
+        }
+
+        // Idle eviction, the least recently used connections are at the end of the list
+        synchronized (_idle) {
+            while (_idle.size() + _active.size() > POOL_MIN_SIZE && !_idle.isEmpty()) {
+                final PooledConnection pooled = _idle.getLast();
+                if (now - pooled.getLastUsedTime() < POOL_MAX_IDLE_TIME)
+                    break;
+                _idle.removeLast();
+                destroy(pooled);
+            }
+        }
+
+        // Keeps the minimum number of connections open
+        try {
+            while (getIdleCount() + getActiveCount() < POOL_MIN_SIZE) {
+                final PooledConnection pooled = create();
+                synchronized (_idle) {
+                    _idle.addLast(pooled);
+                }
+            }
+        } catch (SQLException e) {
+            AbstractDataAccessObject.displaySqlException("Cannot refill the connection pool", e);
+        }
+
+        Trace.fine(_cname, mname, toString());
+    }
+}
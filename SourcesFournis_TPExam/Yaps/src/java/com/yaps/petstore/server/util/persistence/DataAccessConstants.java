@@ -16,9 +16,12 @@ public interface DataAccessConstants {
     String JDBC_DRIVER = "com.mysql.jdbc.Driver";
 
     /**
-     * URL of where the database is located.
+     * URL of where the database is located. Server side prepared statements are
+     * enabled so that MySQL parses each statement once per connection, batched
+     * inserts are rewritten into multi-row inserts and statements with a fetch size
+     * read their rows through a server side cursor.
      */
-    String URL_DB = "jdbc:mysql://localhost:3306/petstoreDBExam";
+    String URL_DB = "jdbc:mysql://localhost:3306/petstoreDBExam?useServerPrepStmts=true&rewriteBatchedStatements=true&useCursorFetch=true";
 
     /**
      * Username to access the database.
@@ -29,4 +32,81 @@ public interface DataAccessConstants {
      * Password to access the database.
      */
     String PASSWD_DB = "root";
+
+    /**
+     * Maximum number of rows sent to the database in one JDBC batch.
+     */
+    int BATCH_SIZE = 100;
+
+    /**
+     * Default number of rows fetched from the database at a time by the streaming selects.
+     */
+    int STREAM_FETCH_SIZE = 500;
+
+    /**
+     * Number of connections the pool keeps open even when they are idle.
+     */
+    int POOL_MIN_SIZE = 2;
+
+    /**
+     * Maximum number of connections the pool opens to the database.
+     */
+    int POOL_MAX_SIZE = 20;
+
+    /**
+     * Time (in ms) a caller waits for a free connection before giving up.
+     */
+    long POOL_BORROW_TIMEOUT = 5000;
+
+    /**
+     * Time (in ms) after which an idle connection above the minimum size is closed.
+     */
+    long POOL_MAX_IDLE_TIME = 300000;
+
+    /**
+     * Time (in ms) a connection may stay idle before it is validated again on borrow.
+     */
+    long POOL_VALIDATION_INTERVAL = 30000;
+
+    /**
+     * Query used to check that an idle connection is still alive.
+     */
+    String POOL_VALIDATION_QUERY = "SELECT 1";
+
+    /**
+     * Time (in ms) after which a borrowed connection that was not closed is reported as a leak.
+     */
+    long POOL_LEAK_THRESHOLD = 60000;
+
+    /**
+     * Period (in ms) of the pool housekeeping (idle eviction and leak detection).
+     */
+    long POOL_HOUSEKEEPING_INTERVAL = 60000;
+
+    /**
+     * Number of prepared statements kept open on each pooled connection.
+     */
+    int POOL_STATEMENT_CACHE_SIZE = 50;
+
+    /**
+     * Maximum number of objects kept in the cache of a DAO.
+     */
+    int ENTITY_CACHE_SIZE = 1000;
+
+    /**
+     * Time (in ms) an object stays in the cache of a DAO, changes made by another
+     * server are seen after this time at most.
+     */
+    long ENTITY_CACHE_TIME_TO_LIVE = 60000;
+
+    /**
+     * System property that selects the database used by the DAOs: MySQL by default,
+     * the {@link MemoryDatabase} when it is set to {@link #MEMORY_BACKEND}.
+     */
+    String BACKEND_PROPERTY = "petstore.persistence.backend";
+
+    /**
+     * Value of the {@link #BACKEND_PROPERTY} that selects the memory database.
+     */
+    String MEMORY_BACKEND = "memory";
 }
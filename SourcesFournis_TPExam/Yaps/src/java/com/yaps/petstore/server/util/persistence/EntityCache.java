@@ -0,0 +1,224 @@
+package com.yaps.petstore.server.util.persistence;
+
+import com.yaps.petstore.server.domain.DomainObject;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps in memory the domain objects read by a DAO, by id. There is
+ * one cache per DAO class, shared by all the instances of the DAO.
+ * <p/>
+ * The cache is bounded: when it is full the least recently used objects are
+ * evicted, and an object is read again from the database after its time to live,
+ * so the changes made by another server are seen after this time at most.
+ * <p/>
+ * An object read before an invalidation is not cached: every invalidation moves
+ * a generation number forward and {@link #put(DomainObject, long)} drops the
+ * objects read with an older generation.
+ */
+public final class EntityCache {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    // Caches by name
+    private static final Map<String, EntityCache> _caches = new ConcurrentHashMap<String, EntityCache>();
+
+    private final String _name;
+    private final int _maxSize;
+    private final long _timeToLive;
+    // Entries by id, the least recently used one first. Every access locks the map.
+    private final Map<String, Entry> _entries;
+    private final AtomicLong _generation = new AtomicLong();
+
+    // Statistics
+    private final AtomicLong _hitCount = new AtomicLong();
+    private final AtomicLong _missCount = new AtomicLong();
+    private final AtomicLong _evictionCount = new AtomicLong();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    private EntityCache(final String name, final int maxSize, final long timeToLive) {
+        _name = name;
+        _maxSize = maxSize;
+        _timeToLive = timeToLive;
+        _entries = new LinkedHashMap<String, Entry>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(final Map.Entry<String, Entry> eldest) {
+                if (size() <= _maxSize)
+                    return false;
+                _evictionCount.incrementAndGet();
+                return true;
+            }
+        };
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * This method returns the cache of a given name, it is created the first time.
+     *
+     * @param name       name of the cache
+     * @param maxSize    maximum number of objects in the cache
+     * @param timeToLive time (in ms) an object stays in the cache
+     * @return the cache
+     */
+    public static EntityCache getInstance(final String name, final int maxSize, final long timeToLive) {
+        synchronized (_caches) {
+            EntityCache cache = _caches.get(name);
+            if (cache == null) {
+                cache = new EntityCache(name, maxSize, timeToLive);
+                _caches.put(name, cache);
+            }
+            return cache;
+        }
+    }
+
+    /**
+     * @param name name of the cache
+     * @return the cache of this name, null if it has not been created
+     */
+    public static EntityCache getInstance(final String name) {
+        return _caches.get(name);
+    }
+
+    /**
+     * This method removes all the objects from all the caches.
+     */
+    public static void clearAll() {
+        for (EntityCache cache : _caches.values()) {
+            cache.clear();
+        }
+    }
+
+    /**
+     * This method returns the cached object of a given id.
+     *
+     * @param id identifier of the object
+     * @return the cached object, null if it is not in the cache or too old
+     */
+    public DomainObject get(final String id) {
+        synchronized (_entries) {
+            final Entry entry = _entries.get(id);
+            if (entry != null) {
+                if (System.currentTimeMillis() < entry._expiryTime) {
+                    _hitCount.incrementAndGet();
+                    return entry._object;
+                }
+                _entries.remove(id);
+            }
+        }
+        _missCount.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * @return the generation to give to {@link #put(DomainObject, long)} for an
+     *         object that is going to be read from the database
+     */
+    public long getGeneration() {
+        return _generation.get();
+    }
+
+    /**
+     * This method puts an object read from the database into the cache, unless the
+     * cache has been invalidated since the read started.
+     *
+     * @param object     object read from the database, it must not be modified afterwards
+     * @param generation generation returned by {@link #getGeneration()} before the read
+     */
+    public void put(final DomainObject object, final long generation) {
+        synchronized (_entries) {
+            if (_generation.get() != generation)
+                return;
+            // Evicts the least recently used object when the cache is full
+            _entries.put(object.getId(), new Entry(object, System.currentTimeMillis() + _timeToLive));
+        }
+    }
+
+    /**
+     * This method removes an object from the cache.
+     *
+     * @param id identifier of the object
+     */
+    public void remove(final String id) {
+        synchronized (_entries) {
+            _generation.incrementAndGet();
+            _entries.remove(id);
+        }
+    }
+
+    /**
+     * This method removes all the objects from the cache.
+     */
+    public void clear() {
+        synchronized (_entries) {
+            _generation.incrementAndGet();
+            _entries.clear();
+        }
+    }
+
+    // ======================================
+    // =             Statistics             =
+    // ======================================
+    /**
+     * @return the number of objects in the cache
+     */
+    public int getSize() {
+        synchronized (_entries) {
+            return _entries.size();
+        }
+    }
+
+    /**
+     * @return the number of objects found in the cache
+     */
+    public long getHitCount() {
+        return _hitCount.get();
+    }
+
+    /**
+     * @return the number of objects that had to be read from the database
+     */
+    public long getMissCount() {
+        return _missCount.get();
+    }
+
+    /**
+     * @return the number of objects evicted because the cache was full
+     */
+    public long getEvictionCount() {
+        return _evictionCount.get();
+    }
+
+    public String toString() {
+        final StringBuffer buf = new StringBuffer();
+        buf.append("EntityCache{");
+        buf.append("name=").append(_name);
+        buf.append(",size=").append(getSize());
+        buf.append(",max=").append(_maxSize);
+        buf.append(",hits=").append(getHitCount());
+        buf.append(",misses=").append(getMissCount());
+        buf.append(",evictions=").append(getEvictionCount());
+        buf.append("}");
+        return buf.toString();
+    }
+
+    // ======================================
+    // =            Inner classes           =
+    // ======================================
+    private static final class Entry {
+
+        private final DomainObject _object;
+        private final long _expiryTime;
+
+        private Entry(final DomainObject object, final long expiryTime) {
+            _object = object;
+            _expiryTime = expiryTime;
+        }
+    }
+}
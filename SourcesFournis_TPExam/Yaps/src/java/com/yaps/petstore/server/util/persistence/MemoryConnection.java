@@ -0,0 +1,267 @@
+package com.yaps.petstore.server.util.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * This class gives the JDBC objects used by the DAOs on top of the
+ * {@link MemoryDatabase}: a connection, its prepared statements and their result
+ * sets. Only the methods the DAOs call are implemented, the other ones throw a
+ * SQLException.
+ * <p/>
+ * Out of auto-commit mode, the rows changed are kept in an undo log until the commit:
+ * a rollback, or closing the connection before the commit, puts them back.
+ */
+final class MemoryConnection implements InvocationHandler {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private final MemoryDatabase _database;
+    private boolean _closed = false;
+    private boolean _autoCommit = true;
+    private final MemoryDatabase.UndoLog _undoLog = new MemoryDatabase.UndoLog();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    private MemoryConnection(final MemoryDatabase database) {
+        _database = database;
+    }
+
+    static Connection newConnection(final MemoryDatabase database) {
+        return (Connection) newProxy(Connection.class, new MemoryConnection(database));
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+        final String name = method.getName();
+
+        if ("prepareStatement".equals(name)) {
+            checkOpen();
+            final MemoryStatement statement = _database.getStatement((String) args[0]);
+            return newProxy(PreparedStatement.class, new StatementHandler((Connection) proxy, statement));
+        }
+        if ("close".equals(name)) {
+            // Like MySQL, the changes not committed are rolled back
+            if (!_closed)
+                _undoLog.rollback();
+            _closed = true;
+            return null;
+        }
+        if ("isClosed".equals(name)) {
+            return Boolean.valueOf(_closed);
+        }
+        if ("setAutoCommit".equals(name)) {
+            checkOpen();
+            final boolean autoCommit = ((Boolean) args[0]).booleanValue();
+            // Going back to auto-commit mode commits the transaction
+            if (autoCommit)
+                _undoLog.clear();
+            _autoCommit = autoCommit;
+            return null;
+        }
+        if ("getAutoCommit".equals(name)) {
+            return Boolean.valueOf(_autoCommit);
+        }
+        if ("commit".equals(name) && args == null) {
+            checkOpen();
+            _undoLog.clear();
+            return null;
+        }
+        if ("rollback".equals(name) && args == null) {
+            checkOpen();
+            _undoLog.rollback();
+            return null;
+        }
+        return invokeObjectMethod(proxy, method, args, "MemoryConnection");
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    private void checkOpen() throws SQLException {
+        if (_closed)
+            throw new SQLException("Connection is closed");
+    }
+
+    /**
+     * @return the undo log of the transaction, null in auto-commit mode
+     */
+    private MemoryDatabase.UndoLog getUndoLog() {
+        return _autoCommit ? null : _undoLog;
+    }
+
+    private static Object newProxy(final Class<?> type, final InvocationHandler handler) {
+        return Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, handler);
+    }
+
+    private static Object invokeObjectMethod(final Object proxy, final Method method, final Object[] args, final String description) throws SQLException {
+        final String name = method.getName();
+        if ("equals".equals(name)) {
+            return Boolean.valueOf(proxy == args[0]);
+        }
+        if ("hashCode".equals(name)) {
+            return Integer.valueOf(System.identityHashCode(proxy));
+        }
+        if ("toString".equals(name)) {
+            return description;
+        }
+        throw new SQLException(name + " is not supported by the memory database");
+    }
+
+    // ======================================
+    // =            Inner classes           =
+    // ======================================
+    /**
+     * Handler of a prepared statement: it keeps the parameters and the batch and runs
+     * the parsed statement.
+     */
+    private final class StatementHandler implements InvocationHandler {
+
+        private final Connection _connection;
+        private final MemoryStatement _statement;
+        private Object[] _parameters;
+        private final List<Object[]> _batch = new ArrayList<Object[]>();
+
+        private StatementHandler(final Connection connection, final MemoryStatement statement) {
+            _connection = connection;
+            _statement = statement;
+            _parameters = new Object[statement.getParameterCount()];
+        }
+
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+
+            // setString, setInt, setDouble, setTimestamp, setObject...
+            if (name.startsWith("set") && args != null && args.length >= 2 && args[0] instanceof Integer) {
+                final int index = ((Integer) args[0]).intValue();
+                if (index < 1 || index > _parameters.length)
+                    throw new SQLException("Parameter index out of range: " + index);
+                _parameters[index - 1] = "setNull".equals(name) ? null : args[1];
+                return null;
+            }
+            if ("setFetchSize".equals(name) || "setMaxRows".equals(name) || "close".equals(name)) {
+                return null;
+            }
+            if ("clearParameters".equals(name)) {
+                _parameters = new Object[_parameters.length];
+                return null;
+            }
+            if ("executeQuery".equals(name)) {
+                final List<Object[]> rows = _statement.executeQuery(_database, _parameters);
+                return newProxy(ResultSet.class, new ResultSetHandler(rows));
+            }
+            if ("executeUpdate".equals(name)) {
+                return Integer.valueOf(_statement.executeUpdate(_database, _parameters, getUndoLog()));
+            }
+            if ("addBatch".equals(name) && args == null) {
+                _batch.add(_parameters.clone());
+                return null;
+            }
+            if ("executeBatch".equals(name)) {
+                final int[] counts = new int[_batch.size()];
+                try {
+                    for (int i = 0; i < counts.length; i++) {
+                        counts[i] = _statement.executeUpdate(_database, _batch.get(i), getUndoLog());
+                    }
+                } finally {
+                    _batch.clear();
+                }
+                return counts;
+            }
+            if ("clearBatch".equals(name)) {
+                _batch.clear();
+                return null;
+            }
+            if ("getConnection".equals(name)) {
+                return _connection;
+            }
+            return invokeObjectMethod(proxy, method, args, _statement.toString());
+        }
+    }
+
+    /**
+     * Handler of a result set: it goes through the rows returned by a query, each
+     * row is an array of the values of the selected columns.
+     */
+    private static final class ResultSetHandler implements InvocationHandler {
+
+        private final List<Object[]> _rows;
+        private int _current = -1;
+        private boolean _wasNull = false;
+
+        private ResultSetHandler(final List<Object[]> rows) {
+            _rows = rows;
+        }
+
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+
+            if ("next".equals(name)) {
+                _current++;
+                return Boolean.valueOf(_current < _rows.size());
+            }
+            if ("close".equals(name)) {
+                return null;
+            }
+            if ("wasNull".equals(name)) {
+                return Boolean.valueOf(_wasNull);
+            }
+            if (name.startsWith("get") && args != null && args.length == 1 && args[0] instanceof Integer) {
+                if (_current < 0 || _current >= _rows.size())
+                    throw new SQLException("No current row");
+                final Object[] row = _rows.get(_current);
+                final int index = ((Integer) args[0]).intValue();
+                if (index < 1 || index > row.length)
+                    throw new SQLException("Column index out of range: " + index);
+                final Object value = row[index - 1];
+                _wasNull = value == null;
+                return convert(value, method.getReturnType());
+            }
+            return invokeObjectMethod(proxy, method, args, "MemoryResultSet");
+        }
+
+        /**
+         * Converts a value to the type returned by a getter, like the JDBC driver does.
+         */
+        private static Object convert(final Object value, final Class<?> type) throws SQLException {
+            if (type == String.class)
+                return value == null ? null : value.toString();
+            if (type == Integer.TYPE)
+                return Integer.valueOf(value == null ? 0 : toNumber(value).intValue());
+            if (type == Long.TYPE)
+                return Long.valueOf(value == null ? 0 : toNumber(value).longValue());
+            if (type == Double.TYPE)
+                return Double.valueOf(value == null ? 0 : toNumber(value).doubleValue());
+            if (type == Timestamp.class)
+                return value == null ? null : new Timestamp(((Date) value).getTime());
+            if (type == java.sql.Date.class)
+                return value == null ? null : new java.sql.Date(((Date) value).getTime());
+            if (type == Object.class)
+                return value;
+            throw new SQLException("Cannot convert to " + type.getName());
+        }
+
+        private static Number toNumber(final Object value) throws SQLException {
+            if (value instanceof Number)
+                return (Number) value;
+            try {
+                return Double.valueOf(value.toString());
+            } catch (NumberFormatException e) {
+                throw new SQLException("Not a number: " + value);
+            }
+        }
+    }
+}
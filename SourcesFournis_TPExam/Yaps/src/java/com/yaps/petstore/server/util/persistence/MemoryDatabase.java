@@ -0,0 +1,306 @@
+package com.yaps.petstore.server.util.persistence;
+
+import com.yaps.petstore.common.logging.Trace;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class is a database kept in memory that the DAOs can use instead of MySQL,
+ * to run the services without a database server (load tests, benchmarks, isolated
+ * test environments). It is selected by setting the system property
+ * <code>petstore.persistence.backend</code> to <code>memory</code>, or by calling
+ * {@link #setEnabled(boolean)}. The DAOs are not changed: their connection runs the
+ * statements of their templates against tables kept in memory (see {@link MemoryStatement}).
+ * <p/>
+ * The foreign keys are the ones of structure.sql: a row cannot reference a row that
+ * does not exist, deleting a row deletes the rows declared ON DELETE CASCADE and
+ * fails if other rows still reference it.
+ * <p/>
+ * Many threads can use the database at the same time. Each statement is applied when
+ * it is run, so a transaction is not isolated: the other connections see its changes
+ * before the commit. A connection that is not in auto-commit mode keeps the rows it
+ * changes as they were before (see {@link UndoLog}), a rollback puts them back. The
+ * data is lost when the JVM stops.
+ */
+public final class MemoryDatabase implements DataAccessConstants {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    // MySQL error codes for the foreign key violations
+    private static final int NO_REFERENCED_ROW = 1452;
+    private static final int ROW_IS_REFERENCED = 1451;
+    private static final String INTEGRITY_STATE = "23000";
+
+    private static final MemoryDatabase _instance = new MemoryDatabase();
+    private static volatile boolean _enabled = MEMORY_BACKEND.equalsIgnoreCase(System.getProperty(BACKEND_PROPERTY));
+
+    // Tables by name
+    private final Map<String, MemoryTable> _tables = new ConcurrentHashMap<String, MemoryTable>();
+    // Parsed statements by SQL
+    private final Map<String, MemoryStatement> _statements = new ConcurrentHashMap<String, MemoryStatement>();
+    private final List<ForeignKey> _foreignKeys = new ArrayList<ForeignKey>();
+
+    // Used for logging
+    private static final String sname = MemoryDatabase.class.getName();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    private MemoryDatabase() {
+        // Same foreign keys as structure.sql
+        _foreignKeys.add(new ForeignKey("T_PRODUCT", "CATEGORY_FK", "T_CATEGORY", true));
+        _foreignKeys.add(new ForeignKey("T_ITEM", "PRODUCT_FK", "T_PRODUCT", true));
+        _foreignKeys.add(new ForeignKey("T_ORDER", "CUSTOMER_FK", "T_CUSTOMER", false));
+        _foreignKeys.add(new ForeignKey("T_ORDER_LINE", "ORDER_FK", "T_ORDER", true));
+        _foreignKeys.add(new ForeignKey("T_ORDER_LINE", "ITEM_FK", "T_ITEM", false));
+        _foreignKeys.add(new ForeignKey("T_COMMENT", "CUSTOMER_FK", "T_CUSTOMER", false));
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * @return the memory database
+     */
+    public static MemoryDatabase getInstance() {
+        return _instance;
+    }
+
+    /**
+     * @return true if the DAOs use the memory database instead of MySQL
+     */
+    public static boolean isEnabled() {
+        return _enabled;
+    }
+
+    /**
+     * This method switches the DAOs between the memory database and MySQL. The
+     * entity caches are emptied as they hold objects of the other database.
+     *
+     * @param enabled true to use the memory database
+     */
+    public static void setEnabled(final boolean enabled) {
+        final String mname = "setEnabled";
+
+        _enabled = enabled;
+        EntityCache.clearAll();
+        Trace.info(sname, mname, enabled ? "DAOs use the memory database" : "DAOs use " + URL_DB);
+    }
+
+    /**
+     * @return a connection to the memory database, closing it has no other effect
+     */
+    public Connection getConnection() {
+        return MemoryConnection.newConnection(this);
+    }
+
+    /**
+     * This method deletes all the rows of all the tables.
+     */
+    public void clear() {
+        for (MemoryTable table : _tables.values()) {
+            table.clear();
+        }
+    }
+
+    /**
+     * @param table name of a table
+     * @return the number of rows of the table
+     */
+    public int getRowCount(final String table) {
+        final MemoryTable memoryTable = getTable(table.toUpperCase());
+        return memoryTable == null ? 0 : memoryTable.size();
+    }
+
+    // ======================================
+    // =         Package methods            =
+    // ======================================
+    /**
+     * @param sql statement of a DAO
+     * @return the parsed statement, it is parsed once
+     * @throws SQLException if the statement is not understood
+     */
+    MemoryStatement getStatement(final String sql) throws SQLException {
+        MemoryStatement statement = _statements.get(sql);
+        if (statement == null) {
+            statement = new MemoryStatement(sql);
+            _statements.put(sql, statement);
+        }
+        return statement;
+    }
+
+    /**
+     * @return the table of this name, null if no row has been inserted in it yet
+     */
+    MemoryTable getTable(final String name) {
+        return _tables.get(name);
+    }
+
+    /**
+     * @return the table of this name, it is created with these columns the first time
+     */
+    MemoryTable getTable(final String name, final String[] columns) {
+        MemoryTable table = _tables.get(name);
+        if (table == null) {
+            synchronized (_tables) {
+                table = _tables.get(name);
+                if (table == null) {
+                    table = new MemoryTable(name, columns);
+                    _tables.put(name, table);
+                }
+            }
+        }
+        return table;
+    }
+
+    /**
+     * The changes of the insert, update and delete methods are kept in the undo log
+     * given, null in auto-commit mode.
+     */
+    void insert(final MemoryTable table, final Map<String, Object> row, final UndoLog undoLog) throws SQLException {
+        checkReferencedRows(table, row);
+        if (!table.insert(row))
+            throw new SQLException("Duplicate entry '" + row.get(MemoryTable.ID) + "' for key 'PRIMARY'", INTEGRITY_STATE, DATA_ALREADY_EXIST);
+        if (undoLog != null)
+            undoLog.add(table, (String) row.get(MemoryTable.ID), null);
+    }
+
+    boolean update(final MemoryTable table, final String id, final Map<String, Object> changes, final UndoLog undoLog) throws SQLException {
+        checkReferencedRows(table, changes);
+        final Map<String, Object> oldRow = table.update(id, changes);
+        if (oldRow == null)
+            return false;
+        if (undoLog != null)
+            undoLog.add(table, id, oldRow);
+        return true;
+    }
+
+    /**
+     * This method deletes a row and the rows that reference it ON DELETE CASCADE.
+     * Nothing is deleted if another row still references one of them.
+     */
+    boolean delete(final MemoryTable table, final String id, final UndoLog undoLog) throws SQLException {
+        if (table.get(id) == null)
+            return false;
+        checkNotReferenced(table, id);
+        cascadeDelete(table, id, undoLog);
+        return true;
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    private void checkReferencedRows(final MemoryTable table, final Map<String, Object> row) throws SQLException {
+        for (ForeignKey foreignKey : _foreignKeys) {
+            if (!foreignKey._table.equals(table.getName()) || !row.containsKey(foreignKey._column))
+                continue;
+            final Object value = row.get(foreignKey._column);
+            final MemoryTable parent = getTable(foreignKey._parentTable);
+            if (value != null && (parent == null || parent.get(value.toString()) == null))
+                throw new SQLException("Cannot add or update a child row: " + foreignKey, INTEGRITY_STATE, NO_REFERENCED_ROW);
+        }
+    }
+
+    private void checkNotReferenced(final MemoryTable table, final String id) throws SQLException {
+        for (ForeignKey foreignKey : _foreignKeys) {
+            if (!foreignKey._parentTable.equals(table.getName()))
+                continue;
+            final MemoryTable child = getTable(foreignKey._table);
+            if (child == null)
+                continue;
+            for (String childId : child.getIds(foreignKey._column, id)) {
+                if (!foreignKey._cascade)
+                    throw new SQLException("Cannot delete or update a parent row: " + foreignKey, INTEGRITY_STATE, ROW_IS_REFERENCED);
+                checkNotReferenced(child, childId);
+            }
+        }
+    }
+
+    private void cascadeDelete(final MemoryTable table, final String id, final UndoLog undoLog) {
+        final Map<String, Object> row = table.delete(id);
+        if (row == null)
+            return;
+        if (undoLog != null)
+            undoLog.add(table, id, row);
+        for (ForeignKey foreignKey : _foreignKeys) {
+            if (!foreignKey._cascade || !foreignKey._parentTable.equals(table.getName()))
+                continue;
+            final MemoryTable child = getTable(foreignKey._table);
+            if (child == null)
+                continue;
+            // The ids are copied as the deletes change the index
+            for (String childId : new ArrayList<String>(child.getIds(foreignKey._column, id))) {
+                cascadeDelete(child, childId, undoLog);
+            }
+        }
+    }
+
+    // ======================================
+    // =            Inner classes           =
+    // ======================================
+    /**
+     * This class keeps the rows changed by the transaction of a connection as they
+     * were before each change. A rollback puts them back, the last change first.
+     */
+    static final class UndoLog {
+
+        private final List<MemoryTable> _tables = new ArrayList<MemoryTable>();
+        private final List<String> _ids = new ArrayList<String>();
+        // Rows before the change, null for an insert
+        private final List<Map<String, Object>> _rows = new ArrayList<Map<String, Object>>();
+
+        private void add(final MemoryTable table, final String id, final Map<String, Object> row) {
+            _tables.add(table);
+            _ids.add(id);
+            _rows.add(row);
+        }
+
+        boolean isEmpty() {
+            return _ids.isEmpty();
+        }
+
+        /**
+         * This method forgets the changes, they are committed.
+         */
+        void clear() {
+            _tables.clear();
+            _ids.clear();
+            _rows.clear();
+        }
+
+        /**
+         * This method puts back the rows changed, then forgets the changes.
+         */
+        void rollback() {
+            for (int i = _ids.size() - 1; i >= 0; i--) {
+                _tables.get(i).restore(_ids.get(i), _rows.get(i));
+            }
+            clear();
+        }
+    }
+
+    private static final class ForeignKey {
+
+        private final String _table;
+        private final String _column;
+        private final String _parentTable;
+        private final boolean _cascade;
+
+        private ForeignKey(final String table, final String column, final String parentTable, final boolean cascade) {
+            _table = table;
+            _column = column;
+            _parentTable = parentTable;
+            _cascade = cascade;
+        }
+
+        public String toString() {
+            return _table + "." + _column + " REFERENCES " + _parentTable + "(ID)" + (_cascade ? " ON DELETE CASCADE" : "");
+        }
+    }
+}
@@ -0,0 +1,545 @@
+package com.yaps.petstore.server.util.persistence;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * This class is a SQL statement of the DAOs parsed for the {@link MemoryDatabase}.
+ * Only the statements built by the DAO templates are understood:
+ * <pre>
+ * INSERT INTO table(columns) VALUES (?, ...)
+ * UPDATE table SET column = ?, ... WHERE condition
+ * DELETE FROM table WHERE condition
+ * SELECT columns FROM table [WHERE condition] [ORDER BY column [ASC|DESC], ...] [LIMIT ?]
+ * </pre>
+ * A condition compares columns to parameters (=, &lt;&gt;, &lt;, &lt;=, &gt;, &gt;=, LIKE)
+ * and combines the comparisons with AND, OR and parentheses. Strings are compared
+ * without case, like with the default MySQL collation.
+ */
+final class MemoryStatement {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private static final int INSERT = 0;
+    private static final int UPDATE = 1;
+    private static final int DELETE = 2;
+    private static final int SELECT = 3;
+
+    private static final Pattern INSERT_SQL = Pattern.compile("INSERT\\s+INTO\\s+(\\w+)\\s*\\(([^)]*)\\)\\s*VALUES\\s*\\(([^)]*)\\)\\s*", Pattern.CASE_INSENSITIVE);
+    private static final Pattern UPDATE_SQL = Pattern.compile("UPDATE\\s+(\\w+)\\s+SET\\s+(.+?)\\s+WHERE\\s+(.+)", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern DELETE_SQL = Pattern.compile("DELETE\\s+FROM\\s+(\\w+)(?:\\s+WHERE\\s+(.+))?", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern SELECT_SQL = Pattern.compile("SELECT\\s+(.+?)\\s+FROM\\s+(\\w+)(?:\\s+WHERE\\s+(.+?))?(?:\\s+ORDER\\s+BY\\s+(.+?))?(\\s+LIMIT\\s+\\?)?\\s*", Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+    private static final Pattern TOKEN = Pattern.compile("\\s*(\\?|\\(|\\)|<=|>=|<>|!=|=|<|>|\\w+)");
+
+    private final String _sql;
+    private final int _kind;
+    private final String _table;
+    // Inserted, updated or selected columns
+    private final String[] _columns;
+    private final Condition _where;
+    private final String[] _orderBy;
+    private final boolean[] _descending;
+    private final boolean _limit;
+    private final int _parameterCount;
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    /**
+     * @param sql statement to parse
+     * @throws SQLException if the statement is not understood by the memory database
+     */
+    MemoryStatement(final String sql) throws SQLException {
+        _sql = sql.trim();
+        int parameterCount = 0;
+        for (int i = 0; i < _sql.length(); i++) {
+            if (_sql.charAt(i) == '?')
+                parameterCount++;
+        }
+        _parameterCount = parameterCount;
+
+        Matcher matcher;
+        if ((matcher = INSERT_SQL.matcher(_sql)).matches()) {
+            _kind = INSERT;
+            _table = matcher.group(1).toUpperCase();
+            _columns = split(matcher.group(2));
+            _where = null;
+        } else if ((matcher = UPDATE_SQL.matcher(_sql)).matches()) {
+            _kind = UPDATE;
+            _table = matcher.group(1).toUpperCase();
+            final String[] assignments = split(matcher.group(2));
+            _columns = new String[assignments.length];
+            for (int i = 0; i < assignments.length; i++) {
+                final int equals = assignments[i].indexOf('=');
+                if (equals < 0 || !"?".equals(assignments[i].substring(equals + 1).trim()))
+                    throw unsupported();
+                _columns[i] = assignments[i].substring(0, equals).trim();
+            }
+            _where = parseCondition(matcher.group(3), _columns.length);
+        } else if ((matcher = DELETE_SQL.matcher(_sql)).matches()) {
+            _kind = DELETE;
+            _table = matcher.group(1).toUpperCase();
+            _columns = null;
+            _where = matcher.group(2) == null ? null : parseCondition(matcher.group(2), 0);
+        } else if ((matcher = SELECT_SQL.matcher(_sql)).matches()) {
+            _kind = SELECT;
+            _table = matcher.group(2).toUpperCase();
+            _columns = split(matcher.group(1));
+            _where = matcher.group(3) == null ? null : parseCondition(matcher.group(3), 0);
+            if (matcher.group(4) != null) {
+                final String[] orderBy = split(matcher.group(4));
+                _orderBy = new String[orderBy.length];
+                _descending = new boolean[orderBy.length];
+                for (int i = 0; i < orderBy.length; i++) {
+                    final StringTokenizer tokenizer = new StringTokenizer(orderBy[i]);
+                    _orderBy[i] = tokenizer.nextToken();
+                    _descending[i] = tokenizer.hasMoreTokens() && "DESC".equalsIgnoreCase(tokenizer.nextToken());
+                }
+            } else {
+                _orderBy = null;
+                _descending = null;
+            }
+            _limit = matcher.group(5) != null;
+            return;
+        } else {
+            throw unsupported();
+        }
+        _orderBy = null;
+        _descending = null;
+        _limit = false;
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    int getParameterCount() {
+        return _parameterCount;
+    }
+
+    boolean isQuery() {
+        return _kind == SELECT;
+    }
+
+    /**
+     * This method runs an insert, an update or a delete.
+     *
+     * @param database   database of the tables
+     * @param parameters values of the parameters
+     * @param undoLog    undo log of the transaction, null in auto-commit mode
+     * @return the number of rows inserted, updated or deleted
+     * @throws SQLException if a key is duplicated or a foreign key is not valid
+     */
+    int executeUpdate(final MemoryDatabase database, final Object[] parameters, final MemoryDatabase.UndoLog undoLog) throws SQLException {
+        switch (_kind) {
+            case INSERT: {
+                if (_columns.length != _parameterCount)
+                    throw unsupported();
+                final MemoryTable table = database.getTable(_table, _columns);
+                final Map<String, Object> row = new HashMap<String, Object>();
+                for (int i = 0; i < _columns.length; i++) {
+                    row.put(_columns[i], parameters[i]);
+                }
+                database.insert(table, row, undoLog);
+                return 1;
+            }
+            case UPDATE: {
+                final MemoryTable table = database.getTable(_table);
+                if (table == null)
+                    return 0;
+                final Map<String, Object> changes = new HashMap<String, Object>();
+                for (int i = 0; i < _columns.length; i++) {
+                    changes.put(_columns[i], parameters[i]);
+                }
+                int count = 0;
+                for (String id : getIds(table, parameters)) {
+                    if (database.update(table, id, changes, undoLog))
+                        count++;
+                }
+                return count;
+            }
+            case DELETE: {
+                final MemoryTable table = database.getTable(_table);
+                if (table == null)
+                    return 0;
+                int count = 0;
+                for (String id : getIds(table, parameters)) {
+                    if (database.delete(table, id, undoLog))
+                        count++;
+                }
+                return count;
+            }
+            default:
+                throw new SQLException("A query does not update the database: " + _sql);
+        }
+    }
+
+    /**
+     * This method runs a select.
+     *
+     * @param database   database of the tables
+     * @param parameters values of the parameters
+     * @return the rows found, each row is an array of the values of the selected columns
+     */
+    List<Object[]> executeQuery(final MemoryDatabase database, final Object[] parameters) throws SQLException {
+        if (_kind != SELECT)
+            throw new SQLException("Not a query: " + _sql);
+
+        final MemoryTable table = database.getTable(_table, _columns);
+        final List<Map<String, Object>> rows = getRows(table, parameters);
+        if (_orderBy != null)
+            Collections.sort(rows, new RowComparator());
+
+        int count = rows.size();
+        if (_limit) {
+            final int limit = ((Number) parameters[_parameterCount - 1]).intValue();
+            count = Math.min(count, limit);
+        }
+        final List<Object[]> result = new ArrayList<Object[]>(count);
+        for (int i = 0; i < count; i++) {
+            final Map<String, Object> row = rows.get(i);
+            final Object[] values = new Object[_columns.length];
+            for (int j = 0; j < _columns.length; j++) {
+                values[j] = row.get(_columns[j]);
+            }
+            result.add(values);
+        }
+        return result;
+    }
+
+    public String toString() {
+        return _sql;
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    /**
+     * This method returns the rows that match the where clause, in the order of
+     * their ids. An equality on the primary key or on a foreign key goes through the
+     * index of the column instead of reading the whole table.
+     */
+    private List<Map<String, Object>> getRows(final MemoryTable table, final Object[] parameters) {
+        final Object[] values = bind(parameters);
+        final List<Map<String, Object>> rows = new ArrayList<Map<String, Object>>();
+
+        final Comparison indexed = _where == null ? null : _where.getIndexedEquality(table);
+        if (indexed != null) {
+            final List<String> ids = new ArrayList<String>(table.getIds(indexed._column, values[indexed._parameter]));
+            Collections.sort(ids);
+            for (String id : ids) {
+                final Map<String, Object> row = table.get(id);
+                if (row != null && _where.matches(row, values))
+                    rows.add(row);
+            }
+        } else {
+            for (Map<String, Object> row : table.getRows()) {
+                if (_where == null || _where.matches(row, values))
+                    rows.add(row);
+            }
+        }
+        return rows;
+    }
+
+    private Collection<String> getIds(final MemoryTable table, final Object[] parameters) {
+        final List<Map<String, Object>> rows = getRows(table, parameters);
+        final List<String> ids = new ArrayList<String>(rows.size());
+        for (Map<String, Object> row : rows) {
+            ids.add((String) row.get(MemoryTable.ID));
+        }
+        return ids;
+    }
+
+    /**
+     * This method replaces the parameters of the LIKE comparisons by their compiled
+     * pattern, so that a pattern is compiled once per statement and not once per row.
+     */
+    private Object[] bind(final Object[] parameters) {
+        if (_where == null)
+            return parameters;
+        final Object[] values = parameters.clone();
+        _where.bind(values);
+        return values;
+    }
+
+    private Condition parseCondition(final String clause, final int firstParameter) throws SQLException {
+        final List<String> tokens = new ArrayList<String>();
+        final Matcher matcher = TOKEN.matcher(clause);
+        int end = 0;
+        while (matcher.find() && matcher.start() == end) {
+            tokens.add(matcher.group(1));
+            end = matcher.end();
+        }
+        if (clause.substring(end).trim().length() > 0)
+            throw unsupported();
+
+        final Parser parser = new Parser(tokens, firstParameter);
+        final Condition condition = parser.parseOr();
+        if (parser._position != tokens.size())
+            throw unsupported();
+        return condition;
+    }
+
+    private static String[] split(final String list) {
+        final StringTokenizer tokenizer = new StringTokenizer(list, ",");
+        final String[] items = new String[tokenizer.countTokens()];
+        for (int i = 0; i < items.length; i++) {
+            items[i] = tokenizer.nextToken().trim().toUpperCase();
+        }
+        return items;
+    }
+
+    private SQLException unsupported() {
+        return new SQLException("Statement not supported by the memory database: " + _sql);
+    }
+
+    /**
+     * This method compares two values of a column like MySQL does: numbers by value,
+     * dates by time and the other values as strings without case. A null value comes first.
+     */
+    static int compare(final Object value1, final Object value2) {
+        if (value1 == null || value2 == null)
+            return value1 == null ? (value2 == null ? 0 : -1) : 1;
+        if (value1 instanceof Number && value2 instanceof Number)
+            return Double.compare(((Number) value1).doubleValue(), ((Number) value2).doubleValue());
+        if (value1 instanceof Date && value2 instanceof Date) {
+            final long time1 = ((Date) value1).getTime();
+            final long time2 = ((Date) value2).getTime();
+            return time1 < time2 ? -1 : (time1 == time2 ? 0 : 1);
+        }
+        return value1.toString().compareToIgnoreCase(value2.toString());
+    }
+
+    // ======================================
+    // =            Inner classes           =
+    // ======================================
+    /**
+     * Recursive descent parser of the where clauses.
+     */
+    private final class Parser {
+
+        private final List<String> _tokens;
+        private int _position = 0;
+        private int _parameter;
+
+        private Parser(final List<String> tokens, final int firstParameter) {
+            _tokens = tokens;
+            _parameter = firstParameter;
+        }
+
+        private Condition parseOr() throws SQLException {
+            final List<Condition> conditions = new ArrayList<Condition>();
+            conditions.add(parseAnd());
+            while (accept("OR")) {
+                conditions.add(parseAnd());
+            }
+            return conditions.size() == 1 ? conditions.get(0) : new Or(conditions);
+        }
+
+        private Condition parseAnd() throws SQLException {
+            final List<Condition> conditions = new ArrayList<Condition>();
+            conditions.add(parsePrimary());
+            while (accept("AND")) {
+                conditions.add(parsePrimary());
+            }
+            return conditions.size() == 1 ? conditions.get(0) : new And(conditions);
+        }
+
+        private Condition parsePrimary() throws SQLException {
+            if (accept("(")) {
+                final Condition condition = parseOr();
+                expect(")");
+                return condition;
+            }
+            final String column = next().toUpperCase();
+            final String operator = next().toUpperCase();
+            expect("?");
+            if (!Comparison.isOperator(operator))
+                throw unsupported();
+            return new Comparison(column, operator, _parameter++);
+        }
+
+        private boolean accept(final String token) {
+            if (_position < _tokens.size() && token.equalsIgnoreCase(_tokens.get(_position))) {
+                _position++;
+                return true;
+            }
+            return false;
+        }
+
+        private void expect(final String token) throws SQLException {
+            if (!accept(token))
+                throw unsupported();
+        }
+
+        private String next() throws SQLException {
+            if (_position == _tokens.size())
+                throw unsupported();
+            return _tokens.get(_position++);
+        }
+    }
+
+    /**
+     * Node of a parsed where clause.
+     */
+    private abstract static class Condition {
+
+        abstract boolean matches(Map<String, Object> row, Object[] values);
+
+        abstract void bind(Object[] values);
+
+        /**
+         * @return an equality on an indexed column that every matching row satisfies, or null
+         */
+        Comparison getIndexedEquality(final MemoryTable table) {
+            return null;
+        }
+    }
+
+    private static final class Comparison extends Condition {
+
+        private static final String OPERATORS = " = <> != < <= > >= LIKE ";
+
+        private final String _column;
+        private final String _operator;
+        private final int _parameter;
+
+        private Comparison(final String column, final String operator, final int parameter) {
+            _column = column;
+            _operator = operator;
+            _parameter = parameter;
+        }
+
+        private static boolean isOperator(final String operator) {
+            return OPERATORS.indexOf(" " + operator + " ") >= 0;
+        }
+
+        boolean matches(final Map<String, Object> row, final Object[] values) {
+            final Object value = row.get(_column);
+            final Object parameter = values[_parameter];
+            // Like in SQL, a comparison with null is never true
+            if (value == null || parameter == null)
+                return false;
+            if ("LIKE".equals(_operator))
+                return ((Pattern) parameter).matcher(value.toString()).matches();
+
+            final int comparison = compare(value, parameter);
+            if ("=".equals(_operator)) return comparison == 0;
+            if ("<".equals(_operator)) return comparison < 0;
+            if ("<=".equals(_operator)) return comparison <= 0;
+            if (">".equals(_operator)) return comparison > 0;
+            if (">=".equals(_operator)) return comparison >= 0;
+            return comparison != 0;
+        }
+
+        void bind(final Object[] values) {
+            if ("LIKE".equals(_operator) && values[_parameter] != null)
+                values[_parameter] = toPattern(values[_parameter].toString());
+        }
+
+        Comparison getIndexedEquality(final MemoryTable table) {
+            return "=".equals(_operator) && table.isIndexed(_column) ? this : null;
+        }
+
+        /**
+         * Turns a LIKE pattern into a regular expression: % matches any string and _
+         * any character.
+         */
+        private static Pattern toPattern(final String like) {
+            final StringBuffer regex = new StringBuffer();
+            int start = 0;
+            for (int i = 0; i < like.length(); i++) {
+                final char c = like.charAt(i);
+                if (c == '%' || c == '_') {
+                    if (i > start)
+                        regex.append(Pattern.quote(like.substring(start, i)));
+                    regex.append(c == '%' ? ".*" : ".");
+                    start = i + 1;
+                }
+            }
+            if (start < like.length())
+                regex.append(Pattern.quote(like.substring(start)));
+            return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.DOTALL);
+        }
+    }
+
+    private static final class And extends Condition {
+
+        private final Condition[] _conditions;
+
+        private And(final List<Condition> conditions) {
+            _conditions = conditions.toArray(new Condition[conditions.size()]);
+        }
+
+        boolean matches(final Map<String, Object> row, final Object[] values) {
+            for (int i = 0; i < _conditions.length; i++) {
+                if (!_conditions[i].matches(row, values))
+                    return false;
+            }
+            return true;
+        }
+
+        void bind(final Object[] values) {
+            for (int i = 0; i < _conditions.length; i++) {
+                _conditions[i].bind(values);
+            }
+        }
+
+        Comparison getIndexedEquality(final MemoryTable table) {
+            for (int i = 0; i < _conditions.length; i++) {
+                final Comparison comparison = _conditions[i].getIndexedEquality(table);
+                if (comparison != null)
+                    return comparison;
+            }
+            return null;
+        }
+    }
+
+    private static final class Or extends Condition {
+
+        private final Condition[] _conditions;
+
+        private Or(final List<Condition> conditions) {
+            _conditions = conditions.toArray(new Condition[conditions.size()]);
+        }
+
+        boolean matches(final Map<String, Object> row, final Object[] values) {
+            for (int i = 0; i < _conditions.length; i++) {
+                if (_conditions[i].matches(row, values))
+                    return true;
+            }
+            return false;
+        }
+
+        void bind(final Object[] values) {
+            for (int i = 0; i < _conditions.length; i++) {
+                _conditions[i].bind(values);
+            }
+        }
+    }
+
+    /**
+     * Sorts the rows on the columns of the ORDER BY clause.
+     */
+    private final class RowComparator implements Comparator<Map<String, Object>> {
+
+        public int compare(final Map<String, Object> row1, final Map<String, Object> row2) {
+            for (int i = 0; i < _orderBy.length; i++) {
+                final int comparison = MemoryStatement.compare(row1.get(_orderBy[i]), row2.get(_orderBy[i]));
+                if (comparison != 0)
+                    return _descending[i] ? -comparison : comparison;
+            }
+            return 0;
+        }
+    }
+}
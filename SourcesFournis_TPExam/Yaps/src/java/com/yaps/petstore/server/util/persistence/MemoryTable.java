@@ -0,0 +1,197 @@
+package com.yaps.petstore.server.util.persistence;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * This class is a table of the {@link MemoryDatabase}. The rows are kept in the
+ * order of their primary key (the ID column), like in an InnoDB table, and every
+ * foreign key column (its name ends with _FK) has an index that gives the ids of
+ * the rows for a value.
+ * <p/>
+ * A row is a map of column names to values that is never changed: an update
+ * replaces the whole row. So reads take no lock and see each row either before or
+ * after an update.
+ */
+final class MemoryTable {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    /**
+     * Name of the primary key column of every table.
+     */
+    static final String ID = "ID";
+    private static final String FOREIGN_KEY_SUFFIX = "_FK";
+
+    private final String _name;
+    // Rows by id
+    private final ConcurrentSkipListMap<String, Map<String, Object>> _rows = new ConcurrentSkipListMap<String, Map<String, Object>>();
+    // Index by foreign key column: value -> set of ids
+    private final Map<String, ConcurrentMap<Object, Set<String>>> _indexes = new ConcurrentHashMap<String, ConcurrentMap<Object, Set<String>>>();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    MemoryTable(final String name, final String[] columns) {
+        _name = name;
+        for (int i = 0; i < columns.length; i++) {
+            if (columns[i].endsWith(FOREIGN_KEY_SUFFIX))
+                _indexes.put(columns[i], new ConcurrentHashMap<Object, Set<String>>());
+        }
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    String getName() {
+        return _name;
+    }
+
+    /**
+     * @param row row to insert, with its ID column
+     * @return false if there is already a row with this id
+     */
+    boolean insert(final Map<String, Object> row) {
+        final String id = (String) row.get(ID);
+        if (_rows.putIfAbsent(id, row) != null)
+            return false;
+        addToIndexes(id, row);
+        return true;
+    }
+
+    /**
+     * @param id      id of the row
+     * @param changes new values by column name
+     * @return the row before the update, null if there is no row with this id
+     */
+    Map<String, Object> update(final String id, final Map<String, Object> changes) {
+        while (true) {
+            final Map<String, Object> oldRow = _rows.get(id);
+            if (oldRow == null)
+                return null;
+            final Map<String, Object> newRow = new HashMap<String, Object>(oldRow);
+            newRow.putAll(changes);
+            if (_rows.replace(id, oldRow, newRow)) {
+                // The row is added to the new entries before it is removed from the
+                // old ones, so that a read through the index never misses it
+                addToIndexes(id, newRow);
+                removeFromIndexes(id, oldRow, newRow);
+                return oldRow;
+            }
+        }
+    }
+
+    /**
+     * This method puts back a row as it was before a change, when a transaction is
+     * rolled back.
+     *
+     * @param id  id of the row
+     * @param row the row before the change, null if it did not exist
+     */
+    void restore(final String id, final Map<String, Object> row) {
+        final Map<String, Object> oldRow = row == null ? _rows.remove(id) : _rows.put(id, row);
+        if (row != null)
+            addToIndexes(id, row);
+        if (oldRow != null)
+            removeFromIndexes(id, oldRow, row);
+    }
+
+    /**
+     * @param id id of the row
+     * @return the deleted row, null if there is no row with this id
+     */
+    Map<String, Object> delete(final String id) {
+        final Map<String, Object> row = _rows.remove(id);
+        if (row != null)
+            removeFromIndexes(id, row, null);
+        return row;
+    }
+
+    /**
+     * @param id id of the row
+     * @return the row, null if there is no row with this id
+     */
+    Map<String, Object> get(final String id) {
+        return id == null ? null : _rows.get(id);
+    }
+
+    /**
+     * @return all the rows, in the order of their ids
+     */
+    Collection<Map<String, Object>> getRows() {
+        return _rows.values();
+    }
+
+    /**
+     * @param column name of a column
+     * @return true if the values of this column are indexed
+     */
+    boolean isIndexed(final String column) {
+        return ID.equals(column) || _indexes.containsKey(column);
+    }
+
+    /**
+     * @param column name of an indexed column
+     * @param value  value of the column
+     * @return the ids of the rows that have this value, in no particular order
+     */
+    Collection<String> getIds(final String column, final Object value) {
+        if (ID.equals(column))
+            return _rows.containsKey(value) ? Collections.singleton((String) value) : Collections.<String>emptySet();
+        final Set<String> ids = _indexes.get(column).get(value);
+        return ids == null ? Collections.<String>emptySet() : ids;
+    }
+
+    int size() {
+        return _rows.size();
+    }
+
+    void clear() {
+        _rows.clear();
+        for (Map<Object, Set<String>> index : _indexes.values()) {
+            index.clear();
+        }
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    private void addToIndexes(final String id, final Map<String, Object> row) {
+        for (Map.Entry<String, ConcurrentMap<Object, Set<String>>> entry : _indexes.entrySet()) {
+            final Object value = row.get(entry.getKey());
+            if (value == null)
+                continue;
+            final ConcurrentMap<Object, Set<String>> index = entry.getValue();
+            Set<String> ids = index.get(value);
+            if (ids == null) {
+                final Set<String> newIds = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+                ids = index.putIfAbsent(value, newIds);
+                if (ids == null)
+                    ids = newIds;
+            }
+            ids.add(id);
+        }
+    }
+
+    /**
+     * Removes a row from the index entries of its old values, except the ones it
+     * still has in its new version.
+     */
+    private void removeFromIndexes(final String id, final Map<String, Object> oldRow, final Map<String, Object> newRow) {
+        for (Map.Entry<String, ConcurrentMap<Object, Set<String>>> entry : _indexes.entrySet()) {
+            final Object value = oldRow.get(entry.getKey());
+            if (value == null || (newRow != null && value.equals(newRow.get(entry.getKey()))))
+                continue;
+            final Set<String> ids = entry.getValue().get(value);
+            if (ids != null)
+                ids.remove(id);
+        }
+    }
+}
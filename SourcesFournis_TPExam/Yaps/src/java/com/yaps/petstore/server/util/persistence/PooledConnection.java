@@ -0,0 +1,409 @@
+package com.yaps.petstore.server.util.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * This class wraps a physical JDBC connection owned by the {@link ConnectionPool}.
+ * Each time the connection is borrowed, the pool hands out a new proxy whose
+ * <code>close()</code> method gives the physical connection back to the pool
+ * instead of closing it.
+ * <p/>
+ * The prepared statements of the connection are cached by SQL text, result set
+ * type and concurrency, so a statement template is prepared once and executed many
+ * times. The cache holds at most {@link DataAccessConstants#POOL_STATEMENT_CACHE_SIZE}
+ * statements that are not in use, the least recently used ones are closed first.
+ * Statements prepared with other options (generated keys, holdability) are not cached.
+ */
+final class PooledConnection {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private final ConnectionPool _pool;
+    private final Connection _physical;
+    private final long _creationTime;
+    private volatile long _lastUsedTime;
+    private volatile long _borrowTime;
+    // Stack trace of the caller that borrowed the connection, used to report leaks
+    private volatile Throwable _borrowSite;
+    private volatile boolean _leakReported;
+    private volatile boolean _broken;
+    // Prepared statements by key, the least recently used one first
+    private final Map<String, CachedStatement> _statements = new LinkedHashMap<String, CachedStatement>(16, 0.75f, true);
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    PooledConnection(final ConnectionPool pool, final Connection physical) {
+        _pool = pool;
+        _physical = physical;
+        _creationTime = System.currentTimeMillis();
+        _lastUsedTime = _creationTime;
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * This method marks the connection as borrowed and returns a new logical connection on it.
+     *
+     * @return a connection that returns to the pool when it is closed
+     */
+    Connection borrow() {
+        _borrowTime = System.currentTimeMillis();
+        _borrowSite = new Throwable("Connection borrowed here");
+        _leakReported = false;
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new LogicalConnection());
+    }
+
+    /**
+     * This method marks the connection as idle again.
+     */
+    void giveBack() {
+        _lastUsedTime = System.currentTimeMillis();
+        _borrowSite = null;
+    }
+
+    /**
+     * This method checks that the physical connection is still usable by running
+     * the validation query.
+     *
+     * @return true if the connection answered the validation query
+     */
+    boolean validate() {
+        java.sql.Statement statement = null;
+        try {
+            statement = _physical.createStatement();
+            statement.execute(DataAccessConstants.POOL_VALIDATION_QUERY);
+            _lastUsedTime = System.currentTimeMillis();
+            return true;
+        } catch (SQLException e) {
+            return false;
+        } finally {
+            try {
+                if (statement != null) statement.close();
+            } catch (SQLException e) {
+                // The connection will be discarded anyway
+            }
+        }
+    }
+
+    /**
+     * This method cleans the physical connection before it goes back to the idle list.
+     * A transaction left open by the borrower is rolled back and the statements
+     * it did not close are dropped from the cache.
+     *
+     * @throws SQLException if the connection cannot be reset
+     */
+    void reset() throws SQLException {
+        synchronized (_statements) {
+            for (Iterator<CachedStatement> iterator = _statements.values().iterator(); iterator.hasNext();) {
+                final CachedStatement cached = iterator.next();
+                if (cached._inUse) {
+                    cached.destroy();
+                    iterator.remove();
+                }
+            }
+        }
+        if (!_physical.getAutoCommit()) {
+            _physical.rollback();
+            _physical.setAutoCommit(true);
+        }
+        _physical.clearWarnings();
+    }
+
+    /**
+     * This method returns a prepared statement for the given SQL text. The statement
+     * comes from the cache when it has already been prepared on this connection with
+     * the same result set type and concurrency and is not used by someone else.
+     * Closing it gives it back to the cache.
+     *
+     * @param sql           SQL text of the statement
+     * @param resultSetType result set type of the statement
+     * @param concurrency   result set concurrency of the statement
+     * @param connection    logical connection the statement is created from
+     * @return a prepared statement
+     * @throws SQLException if the statement cannot be prepared
+     */
+    PreparedStatement prepareStatement(final String sql, final int resultSetType, final int concurrency,
+                                       final Connection connection) throws SQLException {
+        // The default options share the key of the SQL text alone
+        final boolean defaults = resultSetType == ResultSet.TYPE_FORWARD_ONLY && concurrency == ResultSet.CONCUR_READ_ONLY;
+        final String key = defaults ? sql : resultSetType + "," + concurrency + ":" + sql;
+        CachedStatement cached;
+        synchronized (_statements) {
+            cached = _statements.get(key);
+            if (cached != null && cached._inUse) {
+                // The same statement is already open on this connection
+                _pool.recordStatementCacheMiss();
+                return _physical.prepareStatement(sql, resultSetType, concurrency);
+            }
+            if (cached == null) {
+                _pool.recordStatementCacheMiss();
+                cached = new CachedStatement(_physical.prepareStatement(sql, resultSetType, concurrency));
+                _statements.put(key, cached);
+            } else {
+                _pool.recordStatementCacheHit();
+            }
+            cached._inUse = true;
+            trimStatements();
+        }
+        return (PreparedStatement) Proxy.newProxyInstance(PreparedStatement.class.getClassLoader(),
+                new Class<?>[]{PreparedStatement.class}, new LogicalStatement(cached, connection));
+    }
+
+    /**
+     * This method really closes the cached statements and the physical connection.
+     */
+    void destroy() {
+        synchronized (_statements) {
+            for (CachedStatement cached : _statements.values()) {
+                cached.destroy();
+            }
+            _statements.clear();
+        }
+        try {
+            _physical.close();
+        } catch (SQLException e) {
+            AbstractDataAccessObject.displaySqlException("Cannot close pooled connection", e);
+        }
+    }
+
+    // ======================================
+    // =         Getters and Setters        =
+    // ======================================
+    Connection getPhysicalConnection() {
+        return _physical;
+    }
+
+    long getCreationTime() {
+        return _creationTime;
+    }
+
+    long getLastUsedTime() {
+        return _lastUsedTime;
+    }
+
+    long getBorrowTime() {
+        return _borrowTime;
+    }
+
+    Throwable getBorrowSite() {
+        return _borrowSite;
+    }
+
+    boolean isLeakReported() {
+        return _leakReported;
+    }
+
+    void setLeakReported(final boolean leakReported) {
+        _leakReported = leakReported;
+    }
+
+    boolean isBroken() {
+        return _broken;
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    /**
+     * Closes the least recently used statements that are not in use until the cache is
+     * back within its size. The statements in use are skipped, they are trimmed when
+     * they are given back. Must be called holding the lock of the cache.
+     */
+    private void trimStatements() {
+        int excess = _statements.size() - DataAccessConstants.POOL_STATEMENT_CACHE_SIZE;
+        for (Iterator<CachedStatement> iterator = _statements.values().iterator(); excess > 0 && iterator.hasNext();) {
+            final CachedStatement cached = iterator.next();
+            if (!cached._inUse) {
+                cached.destroy();
+                iterator.remove();
+                excess--;
+            }
+        }
+    }
+
+    // ======================================
+    // =            Inner classes           =
+    // ======================================
+    /**
+     * Handler of the proxy given to the DAOs. It forwards every call to the physical
+     * connection except <code>close()</code>, which returns the connection to the pool.
+     */
+    private final class LogicalConnection implements InvocationHandler {
+
+        private boolean _closed = false;
+
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+
+            if ("close".equals(name)) {
+                if (!_closed) {
+                    _closed = true;
+                    _pool.release(PooledConnection.this);
+                }
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return Boolean.valueOf(_closed || _physical.isClosed());
+            }
+            if ("prepareStatement".equals(name) && !_closed) {
+                if (args.length == 1) {
+                    return prepareStatement((String) args[0], ResultSet.TYPE_FORWARD_ONLY,
+                            ResultSet.CONCUR_READ_ONLY, (Connection) proxy);
+                }
+                if (args.length == 3) {
+                    return prepareStatement((String) args[0], ((Integer) args[1]).intValue(),
+                            ((Integer) args[2]).intValue(), (Connection) proxy);
+                }
+            }
+            if ("equals".equals(name)) {
+                return Boolean.valueOf(proxy == args[0]);
+            }
+            if ("hashCode".equals(name)) {
+                return Integer.valueOf(System.identityHashCode(proxy));
+            }
+            if ("toString".equals(name)) {
+                return "Pooled[" + _physical + "]";
+            }
+            if (_closed) {
+                throw new SQLException("Connection has already been returned to the pool");
+            }
+
+            try {
+                return method.invoke(_physical, args);
+            } catch (InvocationTargetException e) {
+                final Throwable cause = e.getTargetException();
+                // SQL state class 08 means the connection itself is dead
+                if (cause instanceof SQLException) {
+                    final String state = ((SQLException) cause).getSQLState();
+                    if (state != null && state.startsWith("08"))
+                        _broken = true;
+                }
+                throw cause;
+            }
+        }
+    }
+
+    /**
+     * A prepared statement kept open on the physical connection, with the settings it
+     * had when it was prepared.
+     */
+    private static final class CachedStatement {
+
+        private final PreparedStatement _statement;
+        private final int _fetchSize;
+        private final int _maxRows;
+        private final int _maxFieldSize;
+        private final int _queryTimeout;
+        private final int _fetchDirection;
+        private boolean _inUse;
+
+        private CachedStatement(final PreparedStatement statement) throws SQLException {
+            _statement = statement;
+            _fetchSize = statement.getFetchSize();
+            _maxRows = statement.getMaxRows();
+            _maxFieldSize = statement.getMaxFieldSize();
+            _queryTimeout = statement.getQueryTimeout();
+            _fetchDirection = statement.getFetchDirection();
+        }
+
+        /**
+         * Clears the parameters and puts back the settings, so the next user does not
+         * inherit the limits of the previous one.
+         */
+        private void reset() throws SQLException {
+            _statement.clearParameters();
+            _statement.clearBatch();
+            _statement.clearWarnings();
+            _statement.setFetchSize(_fetchSize);
+            _statement.setMaxRows(_maxRows);
+            _statement.setMaxFieldSize(_maxFieldSize);
+            _statement.setQueryTimeout(_queryTimeout);
+            _statement.setFetchDirection(_fetchDirection);
+        }
+
+        private void destroy() {
+            try {
+                _statement.close();
+            } catch (SQLException e) {
+                // The statement is discarded anyway
+            }
+        }
+    }
+
+    /**
+     * Handler of the proxy given for a cached statement. Closing it resets its
+     * parameters and settings and makes it available again instead of closing it.
+     */
+    private final class LogicalStatement implements InvocationHandler {
+
+        private final CachedStatement _cached;
+        private final Connection _connection;
+        private boolean _closed = false;
+
+        private LogicalStatement(final CachedStatement cached, final Connection connection) {
+            _cached = cached;
+            _connection = connection;
+        }
+
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+
+            if ("close".equals(name)) {
+                if (!_closed) {
+                    _closed = true;
+                    giveBack();
+                }
+                return null;
+            }
+            if ("isClosed".equals(name)) {
+                return Boolean.valueOf(_closed);
+            }
+            if ("getConnection".equals(name)) {
+                return _connection;
+            }
+            if ("equals".equals(name)) {
+                return Boolean.valueOf(proxy == args[0]);
+            }
+            if ("hashCode".equals(name)) {
+                return Integer.valueOf(System.identityHashCode(proxy));
+            }
+            if (_closed) {
+                throw new SQLException("Statement has already been closed");
+            }
+
+            try {
+                return method.invoke(_cached._statement, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+
+        private void giveBack() {
+            synchronized (_statements) {
+                try {
+                    _cached.reset();
+                    _cached._inUse = false;
+                    trimStatements();
+                } catch (SQLException e) {
+                    // A statement that cannot be reset is not reused
+                    _statements.values().remove(_cached);
+                    _cached.destroy();
+                }
+            }
+        }
+    }
+}
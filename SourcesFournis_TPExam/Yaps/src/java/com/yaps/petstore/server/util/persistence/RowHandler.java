@@ -0,0 +1,19 @@
+package com.yaps.petstore.server.util.persistence;
+
+import com.yaps.petstore.server.domain.DomainObject;
+
+/**
+ * This interface is implemented by the callers of the streaming select methods of
+ * {@link AbstractDataAccessObject}. Each row read from the database is transformed
+ * into a domain object and given to the handler before the next row is read, so a
+ * listing never holds the whole table in memory.
+ */
+public interface RowHandler {
+
+    /**
+     * This method is called once for each row of the result.
+     *
+     * @param object the domain object built from the current row
+     */
+    void handleRow(DomainObject object);
+}
@@ -0,0 +1,269 @@
+package com.yaps.petstore.server.util.persistence;
+
+import com.yaps.petstore.common.exception.DataAccessException;
+import com.yaps.petstore.common.logging.Trace;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class binds a database transaction to the current thread (Unit of Work).
+ * While a transaction is active, every DAO of the thread works on the same
+ * connection and nothing is committed before the outermost commit.
+ * <p/>
+ * A service wraps a business method this way:
+ * <pre>
+ * TransactionContext.begin();
+ * try {
+ *     ... calls to the DAOs ...
+ *     TransactionContext.commit();
+ * } finally {
+ *     TransactionContext.end();
+ * }
+ * </pre>
+ * Transactions can be nested: an inner begin joins the transaction of the caller,
+ * and an inner level that ends without committing makes the whole transaction
+ * roll back.
+ */
+public final class TransactionContext {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    // Transaction of the current thread
+    private static final ThreadLocal<TransactionContext> _current = new ThreadLocal<TransactionContext>();
+
+    // Connection borrowed from the pool for the whole transaction
+    private final Connection _connection;
+    // Connection given to the DAOs, it cannot close nor commit the transaction
+    private final Connection _participant;
+    private int _depth = 0;
+    private boolean _levelCompleted = false;
+    private boolean _rollbackOnly = false;
+    // Tasks run when the outermost level ends
+    private final List<Runnable> _afterCompletion = new ArrayList<Runnable>();
+
+    // Used for logging
+    private static final String sname = TransactionContext.class.getName();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    private TransactionContext(final Connection connection) {
+        _connection = connection;
+        _participant = (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ParticipantConnection());
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * This method starts a transaction, or joins the transaction already started by the thread.
+     *
+     * @throws DataAccessException is thrown if no connection can be borrowed
+     */
+    public static void begin() {
+        final String mname = "begin";
+
+        TransactionContext context = _current.get();
+        if (context == null) {
+            Connection connection = null;
+            try {
+                connection = AbstractDataAccessObject.openConnection();
+                connection.setAutoCommit(false);
+            } catch (SQLException e) {
+                AbstractDataAccessObject.displaySqlException("Cannot begin the transaction", e);
+                close(connection);
+                throw new DataAccessException("Cannot begin the transaction", e);
+            }
+            context = new TransactionContext(connection);
+            _current.set(context);
+        }
+        context._depth++;
+        context._levelCompleted = false;
+        Trace.finest(sname, mname, "Transaction level " + context._depth);
+    }
+
+    /**
+     * This method commits the transaction. Only the outermost level really commits,
+     * an inner level only tells that its work is done.
+     *
+     * @throws DataAccessException is thrown if the transaction has been marked for
+     *                             rollback or cannot be committed
+     */
+    public static void commit() {
+        final TransactionContext context = getRequiredContext();
+        if (context._depth > 1) {
+            context._levelCompleted = true;
+            return;
+        }
+        if (context._rollbackOnly) {
+            context._levelCompleted = true;
+            rollback(context._connection);
+            throw new DataAccessException("The transaction has been marked for rollback", null);
+        }
+        try {
+            context._connection.commit();
+            context._levelCompleted = true;
+        } catch (SQLException e) {
+            AbstractDataAccessObject.displaySqlException("Cannot commit the transaction", e);
+            throw new DataAccessException("Cannot commit the transaction", e);
+        }
+    }
+
+    /**
+     * This method rolls back the transaction. An inner level marks the transaction
+     * so that the outermost level rolls it back.
+     */
+    public static void rollback() {
+        final TransactionContext context = getRequiredContext();
+        context._rollbackOnly = true;
+        context._levelCompleted = true;
+        if (context._depth == 1)
+            rollback(context._connection);
+    }
+
+    /**
+     * This method must be called in a finally block after begin. A level that has
+     * not been committed is rolled back. The outermost level gives the connection
+     * back to the pool.
+     */
+    public static void end() {
+        final String mname = "end";
+
+        final TransactionContext context = _current.get();
+        if (context == null)
+            return;
+        if (!context._levelCompleted)
+            context._rollbackOnly = true;
+        context._depth--;
+        if (context._depth > 0) {
+            // The enclosing level carries on
+            context._levelCompleted = false;
+            return;
+        }
+
+        _current.set(null);
+        if (!context._levelCompleted) {
+            Trace.warning(sname, mname, "Transaction ended without commit, rolling back");
+            rollback(context._connection);
+        }
+        close(context._connection);
+
+        for (Runnable task : context._afterCompletion) {
+            task.run();
+        }
+    }
+
+    /**
+     * @return true if the current thread is in a transaction
+     */
+    public static boolean isActive() {
+        return _current.get() != null;
+    }
+
+    // ======================================
+    // =         Package methods            =
+    // ======================================
+    /**
+     * This method returns the connection of the current transaction. Closing it,
+     * committing it or changing its auto-commit mode has no effect and rolling it
+     * back marks the transaction for rollback.
+     *
+     * @return the connection of the current transaction, null if there is no transaction
+     */
+    static Connection getConnection() {
+        final TransactionContext context = _current.get();
+        return context == null ? null : context._participant;
+    }
+
+    /**
+     * This method registers a task to run when the current transaction ends, after
+     * the commit or the rollback.
+     *
+     * @param task task to run
+     * @throws IllegalStateException if the thread is not in a transaction
+     */
+    static void afterCompletion(final Runnable task) {
+        getRequiredContext()._afterCompletion.add(task);
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    private static TransactionContext getRequiredContext() {
+        final TransactionContext context = _current.get();
+        if (context == null)
+            throw new IllegalStateException("No transaction has been started by this thread");
+        return context;
+    }
+
+    private static void rollback(final Connection connection) {
+        try {
+            connection.rollback();
+        } catch (SQLException e) {
+            AbstractDataAccessObject.displaySqlException("Cannot rollback the transaction", e);
+        }
+    }
+
+    private static void close(final Connection connection) {
+        if (connection == null)
+            return;
+        try {
+            // The pool puts the connection back in auto-commit mode
+            connection.close();
+        } catch (SQLException e) {
+            AbstractDataAccessObject.displaySqlException("Cannot close the database connection", e);
+        }
+    }
+
+    // ======================================
+    // =            Inner classes           =
+    // ======================================
+    /**
+     * Handler of the connection given to the DAOs while a transaction is active.
+     * The transaction is driven by the TransactionContext only.
+     */
+    private final class ParticipantConnection implements InvocationHandler {
+
+        public Object invoke(final Object proxy, final Method method, final Object[] args) throws Throwable {
+            final String name = method.getName();
+
+            if ("close".equals(name) || "commit".equals(name) || "setAutoCommit".equals(name)) {
+                return null;
+            }
+            if ("rollback".equals(name) && (args == null || args.length == 0)) {
+                _rollbackOnly = true;
+                return null;
+            }
+            if ("getAutoCommit".equals(name)) {
+                return Boolean.FALSE;
+            }
+            if ("isClosed".equals(name)) {
+                return Boolean.valueOf(_current.get() != TransactionContext.this || _connection.isClosed());
+            }
+            if ("equals".equals(name)) {
+                return Boolean.valueOf(proxy == args[0]);
+            }
+            if ("hashCode".equals(name)) {
+                return Integer.valueOf(System.identityHashCode(proxy));
+            }
+            if ("toString".equals(name)) {
+                return "Transactional[" + _connection + "]";
+            }
+
+            try {
+                return method.invoke(_connection, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.yaps.petstore.server.util.uidgen;
+
+import com.yaps.petstore.common.exception.DuplicateKeyException;
+import com.yaps.petstore.common.exception.ObjectNotFoundException;
+import com.yaps.petstore.common.logging.Trace;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This strategy gives the ids of the counters stored in the T_COUNTER table.
+ * <p/>
+ * The ids are reserved in blocks (hi-lo): the counter of the database is moved
+ * forward by a whole block in one atomic update and the ids of the block are then
+ * given from memory. Several servers can share the counters, each one gets its own
+ * blocks. The ids of a block that is not used up before the server stops are lost.
+ */
+public final class CounterIdStrategy implements IdStrategy {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private final UniqueIdGeneratorDAO _dao = new UniqueIdGeneratorDAO();
+    // Block size by counter name
+    private final Map<String, Integer> _blockSizes = new ConcurrentHashMap<String, Integer>();
+    // Block of ids being given by counter name
+    private final Map<String, IdBlock> _blocks = new ConcurrentHashMap<String, IdBlock>();
+    // Lock of the block reservation by counter name, a counter does not wait for the others
+    private final ConcurrentMap<String, Object> _locks = new ConcurrentHashMap<String, Object>();
+
+    // Used for logging
+    private final String _cname = this.getClass().getName();
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * This method returns consecutive unique ids for a given name. The ids come from
+     * the block of the counter, a new block is reserved in the database when it is
+     * used up.
+     *
+     * @param name  name of the counter
+     * @param count number of ids
+     * @return the unique ids
+     */
+    public String[] getUniqueIds(final String name, final int count) {
+        long first;
+        while (true) {
+            final IdBlock block = _blocks.get(name);
+            if (block != null) {
+                first = block.take(count);
+                if (first > 0)
+                    break;
+            }
+            reserveBlock(name, block, count);
+        }
+
+        final String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = String.valueOf(first + i);
+        }
+        return ids;
+    }
+
+    /**
+     * This method sets the number of ids reserved at a time for a counter. A larger
+     * block saves round trips to the database but more ids are lost when the server stops.
+     *
+     * @param name      name of the counter
+     * @param blockSize number of ids reserved at a time
+     */
+    public void setBlockSize(final String name, final int blockSize) {
+        if (blockSize < 1)
+            throw new IllegalArgumentException("Block size should be at least 1");
+        _blockSizes.put(name, Integer.valueOf(blockSize));
+    }
+
+    /**
+     * @param name name of the counter
+     * @return the number of ids reserved at a time for this counter
+     */
+    public int getBlockSize(final String name) {
+        final Integer blockSize = _blockSizes.get(name);
+        return blockSize == null ? 1 : blockSize.intValue();
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    /**
+     * This method reserves a new block of ids in the database, unless another thread
+     * has already replaced the used up block. Only the threads of the same counter
+     * wait for the round trip to the database.
+     */
+    private void reserveBlock(final String name, final IdBlock usedUp, final int count) {
+        final String mname = "reserveBlock";
+
+        synchronized (getLock(name)) {
+            if (_blocks.get(name) != usedUp)
+                return;
+
+            final int size = Math.max(count, getBlockSize(name));
+            int last;
+            try {
+                // Moves the counter forward by a whole block
+                last = _dao.reserve(name, size);
+            } catch (ObjectNotFoundException e) {
+                // The counter doesn't exist, we have to create it and the block starts at number 1
+                try {
+                    _dao.insert(name, size);
+                    last = size;
+                } catch (DuplicateKeyException e1) {
+                    // Another server has just created the counter
+                    try {
+                        last = _dao.reserve(name, size);
+                    } catch (ObjectNotFoundException e2) {
+                        throw new IllegalStateException("Counter " + name + " has been removed");
+                    }
+                }
+            }
+            _blocks.put(name, new IdBlock(last - size + 1, last));
+            Trace.finest(_cname, mname, name + " block " + (last - size + 1) + "-" + last);
+        }
+    }
+
+    private Object getLock(final String name) {
+        final Object lock = _locks.get(name);
+        if (lock != null)
+            return lock;
+        final Object created = new Object();
+        final Object previous = _locks.putIfAbsent(name, created);
+        return previous == null ? created : previous;
+    }
+
+    // ======================================
+    // =            Inner classes           =
+    // ======================================
+    /**
+     * A range of ids reserved in the database, given from memory.
+     */
+    private static final class IdBlock {
+
+        private final AtomicLong _next;
+        private final long _last;
+
+        private IdBlock(final long first, final long last) {
+            _next = new AtomicLong(first);
+            _last = last;
+        }
+
+        /**
+         * @return the first of <code>count</code> consecutive ids, or 0 if the block
+         *         has not enough ids left
+         */
+        private long take(final int count) {
+            while (true) {
+                final long next = _next.get();
+                if (next + count - 1 > _last)
+                    return 0;
+                if (_next.compareAndSet(next, next + count))
+                    return next;
+            }
+        }
+    }
+}
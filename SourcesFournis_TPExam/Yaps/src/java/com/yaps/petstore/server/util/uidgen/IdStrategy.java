@@ -0,0 +1,20 @@
+package com.yaps.petstore.server.util.uidgen;
+
+/**
+ * This interface is implemented by the different ways the UniqueIdGenerator can
+ * build the ids of a counter.
+ *
+ * @see UniqueIdGenerator#setStrategy(String, IdStrategy)
+ */
+public interface IdStrategy {
+
+    /**
+     * This method returns unique ids for a given counter. It can be called by many
+     * threads at the same time.
+     *
+     * @param name  name of the counter
+     * @param count number of ids
+     * @return the unique ids, none of them longer than 10 characters
+     */
+    String[] getUniqueIds(String name, int count);
+}
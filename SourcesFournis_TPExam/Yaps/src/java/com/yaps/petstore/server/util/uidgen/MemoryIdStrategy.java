@@ -0,0 +1,46 @@
+package com.yaps.petstore.server.util.uidgen;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This strategy gives the ids of counters kept in memory. It replaces the T_COUNTER
+ * table when the DAOs use the MemoryDatabase: like the counters of the table, each
+ * counter starts at 1 and gives consecutive ids.
+ */
+public final class MemoryIdStrategy implements IdStrategy {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    // Last id given by counter name
+    private final ConcurrentMap<String, AtomicLong> _counters = new ConcurrentHashMap<String, AtomicLong>();
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * This method returns consecutive unique ids for a given name.
+     *
+     * @param name  name of the counter
+     * @param count number of ids
+     * @return the unique ids
+     */
+    public String[] getUniqueIds(final String name, final int count) {
+        AtomicLong counter = _counters.get(name);
+        if (counter == null) {
+            final AtomicLong newCounter = new AtomicLong();
+            counter = _counters.putIfAbsent(name, newCounter);
+            if (counter == null)
+                counter = newCounter;
+        }
+
+        final long first = counter.getAndAdd(count) + 1;
+        final String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = String.valueOf(first + i);
+        }
+        return ids;
+    }
+}
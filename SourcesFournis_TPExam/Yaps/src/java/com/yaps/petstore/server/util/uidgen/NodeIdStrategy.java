@@ -0,0 +1,128 @@
+package com.yaps.petstore.server.util.uidgen;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This strategy builds the ids in memory, without any access to the database.
+ * An id is made of a time, the number of the node (the server) and a sequence
+ * inside this time, like the Snowflake ids:
+ * <pre>
+ * | 33 bits : tenths of second since 2020 | 8 bits : node | 10 bits : sequence |
+ * </pre>
+ * The 51 bits are written in base 36 on 10 characters, so an id fits the
+ * VARCHAR(10) columns and the ids sort by creation time as strings and as numbers.
+ * Each node must have its own number (0 to 255), it can make 1024 ids per tenth of
+ * second and the ids run out in 2047.
+ * <p/>
+ * When the sequence of the current tenth of second is used up, or if the clock
+ * goes back, the ids are taken from the next tenths of second: the node never
+ * waits and never gives the same id twice.
+ */
+public final class NodeIdStrategy implements IdStrategy {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    // 2020-01-01T00:00:00Z
+    private static final long EPOCH = 1577836800000L;
+    private static final long TICK = 100;
+    private static final int NODE_BITS = 8;
+    private static final int SEQUENCE_BITS = 10;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int RADIX = 36;
+    private static final int ID_LENGTH = 10;
+
+    /**
+     * Highest number a node can have.
+     */
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+    private final long _node;
+    // Last tick used and its sequence: tick << SEQUENCE_BITS | sequence
+    private final AtomicLong _state = new AtomicLong();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    /**
+     * @param nodeId number of this server, from 0 to {@link #MAX_NODE_ID}, unique
+     *               among the servers sharing the database
+     */
+    public NodeIdStrategy(final int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID)
+            throw new IllegalArgumentException("Node id should be between 0 and " + MAX_NODE_ID);
+        _node = nodeId;
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * This method returns unique ids built from the clock. The counter name is not
+     * used: the ids are unique for all the counters.
+     *
+     * @param name  name of the counter
+     * @param count number of ids
+     * @return the unique ids
+     */
+    public String[] getUniqueIds(final String name, final int count) {
+        final String[] ids = new String[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = encode(nextId());
+        }
+        return ids;
+    }
+
+    /**
+     * @return the number of this server
+     */
+    public int getNodeId() {
+        return (int) _node;
+    }
+
+    /**
+     * This method gives back the time an id was created at, to the tenth of second.
+     *
+     * @param id id built by this strategy
+     * @return creation time in milliseconds
+     */
+    public static long getTime(final String id) {
+        return (Long.parseLong(id, RADIX) >>> (NODE_BITS + SEQUENCE_BITS)) * TICK + EPOCH;
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    private long nextId() {
+        while (true) {
+            final long state = _state.get();
+            final long lastTick = state >>> SEQUENCE_BITS;
+            final long now = (System.currentTimeMillis() - EPOCH) / TICK;
+
+            final long next;
+            if (now > lastTick) {
+                next = now << SEQUENCE_BITS;
+            } else if ((state & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                next = state + 1;
+            } else {
+                // Sequence used up, or clock gone back: takes the next tick
+                next = (lastTick + 1) << SEQUENCE_BITS;
+            }
+
+            if (_state.compareAndSet(state, next)) {
+                return ((next >>> SEQUENCE_BITS) << (NODE_BITS + SEQUENCE_BITS))
+                        | (_node << SEQUENCE_BITS)
+                        | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    private static String encode(final long id) {
+        final String digits = Long.toString(id, RADIX);
+        final StringBuffer buf = new StringBuffer(ID_LENGTH);
+        for (int i = digits.length(); i < ID_LENGTH; i++) {
+            buf.append('0');
+        }
+        return buf.append(digits).toString();
+    }
+}
@@ -1,12 +1,23 @@
 package com.yaps.petstore.server.util.uidgen;
 
-import com.yaps.petstore.common.exception.DuplicateKeyException;
-import com.yaps.petstore.common.exception.ObjectNotFoundException;
 import com.yaps.petstore.common.logging.Trace;
+import com.yaps.petstore.server.util.persistence.MemoryDatabase;
+
+import java.util.Map;
+import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class manages unique IDs for Database.
  * It follows the Singleton design pattern.
+ * <p/>
+ * The ids of a counter are built by an {@link IdStrategy}. By default the counters
+ * of the T_COUNTER table are used ({@link CounterIdStrategy}). The counters listed
+ * in the <code>petstore.uidgen.node.counters</code> system property (for example
+ * "Order,OrderLine,Comment") get ids built in memory by a {@link NodeIdStrategy}
+ * for the node given by the <code>petstore.uidgen.node.id</code> system property.
+ * When the DAOs use the {@link MemoryDatabase}, the default counters are kept in
+ * memory too ({@link MemoryIdStrategy}).
  */
 public final class UniqueIdGenerator {
 
@@ -16,7 +27,24 @@ public final class UniqueIdGenerator {
     // A handle to the unique Singleton instance.
     private static UniqueIdGenerator _instance = null;
 
-    private final UniqueIdGeneratorDAO _dao = new UniqueIdGeneratorDAO();
+    /**
+     * System property with the names of the counters that use the node ids.
+     */
+    public static final String NODE_COUNTERS_PROPERTY = "petstore.uidgen.node.counters";
+    /**
+     * System property with the number of this server for the node ids.
+     */
+    public static final String NODE_ID_PROPERTY = "petstore.uidgen.node.id";
+
+    // Number of ids reserved at a time for the counters that write many rows,
+    // the other counters reserve one id at a time
+    private static final int ORDER_BLOCK_SIZE = 10;
+    private static final int ORDER_LINE_BLOCK_SIZE = 100;
+
+    private final CounterIdStrategy _counterStrategy = new CounterIdStrategy();
+    private final MemoryIdStrategy _memoryStrategy = new MemoryIdStrategy();
+    // Strategy by counter name, when it is not the default one
+    private final Map<String, IdStrategy> _strategies = new ConcurrentHashMap<String, IdStrategy>();
 
     // Used for logging
     private final String _cname = this.getClass().getName();
@@ -28,6 +56,22 @@ public final class UniqueIdGenerator {
      * The constructor is made private to prevent others from instantiating this class.
      */
     private UniqueIdGenerator() {
+        final String mname = "UniqueIdGenerator";
+
+        _counterStrategy.setBlockSize("Order", ORDER_BLOCK_SIZE);
+        _counterStrategy.setBlockSize("OrderLine", ORDER_LINE_BLOCK_SIZE);
+
+        final String counters = System.getProperty(NODE_COUNTERS_PROPERTY);
+        if (counters != null && counters.trim().length() > 0) {
+            final String nodeId = System.getProperty(NODE_ID_PROPERTY);
+            if (nodeId == null)
+                throw new IllegalStateException(NODE_ID_PROPERTY + " must be set to use the node ids");
+            final NodeIdStrategy nodeStrategy = new NodeIdStrategy(Integer.parseInt(nodeId.trim()));
+            for (StringTokenizer tokenizer = new StringTokenizer(counters, ", "); tokenizer.hasMoreTokens();) {
+                setStrategy(tokenizer.nextToken(), nodeStrategy);
+            }
+            Trace.info(_cname, mname, "Node " + nodeId + " ids for " + counters);
+        }
     }
 
     // ======================================
@@ -38,7 +82,7 @@ public final class UniqueIdGenerator {
      *
      * @return The unique instance of this class.
      */
-    public static UniqueIdGenerator getInstance() {
+    public static synchronized UniqueIdGenerator getInstance() {
         if (null == _instance) {
             _instance = new UniqueIdGenerator();
         }
@@ -53,30 +97,68 @@ public final class UniqueIdGenerator {
      * @return the unique id
      */
     public String getUniqueId(final String name) {
-        final String mname = "getUniqueId";
-        Trace.entering(_cname, mname, name);
+        return getUniqueIds(name, 1)[0];
+    }
+
+    /**
+     * This method returns unique ids for a given name, built by the strategy of
+     * the counter.
+     *
+     * @param name  name of the entity that we want to have unique ids
+     * @param count number of ids
+     * @return the unique ids
+     */
+    public String[] getUniqueIds(final String name, final int count) {
+        final String mname = "getUniqueIds";
+        Trace.entering(_cname, mname, new Object[]{name, new Integer(count)});
 
-        int nextId = 0;
+        final String[] ids = getStrategy(name).getUniqueIds(name, count);
 
-        try {
+        Trace.exiting(_cname, mname, ids[count - 1]);
+        return ids;
+    }
 
-            // Gets the current value
-            nextId = _dao.select(name) + 1;
-            // Updates the value with the new id
-            _dao.update(name, nextId);
+    /**
+     * This method changes the way the ids of a counter are built.
+     *
+     * @param name     name of the counter
+     * @param strategy strategy of the counter, null to go back to the default one
+     */
+    public void setStrategy(final String name, final IdStrategy strategy) {
+        if (strategy == null)
+            _strategies.remove(name);
+        else
+            _strategies.put(name, strategy);
+    }
 
-        } catch (ObjectNotFoundException e) {
+    /**
+     * @param name name of the counter
+     * @return the strategy that builds the ids of this counter
+     */
+    public IdStrategy getStrategy(final String name) {
+        final IdStrategy strategy = _strategies.get(name);
+        if (strategy != null)
+            return strategy;
+        return MemoryDatabase.isEnabled() ? (IdStrategy) _memoryStrategy : _counterStrategy;
+    }
 
-            // The value doesn't exist, we have to create it and we return the number 1
-            try {
-                _dao.insert(name);
-                nextId = 1;
-            } catch (DuplicateKeyException e1) {
-                // Duplicate key exception cannot append
-            }
-        }
+    /**
+     * This method sets the number of ids reserved at a time in the T_COUNTER table
+     * for a counter.
+     *
+     * @param name      name of the counter
+     * @param blockSize number of ids reserved at a time
+     * @see CounterIdStrategy#setBlockSize(String, int)
+     */
+    public void setBlockSize(final String name, final int blockSize) {
+        _counterStrategy.setBlockSize(name, blockSize);
+    }
 
-        Trace.exiting(_cname, mname, new Integer(nextId));
-        return String.valueOf(nextId);
+    /**
+     * @param name name of the counter
+     * @return the number of ids reserved at a time in the T_COUNTER table for this counter
+     */
+    public int getBlockSize(final String name) {
+        return _counterStrategy.getBlockSize(name);
     }
 }
@@ -4,12 +4,13 @@ import com.yaps.petstore.common.exception.DataAccessException;
 import com.yaps.petstore.common.exception.DuplicateKeyException;
 import com.yaps.petstore.common.exception.ObjectNotFoundException;
 import com.yaps.petstore.server.util.persistence.AbstractDataAccessObject;
+import com.yaps.petstore.server.util.persistence.ConnectionPool;
 import com.yaps.petstore.server.util.persistence.DataAccessConstants;
 
 import java.sql.Connection;
+import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
-import java.sql.Statement;
 
 /**
  * This class does all the database access for the class UniqueIdGenerator.
@@ -23,6 +24,16 @@ public final class UniqueIdGeneratorDAO {
     // ======================================
     private static final String TABLE = "T_COUNTER";
 
+    // Statement templates
+    private static final String INSERT_SQL = "INSERT INTO " + TABLE + " VALUES (?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM " + TABLE + " WHERE NAME = ?";
+    private static final String UPDATE_SQL = "UPDATE " + TABLE + " SET VALUE = ? WHERE NAME = ?";
+    private static final String SELECT_SQL = "SELECT VALUE FROM " + TABLE + " WHERE NAME = ?";
+    // LAST_INSERT_ID(expr) keeps the new value for the connection, so the value
+    // read back is the one of this update even if another server moved the counter since
+    private static final String RESERVE_SQL = "UPDATE " + TABLE + " SET VALUE = LAST_INSERT_ID(VALUE + ?) WHERE NAME = ?";
+    private static final String RESERVED_SQL = "SELECT LAST_INSERT_ID()";
+
     /**
      * This method is used when a unique id doesn't exist. This method inserts
      * the value '1' into the database. Meaning, 1 is the first identifier.
@@ -32,18 +43,30 @@ public final class UniqueIdGeneratorDAO {
      * @throws DataAccessException   is thrown if there's a persistent problem
      */
     public void insert(final String name) throws DuplicateKeyException {
+        insert(name, 1);
+    }
+
+    /**
+     * This method creates a counter with a given value. Meaning, the identifiers
+     * up to this value are already used.
+     *
+     * @param name  name of the counter
+     * @param value last identifier used
+     * @throws DuplicateKeyException is thrown when an identical object is already in the persistent layer
+     * @throws DataAccessException   is thrown if there's a persistent problem
+     */
+    public void insert(final String name, final int value) throws DuplicateKeyException {
         Connection connection = null;
-        Statement statement = null;
-        final String sql;
+        PreparedStatement statement = null;
 
         try {
-            connection = AbstractDataAccessObject.getConnection();
-            statement = connection.createStatement();
+            connection = getConnection();
+            statement = connection.prepareStatement(INSERT_SQL);
 
             // Insert a Row
-            sql = "INSERT INTO " + TABLE + " VALUES ('" + name + "', '1' )";
-
-            statement.executeUpdate(sql);
+            statement.setString(1, name);
+            statement.setInt(2, value);
+            statement.executeUpdate();
 
         } catch (SQLException e) {
             if (e.getErrorCode() == DataAccessConstants.DATA_ALREADY_EXIST) {
@@ -73,16 +96,15 @@ public final class UniqueIdGeneratorDAO {
      */
     public void remove(final String name) throws ObjectNotFoundException {
         Connection connection = null;
-        Statement statement = null;
-        final String sql;
+        PreparedStatement statement = null;
 
         try {
-            connection = AbstractDataAccessObject.getConnection();
-            statement = connection.createStatement();
+            connection = getConnection();
+            statement = connection.prepareStatement(DELETE_SQL);
 
             // Delete a Row
-            sql = "DELETE FROM " + TABLE + " WHERE NAME = '" + name + "'";
-            if (statement.executeUpdate(sql) == 0)
+            statement.setString(1, name);
+            if (statement.executeUpdate() == 0)
                 throw new ObjectNotFoundException();
 
         } catch (SQLException e) {
@@ -110,18 +132,66 @@ public final class UniqueIdGeneratorDAO {
      */
     public void update(final String name, final int value) throws ObjectNotFoundException {
         Connection connection = null;
-        Statement statement = null;
-        final String sql;
+        PreparedStatement statement = null;
 
         try {
-            connection = AbstractDataAccessObject.getConnection();
-            statement = connection.createStatement();
+            connection = getConnection();
+            statement = connection.prepareStatement(UPDATE_SQL);
 
             // Update a Row
-            sql = "UPDATE " + TABLE + " SET VALUE = '" + value + "' WHERE NAME = '" + name + "' ";
+            statement.setInt(1, value);
+            statement.setString(2, name);
+            if (statement.executeUpdate() == 0)
+                throw new ObjectNotFoundException();
 
-            if (statement.executeUpdate(sql) == 0)
+        } catch (SQLException e) {
+            AbstractDataAccessObject.displaySqlException(e);
+            throw new DataAccessException("Cannot update data into the database", e);
+        } finally {
+            // Close
+            try {
+                if (statement != null) statement.close();
+                if (connection != null) connection.close();
+            } catch (SQLException e) {
+                AbstractDataAccessObject.displaySqlException("Cannot close connection", e);
+                throw new DataAccessException("Cannot close the database connection", e);
+            }
+        }
+    }
+
+    /**
+     * This method moves the counter forward by a number of identifiers in one atomic
+     * update. The identifiers between the old value (excluded) and the returned value
+     * (included) belong to the caller, whatever the other servers sharing the table do.
+     *
+     * @param name of the counter
+     * @param size number of identifiers to reserve
+     * @return the new value of the counter, which is the last identifier reserved
+     * @throws ObjectNotFoundException is thrown if the counter doesn't exist
+     * @throws DataAccessException     is thrown if there's a persistent problem
+     */
+    public int reserve(final String name, final int size) throws ObjectNotFoundException {
+        Connection connection = null;
+        PreparedStatement statement = null;
+        ResultSet resultSet = null;
+        int value;
+
+        try {
+            connection = getConnection();
+            statement = connection.prepareStatement(RESERVE_SQL);
+
+            // Moves the counter
+            statement.setInt(1, size);
+            statement.setString(2, name);
+            if (statement.executeUpdate() == 0)
                 throw new ObjectNotFoundException();
+            statement.close();
+
+            // Reads the value set by the update on this connection
+            statement = connection.prepareStatement(RESERVED_SQL);
+            resultSet = statement.executeQuery();
+            resultSet.next();
+            value = resultSet.getInt(1);
 
         } catch (SQLException e) {
             AbstractDataAccessObject.displaySqlException(e);
@@ -129,6 +199,7 @@ public final class UniqueIdGeneratorDAO {
         } finally {
             // Close
             try {
+                if (resultSet != null) resultSet.close();
                 if (statement != null) statement.close();
                 if (connection != null) connection.close();
             } catch (SQLException e) {
@@ -136,6 +207,7 @@ public final class UniqueIdGeneratorDAO {
                 throw new DataAccessException("Cannot close the database connection", e);
             }
         }
+        return value;
     }
 
     /**
@@ -148,18 +220,17 @@ public final class UniqueIdGeneratorDAO {
      */
     public int select(final String name) throws ObjectNotFoundException {
         Connection connection = null;
-        Statement statement = null;
+        PreparedStatement statement = null;
         ResultSet resultSet = null;
-        final String sql;
         int value;
 
         try {
-            connection = AbstractDataAccessObject.getConnection();
-            statement = connection.createStatement();
+            connection = getConnection();
+            statement = connection.prepareStatement(SELECT_SQL);
 
             // Select a Row
-            sql = "SELECT VALUE FROM " + TABLE + " WHERE NAME = '" + name + "' ";
-            resultSet = statement.executeQuery(sql);
+            statement.setString(1, name);
+            resultSet = statement.executeQuery();
             if (!resultSet.next())
                 throw new ObjectNotFoundException();
 
@@ -182,4 +253,16 @@ public final class UniqueIdGeneratorDAO {
         }
         return value;
     }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    /**
+     * The counters are not part of the transaction of the caller, like a database
+     * sequence: a counter row stays locked only for the time of its own update and
+     * an identifier allocated by a rolled back transaction is simply never used.
+     */
+    private static Connection getConnection() throws SQLException {
+        return ConnectionPool.getInstance().getConnection();
+    }
 }
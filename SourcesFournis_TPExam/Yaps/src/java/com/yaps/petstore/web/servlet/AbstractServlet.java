@@ -14,6 +14,9 @@ public abstract class AbstractServlet extends HttpServlet {
     // Used for logging
     private final transient String _cname = this.getClass().getName();
 
+    // Number of rows displayed in a page of a listing
+    protected static final int PAGE_SIZE = 20;
+
     // ======================================
     // =         Getters and Setters        =
     // ======================================
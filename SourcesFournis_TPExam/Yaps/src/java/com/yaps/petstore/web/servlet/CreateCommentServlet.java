@@ -15,7 +15,6 @@ import com.yaps.petstore.common.dto.CommentDTO;
 import com.yaps.petstore.common.dto.CustomerDTO;
 import com.yaps.petstore.common.exception.CheckException;
 import com.yaps.petstore.common.exception.CreateException;
-import com.yaps.petstore.common.exception.FinderException;
 import com.yaps.petstore.common.logging.Trace;
 
 public class CreateCommentServlet extends AbstractServlet{
@@ -48,12 +47,7 @@ public class CreateCommentServlet extends AbstractServlet{
             	getServletContext().getRequestDispatcher("/error.jsp?exception=You should sign on to post a comment").forward(request, response);
             }
             else{
-        	try {
-				commentDTO.setId(new CommentDelegateFactory().createCommentDelegate().findComments().size()+1+"");
-			} catch (FinderException e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
+            // The id is given by the DAO, the comments are not read to count them
             commentDTO.setTitle(title);
             commentDTO.setText(request.getParameter("text"));
     		commentDTO.setCustomerId(customerId);
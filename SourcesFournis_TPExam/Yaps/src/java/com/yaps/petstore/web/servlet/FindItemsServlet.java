@@ -2,6 +2,7 @@ package com.yaps.petstore.web.servlet;
 
 import com.yaps.petstore.common.delegate.CatalogDelegate;
 import com.yaps.petstore.common.delegate.CatalogDelegateFactory;
+import com.yaps.petstore.common.dto.PageDTO;
 import com.yaps.petstore.common.exception.ObjectNotFoundException;
 import com.yaps.petstore.common.logging.Trace;
 
@@ -9,7 +10,6 @@ import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
-import java.util.Collection;
 
 /**
  * This servlet returns the list of all items.
@@ -23,16 +23,21 @@ public class FindItemsServlet extends AbstractServlet {
         final String mname = "service";
         Trace.entering(getCname(), mname);
 
-        final Collection itemsDTO;
+        final PageDTO page;
         String productId = request.getParameter("productId");
+        String pageToken = request.getParameter("pageToken");
 
         try {
             // Gets the items for a product id
             Trace.finest(getCname(), mname, "Product id=" + productId);
-            itemsDTO = new CatalogDelegateFactory().createCatalogDelegate().findItems(productId);
-
-            // puts the list of items into the request
-            request.setAttribute("itemsDTO", itemsDTO);
+            page = new CatalogDelegateFactory().createCatalogDelegate().findItems(productId, pageToken, PAGE_SIZE);
+            if (page.getElements().isEmpty())
+                throw new ObjectNotFoundException();
+
+            // puts the page of items and what is needed to get the next one into the request
+            request.setAttribute("itemsDTO", page.getElements());
+            request.setAttribute("productId", productId);
+            request.setAttribute("nextPageToken", page.getNextPageToken());
 
             // Goes to the items page passing the request
             getServletContext().getRequestDispatcher("/items.jsp").forward(request, response);
@@ -3,6 +3,7 @@ package com.yaps.petstore.web.servlet;
 import com.yaps.petstore.common.delegate.CommentDelegateFactory;
 import com.yaps.petstore.common.dto.CommentDTO;
 import com.yaps.petstore.common.dto.CustomerDTO;
+import com.yaps.petstore.common.dto.PageDTO;
 import com.yaps.petstore.common.exception.ObjectNotFoundException;
 import com.yaps.petstore.common.logging.Trace;
 
@@ -12,8 +13,6 @@ import javax.servlet.http.HttpServletResponse;
 import javax.servlet.http.HttpSession;
 
 import java.io.IOException;
-import java.util.Collection;
-import java.util.Date;
 
 /**
  * This servlet returns the list of searched items.
@@ -27,7 +26,8 @@ public class SearchCommentsServlet extends AbstractServlet {
         final String mname = "service";
         Trace.entering(getCname(), mname);
 
-        final Collection commentsDTO;
+        final PageDTO page;
+        final String pageToken = request.getParameter("pageToken");
         String customerId = request.getParameter("customerId"); // For HttpUnit test!!
         HttpSession session = request.getSession();
         if ( session != null ) {
@@ -39,14 +39,18 @@ public class SearchCommentsServlet extends AbstractServlet {
         try {
             // Search the comments 
         	if ( customerId != null && ! "".equals(customerId) )
-        		commentsDTO = new CommentDelegateFactory().createCommentDelegate().findCommentsFromCustomer(customerId);
+        		page = new CommentDelegateFactory().createCommentDelegate().findCommentsFromCustomer(customerId, pageToken, PAGE_SIZE);
         	else {
-        		commentsDTO = new CommentDelegateFactory().createCommentDelegate().findComments();
+        		page = new CommentDelegateFactory().createCommentDelegate().findComments(pageToken, PAGE_SIZE);
         		customerId = null;
         	}
-            // puts the list of comments and the customerId into the request
-            request.setAttribute("commentsDTO", commentsDTO);
+        	if ( page.getElements().isEmpty() )
+        		throw new ObjectNotFoundException();
+
+            // puts the page of comments, the customerId and the next page token into the request
+            request.setAttribute("commentsDTO", page.getElements());
             request.setAttribute("customerId", customerId);
+            request.setAttribute("nextPageToken", page.getNextPageToken());
 
             // Goes to the comments page passing the request
             getServletContext().getRequestDispatcher("/comments.jsp").forward(request, response);
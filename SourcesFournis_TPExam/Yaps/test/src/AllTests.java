@@ -9,6 +9,10 @@ import com.yaps.petstore.server.service.CommentServiceTest;
 import com.yaps.petstore.server.service.CreditCardServiceTest;
 import com.yaps.petstore.server.service.CustomerServiceTest;
 import com.yaps.petstore.server.service.OrderServiceTest;
+import com.yaps.petstore.server.util.persistence.ConnectionPoolTest;
+import com.yaps.petstore.server.util.persistence.EntityCacheTest;
+import com.yaps.petstore.server.util.persistence.MemoryDatabaseTest;
+import com.yaps.petstore.server.util.persistence.TransactionContextTest;
 import com.yaps.petstore.server.util.uidgen.UniqueIdGeneratorTest;
 import com.yaps.petstore.web.VisualiseCatalogTest;
 import com.yaps.petstore.web.WebTest;
@@ -64,6 +68,10 @@ public final class AllTests extends TestCase {
 
         // Util
         suite.addTest(UniqueIdGeneratorTest.suite());
+        suite.addTest(ConnectionPoolTest.suite());
+        suite.addTest(TransactionContextTest.suite());
+        suite.addTest(EntityCacheTest.suite());
+        suite.addTest(MemoryDatabaseTest.suite());
 
         // Web
         suite.addTest(WebTest.suite());
@@ -8,6 +8,7 @@ import com.yaps.petstore.server.domain.item.ItemDAO;
 import com.yaps.petstore.server.domain.product.Product;
 import com.yaps.petstore.server.domain.product.ProductDAO;
 import com.yaps.petstore.common.exception.*;
+import com.yaps.petstore.server.util.persistence.RowHandler;
 
 import junit.framework.TestSuite;
 
@@ -15,6 +16,8 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class tests the ItemDAO class
@@ -154,6 +157,47 @@ public final class ItemDAOTest extends AbstractTestCase {
         removeProduct(newProduct);
     }
 
+    /**
+     * This test ensures that the streaming select gives every row to the handler,
+     * whatever the fetch size.
+     */
+    public void testDomainStreamItemsForAProduct() throws Exception {
+
+    	final Product newProduct = createNewProduct();
+        final Object[] parameters = new Object[]{newProduct.getId()};
+        final List ids = new ArrayList();
+        final RowHandler handler = new RowHandler() {
+            public void handleRow(final DomainObject object) {
+                ids.add(object.getId());
+            }
+        };
+
+        // An empty result is not an error
+        assertEquals(0, _dao.selectAllWhere("PRODUCT_FK = ?", parameters, "ID", handler));
+
+        // Creates three objects
+        final Item item1 = createItemForProduct(newProduct);
+        final Item item2 = createItemForProduct(newProduct);
+        final Item item3 = createItemForProduct(newProduct);
+
+        // Reads them one row at a time
+        assertEquals(3, _dao.selectAllWhere("PRODUCT_FK = ?", parameters, "ID", 1, handler));
+        assertTrue(ids.contains(item1.getId()));
+        assertTrue(ids.contains(item2.getId()));
+        assertTrue(ids.contains(item3.getId()));
+
+        // The whole table is streamed as well
+        ids.clear();
+        assertEquals(findAllItems(), _dao.selectAll(handler));
+        assertEquals(findAllItems(), ids.size());
+
+        // Cleans the test environment
+        _dao.remove(item1.getId());
+        _dao.remove(item2.getId());
+        _dao.remove(item3.getId());
+        removeProduct(newProduct);
+    }
+
     /**
      * This test ensures that the method search works. It does a first search, creates
      * a new object and does a second search.
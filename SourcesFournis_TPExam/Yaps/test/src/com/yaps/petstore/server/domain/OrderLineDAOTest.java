@@ -20,7 +20,10 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
+import java.util.Iterator;
 
 /**
  * This class tests the OrderLineDAO class
@@ -209,6 +212,56 @@ public final class OrderLineDAOTest extends AbstractTestCase {
         }
     }
 
+    /**
+     * This test ensures that several order lines can be created and updated in one batch.
+     */
+    public void testDomainCreateOrderLinesInBatch() throws Exception {
+        final String id = getUniqueId();
+
+        // Creates a first order line with its order and item
+        final String orderLineId = createOrderLine(id);
+        final OrderLine first = findOrderLine(orderLineId);
+        final Order order = first.getOrder();
+        final Item item = first.getItem();
+
+        // Creates three more lines in one batch, their ids are generated
+        final Collection orderLines = new ArrayList();
+        for (int i = 1; i <= 3; i++) {
+            orderLines.add(new OrderLine(i, _defaultUnitCost, order, item));
+        }
+        _orderLineDAO.insertAll(orderLines);
+        assertEquals("The order must have four lines", 4, _orderLineDAO.findAll(order.getId()).size());
+
+        // Inserting the same lines again fails
+        try {
+            _orderLineDAO.insertAll(orderLines);
+            fail("Order lines already created should not be inserted twice");
+        } catch (DuplicateKeyException e) {
+        }
+
+        // Updates the lines in one batch
+        for (Iterator iterator = orderLines.iterator(); iterator.hasNext();) {
+            ((OrderLine) iterator.next()).setQuantity(_defaultQuantity);
+        }
+        _orderLineDAO.updateAll(orderLines);
+        for (Iterator iterator = orderLines.iterator(); iterator.hasNext();) {
+            checkOrderLine(findOrderLine(((OrderLine) iterator.next()).getId()), id);
+        }
+
+        // Cleans the test environment
+        for (Iterator iterator = orderLines.iterator(); iterator.hasNext();) {
+            _orderLineDAO.remove(((OrderLine) iterator.next()).getId());
+        }
+        removeOrderLine(orderLineId);
+
+        // Updating lines that don't exist anymore fails
+        try {
+            _orderLineDAO.updateAll(orderLines);
+            fail("Deleted order lines should not be updated");
+        } catch (ObjectNotFoundException e) {
+        }
+    }
+
     //==================================
     //=         Private Methods        =
     //==================================
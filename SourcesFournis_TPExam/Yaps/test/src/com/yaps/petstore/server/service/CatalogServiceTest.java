@@ -2,7 +2,9 @@ package com.yaps.petstore.server.service;
 
 import com.yaps.petstore.AbstractTestCase;
 import com.yaps.petstore.common.dto.CategoryDTO;
+import com.yaps.petstore.common.dto.DataTransfertObject;
 import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.PageDTO;
 import com.yaps.petstore.common.dto.ProductDTO;
 import com.yaps.petstore.common.exception.*;
 import com.yaps.petstore.server.domain.category.Category;
@@ -13,7 +15,9 @@ import junit.framework.TestSuite;
 
 import java.rmi.RemoteException;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
 
 /**
  * This class tests the CatalogService class
@@ -658,6 +662,30 @@ public final class CatalogServiceTest extends AbstractTestCase {
         }
     }
 
+    /**
+     * This test ensures that the items streamed to a handler are the ones of the
+     * whole listing, with their product.
+     */
+    public void testServiceStreamAllItems() throws Exception {
+        final String id = getUniqueId("Item");
+        createItem(id);
+
+        final Set<String> ids = new HashSet<String>();
+        final int count = getCatalogService().findItems(new DTOHandler() {
+            public void handleDTO(final DataTransfertObject dto) {
+                final ItemDTO itemDTO = (ItemDTO) dto;
+                assertNotNull(itemDTO.getProductName());
+                ids.add(itemDTO.getId());
+            }
+        });
+        assertEquals(findAllItems(), count);
+        assertEquals(count, ids.size());
+        assertTrue(ids.contains(id));
+
+        // Cleans the test environment
+        deleteItem(id);
+    }
+
     public void testServiceFindAllItemsForAmazonParrot() throws Exception {
     	final String productId = "AVCB01";
     	final String name ="Amazon Parrot";
@@ -706,6 +734,39 @@ public final class CatalogServiceTest extends AbstractTestCase {
         deleteItem(item.getId());
     }
 
+    /**
+     * This test ensures that the items of a product can be read page by page.
+     */
+    public void testServiceFindItemsForAProductByPage() throws Exception {
+        final ProductDTO newProduct = createNewProduct();
+        final String productId = newProduct.getId();
+
+        // An empty product gives an empty page
+        PageDTO page = getCatalogService().findItems(productId, null, 2);
+        assertTrue(page.getElements().isEmpty());
+        assertFalse(page.hasNextPage());
+
+        // Creates 3 items
+        final ItemDTO item1 = createItemForProduct(newProduct);
+        final ItemDTO item2 = createItemForProduct(newProduct);
+        final ItemDTO item3 = createItemForProduct(newProduct);
+
+        // Reads them page by page
+        page = getCatalogService().findItems(productId, null, 2);
+        assertEquals(2, page.getElements().size());
+        assertTrue("There should be a next page", page.hasNextPage());
+        int count = page.getElements().size();
+        page = getCatalogService().findItems(productId, page.getNextPageToken(), 2);
+        assertFalse("There should not be a next page", page.hasNextPage());
+        count += page.getElements().size();
+        assertEquals(3, count);
+
+        // Cleans the test environment
+        getCatalogService().deleteItem(item1.getId());
+        getCatalogService().deleteItem(item2.getId());
+        deleteItem(item3.getId());
+    }
+
     /**
      * This test ensures that the method search works. It does a first search, creates
      * a new object and does a second search.
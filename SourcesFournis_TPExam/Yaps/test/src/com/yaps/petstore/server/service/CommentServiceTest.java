@@ -8,8 +8,13 @@ import com.yaps.petstore.server.service.comment.CommentService;
 import junit.framework.TestSuite;
 
 import java.rmi.RemoteException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
 
 /**
  * This class tests the CommentService class
@@ -91,6 +96,84 @@ public final class CommentServiceTest extends AbstractTestCase {
     	getCustomerService().deleteCustomer(customerId);    	
     }
 
+    /**
+     * This test ensures that the comments are streamed to a handler the most recent
+     * first, and that a comment created without id gets one.
+     */
+    public void testServiceStreamComments() throws Exception {
+        final String customerId = getCustomerService().getUniqueId();
+        getCustomerService().createCustomer(new CustomerDTO(customerId, "firstname" + customerId, "lastname" + customerId));
+        final CommentDTO created = getCommentService().createComment(new CommentDTO(null, "This is the title!", "text", new Date(), customerId));
+        assertNotNull(created.getId());
+
+        final List<Date> dates = new ArrayList<Date>();
+        final int count = getCommentService().findComments(new DTOHandler() {
+            public void handleDTO(final DataTransfertObject dto) {
+                dates.add(((CommentDTO) dto).getDate());
+            }
+        });
+        assertTrue(count >= 1);
+        assertEquals(count, dates.size());
+        for (int i = 1; i < dates.size(); i++) {
+            assertFalse("Comments must come the most recent first", dates.get(i).after(dates.get(i - 1)));
+        }
+
+        // Cleans the test environment
+        getCommentService().deleteComment(created.getId());
+        getCustomerService().deleteCustomer(customerId);
+    }
+
+    /**
+     * This test ensures that the comments of a customer can be read page by page.
+     */
+    public void testServiceFindCommentsFromCustomerByPage() throws Exception {
+        // Create Customer
+        final String customerId = getCustomerService().getUniqueId();
+        getCustomerService().createCustomer(new CustomerDTO(customerId, "firstname" + customerId, "lastname" + customerId));
+
+        // Create 3 Comments from this customer
+        final String[] ids = new String[3];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = getUniqueId();
+            getCommentService().createComment(new CommentDTO(ids[i], "This is the title " + ids[i] + "!", "text" + ids[i], new Date(), customerId));
+        }
+
+        // The first page is full and has a next page
+        final PageDTO firstPage = getCommentService().findCommentsFromCustomer(customerId, null, 2);
+        assertEquals(2, firstPage.getElements().size());
+        assertTrue("There should be a next page", firstPage.hasNextPage());
+
+        // The second page has the last comment and no next page
+        final PageDTO secondPage = getCommentService().findCommentsFromCustomer(customerId, firstPage.getNextPageToken(), 2);
+        assertEquals(1, secondPage.getElements().size());
+        assertFalse("There should not be a next page", secondPage.hasNextPage());
+
+        // No comment is returned twice
+        final Set readIds = new HashSet();
+        for (Iterator iterator = firstPage.getElements().iterator(); iterator.hasNext();)
+            readIds.add(((CommentDTO) iterator.next()).getId());
+        for (Iterator iterator = secondPage.getElements().iterator(); iterator.hasNext();)
+            readIds.add(((CommentDTO) iterator.next()).getId());
+        assertEquals(3, readIds.size());
+
+        // An invalid token or page size is rejected
+        try {
+            getCommentService().findCommentsFromCustomer(customerId, "invalid", 2);
+            fail("An invalid page token should be rejected");
+        } catch (CheckException e) {
+        }
+        try {
+            getCommentService().findCommentsFromCustomer(customerId, null, 0);
+            fail("An empty page should be rejected");
+        } catch (CheckException e) {
+        }
+
+        // Cleans the test environment
+        for (int i = 0; i < ids.length; i++)
+            getCommentService().deleteComment(ids[i]);
+        getCustomerService().deleteCustomer(customerId);
+    }
+
     	
     //==================================
     //=          Private Methods       =
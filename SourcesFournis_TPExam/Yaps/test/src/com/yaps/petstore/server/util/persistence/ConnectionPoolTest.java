@@ -0,0 +1,215 @@
+package com.yaps.petstore.server.util.persistence;
+
+import com.yaps.petstore.AbstractTestCase;
+import junit.framework.TestSuite;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * This class tests the ConnectionPool class
+ */
+public final class ConnectionPoolTest extends AbstractTestCase {
+
+    public ConnectionPoolTest(final String s) {
+        super(s);
+    }
+
+    public static TestSuite suite() {
+        return new TestSuite(ConnectionPoolTest.class);
+    }
+
+    //==================================
+    //=            Test cases          =
+    //==================================
+    /**
+     * This test makes sure that a closed connection goes back to the pool
+     * and is reused by the next caller.
+     */
+    public void testUtilConnectionIsReused() throws Exception {
+        final ConnectionPool pool = ConnectionPool.getInstance();
+
+        // Warms the pool up
+        AbstractDataAccessObject.getConnection().close();
+        final long created = pool.getCreatedCount();
+        final int active = pool.getActiveCount();
+
+        final Connection connection = AbstractDataAccessObject.getConnection();
+        assertEquals("The connection must be active", active + 1, pool.getActiveCount());
+        selectOne(connection);
+        connection.close();
+        assertEquals("The connection must not be active anymore", active, pool.getActiveCount());
+        assertTrue("The connection must be idle", pool.getIdleCount() > 0);
+
+        // The next borrow does not open a new physical connection
+        AbstractDataAccessObject.getConnection().close();
+        assertEquals("No new connection should have been created", created, pool.getCreatedCount());
+    }
+
+    /**
+     * This test makes sure that a connection given back to the pool cannot be used anymore.
+     */
+    public void testUtilClosedConnectionCannotBeUsed() throws Exception {
+        final Connection connection = AbstractDataAccessObject.getConnection();
+        connection.close();
+        assertTrue("The connection must be closed", connection.isClosed());
+
+        try {
+            selectOne(connection);
+            fail("A closed connection should not be usable");
+        } catch (SQLException e) {
+        }
+
+        // Closing twice must be harmless
+        connection.close();
+    }
+
+    /**
+     * This test makes sure that a transaction left open is rolled back when
+     * the connection goes back to the pool.
+     */
+    public void testUtilConnectionIsResetWhenReleased() throws Exception {
+        final Connection connection = AbstractDataAccessObject.getConnection();
+        connection.setAutoCommit(false);
+        connection.close();
+
+        final Connection next = AbstractDataAccessObject.getConnection();
+        assertTrue("The connection must be in auto-commit mode", next.getAutoCommit());
+        next.close();
+    }
+
+    /**
+     * This test makes sure that the statistics follow the borrows.
+     */
+    public void testUtilStatistics() throws Exception {
+        final ConnectionPool pool = ConnectionPool.getInstance();
+        final long borrows = pool.getBorrowCount();
+
+        AbstractDataAccessObject.getConnection().close();
+        AbstractDataAccessObject.getConnection().close();
+
+        assertEquals("Two connections must have been borrowed", borrows + 2, pool.getBorrowCount());
+        assertTrue("The wait time cannot be negative", pool.getAverageWaitTime() >= 0);
+        assertNotNull(pool.toString());
+    }
+
+    /**
+     * This test makes sure that a prepared statement closed by its caller is
+     * reused when the same SQL text is prepared again on the connection.
+     */
+    public void testUtilPreparedStatementIsCached() throws Exception {
+        final ConnectionPool pool = ConnectionPool.getInstance();
+        final String sql = "SELECT ? FROM DUAL";
+
+        final Connection connection = AbstractDataAccessObject.getConnection();
+        connection.prepareStatement(sql).close();
+        final long hits = pool.getStatementCacheHitCount();
+
+        final PreparedStatement statement = connection.prepareStatement(sql);
+        assertEquals("The statement must come from the cache", hits + 1, pool.getStatementCacheHitCount());
+        statement.setInt(1, 1);
+        final ResultSet resultSet = statement.executeQuery();
+        assertTrue(resultSet.next());
+        resultSet.close();
+
+        // The same SQL text prepared while the first one is open is not shared
+        final PreparedStatement other = connection.prepareStatement(sql);
+        assertNotSame(statement, other);
+        other.close();
+        statement.close();
+        connection.close();
+    }
+
+    /**
+     * This test makes sure that a cached statement does not keep the limits set by
+     * its previous user.
+     */
+    public void testUtilCachedStatementIsReset() throws Exception {
+        final String sql = "SELECT ? FROM DUAL";
+
+        final Connection connection = AbstractDataAccessObject.getConnection();
+        PreparedStatement statement = connection.prepareStatement(sql);
+        final int fetchSize = statement.getFetchSize();
+        final int maxRows = statement.getMaxRows();
+        statement.setFetchSize(fetchSize + 10);
+        statement.setMaxRows(maxRows + 1);
+        statement.close();
+
+        statement = connection.prepareStatement(sql);
+        assertEquals("The fetch size must be reset", fetchSize, statement.getFetchSize());
+        assertEquals("The max rows must be reset", maxRows, statement.getMaxRows());
+        statement.close();
+        connection.close();
+    }
+
+    /**
+     * This test makes sure that the cache goes back within its size once the statements
+     * held open beyond it are closed, the least recently used ones being closed first.
+     */
+    public void testUtilStatementCacheIsBounded() throws Exception {
+        final ConnectionPool pool = ConnectionPool.getInstance();
+        final int extra = 5;
+        final int count = DataAccessConstants.POOL_STATEMENT_CACHE_SIZE + extra;
+
+        final Connection connection = AbstractDataAccessObject.getConnection();
+        final PreparedStatement[] statements = new PreparedStatement[count];
+        for (int i = 0; i < count; i++) {
+            statements[i] = connection.prepareStatement("SELECT ? + " + i + " FROM DUAL");
+        }
+        for (int i = 0; i < count; i++) {
+            statements[i].close();
+        }
+
+        // The most recently used statement is still cached
+        long hits = pool.getStatementCacheHitCount();
+        connection.prepareStatement("SELECT ? + " + (count - 1) + " FROM DUAL").close();
+        assertEquals("The statement must come from the cache", hits + 1, pool.getStatementCacheHitCount());
+
+        // The least recently used ones have been closed
+        final long misses = pool.getStatementCacheMissCount();
+        for (int i = 0; i < extra; i++) {
+            connection.prepareStatement("SELECT ? + " + i + " FROM DUAL").close();
+        }
+        assertEquals("The statements must have been evicted", misses + extra, pool.getStatementCacheMissCount());
+        connection.close();
+    }
+
+    /**
+     * This test makes sure that a statement prepared with a result set type and
+     * concurrency is cached apart from the statement of the same SQL text.
+     */
+    public void testUtilStatementWithOptionsIsCached() throws Exception {
+        final ConnectionPool pool = ConnectionPool.getInstance();
+        final String sql = "SELECT ? FROM DUAL";
+
+        final Connection connection = AbstractDataAccessObject.getConnection();
+        connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY).close();
+        final long hits = pool.getStatementCacheHitCount();
+
+        final PreparedStatement statement = connection.prepareStatement(sql, ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+        assertEquals("The statement must come from the cache", hits + 1, pool.getStatementCacheHitCount());
+        assertEquals(ResultSet.TYPE_SCROLL_INSENSITIVE, statement.getResultSetType());
+        statement.close();
+
+        // The forward only read only options are those of the plain statement
+        connection.prepareStatement(sql).close();
+        final PreparedStatement cursor = connection.prepareStatement(sql, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+        assertEquals("The statement must come from the cache", hits + 2, pool.getStatementCacheHitCount());
+        cursor.close();
+        connection.close();
+    }
+
+    //==================================
+    //=         Private Methods        =
+    //==================================
+    private void selectOne(final Connection connection) throws SQLException {
+        final Statement statement = connection.createStatement();
+        final ResultSet resultSet = statement.executeQuery("SELECT 1");
+        assertTrue(resultSet.next());
+        resultSet.close();
+        statement.close();
+    }
+}
@@ -0,0 +1,161 @@
+package com.yaps.petstore.server.util.persistence;
+
+import com.yaps.petstore.AbstractTestCase;
+import com.yaps.petstore.common.exception.ObjectNotFoundException;
+import com.yaps.petstore.server.domain.category.Category;
+import com.yaps.petstore.server.domain.category.CategoryDAO;
+import com.yaps.petstore.server.domain.product.Product;
+import com.yaps.petstore.server.domain.product.ProductDAO;
+import junit.framework.TestSuite;
+
+/**
+ * This class tests the EntityCache class and its use by the DAOs
+ */
+public final class EntityCacheTest extends AbstractTestCase {
+
+    private final CategoryDAO _categoryDAO = new CategoryDAO();
+    private final ProductDAO _productDAO = new ProductDAO();
+
+    public EntityCacheTest(final String s) {
+        super(s);
+    }
+
+    public static TestSuite suite() {
+        return new TestSuite(EntityCacheTest.class);
+    }
+
+    //==================================
+    //=            Test cases          =
+    //==================================
+    /**
+     * This test makes sure that the second select of an object is served by the
+     * cache and that changing the returned object does not change the cache.
+     */
+    public void testUtilReadThrough() throws Exception {
+        final String id = _categoryDAO.getUniqueId();
+        _categoryDAO.insert(new Category(id, "name" + id, "description" + id));
+        final EntityCache cache = _categoryDAO.getCache();
+        assertNotNull("The category DAO has a cache", cache);
+
+        final Category first = (Category) _categoryDAO.findByPrimaryKey(id);
+        final long hits = cache.getHitCount();
+        first.setName("changed");
+
+        final Category second = (Category) _categoryDAO.findByPrimaryKey(id);
+        assertEquals("The second select must be a hit", hits + 1, cache.getHitCount());
+        assertNotSame(first, second);
+        assertEquals("The cached object must not be changed by the caller", "name" + id, second.getName());
+
+        // Cleans the test environment
+        _categoryDAO.remove(id);
+    }
+
+    /**
+     * This test makes sure that the DAO writes remove the object from the cache.
+     */
+    public void testUtilEvictOnWrite() throws Exception {
+        final String id = _categoryDAO.getUniqueId();
+        _categoryDAO.insert(new Category(id, "name" + id, "description" + id));
+        _categoryDAO.findByPrimaryKey(id);
+
+        _categoryDAO.update(new Category(id, "updated" + id, "description" + id));
+        assertEquals("updated" + id, ((Category) _categoryDAO.findByPrimaryKey(id)).getName());
+
+        _categoryDAO.remove(id);
+        try {
+            _categoryDAO.findByPrimaryKey(id);
+            fail("Object has been deleted it shouldn't be found");
+        } catch (ObjectNotFoundException e) {
+        }
+    }
+
+    /**
+     * This test makes sure that the work of a transaction is not cached before the
+     * commit and that the cache is right after it.
+     */
+    public void testUtilTransaction() throws Exception {
+        final String id = _categoryDAO.getUniqueId();
+        _categoryDAO.insert(new Category(id, "name" + id, "description" + id));
+        _categoryDAO.findByPrimaryKey(id);
+
+        TransactionContext.begin();
+        try {
+            _categoryDAO.update(new Category(id, "updated" + id, "description" + id));
+            assertEquals("The transaction sees its own work",
+                    "updated" + id, ((Category) _categoryDAO.findByPrimaryKey(id)).getName());
+        } finally {
+            // Rolled back
+            TransactionContext.end();
+        }
+        assertEquals("The rolled back work must not be cached",
+                "name" + id, ((Category) _categoryDAO.findByPrimaryKey(id)).getName());
+
+        // Cleans the test environment
+        _categoryDAO.remove(id);
+    }
+
+    /**
+     * This test makes sure that deleting a category empties the cache of the
+     * products the database deletes with it.
+     */
+    public void testUtilCascade() throws Exception {
+        final String categoryId = _categoryDAO.getUniqueId();
+        final String productId = _productDAO.getUniqueId();
+        _categoryDAO.insert(new Category(categoryId, "name" + categoryId, "description" + categoryId));
+        _productDAO.insert(new Product(productId, "name" + productId, "description" + productId, new Category(categoryId)));
+        _productDAO.findByPrimaryKey(productId);
+
+        _categoryDAO.remove(categoryId);
+        try {
+            _productDAO.findByPrimaryKey(productId);
+            fail("Product has been deleted with its category it shouldn't be found");
+        } catch (ObjectNotFoundException e) {
+        }
+    }
+
+    /**
+     * This test makes sure that the cache never holds more than its maximum size.
+     */
+    public void testUtilMaxSize() throws Exception {
+        final EntityCache cache = EntityCache.getInstance(getName(), 2, 60000);
+        cache.put(new Category("1"), cache.getGeneration());
+        cache.put(new Category("2"), cache.getGeneration());
+        cache.put(new Category("3"), cache.getGeneration());
+
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertNull("The oldest object must be evicted", cache.get("1"));
+        assertNotNull(cache.get("3"));
+
+        // An object read before an invalidation is not cached
+        final long generation = cache.getGeneration();
+        cache.remove("2");
+        cache.put(new Category("4"), generation);
+        assertNull(cache.get("4"));
+    }
+
+    /**
+     * This test makes sure that the least recently used object is evicted, and that
+     * removed or expired objects do not count against the maximum size.
+     */
+    public void testUtilLeastRecentlyUsed() throws Exception {
+        final EntityCache cache = EntityCache.getInstance(getName(), 2, 60000);
+        cache.put(new Category("1"), cache.getGeneration());
+        cache.put(new Category("2"), cache.getGeneration());
+        assertNotNull(cache.get("1"));
+        cache.put(new Category("3"), cache.getGeneration());
+        assertNull("The least recently used object must be evicted", cache.get("2"));
+        assertNotNull(cache.get("1"));
+
+        cache.remove("1");
+        cache.put(new Category("4"), cache.getGeneration());
+        assertEquals(2, cache.getSize());
+        assertEquals(1, cache.getEvictionCount());
+        assertNotNull(cache.get("3"));
+
+        final EntityCache expiring = EntityCache.getInstance(getName() + "Expiring", 2, 0);
+        expiring.put(new Category("1"), expiring.getGeneration());
+        assertNull(expiring.get("1"));
+        assertEquals(0, expiring.getSize());
+    }
+}
@@ -0,0 +1,237 @@
+package com.yaps.petstore.server.util.persistence;
+
+import com.yaps.petstore.AbstractTestCase;
+import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.exception.DataAccessException;
+import com.yaps.petstore.common.exception.DuplicateKeyException;
+import com.yaps.petstore.common.exception.ObjectNotFoundException;
+import com.yaps.petstore.server.domain.category.Category;
+import com.yaps.petstore.server.domain.category.CategoryDAO;
+import com.yaps.petstore.server.domain.comment.Comment;
+import com.yaps.petstore.server.domain.comment.CommentDAO;
+import com.yaps.petstore.server.domain.customer.Customer;
+import com.yaps.petstore.server.domain.customer.CustomerDAO;
+import com.yaps.petstore.server.domain.item.Item;
+import com.yaps.petstore.server.domain.item.ItemDAO;
+import com.yaps.petstore.server.domain.product.Product;
+import com.yaps.petstore.server.domain.product.ProductDAO;
+import com.yaps.petstore.server.service.catalog.CatalogService;
+import junit.framework.TestSuite;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * This class tests the DAOs on the MemoryDatabase
+ */
+public final class MemoryDatabaseTest extends AbstractTestCase {
+
+    private final CategoryDAO _categoryDAO = new CategoryDAO();
+    private final ProductDAO _productDAO = new ProductDAO();
+    private final ItemDAO _itemDAO = new ItemDAO();
+    private final CustomerDAO _customerDAO = new CustomerDAO();
+    private final CommentDAO _commentDAO = new CommentDAO();
+
+    public MemoryDatabaseTest(final String s) {
+        super(s);
+    }
+
+    public static TestSuite suite() {
+        return new TestSuite(MemoryDatabaseTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        MemoryDatabase.setEnabled(true);
+        MemoryDatabase.getInstance().clear();
+    }
+
+    protected void tearDown() throws Exception {
+        MemoryDatabase.getInstance().clear();
+        MemoryDatabase.setEnabled(false);
+    }
+
+    //==================================
+    //=            Test cases          =
+    //==================================
+    /**
+     * This test creates, finds, updates and removes objects without MySQL.
+     */
+    public void testUtilCrud() throws Exception {
+        final String id = _categoryDAO.getUniqueId();
+        _categoryDAO.insert(new Category(id, "name" + id, "description" + id));
+        assertEquals(1, MemoryDatabase.getInstance().getRowCount("T_CATEGORY"));
+        assertEquals("name" + id, ((Category) _categoryDAO.findByPrimaryKey(id)).getName());
+
+        try {
+            _categoryDAO.insert(new Category(id, "name" + id, "description" + id));
+            fail("An object with the same id has already been created");
+        } catch (DuplicateKeyException e) {
+        }
+
+        _categoryDAO.update(new Category(id, "updated" + id, "description" + id));
+        assertEquals("updated" + id, ((Category) _categoryDAO.findByPrimaryKey(id)).getName());
+
+        _categoryDAO.remove(id);
+        try {
+            _categoryDAO.findByPrimaryKey(id);
+            fail("Object has been deleted it shouldn't be found");
+        } catch (ObjectNotFoundException e) {
+        }
+        try {
+            _categoryDAO.remove(id);
+            fail("Object has been deleted it cannot be deleted again");
+        } catch (ObjectNotFoundException e) {
+        }
+    }
+
+    /**
+     * This test makes sure that the foreign keys are indexed, checked and that the
+     * deletes cascade like in structure.sql.
+     */
+    public void testUtilForeignKeys() throws Exception {
+        final Category category = createCategory();
+        final Product product = createProduct(category);
+        final Product otherProduct = createProduct(category);
+        final List items = new ArrayList();
+        for (int i = 0; i < 5; i++) {
+            items.add(new Item(null, "item" + i, i, product));
+        }
+        _itemDAO.insertAll(items);
+        _itemDAO.insert(new Item(null, "other", 1, otherProduct));
+
+        assertEquals(5, _itemDAO.selectAll(product.getId()).size());
+        assertEquals(2, _productDAO.selectAll(category.getId()).size());
+
+        try {
+            _itemDAO.insert(new Item(null, "orphan", 1, new Product("unknown")));
+            fail("An item must belong to an existing product");
+        } catch (DataAccessException e) {
+        }
+
+        // Deleting the category deletes its products and their items
+        _categoryDAO.remove(category.getId());
+        assertEquals(0, MemoryDatabase.getInstance().getRowCount("T_PRODUCT"));
+        assertEquals(0, MemoryDatabase.getInstance().getRowCount("T_ITEM"));
+    }
+
+    /**
+     * This test makes sure that a batch is inserted all or nothing, and that a
+     * transaction rolled back puts back the rows it has changed.
+     */
+    public void testUtilRollback() throws Exception {
+        final Category category = createCategory();
+        final Product product = createProduct(category);
+        final List items = new ArrayList();
+        items.add(new Item(null, "item1", 1, product));
+        items.add(new Item(null, "orphan", 1, new Product("unknown")));
+        try {
+            _itemDAO.insertAll(items);
+            fail("An item must belong to an existing product");
+        } catch (DataAccessException e) {
+        }
+        assertEquals(0, MemoryDatabase.getInstance().getRowCount("T_ITEM"));
+
+        _itemDAO.insert(new Item(null, "item2", 2, product));
+        TransactionContext.begin();
+        try {
+            _categoryDAO.update(new Category(category.getId(), "updated", "description"));
+            _categoryDAO.insert(new Category(null, "other", "description"));
+            // Deletes the product and its item in cascade
+            _productDAO.remove(product.getId());
+            TransactionContext.rollback();
+        } finally {
+            TransactionContext.end();
+        }
+        assertEquals(1, MemoryDatabase.getInstance().getRowCount("T_CATEGORY"));
+        assertEquals("name", ((Category) _categoryDAO.findByPrimaryKey(category.getId())).getName());
+        assertEquals(1, _productDAO.selectAll(category.getId()).size());
+        assertEquals(1, _itemDAO.selectAll(product.getId()).size());
+    }
+
+    /**
+     * This test makes sure that a customer with comments cannot be deleted.
+     */
+    public void testUtilRestrictedDelete() throws Exception {
+        final String customerId = _customerDAO.getUniqueId();
+        _customerDAO.insert(new Customer(customerId, "first" + customerId, "last" + customerId));
+        _commentDAO.insert(new Comment(null, "title", "text", new Customer(customerId), new Date()));
+
+        try {
+            _customerDAO.remove(customerId);
+            fail("The customer has comments it cannot be deleted");
+        } catch (DataAccessException e) {
+        }
+        assertNotNull(_customerDAO.findByPrimaryKey(customerId));
+    }
+
+    /**
+     * This test makes sure that the where and order by clauses of the DAOs are
+     * understood: paging the comments the most recent first.
+     */
+    public void testUtilCommentPages() throws Exception {
+        final String customerId = _customerDAO.getUniqueId();
+        _customerDAO.insert(new Customer(customerId, "first" + customerId, "last" + customerId));
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < 5; i++) {
+            // Two comments at each date
+            _commentDAO.insert(new Comment(null, "title" + i, "text" + i, new Customer(customerId), new Date(now - (i / 2) * 1000)));
+        }
+
+        final List seen = new ArrayList();
+        Date afterDate = null;
+        String afterId = null;
+        while (true) {
+            final Collection page;
+            try {
+                page = _commentDAO.selectPage(customerId, afterDate, afterId, 2);
+            } catch (ObjectNotFoundException e) {
+                break;
+            }
+            for (Iterator iterator = page.iterator(); iterator.hasNext();) {
+                final Comment comment = (Comment) iterator.next();
+                if (afterDate != null)
+                    assertFalse("Comments must come the most recent first", comment.getDate().after(afterDate));
+                assertFalse("A comment must be on one page only", seen.contains(comment.getId()));
+                seen.add(comment.getId());
+                afterDate = comment.getDate();
+                afterId = comment.getId();
+            }
+        }
+        assertEquals(5, seen.size());
+    }
+
+    /**
+     * This test runs the catalog service on the memory database.
+     */
+    public void testUtilCatalogService() throws Exception {
+        final Product product = createProduct(createCategory());
+        final CatalogService service = new CatalogService();
+        final ItemDTO goldfish = new ItemDTO(null, "Goldfish", 10);
+        goldfish.setProductId(product.getId());
+        assertNotNull(service.createItem(goldfish).getId());
+        final ItemDTO bigGoldfish = new ItemDTO(null, "Goldfish Max", 20);
+        bigGoldfish.setProductId(product.getId());
+        service.createItem(bigGoldfish);
+
+        assertEquals(2, service.findItems(product.getId()).size());
+        assertEquals(1, service.searchItems("MAX").size());
+    }
+
+    //==================================
+    //=         Private Methods        =
+    //==================================
+    private Category createCategory() throws Exception {
+        final Category category = new Category(null, "name", "description");
+        _categoryDAO.insert(category);
+        return category;
+    }
+
+    private Product createProduct(final Category category) throws Exception {
+        final Product product = new Product(null, "name", "description", category);
+        _productDAO.insert(product);
+        return product;
+    }
+}
@@ -0,0 +1,147 @@
+package com.yaps.petstore.server.util.persistence;
+
+import com.yaps.petstore.AbstractTestCase;
+import com.yaps.petstore.common.exception.DataAccessException;
+import com.yaps.petstore.common.exception.ObjectNotFoundException;
+import com.yaps.petstore.server.domain.category.Category;
+import com.yaps.petstore.server.domain.category.CategoryDAO;
+import junit.framework.TestSuite;
+
+import java.sql.Connection;
+
+/**
+ * This class tests the TransactionContext class
+ */
+public final class TransactionContextTest extends AbstractTestCase {
+
+    private final CategoryDAO _dao = new CategoryDAO();
+
+    public TransactionContextTest(final String s) {
+        super(s);
+    }
+
+    public static TestSuite suite() {
+        return new TestSuite(TransactionContextTest.class);
+    }
+
+    //==================================
+    //=            Test cases          =
+    //==================================
+    /**
+     * This test makes sure that the DAOs of a transaction share one connection
+     * and that their work is only seen by the others after the commit.
+     */
+    public void testUtilCommit() throws Exception {
+        final String id = _dao.getUniqueId();
+
+        TransactionContext.begin();
+        try {
+            final Connection first = AbstractDataAccessObject.getConnection();
+            final Connection second = AbstractDataAccessObject.getConnection();
+            assertSame("The DAOs must share the connection of the transaction", first, second);
+            first.close();
+            assertFalse("Closing the connection must not end the transaction", second.isClosed());
+
+            _dao.insert(new Category(id, "name" + id, "description" + id));
+            assertNotNull("The transaction sees its own work", _dao.findByPrimaryKey(id));
+            assertFalse("Other threads must not see uncommitted work", isVisibleFromAnotherThread(id));
+
+            TransactionContext.commit();
+        } finally {
+            TransactionContext.end();
+        }
+        assertFalse(TransactionContext.isActive());
+        assertTrue("Committed work must be seen by other threads", isVisibleFromAnotherThread(id));
+
+        // Cleans the test environment
+        _dao.remove(id);
+    }
+
+    /**
+     * This test makes sure that a transaction ended without commit is rolled back.
+     */
+    public void testUtilRollbackWhenNotCommitted() throws Exception {
+        final String id = _dao.getUniqueId();
+
+        TransactionContext.begin();
+        try {
+            _dao.insert(new Category(id, "name" + id, "description" + id));
+        } finally {
+            TransactionContext.end();
+        }
+
+        try {
+            _dao.findByPrimaryKey(id);
+            fail("Object has been rolled back it shouldn't be found");
+        } catch (ObjectNotFoundException e) {
+        }
+    }
+
+    /**
+     * This test makes sure that an inner level joins the transaction of its caller
+     * and that an inner level that does not commit rolls the whole transaction back.
+     */
+    public void testUtilNestedTransactions() throws Exception {
+        final String id = _dao.getUniqueId();
+        final String otherId = _dao.getUniqueId();
+
+        TransactionContext.begin();
+        try {
+            _dao.insert(new Category(id, "name" + id, "description" + id));
+
+            // The inner level does not commit
+            TransactionContext.begin();
+            try {
+                _dao.insert(new Category(otherId, "name" + otherId, "description" + otherId));
+                assertSame(AbstractDataAccessObject.getConnection(), AbstractDataAccessObject.getConnection());
+            } finally {
+                TransactionContext.end();
+            }
+            assertTrue("The outer level is still active", TransactionContext.isActive());
+
+            try {
+                TransactionContext.commit();
+                fail("The transaction has been marked for rollback");
+            } catch (DataAccessException e) {
+            }
+        } finally {
+            TransactionContext.end();
+        }
+
+        assertFalse(isVisibleFromAnotherThread(id));
+        assertFalse(isVisibleFromAnotherThread(otherId));
+    }
+
+    /**
+     * This test makes sure that committing without a transaction is an error.
+     */
+    public void testUtilCommitWithoutTransaction() throws Exception {
+        try {
+            TransactionContext.commit();
+            fail("There is no transaction to commit");
+        } catch (IllegalStateException e) {
+        }
+        // Ending without a transaction is harmless
+        TransactionContext.end();
+    }
+
+    //==================================
+    //=         Private Methods        =
+    //==================================
+    private boolean isVisibleFromAnotherThread(final String id) throws InterruptedException {
+        final boolean[] found = new boolean[1];
+        final Thread thread = new Thread() {
+            public void run() {
+                try {
+                    _dao.findByPrimaryKey(id);
+                    found[0] = true;
+                } catch (ObjectNotFoundException e) {
+                    found[0] = false;
+                }
+            }
+        };
+        thread.start();
+        thread.join();
+        return found[0];
+    }
+}
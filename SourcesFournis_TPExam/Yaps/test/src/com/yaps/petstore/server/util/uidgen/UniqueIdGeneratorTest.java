@@ -4,6 +4,10 @@ import com.yaps.petstore.AbstractTestCase;
 import com.yaps.petstore.common.exception.ObjectNotFoundException;
 import junit.framework.TestSuite;
 
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
 /**
  * This class tests the Unique id generator class
  */
@@ -58,6 +62,107 @@ public final class UniqueIdGeneratorTest extends AbstractTestCase {
         }
     }
 
+    /**
+     * This test makes sure that the ids are reserved in the database a block at a time.
+     */
+    public void testUtilUniqueIdBlock() throws Exception {
+        final String name = "block" + getUniqueId();
+        UniqueIdGenerator.getInstance().setBlockSize(name, 5);
+
+        // The first id reserves the whole block
+        assertEquals("The value must be equal to 1", 1, Integer.parseInt(getUniqueId(name)));
+        assertEquals("The counter must be at the end of the block", 5, findName(name));
+
+        // The other ids of the block do not move the counter
+        for (int i = 2; i <= 5; i++) {
+            assertEquals(i, Integer.parseInt(getUniqueId(name)));
+        }
+        assertEquals("The counter must not have moved", 5, findName(name));
+
+        // The next id reserves a new block
+        assertEquals(6, Integer.parseInt(getUniqueId(name)));
+        assertEquals("The counter must be at the end of the new block", 10, findName(name));
+
+        // Several ids are taken from one block when they fit
+        final String[] ids = UniqueIdGenerator.getInstance().getUniqueIds(name, 4);
+        assertEquals("7", ids[0]);
+        assertEquals("10", ids[3]);
+        assertEquals(10, findName(name));
+
+        deleteName(name);
+    }
+
+    /**
+     * This test makes sure that threads asking ids at the same time never get the same one.
+     */
+    public void testUtilUniqueIdConcurrency() throws Exception {
+        final String name = "conc" + getUniqueId();
+        UniqueIdGenerator.getInstance().setBlockSize(name, 7);
+        final Set ids = Collections.synchronizedSet(new HashSet());
+        final int threadCount = 8;
+        final int idsPerThread = 50;
+
+        final Thread[] threads = new Thread[threadCount];
+        for (int i = 0; i < threadCount; i++) {
+            threads[i] = new Thread() {
+                public void run() {
+                    for (int j = 0; j < idsPerThread; j++) {
+                        ids.add(getUniqueId(name));
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threadCount; i++) {
+            threads[i].join();
+        }
+
+        assertEquals("Every id must be unique", threadCount * idsPerThread, ids.size());
+
+        deleteName(name);
+    }
+
+    /**
+     * This test makes sure that a counter using the node ids never touches the database
+     * and gets unique ids that fit the id columns and sort by creation time.
+     */
+    public void testUtilNodeUniqueId() throws Exception {
+        final String name = "node" + getUniqueId();
+        final long start = System.currentTimeMillis();
+        UniqueIdGenerator.getInstance().setStrategy(name, new NodeIdStrategy(42));
+        try {
+            final String[] ids = UniqueIdGenerator.getInstance().getUniqueIds(name, 3000);
+            final Set uniqueIds = new HashSet();
+            for (int i = 0; i < ids.length; i++) {
+                assertEquals("An id must fit a VARCHAR(10)", 10, ids[i].length());
+                if (i > 0)
+                    assertTrue("The ids must be sorted", ids[i - 1].compareTo(ids[i]) < 0);
+                uniqueIds.add(ids[i]);
+            }
+            assertEquals("Every id must be unique", ids.length, uniqueIds.size());
+            assertTrue("The id must hold its creation time", NodeIdStrategy.getTime(ids[0]) >= start - 100);
+
+            // The counter has not been created in the database
+            try {
+                findName(name);
+                fail();
+            } catch (ObjectNotFoundException e) {
+            }
+        } finally {
+            UniqueIdGenerator.getInstance().setStrategy(name, null);
+        }
+
+        // Two nodes never give the same id
+        final NodeIdStrategy node1 = new NodeIdStrategy(1);
+        final NodeIdStrategy node2 = new NodeIdStrategy(2);
+        final Set ids = new HashSet();
+        for (int i = 0; i < 1000; i++) {
+            ids.add(node1.getUniqueIds(name, 1)[0]);
+            ids.add(node2.getUniqueIds(name, 1)[0]);
+        }
+        assertEquals(2000, ids.size());
+    }
+
     //==================================
     //=         Private Methods        =
     //==================================
@@ -72,9 +177,9 @@ public final class UniqueIdGeneratorTest extends AbstractTestCase {
     }
 
 
-    private void findName(final String name) throws ObjectNotFoundException {
+    private int findName(final String name) throws ObjectNotFoundException {
         final UniqueIdGeneratorDAO dao = new UniqueIdGeneratorDAO();
-        dao.select(name);
+        return dao.select(name);
     }
 
     private void deleteName(final String name) throws ObjectNotFoundException {
@@ -71,6 +71,9 @@ INSERT INTO T_ITEM (id, name, unitCost, imagePath, product_fk) VALUES ('EST26',
 INSERT INTO T_ITEM (id, name, unitCost, imagePath, product_fk) VALUES ('EST27', 'Male Adult', '75.00', 'bird1.jpg', 'AVSB02');
 INSERT INTO T_ITEM (id, name, unitCost, imagePath, product_fk) VALUES ('EST29', 'Female Adult', '80.00', 'bird1.jpg', 'AVSB02');
 
+-- The stock of the sample items is tracked
+UPDATE T_ITEM SET quantityOnHand = 20;
+
 INSERT INTO T_CUSTOMER (id, firstname, lastname, telephone, street1, street2, city, state, zipcode, country, creditcardnumber, creditcardtype, creditcardexpirydate, email, password) VALUES ('marc123', 'Marc', 'Fleury', '545 123 45', '65 Ritherdon Road', '', 'Los Angeles', 'LA', '56421', 'USA', '', '', '', '','marc123');
 INSERT INTO T_CUSTOMER (id, firstname, lastname, telephone, street1, street2, city, state, zipcode, country, creditcardnumber, creditcardtype, creditcardexpirydate, email, password) VALUES ('bill000', 'Bill', 'Gates', '654 046 12', '27 West Side', 'Story', 'Alhabama', 'Texas', '8401', 'USA', '1231 4564 2222', 'Visa', '02/18', 'bill.gates@microsoft.com', 'bill000');
 INSERT INTO T_CUSTOMER (id, firstname, lastname, telephone, street1, street2, city, state, zipcode, country, creditcardnumber, creditcardtype, creditcardexpirydate, email, password) VALUES ('job5', 'Steve', 'Jobs', '548 157 15', '154 Star Boulevard', '', 'San Francisco', 'WC', '5455', 'USA', '', '', '', 'steve.jobs@apple.com', 'job5');
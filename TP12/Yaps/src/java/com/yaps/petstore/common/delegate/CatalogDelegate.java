@@ -2,6 +2,8 @@ package com.yaps.petstore.common.delegate;
 
 import com.yaps.petstore.common.dto.CategoryDTO;
 import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.ItemFacetQueryDTO;
+import com.yaps.petstore.common.dto.ItemFacetResultDTO;
 import com.yaps.petstore.common.dto.ProductDTO;
 import com.yaps.petstore.common.exception.*;
 import com.yaps.petstore.common.locator.ServiceLocator;
@@ -136,6 +138,13 @@ public final class CatalogDelegate {
         getCatalogService().updateItem(item);
     }
 
+    /**
+     * Delegates the call to the {@link CatalogService#restockItem(String, int) CatalogService().restockItem} method.
+     */
+    public static void restockItem(final String itemId, final int quantity) throws UpdateException, CheckException, RemoteException {
+        getCatalogService().restockItem(itemId, quantity);
+    }
+
     /**
      * Delegates the call to the {@link CatalogService#findItems() CatalogService().findItems} method.
      */
@@ -150,6 +159,13 @@ public final class CatalogDelegate {
         return getCatalogService().findItems(productId);
     }
 
+    /**
+     * Delegates the call to the {@link CatalogService#findItems(Collection) CatalogService().findItems} method.
+     */
+    public static Collection findItems(final Collection itemIds) throws CheckException, RemoteException {
+        return getCatalogService().findItems(itemIds);
+    }
+
     /**
      * Delegates the call to the {@link CatalogService#searchItems(String) CatalogService().searchItems} method.
      */
@@ -157,6 +173,20 @@ public final class CatalogDelegate {
         return getCatalogService().searchItems(keyword);
     }
 
+    /**
+     * Delegates the call to the {@link CatalogService#autocomplete(String, int) CatalogService().autocomplete} method.
+     */
+    public static Collection autocomplete(final String prefix, final int limit) throws CheckException, RemoteException {
+        return getCatalogService().autocomplete(prefix, limit);
+    }
+
+    /**
+     * Delegates the call to the {@link CatalogService#browseItems(ItemFacetQueryDTO) CatalogService().browseItems} method.
+     */
+    public static ItemFacetResultDTO browseItems(final ItemFacetQueryDTO query) throws CheckException, RemoteException {
+        return getCatalogService().browseItems(query);
+    }
+
     // ======================================
     // =            Private methods         =
     // ======================================
@@ -1,77 +1,275 @@
 package com.yaps.petstore.common.delegate;
 
+import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.ShoppingCartDTO;
+import com.yaps.petstore.common.dto.ShoppingCartItemDTO;
+import com.yaps.petstore.common.exception.CheckException;
 import com.yaps.petstore.common.locator.ServiceLocator;
+import com.yaps.petstore.common.logging.Trace;
+import com.yaps.petstore.server.cart.CompactCart;
 import com.yaps.petstore.server.cart.ShoppingCart;
 
 import com.yaps.petstore.server.cart.ShoppingCartHome;
 import java.rmi.RemoteException;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 
+/**
+ * This class follows the Delegate design pattern. It gives the shopping cart of an HTTP
+ * session. In the remote mode, the default, the cart is a ShoppingCart stateful bean. In
+ * the local mode the cart is a CompactCart kept in the HTTP session by the web tier, so
+ * adding, removing or viewing items does not call the cart bean: the cart only leaves the
+ * web tier at checkout, when it is given to the OrderDelegate.
+ */
 public final class ShoppingCartDelegate {
     // ======================================
     // =             Attributes             =
     // ======================================
-    /**(sessionId, shoppingCart) associations */
-    private static HashMap<String, ShoppingCart> _shoppingCarts = new HashMap<String, ShoppingCart>();
-    
+    /** Maximum number of shopping carts kept for the sessions */
+    private static final int MAX_SHOPPING_CARTS = 10000;
+    /** A cart unused for this time can be evicted, it is the default session timeout */
+    private static final long MAX_IDLE_TIME = 30 * 60 * 1000;
+
+    /**(sessionId, shoppingCart) associations, released with the session (see ShoppingCartSessionListener) */
+    private static final ShoppingCartRegistry _shoppingCarts = new ShoppingCartRegistry(MAX_SHOPPING_CARTS, MAX_IDLE_TIME);
+
+    /** true if the carts are kept in the HTTP sessions */
+    private static volatile boolean _localMode = false;
+
     /** sessionId of the session which has created this delegate */
     private String _sessionId;
 
+    /** Cart of the session in the local mode, null in the remote mode */
+    private final CompactCart _localCart;
+
+    // Used for logging
+    private final String _cname = this.getClass().getName();
+
     // ======================================
     // =            Constructors            =
     // ======================================
     public ShoppingCartDelegate(String sessionId)
+    {
+       this(sessionId, null);
+    }
+
+    /**
+     * @param sessionId id of the HTTP session
+     * @param localCart cart kept in the HTTP session, null to use the cart bean
+     */
+    public ShoppingCartDelegate(String sessionId, CompactCart localCart)
     {
        this._sessionId = sessionId;
+       this._localCart = localCart;
     }
 
     // ======================================
     // =           Business methods         =
     // ======================================
     public Map getCart() throws RemoteException {
-        return getShoppingCart().getCart();     
+        if (_localCart != null) {
+            synchronized (_localCart) {
+                return _localCart.toMap();
+            }
+        }
+        return getShoppingCart().getCart();
     }
-    
+
 	public String getSessionId() {
 		return _sessionId;
 	}
 
 	public Collection getItems() throws RemoteException {
+        if (_localCart != null) {
+            return getCartView().getItems();
+        }
         return getShoppingCart().getItems();
     }
+
+    public ShoppingCartDTO getCartView() throws RemoteException {
+        if (_localCart != null) {
+            return getLocalCartView();
+        }
+        return getShoppingCart().getCartView();
+    }
     public void addItem(String itemId) throws RemoteException {
+        if (_localCart != null) {
+            synchronized (_localCart) {
+                _localCart.put(itemId, 1);
+            }
+            return;
+        }
         getShoppingCart().addItem(itemId);
     }
-    
+
     public void removeItem(String itemId) throws RemoteException {
+        if (_localCart != null) {
+            synchronized (_localCart) {
+                _localCart.remove(itemId);
+            }
+            return;
+        }
         getShoppingCart().removeItem(itemId);
     }
-    
+
     public void updateItemQuantity(String itemId, int newQty) throws RemoteException {
+        if (_localCart != null) {
+            synchronized (_localCart) {
+                _localCart.remove(itemId);
+                if (newQty > 0) {
+                    _localCart.put(itemId, newQty);
+                }
+            }
+            return;
+        }
         getShoppingCart().updateItemQuantity(itemId, newQty);
     }
-    
+
     public Double getTotal() throws RemoteException {
+        if (_localCart != null) {
+            return getCartView().getTotal();
+        }
         return getShoppingCart().getTotal();
     }
-    
+
     public void empty() throws RemoteException {
+        if (_localCart != null) {
+            synchronized (_localCart) {
+                _localCart.clear();
+            }
+            return;
+        }
         getShoppingCart().empty();
     }
-    
+
+    /**
+     * @return true if the carts are kept in the HTTP sessions
+     */
+    public static boolean isLocalMode() {
+        return _localMode;
+    }
+
+    /**
+     * This method chooses where the carts are kept, it is called when the application
+     * starts (see ShoppingCartSessionListener).
+     *
+     * @param localMode true to keep the carts in the HTTP sessions, false to use cart beans
+     */
+    public static void setLocalMode(boolean localMode) {
+        _localMode = localMode;
+    }
+
+    /**
+     * This method removes the shopping cart of a session. It is called when the
+     * session is destroyed.
+     *
+     * @param sessionId id of the HTTP session
+     * @return true if the session had a shopping cart
+     */
+    public static boolean release(String sessionId) {
+        return _shoppingCarts.release(sessionId);
+    }
+
+    /**
+     * This method removes the shopping carts of all the sessions.
+     */
+    public static void releaseAll() {
+        _shoppingCarts.releaseAll();
+    }
+
+    // ======================================
+    // =              Gauges                =
+    // ======================================
+    /**
+     * @return the number of shopping carts currently kept
+     */
+    public static int getLiveShoppingCarts() {
+        return _shoppingCarts.getLiveCarts();
+    }
+
+    /**
+     * @return the number of shopping carts created since the start
+     */
+    public static long getCreatedShoppingCarts() {
+        return _shoppingCarts.getRegisteredCarts();
+    }
+
+    /**
+     * @return the number of shopping carts released with their session
+     */
+    public static long getReleasedShoppingCarts() {
+        return _shoppingCarts.getReleasedCarts();
+    }
+
+    /**
+     * @return the number of idle shopping carts evicted because there were too many
+     */
+    public static long getEvictedShoppingCarts() {
+        return _shoppingCarts.getEvictedCarts();
+    }
+
+    /**
+     * @return the number of shopping carts refused because all the carts were in use
+     */
+    public static long getRefusedShoppingCarts() {
+        return _shoppingCarts.getRefusedCarts();
+    }
+
     // ======================================
     // =            Private methods         =
     // ======================================
+    /**
+     * Builds the view of the local cart with the items of the catalog, read in one call.
+     */
+    private ShoppingCartDTO getLocalCartView() throws RemoteException {
+        final String mname = "getLocalCartView";
+        final Map<String, Integer> cart;
+        synchronized (_localCart) {
+            cart = _localCart.toMap();
+        }
+
+        final Map<String, ItemDTO> itemsById = new HashMap<String, ItemDTO>();
+        try {
+            for (Iterator iterator = CatalogDelegate.findItems(new ArrayList<String>(cart.keySet())).iterator(); iterator.hasNext();) {
+                final ItemDTO itemDTO = (ItemDTO) iterator.next();
+                itemsById.put(itemDTO.getId(), itemDTO);
+            }
+        } catch (CheckException e) {
+            Trace.warning(_cname, mname, "Invalid items: " + cart.keySet());
+        }
+
+        final ShoppingCartDTO cartView = new ShoppingCartDTO();
+        for (Map.Entry<String, Integer> keyValue : cart.entrySet()) {
+            final String itemId = keyValue.getKey();
+            final ItemDTO itemDTO = itemsById.get(itemId);
+            if (itemDTO == null) {
+                // The item has been deleted from the catalog
+                Trace.warning(_cname, mname, "Item not found: " + itemId);
+                continue;
+            }
+            cartView.addItem(new ShoppingCartItemDTO(itemId, itemDTO.getName(),
+                itemDTO.getProductDescription(), keyValue.getValue(), itemDTO.getUnitCost()));
+        }
+        // The items found in the catalog are kept by their code from now on
+        synchronized (_localCart) {
+            _localCart.compact(itemsById.keySet());
+        }
+        return cartView;
+    }
+
     private ShoppingCart getShoppingCart() throws RemoteException {
-        if (_shoppingCarts.get(_sessionId) == null)
+        ShoppingCart result = _shoppingCarts.get(_sessionId);
+        if (result == null)
         {
           ShoppingCart shoppingCart = (ShoppingCart)ServiceLocator.getInstance().getHome(ShoppingCartHome.JNDI_NAME, false);
-          _shoppingCarts.put(_sessionId, shoppingCart);
+          result = _shoppingCarts.register(_sessionId, shoppingCart);
+          if (result == null)
+              throw new RemoteException("Too many shopping carts in use, try again later");
         }
-        ShoppingCart result = _shoppingCarts.get(_sessionId);
         return result;
     }
 
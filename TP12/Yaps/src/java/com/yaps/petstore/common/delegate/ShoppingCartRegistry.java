@@ -0,0 +1,228 @@
+package com.yaps.petstore.common.delegate;
+
+import com.yaps.petstore.common.logging.Trace;
+import com.yaps.petstore.server.cart.ShoppingCart;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps the shopping cart of each HTTP session. It can be used by concurrent
+ * threads without locking and holds at most a given number of carts. A cart evicted or
+ * released is removed from the container (see {@link ShoppingCart#remove()}).
+ * <p/>
+ * Each cart keeps the time it was last used. When the registry is full, one thread
+ * sweeps it and evicts the carts idle for too long, whatever their order: the eviction
+ * is an approximate least recently used one. A cart still in use is never evicted, if
+ * none is idle the new cart is refused.
+ */
+final class ShoppingCartRegistry {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private final ConcurrentMap<String, Entry> _entries = new ConcurrentHashMap<String, Entry>();
+    private final int _maxSize;
+    private final long _maxIdleTime;
+
+    // Number of carts kept, a slot is reserved before a cart is added
+    private final AtomicInteger _size = new AtomicInteger();
+    private final AtomicBoolean _sweeping = new AtomicBoolean(false);
+
+    private final AtomicLong _registered = new AtomicLong();
+    private final AtomicLong _released = new AtomicLong();
+    private final AtomicLong _evicted = new AtomicLong();
+    private final AtomicLong _refused = new AtomicLong();
+
+    // Used for logging
+    private final String _cname = this.getClass().getName();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    /**
+     * @param maxSize     maximum number of carts
+     * @param maxIdleTime time in milliseconds after which an unused cart can be evicted
+     */
+    ShoppingCartRegistry(final int maxSize, final long maxIdleTime) {
+        _maxSize = maxSize;
+        _maxIdleTime = maxIdleTime;
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * @return the cart of the session, null if it has none
+     */
+    ShoppingCart get(final String sessionId) {
+        final Entry entry = _entries.get(sessionId);
+        if (entry == null) {
+            return null;
+        }
+        entry.touch();
+        return entry.cart;
+    }
+
+    /**
+     * This method gives a cart to a session, unless another thread has given it one
+     * first: then the new cart is removed and the one of the other thread is returned.
+     * When the registry is full of carts in use, the new cart is removed and refused.
+     *
+     * @return the cart of the session, null if the cart is refused
+     */
+    ShoppingCart register(final String sessionId, final ShoppingCart cart) {
+        final String mname = "register";
+
+        final Entry previous = _entries.get(sessionId);
+        if (previous != null) {
+            return keepPrevious(previous, cart);
+        }
+        if (!reserveSlot()) {
+            sweep();
+            if (!reserveSlot()) {
+                _refused.incrementAndGet();
+                Trace.warning(_cname, mname, "Too many shopping carts in use, cart refused for " + sessionId);
+                remove(cart);
+                return null;
+            }
+        }
+        final Entry concurrent = _entries.putIfAbsent(sessionId, new Entry(cart));
+        if (concurrent != null) {
+            _size.decrementAndGet();
+            return keepPrevious(concurrent, cart);
+        }
+        _registered.incrementAndGet();
+        return cart;
+    }
+
+    /**
+     * This method removes the cart of a session, when the session is destroyed.
+     *
+     * @return true if the session had a cart
+     */
+    boolean release(final String sessionId) {
+        final Entry entry = _entries.remove(sessionId);
+        if (entry == null) {
+            return false;
+        }
+        _size.decrementAndGet();
+        _released.incrementAndGet();
+        remove(entry.cart);
+        return true;
+    }
+
+    /**
+     * This method removes all the carts, when the application is stopped.
+     */
+    void releaseAll() {
+        for (String sessionId : _entries.keySet()) {
+            release(sessionId);
+        }
+    }
+
+    // ======================================
+    // =         Getters and Setters        =
+    // ======================================
+    int getLiveCarts() {
+        return _size.get();
+    }
+
+    long getRegisteredCarts() {
+        return _registered.get();
+    }
+
+    long getReleasedCarts() {
+        return _released.get();
+    }
+
+    long getEvictedCarts() {
+        return _evicted.get();
+    }
+
+    long getRefusedCarts() {
+        return _refused.get();
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    private ShoppingCart keepPrevious(final Entry previous, final ShoppingCart cart) {
+        remove(cart);
+        previous.touch();
+        return previous.cart;
+    }
+
+    /**
+     * @return false if the registry is full
+     */
+    private boolean reserveSlot() {
+        while (true) {
+            final int size = _size.get();
+            if (size >= _maxSize) {
+                return false;
+            }
+            if (_size.compareAndSet(size, size + 1)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * Evicts the carts idle for too long. Only one thread sweeps at a time, the others
+     * go on with the carts the sweep has already evicted.
+     */
+    private void sweep() {
+        final String mname = "sweep";
+        if (!_sweeping.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            final long now = System.currentTimeMillis();
+            for (Iterator<Map.Entry<String, Entry>> iterator = _entries.entrySet().iterator(); iterator.hasNext();) {
+                final Map.Entry<String, Entry> keyValue = iterator.next();
+                final Entry entry = keyValue.getValue();
+                // A cart released by its session meanwhile is not counted twice
+                if (now - entry.lastAccess >= _maxIdleTime && _entries.remove(keyValue.getKey(), entry)) {
+                    _size.decrementAndGet();
+                    _evicted.incrementAndGet();
+                    remove(entry.cart);
+                }
+            }
+        } finally {
+            _sweeping.set(false);
+        }
+        Trace.finest(_cname, mname, _size.get() + " live carts");
+    }
+
+    private void remove(final ShoppingCart cart) {
+        final String mname = "remove";
+        try {
+            cart.remove();
+        } catch (RuntimeException e) {
+            // The container has already removed the bean
+            Trace.finest(_cname, mname, "Cart already removed " + e);
+        }
+    }
+
+    // ======================================
+    // =            Inner classes           =
+    // ======================================
+    private static final class Entry {
+        private final ShoppingCart cart;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        private Entry(final ShoppingCart cart) {
+            this.cart = cart;
+        }
+
+        private void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+    }
+}
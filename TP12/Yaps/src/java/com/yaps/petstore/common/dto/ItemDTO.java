@@ -30,6 +30,19 @@ public final class ItemDTO implements DataTransfertObject {
         setUnitCost(unitCost);
     }
 
+    /**
+     * This constructor is used by the queries that build the DTOs directly from the
+     * item and its product (see the named query Item.findAllDTOs).
+     */
+    public ItemDTO(final String id, final String name, final double unitCost, final String imagePath,
+                   final String productId, final String productName, final String productDescription) {
+        this(id, name, unitCost);
+        setImagePath(imagePath);
+        setProductId(productId);
+        setProductName(productName);
+        setProductDescription(productDescription);
+    }
+
     // ======================================
     // =         Getters and Setters        =
     // ======================================
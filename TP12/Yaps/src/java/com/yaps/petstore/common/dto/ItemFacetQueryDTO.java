@@ -0,0 +1,95 @@
+package com.yaps.petstore.common.dto;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * This class follows the Data Transfert Object design pattern and for that implements the
+ * markup interface DataTransfertObject. It holds the filters of a faceted browsing of the
+ * items: an item is selected if its category, its product and its price range are among
+ * the ones given. An empty filter selects every value.
+ */
+public final class ItemFacetQueryDTO implements DataTransfertObject {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    // Upper bounds of the price ranges, the last range has no upper bound
+    private static final double[] PRICE_BOUNDS = {10, 50, 100, 500};
+
+    private final Set<String> _categoryIds = new HashSet<String>();
+    private final Set<String> _productIds = new HashSet<String>();
+    private final Set<String> _priceRanges = new HashSet<String>();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    public ItemFacetQueryDTO() {
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * @return the names of all the price ranges, from the cheapest: "0-10", "10-50"... "500+"
+     */
+    public static String[] getPriceRangeNames() {
+        final String[] names = new String[PRICE_BOUNDS.length + 1];
+        double lowerBound = 0;
+        for (int i = 0; i < PRICE_BOUNDS.length; i++) {
+            names[i] = (int) lowerBound + "-" + (int) PRICE_BOUNDS[i];
+            lowerBound = PRICE_BOUNDS[i];
+        }
+        names[PRICE_BOUNDS.length] = (int) lowerBound + "+";
+        return names;
+    }
+
+    /**
+     * @param unitCost the unit cost of an item
+     * @return the name of the price range of this cost, the lower bound is in the range
+     */
+    public static String getPriceRangeName(final double unitCost) {
+        int i = 0;
+        while (i < PRICE_BOUNDS.length && unitCost >= PRICE_BOUNDS[i]) {
+            i++;
+        }
+        return getPriceRangeNames()[i];
+    }
+
+    public void addCategoryId(final String categoryId) {
+        _categoryIds.add(categoryId);
+    }
+
+    public void addProductId(final String productId) {
+        _productIds.add(productId);
+    }
+
+    public void addPriceRange(final String priceRange) {
+        _priceRanges.add(priceRange);
+    }
+
+    // ======================================
+    // =         Getters and Setters        =
+    // ======================================
+    public Set<String> getCategoryIds() {
+        return _categoryIds;
+    }
+
+    public Set<String> getProductIds() {
+        return _productIds;
+    }
+
+    public Set<String> getPriceRanges() {
+        return _priceRanges;
+    }
+
+    public String toString() {
+        final StringBuffer buf = new StringBuffer();
+        buf.append("ItemFacetQueryDTO{");
+        buf.append("categoryIds=").append(getCategoryIds());
+        buf.append(",productIds=").append(getProductIds());
+        buf.append(",priceRanges=").append(getPriceRanges());
+        buf.append('}');
+        return buf.toString();
+    }
+}
@@ -0,0 +1,71 @@
+package com.yaps.petstore.common.dto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class follows the Data Transfert Object design pattern and for that implements the
+ * markup interface DataTransfertObject. It holds the items selected by an ItemFacetQueryDTO
+ * and, for each value of a facet, the number of items the query would select with this
+ * value in place of the filter on this facet.
+ */
+public final class ItemFacetResultDTO implements DataTransfertObject {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private final List<ItemDTO> _items = new ArrayList<ItemDTO>();
+    private final Map<String, Integer> _categoryCounts = new LinkedHashMap<String, Integer>();
+    private final Map<String, Integer> _productCounts = new LinkedHashMap<String, Integer>();
+    private final Map<String, Integer> _priceRangeCounts = new LinkedHashMap<String, Integer>();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    public ItemFacetResultDTO() {
+    }
+
+    // ======================================
+    // =         Getters and Setters        =
+    // ======================================
+    /**
+     * @return the items selected, sorted by name
+     */
+    public List<ItemDTO> getItems() {
+        return _items;
+    }
+
+    /**
+     * @return the number of items by category id, the categories without item are left out
+     */
+    public Map<String, Integer> getCategoryCounts() {
+        return _categoryCounts;
+    }
+
+    /**
+     * @return the number of items by product id, the products without item are left out
+     */
+    public Map<String, Integer> getProductCounts() {
+        return _productCounts;
+    }
+
+    /**
+     * @return the number of items by price range, from the cheapest, the ranges without item are left out
+     */
+    public Map<String, Integer> getPriceRangeCounts() {
+        return _priceRangeCounts;
+    }
+
+    public String toString() {
+        final StringBuffer buf = new StringBuffer();
+        buf.append("ItemFacetResultDTO{");
+        buf.append("items=").append(getItems().size());
+        buf.append(",categoryCounts=").append(getCategoryCounts());
+        buf.append(",productCounts=").append(getProductCounts());
+        buf.append(",priceRangeCounts=").append(getPriceRangeCounts());
+        buf.append('}');
+        return buf.toString();
+    }
+}
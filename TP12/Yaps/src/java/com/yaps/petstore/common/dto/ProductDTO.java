@@ -29,6 +29,17 @@ public final class ProductDTO implements DataTransfertObject {
         setDescription(description);
     }
 
+    /**
+     * This constructor is used by the queries that build the DTOs directly from the
+     * product and its category (see the named query Product.findAllDTOs).
+     */
+    public ProductDTO(final String id, final String name, final String description,
+                      final String categoryId, final String categoryName) {
+        this(id, name, description);
+        setCategoryId(categoryId);
+        setCategoryName(categoryName);
+    }
+
     // ======================================
     // =         Getters and Setters        =
     // ======================================
@@ -0,0 +1,60 @@
+package com.yaps.petstore.common.dto;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class follows the Data Transfert Object design pattern and for that implements the
+ * markup interface DataTransfertObject. It is a client view of the whole Shopping Cart:
+ * its items and its total, computed together.
+ * This class only transfers data from a distant service to a client.
+ */
+public final class ShoppingCartDTO implements DataTransfertObject {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private final List<ShoppingCartItemDTO> _items = new ArrayList<ShoppingCartItemDTO>();
+    private double _total;
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    public ShoppingCartDTO() {
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * This method adds an item to the cart and its cost to the total.
+     */
+    public void addItem(final ShoppingCartItemDTO item) {
+        _items.add(item);
+        _total += item.getTotalCost();
+    }
+
+    // ======================================
+    // =         Getters and Setters        =
+    // ======================================
+    public List<ShoppingCartItemDTO> getItems() {
+        return _items;
+    }
+
+    public double getTotal() {
+        return _total;
+    }
+
+    public boolean isEmpty() {
+        return _items.isEmpty();
+    }
+
+    public String toString() {
+        final StringBuffer buf = new StringBuffer();
+        buf.append("ShoppingCartDTO{");
+        buf.append("items=").append(getItems());
+        buf.append(",total=").append(getTotal());
+        buf.append('}');
+        return buf.toString();
+    }
+}
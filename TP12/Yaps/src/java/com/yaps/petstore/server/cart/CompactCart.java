@@ -0,0 +1,298 @@
+package com.yaps.petstore.server.cart;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class holds the quantity of each item of a shopping cart. The item ids are
+ * replaced by their code in the {@link ItemIdDictionary} and the (code, quantity) pairs
+ * are kept in one int array with open addressing, so a cart of catalog items is two
+ * objects whatever its number of items: no entry, no boxed quantity.
+ * <p/>
+ * An id gets a code only once it has been found in the catalog: until then the item
+ * is kept by its id in a small map, so an id sent by a client that does not exist
+ * never enters the dictionary.
+ * <p/>
+ * The cart is written with the item ids and not their codes, the codes of another
+ * virtual machine can be different. This form is used when the container passivates
+ * or replicates the shopping cart bean.
+ */
+public final class CompactCart implements Externalizable {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private static final long serialVersionUID = 1L;
+    private static final byte VERSION = 1;
+    // Number of pairs of an empty cart, always a power of two
+    private static final int INITIAL_CAPACITY = 4;
+
+    // slot i holds (code + 1) at 2*i and the quantity at 2*i + 1, a key of 0 is a free slot
+    private int[] _slots = new int[INITIAL_CAPACITY * 2];
+    private int _size;
+    // (itemId, quantity) of the items without a code yet, null if there is none
+    private Map<String, Integer> _uncoded;
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    public CompactCart() {
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * @return the quantity of the item, 0 if it is not in the cart
+     */
+    public int getQuantity(final String itemId) {
+        final int code = ItemIdDictionary.codeOf(itemId);
+        if (code >= 0) {
+            final int index = indexOf(code + 1);
+            if (index >= 0) {
+                return _slots[index + 1];
+            }
+        }
+        // The id may have been given a code by another cart since it was put
+        final Integer quantity = _uncoded == null ? null : _uncoded.get(itemId);
+        return quantity == null ? 0 : quantity.intValue();
+    }
+
+    /**
+     * This method sets the quantity of an item, it replaces the previous one.
+     *
+     * @param itemId   id of the item
+     * @param quantity a positive quantity
+     */
+    public void put(final String itemId, final int quantity) {
+        if (quantity <= 0)
+            throw new IllegalArgumentException("Invalid quantity " + quantity);
+        final int code = ItemIdDictionary.codeOf(itemId);
+        if (code < 0) {
+            if (_uncoded == null) {
+                _uncoded = new LinkedHashMap<String, Integer>(4);
+            }
+            _uncoded.put(itemId, quantity);
+            return;
+        }
+        if (_uncoded != null) {
+            removeUncoded(itemId);
+        }
+        put(code + 1, quantity);
+    }
+
+    /**
+     * This method gives a code to the ids found in the catalog, the items of the cart
+     * with these ids are then kept by their code.
+     *
+     * @param catalogItemIds ids of items that exist in the catalog
+     */
+    public void compact(final Collection<String> catalogItemIds) {
+        for (String itemId : catalogItemIds) {
+            final int code = ItemIdDictionary.intern(itemId);
+            final Integer quantity = _uncoded == null ? null : removeUncoded(itemId);
+            if (quantity != null) {
+                put(code + 1, quantity.intValue());
+            }
+        }
+    }
+
+    /**
+     * @return true if the item was in the cart
+     */
+    public boolean remove(final String itemId) {
+        final int code = ItemIdDictionary.codeOf(itemId);
+        if (code >= 0 && removeKey(code + 1)) {
+            return true;
+        }
+        return _uncoded != null && removeUncoded(itemId) != null;
+    }
+
+    public void clear() {
+        _slots = new int[INITIAL_CAPACITY * 2];
+        _size = 0;
+        _uncoded = null;
+    }
+
+    public int size() {
+        return _size + (_uncoded == null ? 0 : _uncoded.size());
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * @return the ids of the items of the cart
+     */
+    public List<String> getItemIds() {
+        final List<String> itemIds = new ArrayList<String>(size());
+        for (int i = 0; i < _slots.length; i += 2) {
+            if (_slots[i] != 0) {
+                itemIds.add(ItemIdDictionary.idOf(_slots[i] - 1));
+            }
+        }
+        if (_uncoded != null) {
+            itemIds.addAll(_uncoded.keySet());
+        }
+        return itemIds;
+    }
+
+    /**
+     * @return a new map of the (itemId, quantity) of the cart
+     */
+    public Map<String, Integer> toMap() {
+        final Map<String, Integer> map = new LinkedHashMap<String, Integer>();
+        for (int i = 0; i < _slots.length; i += 2) {
+            if (_slots[i] != 0) {
+                map.put(ItemIdDictionary.idOf(_slots[i] - 1), _slots[i + 1]);
+            }
+        }
+        if (_uncoded != null) {
+            map.putAll(_uncoded);
+        }
+        return map;
+    }
+
+    // ======================================
+    // =           Externalizable           =
+    // ======================================
+    public void writeExternal(final ObjectOutput out) throws IOException {
+        out.writeByte(VERSION);
+        out.writeInt(size());
+        for (int i = 0; i < _slots.length; i += 2) {
+            if (_slots[i] != 0) {
+                out.writeUTF(ItemIdDictionary.idOf(_slots[i] - 1));
+                out.writeInt(_slots[i + 1]);
+            }
+        }
+        if (_uncoded != null) {
+            for (Map.Entry<String, Integer> entry : _uncoded.entrySet()) {
+                out.writeUTF(entry.getKey());
+                out.writeInt(entry.getValue().intValue());
+            }
+        }
+    }
+
+    public void readExternal(final ObjectInput in) throws IOException {
+        final byte version = in.readByte();
+        if (version != VERSION)
+            throw new IOException("Unknown cart version " + version);
+        final int size = in.readInt();
+        int capacity = INITIAL_CAPACITY;
+        while (size * 2 > capacity) {
+            capacity *= 2;
+        }
+        _slots = new int[capacity * 2];
+        _size = 0;
+        _uncoded = null;
+        for (int i = 0; i < size; i++) {
+            final String itemId = in.readUTF();
+            put(itemId, in.readInt());
+        }
+    }
+
+    public String toString() {
+        return "CompactCart" + toMap();
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    private void put(final int key, final int quantity) {
+        final int index = indexOf(key);
+        if (index >= 0) {
+            _slots[index + 1] = quantity;
+            return;
+        }
+        // The table is never more than half full
+        if ((_size + 1) * 4 > _slots.length) {
+            resize(_slots.length);
+        }
+        insert(_slots, key, quantity);
+        _size++;
+    }
+
+    /**
+     * @return true if the key was in the slots
+     */
+    private boolean removeKey(final int key) {
+        int index = indexOf(key);
+        if (index < 0) {
+            return false;
+        }
+        // The following pairs of the cluster are moved back, so no slot has to be marked deleted
+        final int mask = _slots.length - 1;
+        int next = (index + 2) & mask;
+        while (_slots[next] != 0) {
+            final int home = home(_slots[next], _slots.length);
+            // The pair can move to the free slot if its home is not between the free slot and itself
+            if (((next - home) & mask) >= ((next - index) & mask)) {
+                _slots[index] = _slots[next];
+                _slots[index + 1] = _slots[next + 1];
+                index = next;
+            }
+            next = (next + 2) & mask;
+        }
+        _slots[index] = 0;
+        _slots[index + 1] = 0;
+        _size--;
+        return true;
+    }
+
+    private Integer removeUncoded(final String itemId) {
+        final Integer quantity = _uncoded.remove(itemId);
+        if (_uncoded.isEmpty()) {
+            _uncoded = null;
+        }
+        return quantity;
+    }
+
+    /**
+     * @return the index of the key in the slots, -1 if it is not there
+     */
+    private int indexOf(final int key) {
+        final int mask = _slots.length - 1;
+        for (int index = home(key, _slots.length); _slots[index] != 0; index = (index + 2) & mask) {
+            if (_slots[index] == key) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    private void resize(final int length) {
+        final int[] slots = new int[length * 2];
+        for (int i = 0; i < _slots.length; i += 2) {
+            if (_slots[i] != 0) {
+                insert(slots, _slots[i], _slots[i + 1]);
+            }
+        }
+        _slots = slots;
+    }
+
+    private static void insert(final int[] slots, final int key, final int quantity) {
+        final int mask = slots.length - 1;
+        int index = home(key, slots.length);
+        while (slots[index] != 0) {
+            index = (index + 2) & mask;
+        }
+        slots[index] = key;
+        slots[index + 1] = quantity;
+    }
+
+    /**
+     * @return the first slot to look at for the key, the codes are dense so they are mixed
+     */
+    private static int home(final int key, final int length) {
+        final int hash = key * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (length - 2);
+    }
+}
@@ -0,0 +1,87 @@
+package com.yaps.petstore.server.cart;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * This class gives each item id a small int code, the same for all the shopping carts
+ * of this virtual machine, so that a cart keeps ints instead of strings. The codes are
+ * dense: they go from 0 to the number of item ids interned minus one. A code is never
+ * reused, so only the ids found in the catalog are interned (see
+ * {@link CompactCart#compact(java.util.Collection)}): the dictionary grows with the catalog and
+ * not with the ids sent by the clients.
+ * <p/>
+ * The codes are only valid in this virtual machine: a passivated or replicated cart
+ * writes the item ids themselves (see {@link CompactCart}).
+ */
+final class ItemIdDictionary {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private static final Map<String, Integer> _codes = new ConcurrentHashMap<String, Integer>();
+    // The id of each code, the array is replaced when it grows
+    private static volatile String[] _ids = new String[256];
+    private static int _size = 0;
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    private ItemIdDictionary() {
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * @param itemId the id of an item of the catalog
+     * @return the code of this id, it is given the next one the first time
+     */
+    static int intern(final String itemId) {
+        final Integer code = _codes.get(itemId);
+        if (code != null) {
+            return code.intValue();
+        }
+        synchronized (_codes) {
+            final Integer existing = _codes.get(itemId);
+            if (existing != null) {
+                return existing.intValue();
+            }
+            String[] ids = _ids;
+            if (_size == ids.length) {
+                final String[] grown = new String[ids.length * 2];
+                System.arraycopy(ids, 0, grown, 0, ids.length);
+                ids = grown;
+            }
+            ids[_size] = itemId;
+            _ids = ids;
+            // The id is in the array before its code can be read from the map
+            _codes.put(itemId, new Integer(_size));
+            return _size++;
+        }
+    }
+
+    /**
+     * @param itemId an item id
+     * @return the code of this id, -1 if it has none
+     */
+    static int codeOf(final String itemId) {
+        final Integer code = _codes.get(itemId);
+        return code == null ? -1 : code.intValue();
+    }
+
+    /**
+     * @param code a code given by {@link #intern(String)}
+     * @return the item id of this code
+     */
+    static String idOf(final int code) {
+        return _ids[code];
+    }
+
+    /**
+     * @return the number of ids in the dictionary
+     */
+    static int size() {
+        return _codes.size();
+    }
+}
@@ -1,5 +1,7 @@
 package com.yaps.petstore.server.cart;
 
+import com.yaps.petstore.common.dto.ShoppingCartDTO;
+
 import java.util.Collection;
 import java.util.Map;
 import javax.ejb.Remote;
@@ -31,6 +33,15 @@ public interface ShoppingCart  {
      */
     Collection getItems();
 
+    /**
+     * This method returns the whole shopping cart: its items, read with their product in
+     * one query, and its total computed in the same pass. A page showing the items and
+     * the total uses it instead of getItems and getTotal.
+     *
+     * @return a ShoppingCartDTO
+     */
+    ShoppingCartDTO getCartView();
+
     /**
      * This method adds an item to the shopping cart with a quantity equals to one.
      *
@@ -68,4 +79,9 @@ public interface ShoppingCart  {
      *
      */
     void empty();
+
+    /**
+     * This method removes the shopping cart from the container, it can not be used after.
+     */
+    void remove();
 }
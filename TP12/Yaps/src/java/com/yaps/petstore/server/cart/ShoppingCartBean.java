@@ -1,30 +1,34 @@
 package com.yaps.petstore.server.cart;
 
 import com.yaps.petstore.server.service.AbstractRemoteService;
+import com.yaps.petstore.server.service.EntityManagerInterceptor;
 
+import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.ShoppingCartDTO;
 import com.yaps.petstore.common.dto.ShoppingCartItemDTO;
 
-import com.yaps.petstore.common.exception.ObjectNotFoundException;
-import com.yaps.petstore.server.domain.item.Item;
+import com.yaps.petstore.common.logging.Trace;
 import com.yaps.petstore.server.domain.item.ItemDAO;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
+import javax.ejb.Remove;
 import javax.ejb.Stateful;
+import javax.interceptor.Interceptors;
 
 // @Stateful (name="ShoppingCartSB", mappedName=ShoppingCartHome.JNDI_NAME)
 @Stateful (name="ShoppingCartSB")
+@Interceptors(EntityManagerInterceptor.class)
 public class ShoppingCartBean extends AbstractRemoteService implements ShoppingCart {
     // ======================================
     // =             Attributes             =
     // ======================================
-    private Map _shoppingCart;
+    // The (itemId, quantity) of the cart, in the compact form written at passivation
+    private CompactCart _shoppingCart;
 
     private static final ItemDAO _itemDAO = new ItemDAO();
     // ======================================
@@ -39,7 +43,7 @@ public class ShoppingCartBean extends AbstractRemoteService implements ShoppingC
 
     @PostConstruct
     public void initialize() {
-        _shoppingCart = new HashMap();
+        _shoppingCart = new CompactCart();
     }
 
     @PreDestroy
@@ -47,30 +51,44 @@ public class ShoppingCartBean extends AbstractRemoteService implements ShoppingC
         _shoppingCart = null;
     }
 
+    @Remove
+    public void remove() {
+    }
+
     public Map getCart() {
-        return _shoppingCart;
+        return _shoppingCart.toMap();
     }
 
     public Collection getItems() {
-        final Collection items = new ArrayList();
-
-        Iterator it = _shoppingCart.entrySet().iterator();
-        while (it.hasNext()) {
-            Map.Entry keyValue = (Map.Entry)it.next();
-            String itemId = (String)keyValue.getKey();
-            int quantity = (Integer)keyValue.getValue();
-            final Item item;
-            try {
-                item = (Item)_itemDAO.findByPrimaryKey(itemId);
-                ShoppingCartItemDTO shoppingCartItemDTO = new ShoppingCartItemDTO(itemId, item.getName(),
-                    item.getProduct().getDescription(), quantity, item.getUnitCost());
-                items.add(shoppingCartItemDTO);
-            } catch (ObjectNotFoundException e) {
-                // TODO
-            	System.out.println("ShoppingCartBean.getItems() " + e + ": " + itemId);
+        return getCartView().getItems();
+    }
+
+    public ShoppingCartDTO getCartView() {
+        final String mname = "getCartView";
+        final ShoppingCartDTO cartView = new ShoppingCartDTO();
+
+        // The items of the cart are read with the description of their product in one select
+        final Map<String, ItemDTO> itemsById = new HashMap<String, ItemDTO>();
+        for (ItemDTO itemDTO : _itemDAO.findDTOs(_shoppingCart.getItemIds())) {
+            itemsById.put(itemDTO.getId(), itemDTO);
+        }
+        // The items found in the catalog are kept by their code from now on
+        _shoppingCart.compact(itemsById.keySet());
+
+        // The lines and the total are computed in the same pass
+        for (Map.Entry<String, Integer> keyValue : _shoppingCart.toMap().entrySet()) {
+            String itemId = keyValue.getKey();
+            int quantity = keyValue.getValue();
+            final ItemDTO itemDTO = itemsById.get(itemId);
+            if (itemDTO == null) {
+                // The item has been deleted from the catalog
+                Trace.warning(getCname(), mname, "Item not found: " + itemId);
+                continue;
             }
+            cartView.addItem(new ShoppingCartItemDTO(itemId, itemDTO.getName(),
+                itemDTO.getProductDescription(), quantity, itemDTO.getUnitCost()));
         }
-        return items;
+        return cartView;
     }
 
     public void addItem(String itemId) {
@@ -89,14 +107,7 @@ public class ShoppingCartBean extends AbstractRemoteService implements ShoppingC
     }
 
     public Double getTotal() {
-        double total = 0.0;
-        Collection cartItems = getItems();
-        Iterator it = cartItems.iterator();
-        while(it.hasNext()) {
-            ShoppingCartItemDTO shoppingCartItemDTO = (ShoppingCartItemDTO)it.next();
-            total += shoppingCartItemDTO.getTotalCost();
-        }
-        return total;
+        return getCartView().getTotal();
     }
 
     public void empty() {
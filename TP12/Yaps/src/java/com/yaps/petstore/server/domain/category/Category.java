@@ -6,6 +6,7 @@ import com.yaps.petstore.common.exception.CheckException;
 import java.io.Serializable;
 import java.util.Collection;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -15,6 +16,7 @@ import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
 import javax.persistence.TableGenerator;
 
@@ -22,10 +24,17 @@ import javax.persistence.TableGenerator;
  * This class represents a Category in the catalog of the YAPS company.
  * The catalog is divided into categories. Each one divided into products
  * and each product in items.
+ * <p/>
+ * The catalog changes rarely: the categories and the result of Category.findAll are
+ * kept in the shared cache of the persistence unit. The cached results expire after
+ * a minute, so the rows written by another server are seen after this time at most.
  */
 
 @Entity
-@NamedQuery(name = "Category.findAll", query="select c from Category c")
+@Cacheable
+@NamedQuery(name = "Category.findAll", query="select c from Category c",
+    hints = {@QueryHint(name = "eclipselink.query-results-cache", value = "true"),
+             @QueryHint(name = "eclipselink.query-results-cache.expiry", value = "60000")})
 @Table(name = "T_CATEGORY")
 public class Category extends DomainObject implements Serializable {
 
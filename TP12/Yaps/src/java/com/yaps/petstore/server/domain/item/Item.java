@@ -2,6 +2,7 @@ package com.yaps.petstore.server.domain.item;
 
 import java.io.Serializable;
 
+import javax.persistence.Cacheable;
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.FetchType;
@@ -12,6 +13,7 @@ import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
 import javax.persistence.TableGenerator;
 
@@ -23,13 +25,29 @@ import com.yaps.petstore.common.exception.CheckException;
  * This class represents an Item in the catalog of the YAPS company.
  * The catalog is divided into categories. Each one divided into products
  * and each product in items.
+ * <p/>
+ * The items and the result of the queries that list them are kept in the shared
+ * cache of the persistence unit. The cached results expire after a minute.
+ * <p/>
+ * The quantity on hand of an item is null when its stock is not tracked. When it is,
+ * the orders reserve against the StockLedger, which writes the new quantities back.
  */
 @Entity
+@Cacheable
 @NamedQueries( {
 	// OR i._name LIKE :keyword
-@NamedQuery(name = "Item.findAll", query="select i from Item i"),
+@NamedQuery(name = "Item.findAll", query="select i from Item i",
+    hints = {@QueryHint(name = "eclipselink.query-results-cache", value = "true"),
+             @QueryHint(name = "eclipselink.query-results-cache.expiry", value = "60000")}),
 @NamedQuery(name = "Item.findAllInKeyword", query="select ik from Item ik where ik._id LIKE :key"),
-@NamedQuery(name = "Item.findAllInProduct", query="select ip from Item ip where ip._product._id = :productId")
+@NamedQuery(name = "Item.findAllInProduct", query="select ip from Item ip where ip._product._id = :productId",
+    hints = {@QueryHint(name = "eclipselink.query-results-cache", value = "true"),
+             @QueryHint(name = "eclipselink.query-results-cache.expiry", value = "60000")}),
+// The DTOs of the catalog are built by the query, with the columns of the product, in one select
+@NamedQuery(name = "Item.findAllDTOs", query="select new com.yaps.petstore.common.dto.ItemDTO(i._id, i._name, i._unitCost, i._imagePath, p._id, p._name, p._description) from Item i join i._product p",
+    hints = {@QueryHint(name = "eclipselink.query-results-cache", value = "true"),
+             @QueryHint(name = "eclipselink.query-results-cache.expiry", value = "60000")}),
+@NamedQuery(name = "Item.findDTOsInIds", query="select new com.yaps.petstore.common.dto.ItemDTO(i._id, i._name, i._unitCost, i._imagePath, p._id, p._name, p._description) from Item i join i._product p where i._id in :itemIds")
 } )
 @Table(name = "T_ITEM")
 public class Item extends DomainObject implements Serializable {
@@ -53,9 +71,11 @@ public class Item extends DomainObject implements Serializable {
     private double _unitCost;
 	@Column(name = "imagePath",length = 255)
     private String _imagePath;
-	@ManyToOne(fetch =FetchType.EAGER)
+	@ManyToOne(fetch =FetchType.LAZY)
 	@JoinColumn(name ="product_fk", nullable = false)
     private Product _product;
+	@Column(name = "quantityOnHand")
+    private Integer _quantityOnHand;
 
     // ======================================
     // =            Constructors            =
@@ -131,6 +151,14 @@ public class Item extends DomainObject implements Serializable {
         _product = product;
     }
 
+    public Integer getQuantityOnHand() {
+        return _quantityOnHand;
+    }
+
+    public void setQuantityOnHand(final Integer quantityOnHand) {
+        _quantityOnHand = quantityOnHand;
+    }
+
     public String toString() {
         final StringBuffer buf = new StringBuffer();
         buf.append("\n\tItem {");
@@ -138,6 +166,7 @@ public class Item extends DomainObject implements Serializable {
         buf.append("\n\t\tName=").append(getName());
         buf.append("\n\t\tUnit Cost=").append(getUnitCost());
         buf.append("\n\t\timagePath=").append(getImagePath());
+        buf.append("\n\t\tQuantity On Hand=").append(getQuantityOnHand());
         buf.append("\n\t\tProduct Id=").append(getProduct().getId());
         buf.append("\n\t\tProduct Name=").append(getProduct().getName());
         buf.append("\n\t}");
@@ -1,5 +1,6 @@
 package com.yaps.petstore.server.domain.item;
 
+import com.yaps.petstore.common.dto.ItemDTO;
 import com.yaps.petstore.common.exception.DataAccessException;
 import com.yaps.petstore.common.exception.ObjectNotFoundException;
 import com.yaps.petstore.common.logging.Trace;
@@ -51,7 +52,7 @@ public final class ItemDAO extends AbstractDataAccessObject<String, Item> {
 	public Collection<Item> search(String keyword) throws ObjectNotFoundException {
 		if(keyword==null)
 			throw new ObjectNotFoundException();
-		Query query = _em.createNamedQuery("Item.findAllInKeyword");
+		Query query = getEntityManager().createNamedQuery("Item.findAllInKeyword");
 		query.setParameter("key", "%"+keyword+"%");
 		List<Item> entities = query.getResultList();
 		if (entities.isEmpty())
@@ -61,12 +62,39 @@ public final class ItemDAO extends AbstractDataAccessObject<String, Item> {
 
 
 	public Collection<Product> findAllInProduct(String productId) throws ObjectNotFoundException{
-		Query query = _em.createNamedQuery("Item.findAllInProduct");
+		Query query = getEntityManager().createNamedQuery("Item.findAllInProduct");
 		query.setParameter("productId", productId);
 		List<Product> entities = query.getResultList();
 		if (entities.isEmpty())
 			throw new ObjectNotFoundException();
 		return entities;
 	}
-   
+
+	/**
+	 * This method builds the DTOs of all the items in one select.
+	 *
+	 * @return the DTOs of the items
+	 * @throws ObjectNotFoundException is thrown if there is no item
+	 */
+	public Collection<ItemDTO> findAllDTOs() throws ObjectNotFoundException {
+		Query query = getEntityManager().createNamedQuery("Item.findAllDTOs");
+		List<ItemDTO> dtos = query.getResultList();
+		if (dtos.isEmpty())
+			throw new ObjectNotFoundException();
+		return dtos;
+	}
+
+	/**
+	 * This method builds the DTOs of a set of items in one select, with an IN list.
+	 *
+	 * @param itemIds identifiers of the items
+	 * @return the DTOs of the items found, in no particular order, empty if none is found
+	 */
+	public List<ItemDTO> findDTOs(Collection<String> itemIds) {
+		if (itemIds == null || itemIds.isEmpty())
+			return new ArrayList<ItemDTO>();
+		Query query = getEntityManager().createNamedQuery("Item.findDTOsInIds");
+		query.setParameter("itemIds", itemIds);
+		return query.getResultList();
+	}
 }
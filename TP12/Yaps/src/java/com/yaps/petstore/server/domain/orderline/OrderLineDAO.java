@@ -40,7 +40,7 @@ public final class OrderLineDAO extends AbstractDataAccessObject<String, OrderLi
      * @throws ObjectNotFoundException is thrown if the collection is empty
      */
 	public Collection<OrderLine> findAllInOrder(String orderId) throws ObjectNotFoundException {
-    	Query query = _em.createNamedQuery("OrderLine.findAllInOrder");
+    	Query query = getEntityManager().createNamedQuery("OrderLine.findAllInOrder");
     	query.setParameter("orderId", orderId);
     	List<OrderLine> entities = query.getResultList();
         if (entities.isEmpty())
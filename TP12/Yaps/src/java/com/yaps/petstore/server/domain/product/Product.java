@@ -7,6 +7,7 @@ import com.yaps.petstore.common.exception.CheckException;
 import java.io.Serializable;
 import java.util.Collection;
 
+import javax.persistence.Cacheable;
 import javax.persistence.CascadeType;
 import javax.persistence.Column;
 import javax.persistence.Entity;
@@ -19,6 +20,7 @@ import javax.persistence.ManyToOne;
 import javax.persistence.NamedQueries;
 import javax.persistence.NamedQuery;
 import javax.persistence.OneToMany;
+import javax.persistence.QueryHint;
 import javax.persistence.Table;
 import javax.persistence.TableGenerator;
 
@@ -26,12 +28,24 @@ import javax.persistence.TableGenerator;
  * This class represents a Product in the catalog of the YAPS company.
  * The catalog is divided into categories. Each one divided into products
  * and each product in items.
+ * <p/>
+ * The products and the result of the queries that list them are kept in the shared
+ * cache of the persistence unit. The cached results expire after a minute.
  */
 
 @Entity
+@Cacheable
 @NamedQueries( {
-@NamedQuery(name = "Product.findAll", query="select p from Product p"),
-@NamedQuery(name = "Product.findAllInCategory", query="select pc from Product pc where pc._category._id = :categoryId")
+@NamedQuery(name = "Product.findAll", query="select p from Product p",
+    hints = {@QueryHint(name = "eclipselink.query-results-cache", value = "true"),
+             @QueryHint(name = "eclipselink.query-results-cache.expiry", value = "60000")}),
+@NamedQuery(name = "Product.findAllInCategory", query="select pc from Product pc where pc._category._id = :categoryId",
+    hints = {@QueryHint(name = "eclipselink.query-results-cache", value = "true"),
+             @QueryHint(name = "eclipselink.query-results-cache.expiry", value = "60000")}),
+// The DTOs of the catalog are built by the query, with the columns of the category, in one select
+@NamedQuery(name = "Product.findAllDTOs", query="select new com.yaps.petstore.common.dto.ProductDTO(p._id, p._name, p._description, c._id, c._name) from Product p join p._category c",
+    hints = {@QueryHint(name = "eclipselink.query-results-cache", value = "true"),
+             @QueryHint(name = "eclipselink.query-results-cache.expiry", value = "60000")})
 } )
 @Table(name = "T_PRODUCT")
 public class Product extends DomainObject implements Serializable {
@@ -54,7 +68,7 @@ public class Product extends DomainObject implements Serializable {
     private String _name;
 	@Column(name = "description", nullable = false, length = 255)
     private String _description;
-	@ManyToOne(fetch =FetchType.EAGER)
+	@ManyToOne(fetch =FetchType.LAZY)
 	@JoinColumn(name ="category_fk", nullable = false)
     private Category _category;
 //	@OneToMany (mappedBy ="_product", fetch =FetchType.EAGER, cascade =CascadeType.ALL)
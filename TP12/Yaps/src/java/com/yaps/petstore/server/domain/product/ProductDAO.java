@@ -1,5 +1,6 @@
 package com.yaps.petstore.server.domain.product;
 
+import com.yaps.petstore.common.dto.ProductDTO;
 import com.yaps.petstore.common.exception.DataAccessException;
 import com.yaps.petstore.common.exception.ObjectNotFoundException;
 import com.yaps.petstore.common.logging.Trace;
@@ -51,7 +52,7 @@ public final class ProductDAO extends AbstractDataAccessObject<String, Product>
 	}
 
 	public Collection<Category> findAllInCategory(String categoryId) throws ObjectNotFoundException{
-		Query query = _em.createNamedQuery("Product.findAllInCategory");
+		Query query = getEntityManager().createNamedQuery("Product.findAllInCategory");
     	query.setParameter("categoryId", categoryId);
     	List<Category> entities = query.getResultList();
         if (entities.isEmpty())
@@ -59,4 +60,17 @@ public final class ProductDAO extends AbstractDataAccessObject<String, Product>
 		return entities;
 	}
 
+	/**
+	 * This method builds the DTOs of all the products in one select.
+	 *
+	 * @return the DTOs of the products
+	 * @throws ObjectNotFoundException is thrown if there is no product
+	 */
+	public Collection<ProductDTO> findAllDTOs() throws ObjectNotFoundException {
+		Query query = getEntityManager().createNamedQuery("Product.findAllDTOs");
+		List<ProductDTO> dtos = query.getResultList();
+		if (dtos.isEmpty())
+			throw new ObjectNotFoundException();
+		return dtos;
+	}
 }
@@ -0,0 +1,41 @@
+package com.yaps.petstore.server.service;
+
+import com.yaps.petstore.server.util.persistence.EntityManagerBinding;
+
+import javax.interceptor.AroundInvoke;
+import javax.interceptor.InvocationContext;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceContextType;
+
+/**
+ * This interceptor binds the entity manager of the container to the thread of
+ * every business method call of a service, so that the DAOs shared by the
+ * instances of the service use the persistence context of the current
+ * transaction.
+ * <p/>
+ * A bean declaring this interceptor keeps its DAOs in static fields: they hold
+ * no state of their own and get the entity manager of the call through
+ * {@link com.yaps.petstore.server.util.persistence.AbstractDataAccessObject#getEntityManager()}.
+ */
+public class EntityManagerInterceptor {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    @PersistenceContext(unitName = "petstorePU", type = PersistenceContextType.TRANSACTION)
+    private EntityManager _injectedEntityManager;
+
+    // ======================================
+    // =         Interceptor methods        =
+    // ======================================
+    @AroundInvoke
+    public Object bindEntityManager(final InvocationContext context) throws Exception {
+        final EntityManager previous = EntityManagerBinding.bind(_injectedEntityManager);
+        try {
+            return context.proceed();
+        } finally {
+            EntityManagerBinding.restore(previous);
+        }
+    }
+}
@@ -2,6 +2,8 @@ package com.yaps.petstore.server.service.catalog;
 
 import com.yaps.petstore.common.dto.CategoryDTO;
 import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.ItemFacetQueryDTO;
+import com.yaps.petstore.common.dto.ItemFacetResultDTO;
 import com.yaps.petstore.common.dto.ProductDTO;
 import com.yaps.petstore.common.exception.*;
 
@@ -247,11 +249,36 @@ public interface CatalogService {
     Collection findItems(String productId) throws FinderException, CheckException;
 
     /**
-     * This method return all the items that match a given keyword. It uses the Item domain object
-     * to get the data. It then transforms this collection of Item object into a
-     * collection of ItemDTO and returns it.
+     * This method adds a quantity received to the stock of an item. The stock of an item
+     * that is ordered is kept by the StockLedger, which writes it to the database: it must
+     * be restocked by this method and not by changing its quantity on hand in the database.
+     * The stock of an item whose stock was not tracked is tracked from then on.
      *
-     * @param keyword
+     * @param itemId   identifier of the item
+     * @param quantity quantity received, it must be positive
+     * @throws UpdateException is thrown if a DomainException is caught
+     *                         or a system failure is occurs
+     * @throws CheckException  is thrown if a invalid data is found
+     */
+    void restockItem(String itemId, int quantity) throws UpdateException, CheckException;
+
+    /**
+     * This method returns the items of a set of ids, with the data of their product, in
+     * one call, from the snapshot of the catalog. It is used to show a shopping cart.
+     *
+     * @param itemIds identifiers of the items, cannot be null.
+     * @return a collection of ItemDTO, in the order of the ids, without the ids that are
+     *         not found
+     * @throws CheckException is thrown if the ids are null
+     */
+    Collection findItems(Collection itemIds) throws CheckException;
+
+    /**
+     * This method return all the items that match all the words of a given keyword, in their
+     * name, the name or the description of their product or the name of their category.
+     * The items matching in their own name come first.
+     *
+     * @param keyword words searched, without case and accents
      * @return a collection of ItemDTO
      * @throws ObjectNotFoundException is thrown if the collection is empty
      * @throws FinderException         is thrown if a DomainException is caught
@@ -259,6 +286,28 @@ public interface CatalogService {
      */
     Collection searchItems(String keyword) throws FinderException;
 
+    /**
+     * This method completes the beginning of the name of an item or a product, as typed
+     * in a search box. Any word of the name can be completed.
+     *
+     * @param prefix beginning of a name, without case and accents
+     * @param limit  maximum number of names returned
+     * @return a collection of String, empty if no name matches
+     * @throws CheckException is thrown if the limit is not positive
+     */
+    Collection autocomplete(String prefix, int limit) throws CheckException;
+
+    /**
+     * This method browses the items by facets: it returns the items of the categories,
+     * the products and the price ranges of the query and, for each of these facets, the
+     * number of items of each value. The result is computed without querying the database.
+     *
+     * @param query filters on the facets, an empty filter selects all the values
+     * @return the ItemDTOs selected and the counts by facet value
+     * @throws CheckException is thrown if the query is null
+     */
+    ItemFacetResultDTO browseItems(ItemFacetQueryDTO query) throws CheckException;
+
     /**
      * This method returns a unique identifer generated by the system. 
      *
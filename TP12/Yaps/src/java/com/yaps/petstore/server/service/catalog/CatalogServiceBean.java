@@ -2,6 +2,8 @@ package com.yaps.petstore.server.service.catalog;
 
 import com.yaps.petstore.common.dto.CategoryDTO;
 import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.ItemFacetQueryDTO;
+import com.yaps.petstore.common.dto.ItemFacetResultDTO;
 import com.yaps.petstore.common.dto.ProductDTO;
 import com.yaps.petstore.common.exception.*;
 import com.yaps.petstore.common.logging.Trace;
@@ -12,30 +14,53 @@ import com.yaps.petstore.server.domain.item.ItemDAO;
 import com.yaps.petstore.server.domain.product.Product;
 import com.yaps.petstore.server.domain.product.ProductDAO;
 import com.yaps.petstore.server.service.AbstractRemoteService;
+import com.yaps.petstore.server.service.EntityManagerInterceptor;
+import com.yaps.petstore.server.util.persistence.EntityManagerBinding;
+import com.yaps.petstore.server.util.search.ItemSearchIndex;
+import com.yaps.petstore.server.util.stock.StockLedger;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
-import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
 import javax.ejb.Stateless;
+import javax.interceptor.Interceptors;
 import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
-import javax.persistence.PersistenceContextType;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
 
 /**
  * This class is a facade for all catalog services.
+ * <p/>
+ * The writes evict the shared cache, and change the snapshot and the search index,
+ * once their transaction has committed: a read made in between can not put the old
+ * rows back into the cache, and a write rolled back changes nothing.
  */
 // @Stateless (name="CatalogSB", mappedName = CatalogServiceHome.JNDI_NAME)
 @Stateless (name="CatalogSB")
+@Interceptors(EntityManagerInterceptor.class)
 public class CatalogServiceBean extends AbstractRemoteService implements CatalogService {
     // ======================================
     // =             Attributes             =
     // ======================================
-    @PersistenceContext(unitName = "petstorePU", type = PersistenceContextType.TRANSACTION)
-    private EntityManager _injectedEntityManager;
     private static final CategoryDAO _categoryDAO = new CategoryDAO();
     private static final ProductDAO _productDAO = new ProductDAO();
     private static final ItemDAO _itemDAO = new ItemDAO();
+    // Index of the items for the search, the completion and the facets, kept up to
+    // date by the writes of the catalog
+    private static final ItemSearchIndex _searchIndex = ItemSearchIndex.getInstance();
+    // Quantities of the items whose stock is tracked, written back by the StockWriterSB
+    private static final StockLedger _stockLedger = StockLedger.getInstance();
+    // Immutable copy of the catalog answering the reads, null until the first read.
+    // The writes replace it by a new one under the lock once they have committed,
+    // the readers never lock
+    private static volatile CatalogSnapshot _snapshot;
+    private static final Object _snapshotLock = new Object();
+
+    @Resource
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
 
     // ======================================
     // =            Constructors            =
@@ -43,12 +68,6 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
     public CatalogServiceBean() {
     }
 
-    @PostConstruct
-    public void init() {
-        _categoryDAO.setEntityManager(_injectedEntityManager);
-        _productDAO.setEntityManager(_injectedEntityManager);
-        _itemDAO.setEntityManager(_injectedEntityManager);
-    }
     // ======================================
     // =      Category Business methods     =
     // ======================================
@@ -69,6 +88,18 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
         // Transforms domain object into DTO
         final CategoryDTO result = transformCategory2DTO(category);
 
+        // Invalidates the cached list of categories
+        afterCommit(new Runnable() {
+            public void run() {
+                _categoryDAO.evictAll();
+                synchronized (_snapshotLock) {
+                    _searchIndex.putCategory(result.getId(), result.getName());
+                    if (_snapshot != null)
+                        _snapshot = _snapshot.withCategory(result);
+                }
+            }
+        });
+
         Trace.exiting(getCname(), mname, result);
         return result;
     }
@@ -80,10 +111,8 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
         if (categoryId == null || "".equals(categoryId))
             throw new CheckException("Invalid id");
 
-        final Category category = (Category) _categoryDAO.findByPrimaryKey(categoryId);
-
-        // Transforms domain object into DTO
-        final CategoryDTO categoryDTO = transformCategory2DTO(category);
+        // Reads the snapshot of the catalog
+        final CategoryDTO categoryDTO = getSnapshot().findCategory(categoryId);
 
         Trace.exiting(getCname(), mname, categoryDTO);
         return categoryDTO;
@@ -95,18 +124,24 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
 
         checkId(categoryId);
 
-        // Checks if the object exists
-        try {
-            _categoryDAO.findByPrimaryKey(categoryId);
-        } catch (FinderException e) {
-            throw new CheckException("Category must exist to be deleted");
-        }
-
-        // Deletes the object
+        // Deletes the object, it is not read first
         try {
         	_categoryDAO.remove(categoryId);
+        	// The database has deleted its products and their items
+        	afterCommit(new Runnable() {
+        		public void run() {
+        			_categoryDAO.evictAll();
+        			_productDAO.evictAll();
+        			_itemDAO.evictAll();
+        			synchronized (_snapshotLock) {
+        				_searchIndex.removeCategory(categoryId);
+        				if (_snapshot != null)
+        					_snapshot = _snapshot.withoutCategory(categoryId);
+        			}
+        		}
+        	});
         } catch (ObjectNotFoundException e) {
-            throw new RemoveException("Category must exist to be deleted");
+            throw new CheckException("Category must exist to be deleted");
         }
     }
 
@@ -134,6 +169,19 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
         // Updates the object
         try {
         	_categoryDAO.update(category);
+        	// The product DTOs hold the name of the category
+        	final CategoryDTO result = transformCategory2DTO(category);
+        	afterCommit(new Runnable() {
+        		public void run() {
+        			_categoryDAO.evict(result.getId());
+        			_productDAO.evictAll();
+        			synchronized (_snapshotLock) {
+        				_searchIndex.putCategory(result.getId(), result.getName());
+        				if (_snapshot != null)
+        					_snapshot = _snapshot.withCategory(result);
+        			}
+        		}
+        	});
         } catch (ObjectNotFoundException e) {
             throw new UpdateException("Category must exist to be updated");
         }
@@ -143,11 +191,8 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
         final String mname = "findCategories";
         Trace.entering(getCname(), mname);
 
-        // Finds all the objects
-        final Collection categories = _categoryDAO.findAll();
-
-        // Transforms domain objects into DTOs
-        final Collection categoriesDTO = transformCategories2DTOs(categories);
+        // Reads the snapshot of the catalog
+        final Collection categoriesDTO = getSnapshot().findCategories();
 
         Trace.exiting(getCname(), mname, new Integer(categoriesDTO.size()));
         return categoriesDTO;
@@ -182,6 +227,18 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
         // Transforms domain object into DTO
         final ProductDTO result = transformProduct2DTO(product);
 
+        // Invalidates the cached lists of products
+        afterCommit(new Runnable() {
+            public void run() {
+                _productDAO.evictAll();
+                synchronized (_snapshotLock) {
+                    _searchIndex.putProduct(result);
+                    if (_snapshot != null)
+                        _snapshot = _snapshot.withProduct(result);
+                }
+            }
+        });
+
         Trace.exiting(getCname(), mname, result);
         return result;
     }
@@ -192,11 +249,8 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
 
         checkId(productId);
 
-        // Finds the object
-        final Product product = (Product) _productDAO.findByPrimaryKey(productId);
-
-        // Transforms domain object into DTO
-        final ProductDTO productDTO = transformProduct2DTO(product);
+        // Reads the snapshot of the catalog
+        final ProductDTO productDTO = getSnapshot().findProduct(productId);
 
         Trace.exiting(getCname(), mname, productDTO);
         return productDTO;
@@ -208,18 +262,23 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
 
     	checkId(productId);
 
-        // Checks if the object exists
-        try {
-            _productDAO.findByPrimaryKey(productId);
-        } catch (FinderException e) {
-            throw new CheckException("Product must exist to be deleted");
-        }
-
-        // Deletes the object
+        // Deletes the object, it is not read first
         try {
         	_productDAO.remove(productId);
+        	// The database has deleted its items
+        	afterCommit(new Runnable() {
+        		public void run() {
+        			_productDAO.evictAll();
+        			_itemDAO.evictAll();
+        			synchronized (_snapshotLock) {
+        				_searchIndex.removeProduct(productId);
+        				if (_snapshot != null)
+        					_snapshot = _snapshot.withoutProduct(productId);
+        			}
+        		}
+        	});
         } catch (ObjectNotFoundException e) {
-            throw new RemoveException("Product must exist to be deleted");
+            throw new CheckException("Product must exist to be deleted");
         }
     }
 
@@ -243,10 +302,10 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
             throw new CheckException("Product must exist to be updated");
         }
 
-        // Finds the linked object
+        // Links the object, the category does not need to be read
         Category category = null;
         try {
-            category = (Category)_categoryDAO.findByPrimaryKey(productDTO.getCategoryId());
+            category = _categoryDAO.getReference(productDTO.getCategoryId());
         } catch (FinderException e) {
             throw new CheckException("Category must exist to update a product");
         }
@@ -259,6 +318,18 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
         // Updates the object
         try {
         	_productDAO.update(product);
+        	// The item DTOs hold the name and the description of the product
+        	afterCommit(new Runnable() {
+        		public void run() {
+        			_productDAO.evictAll();
+        			_itemDAO.evictAll();
+        			synchronized (_snapshotLock) {
+        				_searchIndex.putProduct(productDTO);
+        				if (_snapshot != null)
+        					_snapshot = _snapshot.withProduct(productDTO);
+        			}
+        		}
+        	});
         } catch (ObjectNotFoundException e) {
             throw new UpdateException("Product must exist to be updated");
         }
@@ -268,11 +339,8 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
         final String mname = "findProducts";
         Trace.entering(getCname(), mname);
 
-        // Finds all the objects
-        final Collection products = _productDAO.findAll();
-
-        // Transforms domain objects into DTOs
-        final Collection productsDTO = transformProducts2DTOs(products);
+        // Reads the snapshot of the catalog
+        final Collection productsDTO = getSnapshot().findProducts();
 
         Trace.exiting(getCname(), mname, new Integer(productsDTO.size()));
         return productsDTO;
@@ -284,11 +352,8 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
 
     	checkId(categoryId);
 
-    	// Finds all the products
-        final Collection products = _productDAO.findAllInCategory(categoryId);
-
-        // Transforms domain objects into DTOs
-        Collection productsDTO = transformProducts2DTOs(products);
+        // Reads the snapshot of the catalog
+        final Collection productsDTO = getSnapshot().findProducts(categoryId);
 
         Trace.exiting(getCname(), mname, new Integer(productsDTO.size()));
         return productsDTO;
@@ -328,6 +393,18 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
         // Transforms domain object into DTO
         final ItemDTO result = transformItem2DTO(item);
 
+        // Invalidates the cached lists of items
+        afterCommit(new Runnable() {
+            public void run() {
+                _itemDAO.evictAll();
+                synchronized (_snapshotLock) {
+                    _searchIndex.putItem(result);
+                    if (_snapshot != null)
+                        _snapshot = _snapshot.withItem(result);
+                }
+            }
+        });
+
         Trace.exiting(getCname(), mname, result);
         return result;
     }
@@ -338,15 +415,8 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
 
     	checkId(itemId);
 
-    	// Finds the object
-        final Item item = (Item)_itemDAO.findByPrimaryKey(itemId);
-
-        // Retreives the data for the linked object
-        Product product = (Product)_productDAO.findByPrimaryKey(item.getProduct().getId());
-        item.setProduct(product);
-
-        // Transforms domain object into DTO
-        final ItemDTO itemDTO = transformItem2DTO(item);
+        // Reads the snapshot of the catalog
+        final ItemDTO itemDTO = getSnapshot().findItem(itemId);
 
         Trace.exiting(getCname(), mname, itemDTO);
         return itemDTO;
@@ -358,19 +428,24 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
 
     	checkId(itemId);
 
-        // Checks if the object exists
-        try {
-        	_itemDAO.findByPrimaryKey(itemId);
-        } catch (FinderException e) {
-            throw new CheckException("Item must exist to be deleted");
-        }
-
-        // Deletes the object
+        // Deletes the object, it is not read first
         try {
         	_itemDAO.remove(itemId);
+        	// Invalidates the cached lists of items
+        	afterCommit(new Runnable() {
+        		public void run() {
+        			_itemDAO.evictAll();
+        			_stockLedger.remove(itemId);
+        			synchronized (_snapshotLock) {
+        				_searchIndex.removeItem(itemId);
+        				if (_snapshot != null)
+        					_snapshot = _snapshot.withoutItem(itemId);
+        			}
+        		}
+        	});
         } catch (ObjectNotFoundException e) {
-            throw new RemoveException("Customer must exist to be deleted");
-        }        
+            throw new CheckException("Item must exist to be deleted");
+        }
     }
 
     public void updateItem(final ItemDTO itemDTO) throws UpdateException, CheckException {
@@ -393,10 +468,10 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
             throw new CheckException("Item must exist to be updated");
         }
 
-        // Finds the linked object
+        // Links the object, the product does not need to be read
         Product product = null;
         try {
-            product = (Product)_productDAO.findByPrimaryKey(itemDTO.getProductId());
+            product = _productDAO.getReference(itemDTO.getProductId());
         } catch (FinderException e) {
             throw new CheckException("Product must exist to update an item");
         }
@@ -412,20 +487,55 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
         // Updates the object
         try {
         	_itemDAO.update(item);
+        	// Invalidates the cached lists of items
+        	afterCommit(new Runnable() {
+        		public void run() {
+        			_itemDAO.evictAll();
+        			synchronized (_snapshotLock) {
+        				_searchIndex.putItem(itemDTO);
+        				if (_snapshot != null)
+        					_snapshot = _snapshot.withItem(itemDTO);
+        			}
+        		}
+        	});
         } catch (ObjectNotFoundException e) {
             throw new UpdateException("Item must exist to be updated");
         }
     }
 
+    public void restockItem(final String itemId, final int quantity) throws UpdateException, CheckException {
+        final String mname = "restockItem";
+        Trace.entering(getCname(), mname, new Object[]{itemId, new Integer(quantity)});
+
+    	checkId(itemId);
+        if (quantity <= 0)
+            throw new CheckException("Invalid quantity");
+
+        Item item = null;
+
+        // Checks if the object exists
+        try {
+            item = (Item)_itemDAO.findByPrimaryKey(itemId);
+        } catch (FinderException e) {
+            throw new CheckException("Item must exist to be restocked");
+        }
+
+        if (item.getQuantityOnHand() == null) {
+            // The stock of the item is tracked from now on, the ledger reads it at the first order
+            item.setQuantityOnHand(new Integer(quantity));
+        } else {
+            // The ledger owns the quantity of a tracked item, it is written back with the orders
+            final int available = _stockLedger.restock(itemId, item.getQuantityOnHand().intValue(), quantity);
+            Trace.finest(getCname(), mname, available + " available for " + itemId);
+        }
+    }
+
     public Collection findItems() throws FinderException {
         final String mname = "findItems";
         Trace.entering(getCname(), mname);
 
-        // Finds all the objects
-        final Collection items = _itemDAO.findAll();
-
-        // Transforms domain objects into DTOs
-        final Collection itemsDTO = transformItems2DTOs(items);
+        // Reads the snapshot of the catalog
+        final Collection itemsDTO = getSnapshot().findItems();
 
         Trace.exiting(getCname(), mname, new Integer(itemsDTO.size()));
         return itemsDTO;
@@ -437,11 +547,22 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
 
     	checkId(productId);
 
-    	// Finds all the items
-        final Collection items = _itemDAO.findAllInProduct(productId);
+        // Reads the snapshot of the catalog
+        final Collection itemsDTO = getSnapshot().findItems(productId);
 
-        // Transforms domain objects into DTOs
-        final Collection itemsDTO = transformItems2DTOs(items);
+        Trace.exiting(getCname(), mname, new Integer(itemsDTO.size()));
+        return itemsDTO;
+    }
+
+    public Collection findItems(final Collection itemIds) throws CheckException {
+        final String mname = "findItems";
+        Trace.entering(getCname(), mname, itemIds);
+
+        if (itemIds == null)
+            throw new CheckException("Invalid ids");
+
+        // Reads the snapshot of the catalog
+        final Collection<ItemDTO> itemsDTO = getSnapshot().findItems(itemIds);
 
         Trace.exiting(getCname(), mname, new Integer(itemsDTO.size()));
         return itemsDTO;
@@ -451,16 +572,46 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
         final String mname = "searchItems";
         Trace.entering(getCname(), mname, keyword);
 
-        // Search all the items
-        final Collection items = _itemDAO.search(keyword);
-
-        // Transforms domain objects into DTOs
-        final Collection itemsDTO = transformItems2DTOs(items);
+        // Searches the words of the keyword in the index, the best items first
+        loadSearchIndex();
+        final Collection itemsDTO = _searchIndex.search(keyword);
+        if (itemsDTO.isEmpty())
+            throw new ObjectNotFoundException();
 
         Trace.exiting(getCname(), mname, new Integer(itemsDTO.size()));
         return itemsDTO;
     }
 
+    public Collection autocomplete(final String prefix, final int limit) throws CheckException {
+        final String mname = "autocomplete";
+        Trace.entering(getCname(), mname, new Object[]{prefix, new Integer(limit)});
+
+        if (limit <= 0)
+            throw new CheckException("Invalid limit");
+
+        // Completes the names of the items and the products kept by the index
+        loadSearchIndex();
+        final Collection names = _searchIndex.complete(prefix, limit);
+
+        Trace.exiting(getCname(), mname, new Integer(names.size()));
+        return names;
+    }
+
+    public ItemFacetResultDTO browseItems(final ItemFacetQueryDTO query) throws CheckException {
+        final String mname = "browseItems";
+        Trace.entering(getCname(), mname, query);
+
+        if (query == null)
+            throw new CheckException("Query object is null");
+
+        // Combines the bitmaps of the index, the database is not queried
+        loadSearchIndex();
+        final ItemFacetResultDTO result = _searchIndex.browse(query);
+
+        Trace.exiting(getCname(), mname, result);
+        return result;
+    }
+
     // ======================================
     // =          Private Methods           =
     // ======================================
@@ -473,41 +624,96 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
         return categoryDTO;
     }
 
-    private Collection transformCategories2DTOs(final Collection categories) {
-        final Collection categoriesDTO = new ArrayList();
-        for (Iterator iterator = categories.iterator(); iterator.hasNext();) {
-            final Category category = (Category) iterator.next();
-            categoriesDTO.add(transformCategory2DTO(category));
-        }
-        return categoriesDTO;
-    }
-
     // Product
     private ProductDTO transformProduct2DTO(final Product product) {
         final ProductDTO productDTO = new ProductDTO();
         productDTO.setId(product.getId());
         productDTO.setName(product.getName());
         productDTO.setDescription(product.getDescription());
-        // Retreives the data for the linked object
-        // Finds the linked object
-        Category category = null;
-        try {
-            category = (Category)_categoryDAO.findByPrimaryKey(product.getCategory().getId());
-        } catch (FinderException e) {
-        	// No exception can occur
-        }
+        // The linked object has been loaded with the product
+        final Category category = product.getCategory();
         productDTO.setCategoryId(category.getId());
         productDTO.setCategoryName(category.getName());
         return productDTO;
     }
 
-    private Collection transformProducts2DTOs(final Collection products) {
-        final Collection productsDTO = new ArrayList();
-        for (Iterator iterator = products.iterator(); iterator.hasNext();) {
-            final Product product = (Product) iterator.next();
-            productsDTO.add(transformProduct2DTO(product));
+    /**
+     * This method runs a change of the caches, the snapshot and the search index once
+     * the transaction of the call has committed, nothing is changed if it is rolled back. The change uses the entity
+     * manager of the call, the interceptor has unbound it by then.
+     */
+    private void afterCommit(final Runnable change) {
+        final EntityManager entityManager = EntityManagerBinding.getEntityManager();
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            public void beforeCompletion() {
+            }
+
+            public void afterCompletion(final int status) {
+                if (status != Status.STATUS_COMMITTED) {
+                    return;
+                }
+                final EntityManager previous = EntityManagerBinding.bind(entityManager);
+                try {
+                    change.run();
+                } finally {
+                    EntityManagerBinding.restore(previous);
+                }
+            }
+        });
+    }
+
+    // Snapshot and search index
+    /**
+     * The snapshot is loaded from the catalog by the first read, in the transaction
+     * of this call.
+     */
+    private CatalogSnapshot getSnapshot() {
+        CatalogSnapshot snapshot = _snapshot;
+        if (snapshot == null) {
+            synchronized (_snapshotLock) {
+                if (_snapshot == null)
+                    _snapshot = loadSnapshot();
+                snapshot = _snapshot;
+            }
+        }
+        return snapshot;
+    }
+
+    private CatalogSnapshot loadSnapshot() {
+        final String mname = "loadSnapshot";
+
+        final Collection<CategoryDTO> categories = new ArrayList<CategoryDTO>();
+        Collection<ProductDTO> products = Collections.emptyList();
+        Collection<ItemDTO> items = Collections.emptyList();
+        try {
+            for (Iterator iterator = _categoryDAO.findAll().iterator(); iterator.hasNext();) {
+                categories.add(transformCategory2DTO((Category) iterator.next()));
+            }
+            products = _productDAO.findAllDTOs();
+            items = _itemDAO.findAllDTOs();
+        } catch (ObjectNotFoundException e) {
+            // The catalog is empty or has no item yet
+        }
+        final CatalogSnapshot snapshot = new CatalogSnapshot(categories, products, items);
+        Trace.info(getCname(), mname, snapshot.toString());
+        return snapshot;
+    }
+
+    /**
+     * The index is loaded from the snapshot by the first search. The changes of the
+     * catalog are applied to the index and the snapshot together, under the lock of the
+     * snapshot: a change is either in the snapshot loaded or applied to the loaded index.
+     */
+    private void loadSearchIndex() {
+        if (_searchIndex.isLoaded())
+            return;
+
+        synchronized (_snapshotLock) {
+            if (_searchIndex.isLoaded())
+                return;
+            final CatalogSnapshot snapshot = getSnapshot();
+            _searchIndex.load(snapshot.getCategoryNames(), snapshot.getProducts(), snapshot.getItems());
         }
-        return productsDTO;
     }
 
     // Item
@@ -517,28 +723,14 @@ public class CatalogServiceBean extends AbstractRemoteService implements Catalog
         itemDTO.setName(item.getName());
         itemDTO.setUnitCost(item.getUnitCost());
         itemDTO.setImagePath(item.getImagePath());
-        // Retreives the data for the linked object
-        Product product = null;
-        try {
-            product = (Product)_productDAO.findByPrimaryKey(item.getProduct().getId());
-        } catch (FinderException e) {
-            // No exception can occur
-        }
+        // The linked object has been loaded with the item
+        final Product product = item.getProduct();
         itemDTO.setProductId(product.getId());
         itemDTO.setProductName(product.getName());
         itemDTO.setProductDescription(product.getDescription());
         return itemDTO;
     }
 
-    private Collection transformItems2DTOs(final Collection items) {
-        final Collection itemsDTO = new ArrayList();
-        for (Iterator iterator = items.iterator(); iterator.hasNext();) {
-            final Item item = (Item) iterator.next();
-            itemsDTO.add(transformItem2DTO(item));
-        }
-        return itemsDTO;
-    }
-
     /**
      * This method returns a unique identifer generated by the system. 
      *
@@ -0,0 +1,286 @@
+package com.yaps.petstore.server.service.catalog;
+
+import com.yaps.petstore.common.dto.CategoryDTO;
+import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.ProductDTO;
+import com.yaps.petstore.common.exception.ObjectNotFoundException;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class is an immutable copy of the whole catalog: the categories, their products
+ * and their items, indexed by id and by parent. The products hold the name of their
+ * category and the items the name and the description of their product.
+ * <p/>
+ * A snapshot is never changed: the with and without methods return a new snapshot with
+ * the change, built from the DTOs of this one. The catalog service keeps the current
+ * snapshot in a volatile field and replaces it after each write, so the readers always
+ * see a whole catalog without locking. The finders return copies of the DTOs.
+ */
+public final class CatalogSnapshot {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private final Map<String, CategoryDTO> _categories;
+    private final Map<String, ProductDTO> _products;
+    private final Map<String, ItemDTO> _items;
+    private final Map<String, List<ProductDTO>> _productsByCategory;
+    private final Map<String, List<ItemDTO>> _itemsByProduct;
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    /**
+     * Builds a snapshot from the DTOs of the catalog. The products without category
+     * and the items without product are left out, as the database deletes them in cascade.
+     *
+     * @param categories DTOs of all the categories
+     * @param products   DTOs of all the products, with their category id
+     * @param items      DTOs of all the items, with their product id
+     */
+    public CatalogSnapshot(final Collection<CategoryDTO> categories, final Collection<ProductDTO> products,
+                           final Collection<ItemDTO> items) {
+        final Map<String, CategoryDTO> categoriesById = new LinkedHashMap<String, CategoryDTO>();
+        final Map<String, ProductDTO> productsById = new LinkedHashMap<String, ProductDTO>();
+        final Map<String, ItemDTO> itemsById = new LinkedHashMap<String, ItemDTO>();
+        final Map<String, List<ProductDTO>> productsByCategory = new HashMap<String, List<ProductDTO>>();
+        final Map<String, List<ItemDTO>> itemsByProduct = new HashMap<String, List<ItemDTO>>();
+
+        for (CategoryDTO category : categories) {
+            categoriesById.put(category.getId(), copy(category));
+            productsByCategory.put(category.getId(), new ArrayList<ProductDTO>());
+        }
+        for (ProductDTO product : products) {
+            final CategoryDTO category = categoriesById.get(product.getCategoryId());
+            if (category != null) {
+                final ProductDTO productDTO = new ProductDTO(product.getId(), product.getName(), product.getDescription(),
+                        category.getId(), category.getName());
+                productsById.put(productDTO.getId(), productDTO);
+                productsByCategory.get(category.getId()).add(productDTO);
+                itemsByProduct.put(productDTO.getId(), new ArrayList<ItemDTO>());
+            }
+        }
+        for (ItemDTO item : items) {
+            final ProductDTO product = productsById.get(item.getProductId());
+            if (product != null) {
+                final ItemDTO itemDTO = new ItemDTO(item.getId(), item.getName(), item.getUnitCost(), item.getImagePath(),
+                        product.getId(), product.getName(), product.getDescription());
+                itemsById.put(itemDTO.getId(), itemDTO);
+                itemsByProduct.get(product.getId()).add(itemDTO);
+            }
+        }
+
+        _categories = Collections.unmodifiableMap(categoriesById);
+        _products = Collections.unmodifiableMap(productsById);
+        _items = Collections.unmodifiableMap(itemsById);
+        _productsByCategory = Collections.unmodifiableMap(productsByCategory);
+        _itemsByProduct = Collections.unmodifiableMap(itemsByProduct);
+    }
+
+    // ======================================
+    // =           Finder methods           =
+    // ======================================
+    public CategoryDTO findCategory(final String categoryId) throws ObjectNotFoundException {
+        final CategoryDTO category = _categories.get(categoryId);
+        if (category == null)
+            throw new ObjectNotFoundException();
+        return copy(category);
+    }
+
+    public Collection<CategoryDTO> findCategories() throws ObjectNotFoundException {
+        final List<CategoryDTO> categories = new ArrayList<CategoryDTO>();
+        for (CategoryDTO category : _categories.values()) {
+            categories.add(copy(category));
+        }
+        return checkNotEmpty(categories);
+    }
+
+    public ProductDTO findProduct(final String productId) throws ObjectNotFoundException {
+        final ProductDTO product = _products.get(productId);
+        if (product == null)
+            throw new ObjectNotFoundException();
+        return copy(product);
+    }
+
+    public Collection<ProductDTO> findProducts() throws ObjectNotFoundException {
+        return checkNotEmpty(copyProducts(_products.values()));
+    }
+
+    /**
+     * @throws ObjectNotFoundException is thrown if the category does not exist or has no product
+     */
+    public Collection<ProductDTO> findProducts(final String categoryId) throws ObjectNotFoundException {
+        final List<ProductDTO> products = _productsByCategory.get(categoryId);
+        if (products == null)
+            throw new ObjectNotFoundException();
+        return checkNotEmpty(copyProducts(products));
+    }
+
+    public ItemDTO findItem(final String itemId) throws ObjectNotFoundException {
+        final ItemDTO item = _items.get(itemId);
+        if (item == null)
+            throw new ObjectNotFoundException();
+        return copy(item);
+    }
+
+    public Collection<ItemDTO> findItems() throws ObjectNotFoundException {
+        return checkNotEmpty(copyItems(_items.values()));
+    }
+
+    /**
+     * @throws ObjectNotFoundException is thrown if the product does not exist or has no item
+     */
+    public Collection<ItemDTO> findItems(final String productId) throws ObjectNotFoundException {
+        final List<ItemDTO> items = _itemsByProduct.get(productId);
+        if (items == null)
+            throw new ObjectNotFoundException();
+        return checkNotEmpty(copyItems(items));
+    }
+
+    /**
+     * @param itemIds ids of the items
+     * @return the items found, in the order of the ids, the unknown ids are left out
+     */
+    public Collection<ItemDTO> findItems(final Collection<?> itemIds) {
+        final List<ItemDTO> items = new ArrayList<ItemDTO>(itemIds.size());
+        for (Object itemId : itemIds) {
+            final ItemDTO item = _items.get(itemId);
+            if (item != null)
+                items.add(copy(item));
+        }
+        return items;
+    }
+
+    /**
+     * @return the names of the categories by id
+     */
+    public Map<String, String> getCategoryNames() {
+        final Map<String, String> names = new HashMap<String, String>();
+        for (CategoryDTO category : _categories.values()) {
+            names.put(category.getId(), category.getName());
+        }
+        return names;
+    }
+
+    public Collection<ProductDTO> getProducts() {
+        return _products.values();
+    }
+
+    public Collection<ItemDTO> getItems() {
+        return _items.values();
+    }
+
+    // ======================================
+    // =       Copy on write methods        =
+    // ======================================
+    /**
+     * @return a new snapshot with the category added or replaced
+     */
+    public CatalogSnapshot withCategory(final CategoryDTO category) {
+        final Map<String, CategoryDTO> categories = new LinkedHashMap<String, CategoryDTO>(_categories);
+        categories.put(category.getId(), category);
+        return new CatalogSnapshot(categories.values(), _products.values(), _items.values());
+    }
+
+    /**
+     * @return a new snapshot without the category, its products and their items
+     */
+    public CatalogSnapshot withoutCategory(final String categoryId) {
+        final Map<String, CategoryDTO> categories = new LinkedHashMap<String, CategoryDTO>(_categories);
+        categories.remove(categoryId);
+        return new CatalogSnapshot(categories.values(), _products.values(), _items.values());
+    }
+
+    /**
+     * @return a new snapshot with the product added or replaced, it can change of category
+     */
+    public CatalogSnapshot withProduct(final ProductDTO product) {
+        final Map<String, ProductDTO> products = new LinkedHashMap<String, ProductDTO>(_products);
+        products.put(product.getId(), product);
+        return new CatalogSnapshot(_categories.values(), products.values(), _items.values());
+    }
+
+    /**
+     * @return a new snapshot without the product and its items
+     */
+    public CatalogSnapshot withoutProduct(final String productId) {
+        final Map<String, ProductDTO> products = new LinkedHashMap<String, ProductDTO>(_products);
+        products.remove(productId);
+        return new CatalogSnapshot(_categories.values(), products.values(), _items.values());
+    }
+
+    /**
+     * @return a new snapshot with the item added or replaced, it can change of product
+     */
+    public CatalogSnapshot withItem(final ItemDTO item) {
+        final Map<String, ItemDTO> items = new LinkedHashMap<String, ItemDTO>(_items);
+        items.put(item.getId(), item);
+        return new CatalogSnapshot(_categories.values(), _products.values(), items.values());
+    }
+
+    /**
+     * @return a new snapshot without the item
+     */
+    public CatalogSnapshot withoutItem(final String itemId) {
+        final Map<String, ItemDTO> items = new LinkedHashMap<String, ItemDTO>(_items);
+        items.remove(itemId);
+        return new CatalogSnapshot(_categories.values(), _products.values(), items.values());
+    }
+
+    public String toString() {
+        final StringBuffer buf = new StringBuffer();
+        buf.append("CatalogSnapshot{");
+        buf.append("categories=").append(_categories.size());
+        buf.append(",products=").append(_products.size());
+        buf.append(",items=").append(_items.size());
+        buf.append('}');
+        return buf.toString();
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    private static <T> Collection<T> checkNotEmpty(final Collection<T> collection) throws ObjectNotFoundException {
+        if (collection.isEmpty())
+            throw new ObjectNotFoundException();
+        return collection;
+    }
+
+    private static List<ProductDTO> copyProducts(final Collection<ProductDTO> products) {
+        final List<ProductDTO> copies = new ArrayList<ProductDTO>(products.size());
+        for (Iterator<ProductDTO> iterator = products.iterator(); iterator.hasNext();) {
+            copies.add(copy(iterator.next()));
+        }
+        return copies;
+    }
+
+    private static List<ItemDTO> copyItems(final Collection<ItemDTO> items) {
+        final List<ItemDTO> copies = new ArrayList<ItemDTO>(items.size());
+        for (Iterator<ItemDTO> iterator = items.iterator(); iterator.hasNext();) {
+            copies.add(copy(iterator.next()));
+        }
+        return copies;
+    }
+
+    private static CategoryDTO copy(final CategoryDTO category) {
+        return new CategoryDTO(category.getId(), category.getName(), category.getDescription());
+    }
+
+    private static ProductDTO copy(final ProductDTO product) {
+        return new ProductDTO(product.getId(), product.getName(), product.getDescription(),
+                product.getCategoryId(), product.getCategoryName());
+    }
+
+    private static ItemDTO copy(final ItemDTO item) {
+        return new ItemDTO(item.getId(), item.getName(), item.getUnitCost(), item.getImagePath(),
+                item.getProductId(), item.getProductName(), item.getProductDescription());
+    }
+}
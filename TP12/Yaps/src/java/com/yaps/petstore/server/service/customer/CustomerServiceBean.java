@@ -6,6 +6,7 @@ import com.yaps.petstore.common.logging.Trace;
 import com.yaps.petstore.server.domain.customer.Customer;
 import com.yaps.petstore.server.domain.customer.CustomerDAO;
 import com.yaps.petstore.server.service.AbstractRemoteService;
+import com.yaps.petstore.server.service.EntityManagerInterceptor;
 /* Do not check credit cart data here anymore
 import com.yaps.petstore.common.locator.ejb.ServiceLocator;
 import com.yaps.petstore.server.service.creditcard.CreditCardServiceLocal;
@@ -14,28 +15,24 @@ import com.yaps.petstore.server.service.creditcard.CreditCardServiceLocalHome;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
-import javax.annotation.PostConstruct;
 import javax.ejb.Stateless;
 import javax.ejb.TransactionAttribute;
 import javax.ejb.TransactionAttributeType;
 import javax.ejb.TransactionManagement;
 import javax.ejb.TransactionManagementType;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
-import javax.persistence.PersistenceContextType;
+import javax.interceptor.Interceptors;
 
 /**
  * This class is a session facade for all customer services.
  */
 // @TransactionManagement(value=TransactionManagementType.CONTAINER)
 @Stateless (name="CustomerSB")
+@Interceptors(EntityManagerInterceptor.class)
 public class CustomerServiceBean extends AbstractRemoteService implements CustomerService {
 
     // ======================================
     // =             Attributes             =
     // ======================================
-    @PersistenceContext(unitName = "petstorePU", type = PersistenceContextType.TRANSACTION)
-    private EntityManager _injectedEntityManager;
     private static final CustomerDAO _dao = new CustomerDAO();
 
     // ======================================
@@ -44,10 +41,6 @@ public class CustomerServiceBean extends AbstractRemoteService implements Custom
     public CustomerServiceBean() {
     }
 
-    @PostConstruct
-    public void init() {
-        _dao.setEntityManager(_injectedEntityManager);
-    }
     // ======================================
     // =           Business methods         =
     // ======================================
@@ -134,14 +127,7 @@ public class CustomerServiceBean extends AbstractRemoteService implements Custom
 
     	checkId(customerId);
 
-        // Checks if the object exists
-        try {
-        	_dao.findByPrimaryKey(customerId);
-        } catch (FinderException e) {
-            throw new CheckException("Customer must exist to be deleted");
-        }
-
-        // Deletes the object
+        // Deletes the object, it is not read first: a missing object is found by the removal
         try {
         	_dao.remove(customerId);
         } catch (ObjectNotFoundException e) {
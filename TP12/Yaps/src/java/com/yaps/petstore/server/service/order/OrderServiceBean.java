@@ -17,48 +17,50 @@ import com.yaps.petstore.server.domain.order.OrderDAO;
 import com.yaps.petstore.server.domain.orderline.OrderLine;
 import com.yaps.petstore.server.domain.orderline.OrderLineDAO;
 import com.yaps.petstore.server.service.AbstractRemoteService;
+import com.yaps.petstore.server.service.EntityManagerInterceptor;
 import com.yaps.petstore.server.service.creditcard.CreditCardServiceLocal;
+import com.yaps.petstore.server.util.stock.StockLedger;
 
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.Map;
-import javax.annotation.PostConstruct;
+import javax.annotation.Resource;
 import javax.ejb.EJB;
 import javax.ejb.Stateless;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
-import javax.persistence.PersistenceContextType;
+import javax.interceptor.Interceptors;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
 
 /**
  * This class is a facade for all order services.
+ * <p/>
+ * An order reserves the quantities of its items in the StockLedger before it is
+ * written. The quantities are given back if the credit card is refused, if the order
+ * can not be written or if its transaction is rolled back.
  */
 // @Stateless (name="OrderSB", mappedName=OrderServiceHome.JNDI_NAME)
 @Stateless (name="OrderSB")
+@Interceptors(EntityManagerInterceptor.class)
 public class OrderServiceBean extends AbstractRemoteService implements OrderService {
-    @PersistenceContext(unitName = "petstorePU", type = PersistenceContextType.TRANSACTION)
-    private EntityManager _injectedEntityManager;
     private static final OrderDAO _orderDAO = new OrderDAO();
     private static final OrderLineDAO _orderLineDAO = new OrderLineDAO();
     private static final CustomerDAO _customerDAO = new CustomerDAO();
     private static final ItemDAO _itemDAO = new ItemDAO();
+    private static final StockLedger _stockLedger = StockLedger.getInstance();
     
     @EJB
     CreditCardServiceLocal creditCardServiceLocal;
+
+    @Resource
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
     
     // ======================================
     // =            Constructors            =
     // ======================================
     public OrderServiceBean() {
     }
-    
-    @PostConstruct
-    public void init() {
-        _orderDAO.setEntityManager(_injectedEntityManager);
-        _orderLineDAO.setEntityManager(_injectedEntityManager);
-        _customerDAO.setEntityManager(_injectedEntityManager);
-        _itemDAO.setEntityManager(_injectedEntityManager);
-    }
 
     // ======================================
     // =           Business methods         =
@@ -85,19 +87,14 @@ public class OrderServiceBean extends AbstractRemoteService implements OrderServ
         order.setCreditCardNumber(customer.getCreditCardNumber());
         order.setCreditCardType(customer.getCreditCardType());
         
-        // Checks if the credit card is valid
-        creditCardServiceLocal.verifyCreditCard(order.getCreditCard());
-        
-        // Creates the order
-        _orderDAO.insert(order);
-        
-        // Creates all the orderLines linked with the order
+        // Builds all the orderLines linked with the order
+        Collection<OrderLine> orderLines = new ArrayList<OrderLine>();
         Iterator iterator = shoppingCart.entrySet().iterator();
         while(iterator.hasNext()) {
             Map.Entry keyValue = (Map.Entry)iterator.next();
             String itemId = (String)keyValue.getKey();
             int quantity = (Integer)keyValue.getValue();
-            // Finds the item
+            // Finds the item, an order line does not need its product
             Item item = null;
             try {
                 item = (Item)_itemDAO.findByPrimaryKey(itemId);
@@ -106,9 +103,28 @@ public class OrderServiceBean extends AbstractRemoteService implements OrderServ
             }
             // Creates OrderLine
             final OrderLine orderLine = new OrderLine(quantity, item.getUnitCost(), order, item);
-            
-            // Creates the order line
-            _orderLineDAO.insert(orderLine);
+            orderLines.add(orderLine);
+        }
+
+        // Reserves the stock, then checks the credit card and writes the order
+        final StockLedger.Reservation reservation = reserveStock(orderLines);
+        boolean created = false;
+        try {
+            // Checks if the credit card is valid
+            creditCardServiceLocal.verifyCreditCard(order.getCreditCard());
+
+            // Creates the order
+            _orderDAO.insert(order);
+
+            // Creates the order lines in one batch
+            _orderLineDAO.insertAll(orderLines);
+
+            releaseOnRollback(reservation);
+            created = true;
+        } finally {
+            if (!created) {
+                reservation.release();
+            }
         }
          
         return order.getId();
@@ -142,17 +158,11 @@ public class OrderServiceBean extends AbstractRemoteService implements OrderServ
         order.setCreditCardNumber(orderDTO.getCreditCardNumber());
         order.setCreditCardType(orderDTO.getCreditCardType());
 
-        // Checks if the credit card is valid
-        creditCardServiceLocal.verifyCreditCard(order.getCreditCard());
-
-        // Creates the order
-        _orderDAO.insert(order);
-
-        // Creates all the orderLines linked with the order
-        Collection orderLines = new ArrayList();
+        // Builds all the orderLines linked with the order
+        Collection<OrderLine> orderLines = new ArrayList<OrderLine>();
         for (Iterator iterator = orderDTO.getOrderLines().iterator(); iterator.hasNext();) {
             final OrderLineDTO orderLineDTO = (OrderLineDTO) iterator.next();
-            // Finds the item
+            // Finds the item, an order line does not need its product
             Item item = null;
             try {
                 item = (Item)_itemDAO.findByPrimaryKey(orderLineDTO.getItemId());
@@ -161,10 +171,29 @@ public class OrderServiceBean extends AbstractRemoteService implements OrderServ
             }
             // Transforms OrderLine DTO into domain object
             final OrderLine orderLine = new OrderLine(orderLineDTO.getQuantity(), orderLineDTO.getUnitCost(), order, item);
-            // Creates the order line
-            _orderLineDAO.insert(orderLine);
             orderLines.add(orderLine);
         }
+
+        // Reserves the stock, then checks the credit card and writes the order
+        final StockLedger.Reservation reservation = reserveStock(orderLines);
+        boolean created = false;
+        try {
+            // Checks if the credit card is valid
+            creditCardServiceLocal.verifyCreditCard(order.getCreditCard());
+
+            // Creates the order
+            _orderDAO.insert(order);
+
+            // Creates the order lines in one batch
+            _orderLineDAO.insertAll(orderLines);
+
+            releaseOnRollback(reservation);
+            created = true;
+        } finally {
+            if (!created) {
+                reservation.release();
+            }
+        }
         // Sets orderLines into the order
         order.setOrderLines(orderLines);
 
@@ -223,6 +252,44 @@ public class OrderServiceBean extends AbstractRemoteService implements OrderServ
     // ======================================
     // =          Private Methods           =
     // ======================================
+    /**
+     * Reserves the quantity of each order line, nothing is reserved if one item has not enough stock.
+     */
+    private StockLedger.Reservation reserveStock(final Collection<OrderLine> orderLines) throws CheckException {
+        final String mname = "reserveStock";
+        // A non-positive quantity would add to the stock, it is refused before anything is reserved
+        for (OrderLine orderLine : orderLines) {
+            if (orderLine.getQuantity() <= 0)
+                throw new CheckException("Invalid quantity for item " + orderLine.getItem().getId());
+        }
+        final StockLedger.Reservation reservation = _stockLedger.newReservation();
+        for (OrderLine orderLine : orderLines) {
+            final Item item = orderLine.getItem();
+            if (!reservation.reserve(item.getId(), item.getQuantityOnHand(), orderLine.getQuantity())) {
+                reservation.release();
+                Trace.warning(getCname(), mname, "Not enough stock for item " + item.getId());
+                throw new CheckException("Not enough stock for item " + item.getId());
+            }
+        }
+        return reservation;
+    }
+
+    /**
+     * Gives back the quantities reserved if the transaction of the order does not commit.
+     */
+    private void releaseOnRollback(final StockLedger.Reservation reservation) {
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            public void beforeCompletion() {
+            }
+
+            public void afterCompletion(final int status) {
+                if (status != Status.STATUS_COMMITTED) {
+                    reservation.release();
+                }
+            }
+        });
+    }
+
     private OrderDTO transformOrder2DTO(final Order order) {
         final OrderDTO orderDTO = new OrderDTO();
         orderDTO.setId(order.getId());
@@ -0,0 +1,102 @@
+package com.yaps.petstore.server.service.order;
+
+import com.yaps.petstore.common.exception.FinderException;
+import com.yaps.petstore.common.logging.Trace;
+import com.yaps.petstore.server.domain.item.Item;
+import com.yaps.petstore.server.domain.item.ItemDAO;
+import com.yaps.petstore.server.util.persistence.EntityManagerBinding;
+import com.yaps.petstore.server.util.stock.StockLedger;
+
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.PreDestroy;
+import javax.annotation.Resource;
+import javax.ejb.Schedule;
+import javax.ejb.Singleton;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceContextType;
+import javax.transaction.Status;
+import javax.transaction.Synchronization;
+import javax.transaction.TransactionSynchronizationRegistry;
+
+/**
+ * This bean writes the quantities of the StockLedger to the items of the database
+ * every thirty seconds, and when the application stops. Only the quantities changed
+ * since the last write are written, they are kept to be written next time if the
+ * transaction does not commit.
+ * <p/>
+ * The timer does not go through the EntityManagerInterceptor, so the bean binds its
+ * entity manager itself.
+ */
+@Singleton (name="StockWriterSB")
+public class StockWriterBean {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private static final ItemDAO _itemDAO = new ItemDAO();
+    private static final StockLedger _stockLedger = StockLedger.getInstance();
+
+    @PersistenceContext(unitName = "petstorePU", type = PersistenceContextType.TRANSACTION)
+    private EntityManager _entityManager;
+
+    @Resource
+    TransactionSynchronizationRegistry transactionSynchronizationRegistry;
+
+    // Used for logging
+    private final String _cname = this.getClass().getName();
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    @Schedule(second = "*/30", minute = "*", hour = "*", persistent = false)
+    public void writeStock() {
+        final String mname = "writeStock";
+        final Map<String, Integer> changes = _stockLedger.drainChanges();
+        if (changes.isEmpty()) {
+            return;
+        }
+        restoreOnRollback(changes.keySet());
+
+        final EntityManager previous = EntityManagerBinding.bind(_entityManager);
+        try {
+            for (Map.Entry<String, Integer> change : changes.entrySet()) {
+                try {
+                    final Item item = (Item) _itemDAO.findByPrimaryKey(change.getKey());
+                    item.setQuantityOnHand(change.getValue());
+                } catch (FinderException e) {
+                    // The item has been deleted from the catalog
+                    _stockLedger.remove(change.getKey());
+                }
+            }
+        } finally {
+            EntityManagerBinding.restore(previous);
+        }
+        Trace.finest(_cname, mname, changes.size() + " item quantities written");
+    }
+
+    @PreDestroy
+    public void writeStockOnShutdown() {
+        writeStock();
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    /**
+     * Marks the items as changed again if the transaction does not commit.
+     */
+    private void restoreOnRollback(final Set<String> itemIds) {
+        transactionSynchronizationRegistry.registerInterposedSynchronization(new Synchronization() {
+            public void beforeCompletion() {
+            }
+
+            public void afterCompletion(final int status) {
+                if (status != Status.STATUS_COMMITTED) {
+                    _stockLedger.restoreChanges(itemIds);
+                }
+            }
+        });
+    }
+}
@@ -9,16 +9,23 @@ import com.yaps.petstore.server.util.uidgen.UniqueIdGenerator;
 
 import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
+import java.sql.SQLException;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.List;
 
+import javax.persistence.Cache;
+import javax.persistence.Cacheable;
+import javax.persistence.EntityExistsException;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityManagerFactory;
+import javax.persistence.EntityNotFoundException;
 import javax.persistence.EntityTransaction;
 import javax.persistence.GeneratedValue;
 import javax.persistence.Id;
-import javax.persistence.Persistence;
 import javax.persistence.PersistenceContext;
+import javax.persistence.PersistenceException;
 import javax.persistence.Query;
 
 /**
@@ -31,6 +38,9 @@ public abstract class AbstractDataAccessObject<K, E> {
     // ======================================
     // =             Attributes             =
     // ======================================
+    // Database error code when we want to insert an id that already exists.
+    private static final int DATA_ALREADY_EXIST = 1062;
+
     protected Class<E> _entityClass;
 
     protected EntityManager _em;
@@ -78,7 +88,8 @@ public abstract class AbstractDataAccessObject<K, E> {
 
 
     private void initEntityManager(String persistenceUnitName) {
-        EntityManagerFactory emf = Persistence.createEntityManagerFactory(persistenceUnitName);
+        // The factory is shared by all the DAOs of the persistence unit
+        EntityManagerFactory emf = EntityManagerFactoryRegistry.getFactory(persistenceUnitName);
         _em = emf.createEntityManager();
         try {
             _tx = _em.getTransaction();
@@ -91,19 +102,48 @@ public abstract class AbstractDataAccessObject<K, E> {
         _em = em;
     }
 
+    /**
+     * This method returns the entity manager used by the DAO: the one bound to the
+     * current thread by the calling service if any (see {@link EntityManagerBinding}),
+     * otherwise the entity manager of the DAO.
+     *
+     * @return the entity manager of the current call
+     */
+    protected EntityManager getEntityManager() {
+        final EntityManager em = EntityManagerBinding.getEntityManager();
+        return em != null ? em : _em;
+    }
+
+    /**
+     * @return the resource local transaction of the DAO, null when the container
+     * manages the transactions
+     */
+    private EntityTransaction getTransaction() {
+        return EntityManagerBinding.getEntityManager() != null ? null : _tx;
+    }
+
     public void setEntityClass(Class<E> entityClass) {
         _entityClass = entityClass;
     }
 
     private void beginTransaction() {
-        if (_tx != null && !_tx.isActive()) {
-            _tx.begin();
+        final EntityTransaction tx = getTransaction();
+        if (tx != null && !tx.isActive()) {
+            tx.begin();
         }
     }
 
     private void endTransaction() {
-        if (_tx != null) {
-            _tx.commit();
+        final EntityTransaction tx = getTransaction();
+        if (tx != null) {
+            tx.commit();
+        }
+    }
+
+    private void rollbackTransaction() {
+        final EntityTransaction tx = getTransaction();
+        if (tx != null && tx.isActive()) {
+            tx.rollback();
         }
     }
 
@@ -112,13 +152,13 @@ public abstract class AbstractDataAccessObject<K, E> {
     // ======================================
     public void persist(E entity) {
         beginTransaction();
-        _em.persist(entity);
+        getEntityManager().persist(entity);
         endTransaction();
     }
 
     public void remove(E entity) {
         beginTransaction();
-        _em.remove(entity);
+        getEntityManager().remove(entity);
         endTransaction();
     }
 
@@ -127,7 +167,10 @@ public abstract class AbstractDataAccessObject<K, E> {
         if (id == null) {
             throw new ObjectNotFoundException();
         }
-        result = _em.find(_entityClass, id);
+        if (isCacheable()) {
+            getCacheStatistics().recordFind(getSharedCache().contains(_entityClass, id));
+        }
+        result = getEntityManager().find(_entityClass, id);
         if (result == null) {
             throw new ObjectNotFoundException();
         }
@@ -136,10 +179,75 @@ public abstract class AbstractDataAccessObject<K, E> {
 
     public void merge(E entity) {
         beginTransaction();
-        _em.merge(entity);
+        getEntityManager().merge(entity);
         endTransaction();
     }
 
+    /**
+     * This method returns a reference to an entity, to link it to another one,
+     * without reading it when the provider does not need to. If the entity is not
+     * read, the database refuses the write that references it when it does not exist.
+     *
+     * @param id identifier of the entity
+     * @return a reference to the entity
+     * @throws ObjectNotFoundException is thrown if the id is null or if the
+     * provider finds no entity
+     */
+    public E getReference(K id) throws ObjectNotFoundException {
+        if (id == null) {
+            throw new ObjectNotFoundException();
+        }
+        try {
+            return getEntityManager().getReference(_entityClass, id);
+        } catch (EntityNotFoundException e) {
+            throw new ObjectNotFoundException();
+        }
+    }
+
+    // ======================================
+    // =            Shared cache            =
+    // ======================================
+    /**
+     * @return true if the entities of this DAO are kept in the shared cache of
+     * the persistence unit (entity class annotated @Cacheable)
+     */
+    public final boolean isCacheable() {
+        return _entityClass != null && _entityClass.isAnnotationPresent(Cacheable.class);
+    }
+
+    /**
+     * This method removes an entity from the shared cache, it is read from the
+     * database the next time.
+     *
+     * @param id identifier of the entity
+     */
+    public final void evict(final K id) {
+        getSharedCache().evict(_entityClass, id);
+        getCacheStatistics().recordEviction();
+    }
+
+    /**
+     * This method removes all the entities of this DAO, and the results of the
+     * queries that return them, from the shared cache. It is used when rows are
+     * changed without the entity manager knowing it, e.g. deleted by an ON DELETE
+     * CASCADE constraint.
+     */
+    public final void evictAll() {
+        getSharedCache().evict(_entityClass);
+        getCacheStatistics().recordEviction();
+    }
+
+    /**
+     * @return the hits and misses of the shared cache for the entities of this DAO
+     */
+    public final CacheStatistics getCacheStatistics() {
+        return CacheStatistics.getInstance(_entityClass);
+    }
+
+    private Cache getSharedCache() {
+        return getEntityManager().getEntityManagerFactory().getCache();
+    }
+
     // ======================================
     // =           Business methods         =
     // ======================================
@@ -198,7 +306,7 @@ public abstract class AbstractDataAccessObject<K, E> {
         int beginIndex = _entityClass.getName().lastIndexOf('.');
         beginIndex++;
         String shortClassName = _entityClass.getName().substring(beginIndex);
-        Query query = _em.createNamedQuery(shortClassName + ".findAll");
+        Query query = getEntityManager().createNamedQuery(shortClassName + ".findAll");
         List<E> entities = query.getResultList();
         if (entities.isEmpty()) {
             throw new ObjectNotFoundException();
@@ -209,7 +317,8 @@ public abstract class AbstractDataAccessObject<K, E> {
     }
 
     /**
-     * This method inserts an entity into the database.
+     * This method inserts an entity into the database. The entity is not read
+     * first: the database refuses a duplicate key.
      *
      * @param entity Domain entity to be inserted
      * @throws DuplicateKeyException is thrown when an identical entity is
@@ -219,31 +328,60 @@ public abstract class AbstractDataAccessObject<K, E> {
         final String mname = "insert";
         Trace.entering(getCname(), mname, entity);
 
-        // Sets the entity Id if necessary
-        // e.g. if the @GeneratedValue strategy of the @Id column is not defined
-        /* 
-         * if ( entity.getId() == null )
-         entity.setId("" + getUniqueId());
-         */
+        persistAll(Collections.singletonList((E) entity));
+    }
+
+    /**
+     * This method inserts several entities into the database in a single
+     * transaction. The entities are persisted without reading them first and
+     * flushed once, so the provider sends the inserts as a JDBC batch (see the
+     * eclipselink.jdbc.batch-writing property of the persistence unit).
+     *
+     * @param entities Domain entities to be inserted
+     * @throws DuplicateKeyException is thrown when one of the entities is
+     * already in the persistent layer
+     */
+    public final void insertAll(final Collection<E> entities) throws DuplicateKeyException {
+        final String mname = "insertAll";
+        Trace.entering(getCname(), mname, new Integer(entities.size()));
+
+        if (entities.isEmpty()) {
+            return;
+        }
+        persistAll(entities);
+    }
+
+    /**
+     * This method persists entities and flushes them in a transaction, so that a
+     * duplicate key is known before the method returns.
+     */
+    private void persistAll(final Collection<E> entities) throws DuplicateKeyException {
+        beginTransaction();
         try {
-            findById((K) entity.getId());
+            for (E entity : entities) {
+                getEntityManager().persist(entity);
+            }
+            getEntityManager().flush();
+        } catch (EntityExistsException e) {
+            rollbackTransaction();
             throw new DuplicateKeyException();
-        } catch (ObjectNotFoundException e) {
-            /* TODO - possible PersistenceException with hibernate:
-             * org.hibernate.PersistentObjectException: detached entity passed to persist: ...
-             * see https://forum.hibernate.org/viewtopic.php?p=2404032
-             */
-            if (entity.getId() == null) {
-                persist((E) entity);
-            } else {
-                merge((E) entity);
+        } catch (PersistenceException e) {
+            rollbackTransaction();
+            if (isDuplicateKey(e)) {
+                throw new DuplicateKeyException();
             }
+            throw e;
+        } catch (RuntimeException e) {
+            rollbackTransaction();
+            throw e;
         }
-
+        endTransaction();
     }
 
     /**
-     * This method updates an entity in the database.
+     * This method updates an entity in the database. An entity read by the same
+     * entity manager is already managed: its changes are written without reading
+     * it again.
      *
      * @param entity Object to be updated in the database
      * @throws ObjectNotFoundException is thrown if the entity id not found in
@@ -253,12 +391,71 @@ public abstract class AbstractDataAccessObject<K, E> {
         final String mname = "update";
         Trace.entering(getCname(), mname, entity);
 
-        findById((K) entity.getId());
-        merge((E) entity);
+        if (getEntityManager().contains(entity)) {
+            // The changes are flushed when the transaction ends
+            beginTransaction();
+            endTransaction();
+        } else {
+            findById((K) entity.getId());
+            merge((E) entity);
+        }
     }
 
     /**
-     * This method deletes an entity from the database.
+     * This method updates several entities in the database in a single
+     * transaction. The changes are flushed once, so the provider sends the
+     * updates as a JDBC batch. The entities are merged directly: the existence of
+     * the detached ones is checked with a single count query, not one read each.
+     *
+     * @param entities Objects to be updated in the database
+     * @throws ObjectNotFoundException is thrown if one of the entities is not
+     * found in the database
+     */
+    public final void updateAll(final Collection<E> entities) throws ObjectNotFoundException {
+        final String mname = "updateAll";
+        Trace.entering(getCname(), mname, new Integer(entities.size()));
+
+        if (entities.isEmpty()) {
+            return;
+        }
+        beginTransaction();
+        try {
+            final Collection<String> detachedIds = new ArrayList<String>();
+            for (E entity : entities) {
+                if (!getEntityManager().contains(entity)) {
+                    detachedIds.add(((DomainObject) entity).getId());
+                }
+            }
+            if (!detachedIds.isEmpty() && countExisting(detachedIds) != detachedIds.size()) {
+                throw new ObjectNotFoundException();
+            }
+            for (E entity : entities) {
+                getEntityManager().merge(entity);
+            }
+            getEntityManager().flush();
+        } catch (ObjectNotFoundException e) {
+            rollbackTransaction();
+            throw e;
+        } catch (RuntimeException e) {
+            rollbackTransaction();
+            throw e;
+        }
+        endTransaction();
+    }
+
+    /**
+     * @return the number of entities of the given ids in the database
+     */
+    private long countExisting(final Collection<String> ids) {
+        final String entityName = _entityClass.getName().substring(_entityClass.getName().lastIndexOf('.') + 1);
+        final Query query = getEntityManager().createQuery("select count(e) from " + entityName + " e where e._id in :ids");
+        query.setParameter("ids", ids);
+        return ((Number) query.getSingleResult()).longValue();
+    }
+
+    /**
+     * This method deletes an entity from the database. The entity is removed
+     * through a reference, it is only read if the provider needs it.
      *
      * @param id identifier of the entity to be deleted
      * @throws ObjectNotFoundException is thrown if the entity id not found in
@@ -268,9 +465,19 @@ public abstract class AbstractDataAccessObject<K, E> {
         final String mname = "remove";
         Trace.entering(getCname(), mname, id);
 
-        E entity = findById((K) id);
-        merge(entity); // mandatory!
-        remove(entity);
+        final E entity = getReference((K) id);
+        beginTransaction();
+        try {
+            getEntityManager().remove(entity);
+            getEntityManager().flush();
+        } catch (EntityNotFoundException e) {
+            rollbackTransaction();
+            throw new ObjectNotFoundException();
+        } catch (RuntimeException e) {
+            rollbackTransaction();
+            throw e;
+        }
+        endTransaction();
     }
 
     /**
@@ -295,6 +502,22 @@ public abstract class AbstractDataAccessObject<K, E> {
 
     protected abstract String getCounterName();
 
+    /**
+     * This method tells if a persistence exception was caused by a row that
+     * already exists in the database.
+     *
+     * @param e exception thrown by the entity manager
+     * @return true if the database refused a duplicate key
+     */
+    private static boolean isDuplicateKey(final PersistenceException e) {
+        for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && ((SQLException) cause).getErrorCode() == DATA_ALREADY_EXIST) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     protected String getCname() {
         return _cname;
     }
@@ -0,0 +1,115 @@
+package com.yaps.petstore.server.util.persistence;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class counts, for an entity class kept in the shared cache of the
+ * persistence unit, the finds answered by the cache (hits), the ones that went
+ * to the database (misses) and the evictions. There is one instance per entity
+ * class, shared by all the DAOs of this class.
+ * <p/>
+ * Only the finds by id are counted. The lists read by the named queries whose results
+ * are cached (hint eclipselink.query-results-cache) are answered by the provider
+ * without telling the DAO whether they came from the cache, so they are not counted.
+ */
+public final class CacheStatistics {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    // Statistics by entity class name
+    private static final Map<String, CacheStatistics> _statistics = new ConcurrentHashMap<String, CacheStatistics>();
+
+    private final String _name;
+    private final AtomicLong _hits = new AtomicLong();
+    private final AtomicLong _misses = new AtomicLong();
+    private final AtomicLong _evictions = new AtomicLong();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    private CacheStatistics(final String name) {
+        _name = name;
+    }
+
+    /**
+     * @param entityClass an entity class
+     * @return the statistics of this class, they are created the first time
+     */
+    public static CacheStatistics getInstance(final Class<?> entityClass) {
+        final String name = entityClass.getName();
+        CacheStatistics statistics = _statistics.get(name);
+        if (statistics == null) {
+            synchronized (_statistics) {
+                statistics = _statistics.get(name);
+                if (statistics == null) {
+                    statistics = new CacheStatistics(name);
+                    _statistics.put(name, statistics);
+                }
+            }
+        }
+        return statistics;
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    void recordFind(final boolean hit) {
+        if (hit) {
+            _hits.incrementAndGet();
+        } else {
+            _misses.incrementAndGet();
+        }
+    }
+
+    void recordEviction() {
+        _evictions.incrementAndGet();
+    }
+
+    /**
+     * This method sets the counters back to zero.
+     */
+    public void reset() {
+        _hits.set(0);
+        _misses.set(0);
+        _evictions.set(0);
+    }
+
+    // ======================================
+    // =         Getters and Setters        =
+    // ======================================
+    public long getHits() {
+        return _hits.get();
+    }
+
+    public long getMisses() {
+        return _misses.get();
+    }
+
+    public long getEvictions() {
+        return _evictions.get();
+    }
+
+    /**
+     * @return the part of the finds answered by the cache, between 0 and 1
+     */
+    public double getHitRatio() {
+        final long hits = getHits();
+        final long finds = hits + getMisses();
+        return finds == 0 ? 0 : (double) hits / finds;
+    }
+
+    public String toString() {
+        final StringBuffer buf = new StringBuffer();
+        buf.append("\n\tCacheStatistics {");
+        buf.append("\n\t\tEntity=").append(_name);
+        buf.append("\n\t\tHits=").append(getHits());
+        buf.append("\n\t\tMisses=").append(getMisses());
+        buf.append("\n\t\tHit ratio=").append(getHitRatio());
+        buf.append("\n\t\tEvictions=").append(getEvictions());
+        buf.append("\n\t}");
+        return buf.toString();
+    }
+}
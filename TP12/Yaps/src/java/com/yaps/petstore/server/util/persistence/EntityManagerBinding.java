@@ -0,0 +1,63 @@
+package com.yaps.petstore.server.util.persistence;
+
+import javax.persistence.EntityManager;
+
+/**
+ * This class binds an entity manager to the current thread for the duration of a
+ * call. The DAOs are shared by all the instances of a session bean, so they do not
+ * keep the entity manager injected in the bean: each business method binds it when
+ * it is called and the DAOs use the entity manager bound to their thread (see
+ * {@link AbstractDataAccessObject#getEntityManager()}).
+ * <p/>
+ * The bindings nest: a bean calling another bean gets its own entity manager back
+ * when the call returns.
+ */
+public final class EntityManagerBinding {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private static final ThreadLocal<EntityManager> _current = new ThreadLocal<EntityManager>();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    private EntityManagerBinding() {
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * This method binds an entity manager to the current thread.
+     *
+     * @param em entity manager used by the DAOs until the binding is restored
+     * @return the entity manager that was bound before, to give to {@link #restore(EntityManager)}
+     */
+    public static EntityManager bind(final EntityManager em) {
+        final EntityManager previous = _current.get();
+        _current.set(em);
+        return previous;
+    }
+
+    /**
+     * This method gives the current thread back the entity manager it had before
+     * {@link #bind(EntityManager)} was called.
+     *
+     * @param previous entity manager returned by bind, null if there was none
+     */
+    public static void restore(final EntityManager previous) {
+        if (previous == null) {
+            _current.remove();
+        } else {
+            _current.set(previous);
+        }
+    }
+
+    /**
+     * @return the entity manager bound to the current thread, null if there is none
+     */
+    public static EntityManager getEntityManager() {
+        return _current.get();
+    }
+}
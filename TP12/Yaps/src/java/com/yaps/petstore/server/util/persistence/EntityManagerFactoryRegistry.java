@@ -0,0 +1,92 @@
+package com.yaps.petstore.server.util.persistence;
+
+import com.yaps.petstore.common.logging.Trace;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.persistence.EntityManager;
+import javax.persistence.EntityManagerFactory;
+import javax.persistence.Persistence;
+
+/**
+ * This class keeps one EntityManagerFactory per persistence unit for the whole
+ * process. A factory reads the mapping metadata and opens its connection pool and
+ * its cache when it is created, so the DAOs share the factory of their unit instead
+ * of creating their own.
+ * <p/>
+ * A factory is created the first time it is asked for. {@link #warmUp(String)} can
+ * be called when the application is deployed so that the first request does not
+ * pay for it.
+ */
+public final class EntityManagerFactoryRegistry {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    // Factories by persistence unit name
+    private static final Map<String, EntityManagerFactory> _factories = new ConcurrentHashMap<String, EntityManagerFactory>();
+
+    // Used for logging
+    private static final String sname = EntityManagerFactoryRegistry.class.getName();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    private EntityManagerFactoryRegistry() {
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * This method returns the factory of a persistence unit, it is created the
+     * first time.
+     *
+     * @param persistenceUnitName name of the persistence unit
+     * @return the shared factory of the persistence unit
+     */
+    public static EntityManagerFactory getFactory(final String persistenceUnitName) {
+        EntityManagerFactory factory = _factories.get(persistenceUnitName);
+        if (factory != null && factory.isOpen()) {
+            return factory;
+        }
+        synchronized (_factories) {
+            factory = _factories.get(persistenceUnitName);
+            if (factory == null || !factory.isOpen()) {
+                final long start = System.currentTimeMillis();
+                factory = Persistence.createEntityManagerFactory(persistenceUnitName);
+                _factories.put(persistenceUnitName, factory);
+                Trace.info(sname, "getFactory", persistenceUnitName + " factory created in "
+                        + (System.currentTimeMillis() - start) + " ms");
+            }
+            return factory;
+        }
+    }
+
+    /**
+     * This method creates the factory of a persistence unit and opens an entity
+     * manager, so that the provider deploys the unit (metadata, connections) now.
+     *
+     * @param persistenceUnitName name of the persistence unit
+     */
+    public static void warmUp(final String persistenceUnitName) {
+        final EntityManager em = getFactory(persistenceUnitName).createEntityManager();
+        em.close();
+    }
+
+    /**
+     * This method closes the factories of all the persistence units. It is called
+     * when the application is undeployed, a factory asked for afterwards is created again.
+     */
+    public static void closeAll() {
+        synchronized (_factories) {
+            for (EntityManagerFactory factory : _factories.values()) {
+                if (factory.isOpen()) {
+                    factory.close();
+                }
+            }
+            _factories.clear();
+        }
+    }
+}
@@ -0,0 +1,738 @@
+package com.yaps.petstore.server.util.search;
+
+import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.ItemFacetQueryDTO;
+import com.yaps.petstore.common.dto.ItemFacetResultDTO;
+import com.yaps.petstore.common.dto.ProductDTO;
+import com.yaps.petstore.common.logging.Trace;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * This class is an inverted index of the items of the catalog kept in memory. An
+ * item is found by the words of its name, of the name and the description of its
+ * product and of the name of its category, or by its id. The words are compared
+ * without case and accents.
+ * <p/>
+ * The items found contain all the words searched, the ones matching in their own
+ * name come first. The index is loaded from the catalog once and then kept up to
+ * date by the catalog service each time it changes a category, a product or an item;
+ * the changes made before it is loaded are ignored. The catalog service loads the
+ * index and applies its changes under the same lock, so the load reads them.
+ * <p/>
+ * The index also completes the beginning of the name of an item or a product, with
+ * a binary search in the sorted names. The names are sorted again by the first
+ * completion after a change.
+ * <p/>
+ * For the faceted browsing, each item has a slot and each category, product and price
+ * range has a bitmap of the slots of its items. A browsing combines the bitmaps of the
+ * values selected and counts the items of each value.
+ * It follows the Singleton design pattern.
+ */
+public final class ItemSearchIndex {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    // A handle to the unique Singleton instance.
+    private static final ItemSearchIndex _instance = new ItemSearchIndex();
+
+    // Weight of a word by the field where it is found
+    private static final int ID_WEIGHT = 1;
+    private static final int ITEM_NAME_WEIGHT = 8;
+    private static final int PRODUCT_NAME_WEIGHT = 4;
+    private static final int PRODUCT_DESCRIPTION_WEIGHT = 2;
+    private static final int CATEGORY_NAME_WEIGHT = 1;
+
+    private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+    private boolean _loaded = false;
+
+    // Catalog kept by the index
+    private final Map<String, String> _categoryNames = new HashMap<String, String>();
+    private final Map<String, ProductDTO> _products = new HashMap<String, ProductDTO>();
+    private final Map<String, ItemDTO> _items = new HashMap<String, ItemDTO>();
+    private final Map<String, Set<String>> _productsByCategory = new HashMap<String, Set<String>>();
+    private final Map<String, Set<String>> _itemsByProduct = new HashMap<String, Set<String>>();
+
+    // Word -> item id -> score, and the words of each item to remove it
+    private final Map<String, Map<String, Integer>> _postings = new HashMap<String, Map<String, Integer>>();
+    private final Map<String, Map<String, Integer>> _itemWords = new HashMap<String, Map<String, Integer>>();
+
+    // Slot of each item in the bitmaps, the item of each slot, the facet values of each item
+    private final Map<String, Integer> _slots = new HashMap<String, Integer>();
+    private final List<String> _slotItems = new ArrayList<String>();
+    private final BitSet _usedSlots = new BitSet();
+    private final Map<String, String[]> _itemFacets = new HashMap<String, String[]>();
+    // Bitmaps of the items by category id, product id and price range
+    private final Map<String, BitSet> _categoryBitmaps = new TreeMap<String, BitSet>();
+    private final Map<String, BitSet> _productBitmaps = new TreeMap<String, BitSet>();
+    private final Map<String, BitSet> _priceRangeBitmaps = new HashMap<String, BitSet>();
+
+    // Sorted names for the completion, null when they have to be sorted again
+    private volatile Completions _completions;
+
+    // Used for logging
+    private final String _cname = this.getClass().getName();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    private ItemSearchIndex() {
+    }
+
+    /**
+     * @return the unique instance of this class
+     */
+    public static ItemSearchIndex getInstance() {
+        return _instance;
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * @return true once the index has been loaded from the catalog
+     */
+    public boolean isLoaded() {
+        _lock.readLock().lock();
+        try {
+            return _loaded;
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method replaces the content of the index with the whole catalog.
+     *
+     * @param categoryNames names of the categories by id
+     * @param products      DTOs of all the products, with their category id
+     * @param items         DTOs of all the items, with their product id
+     */
+    public void load(final Map<String, String> categoryNames, final Collection<ProductDTO> products, final Collection<ItemDTO> items) {
+        final String mname = "load";
+        final long start = System.currentTimeMillis();
+
+        _lock.writeLock().lock();
+        try {
+            clearEntries();
+            _categoryNames.putAll(categoryNames);
+            for (ProductDTO product : products) {
+                putProductEntry(product);
+            }
+            for (ItemDTO item : items) {
+                putItemEntry(item);
+                indexItem(item.getId());
+            }
+            _loaded = true;
+        } finally {
+            _lock.writeLock().unlock();
+        }
+        Trace.info(_cname, mname, items.size() + " items indexed in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    /**
+     * This method empties the index, it has to be loaded again.
+     */
+    public void clear() {
+        _lock.writeLock().lock();
+        try {
+            clearEntries();
+            _loaded = false;
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method searches the items containing all the words of a text.
+     *
+     * @param text words searched
+     * @return new DTOs of the items found, the best ones first
+     */
+    public List<ItemDTO> search(final String text) {
+        final List<String> words = tokenize(text);
+        final List<ItemDTO> result = new ArrayList<ItemDTO>();
+        if (words.isEmpty()) {
+            return result;
+        }
+
+        _lock.readLock().lock();
+        try {
+            // Starts with the word that has the fewest items
+            Map<String, Integer> scores = null;
+            for (String word : words) {
+                final Map<String, Integer> posting = _postings.get(word);
+                if (posting == null) {
+                    return result;
+                }
+                if (scores == null || posting.size() < scores.size()) {
+                    scores = posting;
+                }
+            }
+            final Map<String, Integer> total = new HashMap<String, Integer>();
+            for (Map.Entry<String, Integer> candidate : scores.entrySet()) {
+                int score = 0;
+                for (String word : words) {
+                    final Integer wordScore = _postings.get(word).get(candidate.getKey());
+                    if (wordScore == null) {
+                        score = -1;
+                        break;
+                    }
+                    score += wordScore.intValue();
+                }
+                if (score > 0) {
+                    total.put(candidate.getKey(), new Integer(score));
+                }
+            }
+            for (String itemId : total.keySet()) {
+                result.add(copy(_items.get(itemId)));
+            }
+            Collections.sort(result, new Comparator<ItemDTO>() {
+                public int compare(final ItemDTO item1, final ItemDTO item2) {
+                    final int byScore = total.get(item2.getId()).compareTo(total.get(item1.getId()));
+                    return byScore != 0 ? byScore : item1.getName().compareToIgnoreCase(item2.getName());
+                }
+            });
+            return result;
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method selects the items matching the filters of a query and counts, for each
+     * facet, the items of each value with the filters of the other facets.
+     *
+     * @param query filters on the category, the product and the price range
+     * @return new DTOs of the items selected, sorted by name, and the counts
+     */
+    public ItemFacetResultDTO browse(final ItemFacetQueryDTO query) {
+        final ItemFacetResultDTO result = new ItemFacetResultDTO();
+
+        _lock.readLock().lock();
+        try {
+            final BitSet byCategory = select(_categoryBitmaps, query.getCategoryIds());
+            final BitSet byProduct = select(_productBitmaps, query.getProductIds());
+            final BitSet byPriceRange = select(_priceRangeBitmaps, query.getPriceRanges());
+
+            final BitSet selected = intersect(byCategory, intersect(byProduct, byPriceRange));
+            for (int slot = selected.nextSetBit(0); slot >= 0; slot = selected.nextSetBit(slot + 1)) {
+                result.getItems().add(copy(_items.get(_slotItems.get(slot))));
+            }
+            Collections.sort(result.getItems(), new Comparator<ItemDTO>() {
+                public int compare(final ItemDTO item1, final ItemDTO item2) {
+                    return item1.getName().compareToIgnoreCase(item2.getName());
+                }
+            });
+
+            count(_categoryBitmaps, _categoryBitmaps.keySet(), intersect(byProduct, byPriceRange), result.getCategoryCounts());
+            count(_productBitmaps, _productBitmaps.keySet(), intersect(byCategory, byPriceRange), result.getProductCounts());
+            count(_priceRangeBitmaps, Arrays.asList(ItemFacetQueryDTO.getPriceRangeNames()), intersect(byCategory, byProduct),
+                    result.getPriceRangeCounts());
+            return result;
+        } finally {
+            _lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * This method completes the beginning of a name of item or product. Any word of
+     * the name can start the completion: "angel" completes "Large Angelfish".
+     *
+     * @param prefix beginning of the name, without case and accents
+     * @param limit  maximum number of names returned
+     * @return the names completing the prefix, in alphabetical order from the prefix
+     */
+    public List<String> complete(final String prefix, final int limit) {
+        final String key = fold(prefix);
+        final List<String> result = new ArrayList<String>();
+        if (key.length() == 0 || limit <= 0) {
+            return result;
+        }
+
+        final Completions completions = getCompletions();
+        int i = Arrays.binarySearch(completions.keys, key);
+        if (i < 0) {
+            i = -i - 1;
+        }
+        final Set<String> names = new LinkedHashSet<String>();
+        for (; i < completions.keys.length && names.size() < limit && completions.keys[i].startsWith(key); i++) {
+            names.add(completions.names[i]);
+        }
+        result.addAll(names);
+        return result;
+    }
+
+    /**
+     * This method adds or renames a category.
+     */
+    public void putCategory(final String categoryId, final String name) {
+        _lock.writeLock().lock();
+        try {
+            if (!_loaded) {
+                return;
+            }
+            _completions = null;
+            _categoryNames.put(categoryId, name);
+            final Set<String> productIds = _productsByCategory.get(categoryId);
+            if (productIds != null) {
+                for (String productId : productIds) {
+                    indexItemsOfProduct(productId);
+                }
+            }
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method removes a category, its products and their items.
+     */
+    public void removeCategory(final String categoryId) {
+        _lock.writeLock().lock();
+        try {
+            if (!_loaded) {
+                return;
+            }
+            _completions = null;
+            _categoryNames.remove(categoryId);
+            final Set<String> productIds = _productsByCategory.remove(categoryId);
+            if (productIds != null) {
+                for (String productId : new ArrayList<String>(productIds)) {
+                    removeProductEntry(productId);
+                }
+            }
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method adds or changes a product, its items are indexed again.
+     *
+     * @param product DTO of the product, with its category id
+     */
+    public void putProduct(final ProductDTO product) {
+        _lock.writeLock().lock();
+        try {
+            if (!_loaded) {
+                return;
+            }
+            _completions = null;
+            final ProductDTO previous = _products.get(product.getId());
+            if (previous != null) {
+                removeFromSet(_productsByCategory, previous.getCategoryId(), previous.getId());
+            }
+            putProductEntry(product);
+            indexItemsOfProduct(product.getId());
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method removes a product and its items.
+     */
+    public void removeProduct(final String productId) {
+        _lock.writeLock().lock();
+        try {
+            if (!_loaded) {
+                return;
+            }
+            _completions = null;
+            removeProductEntry(productId);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method adds or changes an item.
+     *
+     * @param item DTO of the item, with its product id
+     */
+    public void putItem(final ItemDTO item) {
+        _lock.writeLock().lock();
+        try {
+            if (!_loaded) {
+                return;
+            }
+            _completions = null;
+            removeItemEntry(item.getId());
+            putItemEntry(item);
+            indexItem(item.getId());
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method removes an item.
+     */
+    public void removeItem(final String itemId) {
+        _lock.writeLock().lock();
+        try {
+            if (!_loaded) {
+                return;
+            }
+            _completions = null;
+            removeItemEntry(itemId);
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * This method splits a text into words: sequences of letters and digits, in
+     * lower case and without accents.
+     *
+     * @param text a text, can be null
+     * @return the words of the text
+     */
+    public static List<String> tokenize(final String text) {
+        final List<String> words = new ArrayList<String>();
+        if (text == null) {
+            return words;
+        }
+        final String folded = Normalizer.normalize(text, Normalizer.Form.NFD).toLowerCase(Locale.ENGLISH);
+        final StringBuffer word = new StringBuffer();
+        for (int i = 0; i <= folded.length(); i++) {
+            final char c = i < folded.length() ? folded.charAt(i) : ' ';
+            if (Character.getType(c) == Character.NON_SPACING_MARK) {
+                continue;
+            }
+            if (Character.isLetterOrDigit(c)) {
+                word.append(c);
+            } else if (word.length() > 0) {
+                words.add(word.toString());
+                word.setLength(0);
+            }
+        }
+        return words;
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    private void clearEntries() {
+        _completions = null;
+        _categoryNames.clear();
+        _products.clear();
+        _items.clear();
+        _productsByCategory.clear();
+        _itemsByProduct.clear();
+        _postings.clear();
+        _itemWords.clear();
+        _slots.clear();
+        _slotItems.clear();
+        _usedSlots.clear();
+        _itemFacets.clear();
+        _categoryBitmaps.clear();
+        _productBitmaps.clear();
+        _priceRangeBitmaps.clear();
+    }
+
+    private void putProductEntry(final ProductDTO product) {
+        _products.put(product.getId(), new ProductDTO(product.getId(), product.getName(), product.getDescription(),
+                product.getCategoryId(), null));
+        addToSet(_productsByCategory, product.getCategoryId(), product.getId());
+    }
+
+    private void removeProductEntry(final String productId) {
+        final ProductDTO product = _products.remove(productId);
+        if (product != null) {
+            removeFromSet(_productsByCategory, product.getCategoryId(), productId);
+        }
+        final Set<String> itemIds = _itemsByProduct.remove(productId);
+        if (itemIds != null) {
+            for (String itemId : itemIds) {
+                unindexItem(itemId);
+                _items.remove(itemId);
+            }
+        }
+    }
+
+    private void putItemEntry(final ItemDTO item) {
+        // The index keeps its own copy, the names of the product are set when it is indexed
+        _items.put(item.getId(), copy(item));
+        addToSet(_itemsByProduct, item.getProductId(), item.getId());
+    }
+
+    private void removeItemEntry(final String itemId) {
+        final ItemDTO item = _items.remove(itemId);
+        if (item != null) {
+            removeFromSet(_itemsByProduct, item.getProductId(), itemId);
+            unindexItem(itemId);
+        }
+    }
+
+    private void indexItemsOfProduct(final String productId) {
+        final Set<String> itemIds = _itemsByProduct.get(productId);
+        if (itemIds != null) {
+            for (String itemId : itemIds) {
+                indexItem(itemId);
+            }
+        }
+    }
+
+    /**
+     * Indexes the words of an item, with the ones of its product and its category, and
+     * puts it in the bitmaps of its facet values. The DTO of the item gets the current
+     * name and description of its product.
+     */
+    private void indexItem(final String itemId) {
+        unindexItem(itemId);
+        final ItemDTO item = _items.get(itemId);
+        final ProductDTO product = _products.get(item.getProductId());
+
+        final Map<String, Integer> words = new HashMap<String, Integer>();
+        addWords(words, item.getId(), ID_WEIGHT);
+        addWords(words, item.getName(), ITEM_NAME_WEIGHT);
+        if (product != null) {
+            item.setProductName(product.getName());
+            item.setProductDescription(product.getDescription());
+            addWords(words, product.getName(), PRODUCT_NAME_WEIGHT);
+            addWords(words, product.getDescription(), PRODUCT_DESCRIPTION_WEIGHT);
+            addWords(words, _categoryNames.get(product.getCategoryId()), CATEGORY_NAME_WEIGHT);
+        }
+        for (Map.Entry<String, Integer> word : words.entrySet()) {
+            Map<String, Integer> posting = _postings.get(word.getKey());
+            if (posting == null) {
+                posting = new HashMap<String, Integer>();
+                _postings.put(word.getKey(), posting);
+            }
+            posting.put(itemId, word.getValue());
+        }
+        _itemWords.put(itemId, words);
+
+        // Takes the first free slot
+        final int slot = _usedSlots.nextClearBit(0);
+        _usedSlots.set(slot);
+        _slots.put(itemId, new Integer(slot));
+        while (_slotItems.size() <= slot) {
+            _slotItems.add(null);
+        }
+        _slotItems.set(slot, itemId);
+        final String[] facets = {product == null ? null : product.getCategoryId(), item.getProductId(),
+                ItemFacetQueryDTO.getPriceRangeName(item.getUnitCost())};
+        setBit(_categoryBitmaps, facets[0], slot);
+        setBit(_productBitmaps, facets[1], slot);
+        setBit(_priceRangeBitmaps, facets[2], slot);
+        _itemFacets.put(itemId, facets);
+    }
+
+    private void unindexItem(final String itemId) {
+        final Integer slot = _slots.remove(itemId);
+        if (slot != null) {
+            final String[] facets = _itemFacets.remove(itemId);
+            clearBit(_categoryBitmaps, facets[0], slot.intValue());
+            clearBit(_productBitmaps, facets[1], slot.intValue());
+            clearBit(_priceRangeBitmaps, facets[2], slot.intValue());
+            _usedSlots.clear(slot.intValue());
+            _slotItems.set(slot.intValue(), null);
+        }
+
+        final Map<String, Integer> words = _itemWords.remove(itemId);
+        if (words == null) {
+            return;
+        }
+        for (String word : words.keySet()) {
+            final Map<String, Integer> posting = _postings.get(word);
+            posting.remove(itemId);
+            if (posting.isEmpty()) {
+                _postings.remove(word);
+            }
+        }
+    }
+
+    /**
+     * @return the slots of the items of the values given, of all the items if none is given
+     */
+    private BitSet select(final Map<String, BitSet> bitmaps, final Set<String> values) {
+        if (values.isEmpty()) {
+            return (BitSet) _usedSlots.clone();
+        }
+        final BitSet slots = new BitSet();
+        for (String value : values) {
+            final BitSet bitmap = bitmaps.get(value);
+            if (bitmap != null) {
+                slots.or(bitmap);
+            }
+        }
+        return slots;
+    }
+
+    private static BitSet intersect(final BitSet slots1, final BitSet slots2) {
+        final BitSet slots = (BitSet) slots1.clone();
+        slots.and(slots2);
+        return slots;
+    }
+
+    private static void count(final Map<String, BitSet> bitmaps, final Collection<String> values, final BitSet filter,
+                              final Map<String, Integer> counts) {
+        for (String value : values) {
+            final BitSet bitmap = bitmaps.get(value);
+            if (bitmap != null) {
+                final int count = intersect(bitmap, filter).cardinality();
+                if (count > 0) {
+                    counts.put(value, new Integer(count));
+                }
+            }
+        }
+    }
+
+    private static void setBit(final Map<String, BitSet> bitmaps, final String value, final int slot) {
+        if (value == null) {
+            return;
+        }
+        BitSet bitmap = bitmaps.get(value);
+        if (bitmap == null) {
+            bitmap = new BitSet();
+            bitmaps.put(value, bitmap);
+        }
+        bitmap.set(slot);
+    }
+
+    private static void clearBit(final Map<String, BitSet> bitmaps, final String value, final int slot) {
+        if (value == null) {
+            return;
+        }
+        final BitSet bitmap = bitmaps.get(value);
+        if (bitmap != null) {
+            bitmap.clear(slot);
+            if (bitmap.isEmpty()) {
+                bitmaps.remove(value);
+            }
+        }
+    }
+
+    private Completions getCompletions() {
+        Completions completions = _completions;
+        if (completions != null) {
+            return completions;
+        }
+        _lock.writeLock().lock();
+        try {
+            if (_completions == null) {
+                final Set<String> names = new HashSet<String>();
+                for (ProductDTO product : _products.values()) {
+                    names.add(product.getName());
+                }
+                for (ItemDTO item : _items.values()) {
+                    names.add(item.getName());
+                }
+                _completions = new Completions(names);
+            }
+            return _completions;
+        } finally {
+            _lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the words of a text separated by one space
+     */
+    private static String fold(final String text) {
+        final StringBuffer buf = new StringBuffer();
+        for (String word : tokenize(text)) {
+            if (buf.length() > 0) {
+                buf.append(' ');
+            }
+            buf.append(word);
+        }
+        return buf.toString();
+    }
+
+    private static void addWords(final Map<String, Integer> words, final String text, final int weight) {
+        for (String word : tokenize(text)) {
+            final Integer score = words.get(word);
+            // A word counts once per field, with the weight of the field
+            words.put(word, new Integer(score == null ? weight : Math.max(score.intValue(), weight)));
+        }
+    }
+
+    private static void addToSet(final Map<String, Set<String>> sets, final String key, final String value) {
+        Set<String> set = sets.get(key);
+        if (set == null) {
+            set = new HashSet<String>();
+            sets.put(key, set);
+        }
+        set.add(value);
+    }
+
+    private static void removeFromSet(final Map<String, Set<String>> sets, final String key, final String value) {
+        final Set<String> set = sets.get(key);
+        if (set != null) {
+            set.remove(value);
+            if (set.isEmpty()) {
+                sets.remove(key);
+            }
+        }
+    }
+
+    private static ItemDTO copy(final ItemDTO item) {
+        return new ItemDTO(item.getId(), item.getName(), item.getUnitCost(), item.getImagePath(),
+                item.getProductId(), item.getProductName(), item.getProductDescription());
+    }
+
+    // ======================================
+    // =            Inner classes           =
+    // ======================================
+    /**
+     * Names sorted for the completion. A name has one key for each of its words: the
+     * folded name from this word to the end.
+     */
+    private static final class Completions {
+        private final String[] keys;
+        private final String[] names;
+
+        private Completions(final Collection<String> allNames) {
+            final List<String[]> entries = new ArrayList<String[]>();
+            for (String name : allNames) {
+                if (name == null) {
+                    continue;
+                }
+                final List<String> words = tokenize(name);
+                for (int i = 0; i < words.size(); i++) {
+                    final StringBuffer key = new StringBuffer();
+                    for (int j = i; j < words.size(); j++) {
+                        if (j > i) {
+                            key.append(' ');
+                        }
+                        key.append(words.get(j));
+                    }
+                    entries.add(new String[]{key.toString(), name});
+                }
+            }
+            Collections.sort(entries, new Comparator<String[]>() {
+                public int compare(final String[] entry1, final String[] entry2) {
+                    final int byKey = entry1[0].compareTo(entry2[0]);
+                    return byKey != 0 ? byKey : entry1[1].compareTo(entry2[1]);
+                }
+            });
+            keys = new String[entries.size()];
+            names = new String[entries.size()];
+            for (int i = 0; i < entries.size(); i++) {
+                keys[i] = entries.get(i)[0];
+                names[i] = entries.get(i)[1];
+            }
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package com.yaps.petstore.server.util.stock;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * This class keeps in memory the quantity available of each item whose stock is
+ * tracked. An order reserves its quantities against the ledger before it is written:
+ * the quantity of an item is taken with a compare-and-set on the counter of this item
+ * only, so the orders of different items never wait for each other and an item is
+ * never sold beyond its quantity.
+ * <p/>
+ * The counter of an item is created from its quantity on hand the first time it is
+ * reserved. The ledger is then the reference for this item: the quantities changed
+ * are written back to the database from time to time (see {@link #drainChanges()}),
+ * over the quantity on hand of the database. An item is restocked through the ledger
+ * (see {@link #restock(String, int, int)}), not by changing the database.
+ * It follows the Singleton design pattern.
+ */
+public final class StockLedger {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    // A handle to the unique Singleton instance.
+    private static final StockLedger _instance = new StockLedger();
+
+    private final ConcurrentMap<String, Stock> _stocks = new ConcurrentHashMap<String, Stock>();
+
+    private final AtomicLong _reserved = new AtomicLong();
+    private final AtomicLong _rejected = new AtomicLong();
+
+    // ======================================
+    // =            Constructors            =
+    // ======================================
+    private StockLedger() {
+    }
+
+    /**
+     * @return the unique instance of this class.
+     */
+    public static StockLedger getInstance() {
+        return _instance;
+    }
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    /**
+     * @return a new reservation, empty
+     */
+    public Reservation newReservation() {
+        return new Reservation();
+    }
+
+    /**
+     * @param itemId id of the item
+     * @return the quantity that can still be reserved, -1 if the ledger does not know the item
+     */
+    public int getAvailable(final String itemId) {
+        final Stock stock = _stocks.get(itemId);
+        return stock == null ? -1 : stock.available.get();
+    }
+
+    /**
+     * This method adds a quantity received to the stock of an item. The counter is
+     * created from the quantity on hand if the ledger does not know the item yet, the
+     * new quantity is written to the database with the other changes.
+     *
+     * @param itemId         id of the item
+     * @param quantityOnHand quantity on hand read from the database
+     * @param quantity       quantity received
+     * @return the quantity available after the restock
+     */
+    public int restock(final String itemId, final int quantityOnHand, final int quantity) {
+        final Stock stock = getStock(itemId, quantityOnHand);
+        final int available = stock.available.addAndGet(quantity);
+        stock.changed.set(true);
+        return available;
+    }
+
+    /**
+     * This method returns the quantities that changed since the last call, to be
+     * written to the database.
+     *
+     * @return the (itemId, quantity available) of the items changed
+     */
+    public Map<String, Integer> drainChanges() {
+        final Map<String, Integer> changes = new HashMap<String, Integer>();
+        for (Map.Entry<String, Stock> entry : _stocks.entrySet()) {
+            final Stock stock = entry.getValue();
+            if (stock.changed.compareAndSet(true, false)) {
+                changes.put(entry.getKey(), stock.available.get());
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * This method marks again as changed items that could not be written, they are
+     * returned by the next call to {@link #drainChanges()}.
+     */
+    public void restoreChanges(final Collection<String> itemIds) {
+        for (String itemId : itemIds) {
+            final Stock stock = _stocks.get(itemId);
+            if (stock != null) {
+                stock.changed.set(true);
+            }
+        }
+    }
+
+    /**
+     * This method forgets an item, its counter is created again from the database.
+     */
+    public void remove(final String itemId) {
+        _stocks.remove(itemId);
+    }
+
+    /**
+     * This method forgets all the items.
+     */
+    public void clear() {
+        _stocks.clear();
+    }
+
+    // ======================================
+    // =         Getters and Setters        =
+    // ======================================
+    /**
+     * @return the number of reservations of an item since the start
+     */
+    public long getReservedCount() {
+        return _reserved.get();
+    }
+
+    /**
+     * @return the number of reservations refused for lack of stock since the start
+     */
+    public long getRejectedCount() {
+        return _rejected.get();
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    /**
+     * @return the counter of the item, it is created from the quantity on hand the first time
+     */
+    private Stock getStock(final String itemId, final int quantityOnHand) {
+        final Stock stock = _stocks.get(itemId);
+        if (stock != null) {
+            return stock;
+        }
+        final Stock created = new Stock(quantityOnHand);
+        final Stock existing = _stocks.putIfAbsent(itemId, created);
+        return existing == null ? created : existing;
+    }
+
+    private boolean take(final String itemId, final int quantityOnHand, final int quantity) {
+        if (quantity <= 0)
+            throw new IllegalArgumentException("Invalid quantity " + quantity);
+        final Stock stock = getStock(itemId, quantityOnHand);
+        while (true) {
+            final int available = stock.available.get();
+            if (available < quantity) {
+                _rejected.incrementAndGet();
+                return false;
+            }
+            if (stock.available.compareAndSet(available, available - quantity)) {
+                stock.changed.set(true);
+                _reserved.incrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    private void giveBack(final String itemId, final int quantity) {
+        final Stock stock = _stocks.get(itemId);
+        if (stock != null) {
+            stock.available.addAndGet(quantity);
+            stock.changed.set(true);
+        }
+    }
+
+    // ======================================
+    // =            Inner classes           =
+    // ======================================
+    private static final class Stock {
+        private final AtomicInteger available;
+        private final AtomicBoolean changed = new AtomicBoolean(false);
+
+        private Stock(final int quantityOnHand) {
+            available = new AtomicInteger(quantityOnHand);
+        }
+    }
+
+    /**
+     * This class holds the quantities reserved by one order. They are released all
+     * together, once, if the order is not created.
+     */
+    public final class Reservation {
+        private final List<String> _itemIds = new ArrayList<String>();
+        private final List<Integer> _quantities = new ArrayList<Integer>();
+        private final AtomicBoolean _released = new AtomicBoolean(false);
+
+        private Reservation() {
+        }
+
+        /**
+         * @param itemId         id of the item
+         * @param quantityOnHand quantity on hand read from the database, null if the stock of the item is not tracked
+         * @param quantity       a positive quantity ordered
+         * @return false if there is not enough stock, nothing is reserved then
+         */
+        public boolean reserve(final String itemId, final Integer quantityOnHand, final int quantity) {
+            if (quantityOnHand == null) {
+                return true;
+            }
+            if (!take(itemId, quantityOnHand.intValue(), quantity)) {
+                return false;
+            }
+            _itemIds.add(itemId);
+            _quantities.add(quantity);
+            return true;
+        }
+
+        /**
+         * This method gives back the quantities reserved, it does nothing the second time.
+         */
+        public void release() {
+            if (!_released.compareAndSet(false, true)) {
+                return;
+            }
+            for (int i = 0; i < _itemIds.size(); i++) {
+                giveBack(_itemIds.get(i), _quantities.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package com.yaps.petstore.web.listener;
+
+import com.yaps.petstore.server.util.persistence.EntityManagerFactoryRegistry;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+
+/**
+ * This listener creates the EntityManagerFactory of the petstore persistence unit
+ * when the application is deployed, instead of on the first request, and closes
+ * it when the application is undeployed.
+ */
+public final class PersistenceWarmUpListener implements ServletContextListener {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private static final String PERSISTENCE_UNIT_NAME = "petstorePU";
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    public void contextInitialized(final ServletContextEvent event) {
+        EntityManagerFactoryRegistry.warmUp(PERSISTENCE_UNIT_NAME);
+    }
+
+    public void contextDestroyed(final ServletContextEvent event) {
+        EntityManagerFactoryRegistry.closeAll();
+    }
+}
@@ -0,0 +1,48 @@
+package com.yaps.petstore.web.listener;
+
+import com.yaps.petstore.common.delegate.ShoppingCartDelegate;
+import com.yaps.petstore.common.logging.Trace;
+
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.http.HttpSessionEvent;
+import javax.servlet.http.HttpSessionListener;
+
+/**
+ * This listener removes the shopping cart of an HTTP session when the session is
+ * invalidated or expires, and all the shopping carts when the application is undeployed.
+ * When the application starts, it reads where the carts are kept from the
+ * shoppingCartMode context parameter: "remote" for cart beans, "local" for the HTTP
+ * sessions.
+ */
+public final class ShoppingCartSessionListener implements HttpSessionListener, ServletContextListener {
+
+    // Used for logging
+    private final String _cname = this.getClass().getName();
+
+    private static final String SHOPPING_CART_MODE = "shoppingCartMode";
+
+    // ======================================
+    // =           Business methods         =
+    // ======================================
+    public void sessionCreated(final HttpSessionEvent event) {
+    }
+
+    public void sessionDestroyed(final HttpSessionEvent event) {
+        final String mname = "sessionDestroyed";
+        if (ShoppingCartDelegate.release(event.getSession().getId())) {
+            Trace.finest(_cname, mname, ShoppingCartDelegate.getLiveShoppingCarts() + " live shopping carts");
+        }
+    }
+
+    public void contextInitialized(final ServletContextEvent event) {
+        final String mname = "contextInitialized";
+        final String mode = event.getServletContext().getInitParameter(SHOPPING_CART_MODE);
+        ShoppingCartDelegate.setLocalMode("local".equalsIgnoreCase(mode));
+        Trace.finest(_cname, mname, "Shopping carts kept " + (ShoppingCartDelegate.isLocalMode() ? "in the sessions" : "in cart beans"));
+    }
+
+    public void contextDestroyed(final ServletContextEvent event) {
+        ShoppingCartDelegate.releaseAll();
+    }
+}
@@ -1,6 +1,11 @@
 package com.yaps.petstore.web.servlet;
 
+import com.yaps.petstore.common.delegate.ShoppingCartDelegate;
+import com.yaps.petstore.server.cart.CompactCart;
+
 import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpSession;
 
 /**
  * Every servlet should extend this class
@@ -14,6 +19,30 @@ public abstract class AbstractServlet extends HttpServlet {
     // Used for logging
     private final transient String _cname = this.getClass().getName();
 
+    // Attribute of the HTTP session holding the cart in the local mode
+    private static final String SHOPPING_CART = "shoppingCart";
+
+    // ======================================
+    // =          Protected methods         =
+    // ======================================
+    /**
+     * This method returns the delegate of the shopping cart of the session. In the local
+     * mode the cart is kept in the session, it is created the first time.
+     */
+    protected ShoppingCartDelegate getShoppingCartDelegate(final HttpServletRequest request) {
+        final HttpSession session = request.getSession();
+        if (!ShoppingCartDelegate.isLocalMode()) {
+            return new ShoppingCartDelegate(session.getId());
+        }
+        CompactCart cart = (CompactCart) session.getAttribute(SHOPPING_CART);
+        if (cart == null) {
+            cart = new CompactCart();
+        }
+        // Set again so that a replicated session knows the cart may change in this request
+        session.setAttribute(SHOPPING_CART, cart);
+        return new ShoppingCartDelegate(session.getId(), cart);
+    }
+
     // ======================================
     // =         Getters and Setters        =
     // ======================================
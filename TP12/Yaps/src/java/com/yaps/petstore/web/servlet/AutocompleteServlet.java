@@ -0,0 +1,86 @@
+package com.yaps.petstore.web.servlet;
+
+import com.yaps.petstore.common.delegate.CatalogDelegate;
+import com.yaps.petstore.common.exception.CheckException;
+import com.yaps.petstore.common.logging.Trace;
+
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * This servlet returns the names completing the beginning typed in the search box,
+ * as a JSON array of strings. It is called at each keystroke, so it writes the
+ * answer itself instead of going to a page.
+ */
+public class AutocompleteServlet extends AbstractServlet {
+
+    // ======================================
+    // =             Attributes             =
+    // ======================================
+    private static final int DEFAULT_LIMIT = 10;
+    private static final int MAX_LIMIT = 50;
+
+    // ======================================
+    // =         Entry point method         =
+    // ======================================
+    protected void service(final HttpServletRequest request, final HttpServletResponse response) throws ServletException, IOException {
+        final String mname = "service";
+        Trace.entering(getCname(), mname);
+
+        final String prefix = request.getParameter("prefix");
+        int limit = DEFAULT_LIMIT;
+        try {
+            if (request.getParameter("limit") != null)
+                limit = Math.min(Integer.parseInt(request.getParameter("limit")), MAX_LIMIT);
+        } catch (NumberFormatException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid limit");
+            return;
+        }
+
+        try {
+            // Completes the prefix
+            final Collection names = CatalogDelegate.autocomplete(prefix, limit);
+
+            response.setContentType("application/json");
+            response.setCharacterEncoding("UTF-8");
+            final PrintWriter out = response.getWriter();
+            out.print('[');
+            for (Iterator iterator = names.iterator(); iterator.hasNext();) {
+                writeString(out, (String) iterator.next());
+                if (iterator.hasNext())
+                    out.print(',');
+            }
+            out.print(']');
+
+        } catch (CheckException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+        } catch (Exception e) {
+            Trace.throwing(getCname(), mname, e);
+            response.sendError(HttpServletResponse.SC_INTERNAL_SERVER_ERROR, "Cannot complete " + prefix);
+        }
+    }
+
+    // ======================================
+    // =          Private Methods           =
+    // ======================================
+    private void writeString(final PrintWriter out, final String value) {
+        out.print('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.print('\\');
+                out.print(c);
+            } else if (c < ' ') {
+                out.print(String.format("\\u%04x", new Integer(c)));
+            } else {
+                out.print(c);
+            }
+        }
+        out.print('"');
+    }
+}
@@ -1,6 +1,5 @@
 package com.yaps.petstore.web.servlet;
 
-import com.yaps.petstore.common.delegate.ShoppingCartDelegate;
 import com.yaps.petstore.common.logging.Trace;
 
 import javax.servlet.ServletException;
@@ -17,18 +16,10 @@ public class SignOffServlet extends AbstractServlet {
         final String mname = "service";
         Trace.entering(getCname(), mname);
 
-        // Invalidates the HTTPSession
+        // Invalidates the HTTPSession, the ShoppingCartSessionListener removes its Shopping Cart
         request.getSession().invalidate();
         Trace.finest(getCname(), mname, "http session invalidate");
 
-        // Empties the Shopping Cart
-        try {
-        	ShoppingCartDelegate shoppingCartDelegate = new ShoppingCartDelegate(request.getSession().getId());
-            shoppingCartDelegate.empty();
-        } catch (Exception e) {
-            // If an expcetion is caught, nothing is done
-        }
-
         // Goes to the index page passing the request
         getServletContext().getRequestDispatcher("/signoff.jsp").forward(request, response);
     }
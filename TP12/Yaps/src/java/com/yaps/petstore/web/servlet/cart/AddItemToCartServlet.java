@@ -24,7 +24,7 @@ public class AddItemToCartServlet extends AbstractServlet {
 
         try {
             // Adds the itemId into the Shopping Cart
-        	ShoppingCartDelegate delegate = new ShoppingCartDelegate(request.getSession().getId());
+        	ShoppingCartDelegate delegate = getShoppingCartDelegate(request);
             delegate.addItem(request.getParameter("itemId"));
 
             getServletContext().getRequestDispatcher("/viewcart").forward(request, response);
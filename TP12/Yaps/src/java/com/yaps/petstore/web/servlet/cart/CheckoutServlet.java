@@ -32,7 +32,7 @@ public class CheckoutServlet extends AbstractServlet {
         try {
             // Gets the customer id and the shopping cart
             customerId = ((CustomerDTO)request.getSession().getAttribute("customerDTO")).getId();
-        	ShoppingCartDelegate shoppingCartDelegate = new ShoppingCartDelegate(request.getSession().getId());
+        	ShoppingCartDelegate shoppingCartDelegate = getShoppingCartDelegate(request);
             shoppingCart = shoppingCartDelegate.getCart();
 
             // Creates the order and
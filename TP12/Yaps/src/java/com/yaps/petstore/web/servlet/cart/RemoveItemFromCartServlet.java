@@ -22,7 +22,7 @@ public class RemoveItemFromCartServlet extends AbstractServlet {
 
         try {
             // Removes the itemId into the Shopping Cart
-        	ShoppingCartDelegate shoppingCartDelegate = new ShoppingCartDelegate(request.getSession().getId());
+        	ShoppingCartDelegate shoppingCartDelegate = getShoppingCartDelegate(request);
             shoppingCartDelegate.removeItem(request.getParameter("itemId"));
 
             getServletContext().getRequestDispatcher("/viewcart").forward(request, response);
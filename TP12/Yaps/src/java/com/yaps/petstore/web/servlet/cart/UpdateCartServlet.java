@@ -22,7 +22,7 @@ public class UpdateCartServlet  extends AbstractServlet {
 
         try {
             // Updates the itemId with quantity into the Shopping Cart
-        	ShoppingCartDelegate shoppingCartDelegate = new ShoppingCartDelegate(request.getSession().getId());      	
+        	ShoppingCartDelegate shoppingCartDelegate = getShoppingCartDelegate(request);      	
             shoppingCartDelegate.updateItemQuantity(request.getParameter("itemId"), 
                                                     Integer.parseInt(request.getParameter("quantity")));
 
@@ -1,6 +1,7 @@
 package com.yaps.petstore.web.servlet.cart;
 
 import com.yaps.petstore.common.delegate.ShoppingCartDelegate;
+import com.yaps.petstore.common.dto.ShoppingCartDTO;
 import com.yaps.petstore.common.logging.Trace;
 import com.yaps.petstore.web.servlet.AbstractServlet;
 
@@ -9,7 +10,6 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.IOException;
 import java.rmi.RemoteException;
-import java.util.Collection;
 
 /**
  * This servlet browses the content of the shopping cart.
@@ -23,20 +23,15 @@ public class ViewCartServlet extends AbstractServlet {
         final String mname = "service";
         Trace.entering(getCname(), mname);
 
-        final Collection cartItemsDTO;
-        final Double total;
+        final ShoppingCartDTO cartDTO;
 
         try {
-            // Gets the content of the Shopping Cart and
-        	ShoppingCartDelegate shoppingCartDelegate = new ShoppingCartDelegate(request.getSession().getId());
-            cartItemsDTO = shoppingCartDelegate.getItems();
+            // Gets the content of the Shopping Cart with its total in one call and
+        	ShoppingCartDelegate shoppingCartDelegate = getShoppingCartDelegate(request);
+            cartDTO = shoppingCartDelegate.getCartView();
 
-            // ... the total of the shopping cart and
-            total = shoppingCartDelegate.getTotal();
-
-            // ... puts all the data into the request
-            request.setAttribute("cartItemsDTO", cartItemsDTO);
-            request.setAttribute("total", total);
+            // ... puts it into the request
+            request.setAttribute("cartDTO", cartDTO);
 
             // Goes to the cart page passing the request
             getServletContext().getRequestDispatcher("/cart.jsp").forward(request, response);
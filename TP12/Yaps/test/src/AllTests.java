@@ -3,11 +3,20 @@ import com.barkbank.verifier.VerifyCreditCardServletTest;
 import com.yaps.petstore.common.delegate.CatalogDelegateTest;
 import com.yaps.petstore.common.delegate.CustomerDelegateTest;
 import com.yaps.petstore.common.delegate.OrderDelegateTest;
+import com.yaps.petstore.common.delegate.ShoppingCartDelegateTest;
+import com.yaps.petstore.common.delegate.ShoppingCartRegistryTest;
 import com.yaps.petstore.server.domain.*;
 import com.yaps.petstore.server.service.CatalogServiceTest;
+import com.yaps.petstore.server.service.CatalogSnapshotTest;
 import com.yaps.petstore.server.service.CustomerServiceTest;
 import com.yaps.petstore.server.service.OrderServiceTest;
+import com.yaps.petstore.server.util.persistence.CacheStatisticsTest;
+import com.yaps.petstore.server.util.persistence.EntityManagerBindingTest;
+import com.yaps.petstore.server.util.persistence.EntityManagerFactoryRegistryTest;
+import com.yaps.petstore.server.util.search.ItemSearchIndexTest;
+import com.yaps.petstore.server.util.stock.StockLedgerTest;
 import com.yaps.petstore.server.util.uidgen.UniqueIdGeneratorTest;
+import com.yaps.petstore.server.cart.CompactCartTest;
 import com.yaps.petstore.server.cart.ShoppingCartTest;
 import com.yaps.petstore.web.VisualiseCatalogTest;
 import com.yaps.petstore.web.WebTest;
@@ -41,19 +50,28 @@ public final class AllTests extends TestCase {
         /*
         // Service
         suite.addTest(CatalogServiceTest.suite());
+        suite.addTest(CatalogSnapshotTest.suite());
         suite.addTest(CustomerServiceTest.suite());
         suite.addTest(OrderServiceTest.suite());
 
         // Shopping Cart
         suite.addTest(ShoppingCartTest.suite());
+        suite.addTest(CompactCartTest.suite());
 
           // Delegate
         suite.addTest(CatalogDelegateTest.suite());
         suite.addTest(CustomerDelegateTest.suite());
         suite.addTest(OrderDelegateTest.suite());
+        suite.addTest(ShoppingCartRegistryTest.suite());
+        suite.addTest(ShoppingCartDelegateTest.suite());
 
         // Util
         suite.addTest(UniqueIdGeneratorTest.suite());
+        suite.addTest(EntityManagerFactoryRegistryTest.suite());
+        suite.addTest(EntityManagerBindingTest.suite());
+        suite.addTest(CacheStatisticsTest.suite());
+        suite.addTest(ItemSearchIndexTest.suite());
+        suite.addTest(StockLedgerTest.suite());
 
         // Web
         suite.addTest(WebTest.suite());
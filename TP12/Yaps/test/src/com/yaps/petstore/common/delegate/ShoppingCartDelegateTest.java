@@ -0,0 +1,56 @@
+package com.yaps.petstore.common.delegate;
+
+import com.yaps.petstore.AbstractTestCase;
+import com.yaps.petstore.server.cart.CompactCart;
+import junit.framework.TestSuite;
+
+import java.util.Map;
+
+/**
+ * This class tests the ShoppingCartDelegate class in the local mode, where the cart
+ * does not need the container
+ */
+public final class ShoppingCartDelegateTest extends AbstractTestCase {
+
+    public ShoppingCartDelegateTest(final String s) {
+        super(s);
+    }
+
+    public static TestSuite suite() {
+        return new TestSuite(ShoppingCartDelegateTest.class);
+    }
+
+    //==================================
+    //=            Test cases          =
+    //==================================
+    /**
+     * This test makes sure that a local cart is changed by the delegate and kept
+     * between two delegates of the same session.
+     */
+    public void testDelegateLocalCart() throws Exception {
+        final CompactCart cart = new CompactCart();
+        final ShoppingCartDelegate delegate = new ShoppingCartDelegate("session1", cart);
+
+        delegate.addItem("EST1");
+        delegate.addItem("EST2");
+        delegate.updateItemQuantity("EST2", 3);
+        assertEquals(2, cart.size());
+
+        // The next request of the session uses a new delegate on the same cart
+        final Map shoppingCart = new ShoppingCartDelegate("session1", cart).getCart();
+        assertEquals(2, shoppingCart.size());
+        assertEquals(new Integer(1), shoppingCart.get("EST1"));
+        assertEquals(new Integer(3), shoppingCart.get("EST2"));
+
+        delegate.updateItemQuantity("EST1", 0);
+        delegate.removeItem("EST2");
+        assertTrue(delegate.getCart().isEmpty());
+
+        delegate.addItem("EST1");
+        delegate.empty();
+        assertTrue(cart.isEmpty());
+
+        // No cart bean has been created
+        assertFalse(ShoppingCartDelegate.release("session1"));
+    }
+}
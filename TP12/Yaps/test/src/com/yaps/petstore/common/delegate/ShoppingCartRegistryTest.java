@@ -0,0 +1,146 @@
+package com.yaps.petstore.common.delegate;
+
+import com.yaps.petstore.AbstractTestCase;
+import com.yaps.petstore.common.dto.ShoppingCartDTO;
+import com.yaps.petstore.server.cart.ShoppingCart;
+import junit.framework.TestSuite;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * This class tests the ShoppingCartRegistry class, it uses carts that do not need
+ * the container
+ */
+public final class ShoppingCartRegistryTest extends AbstractTestCase {
+
+    public ShoppingCartRegistryTest(final String s) {
+        super(s);
+    }
+
+    public static TestSuite suite() {
+        return new TestSuite(ShoppingCartRegistryTest.class);
+    }
+
+    //==================================
+    //=            Test cases          =
+    //==================================
+    /**
+     * This test makes sure that a session keeps its cart until it is released, and
+     * that a released cart is removed.
+     */
+    public void testDelegateRegisterAndRelease() throws Exception {
+        final ShoppingCartRegistry registry = new ShoppingCartRegistry(10, 60000);
+        final TestCart cart = new TestCart();
+
+        assertNull(registry.get("session1"));
+        assertSame(cart, registry.register("session1", cart));
+        assertSame(cart, registry.get("session1"));
+        assertEquals(1, registry.getLiveCarts());
+
+        // A second cart for the same session is removed
+        final TestCart other = new TestCart();
+        assertSame(cart, registry.register("session1", other));
+        assertEquals(1, other.removed);
+
+        assertTrue(registry.release("session1"));
+        assertFalse(registry.release("session1"));
+        assertNull(registry.get("session1"));
+        assertEquals(1, cart.removed);
+        assertEquals(0, registry.getLiveCarts());
+        assertEquals(1, registry.getRegisteredCarts());
+        assertEquals(1, registry.getReleasedCarts());
+    }
+
+    /**
+     * This test makes sure that the registry never holds more carts than its bound,
+     * and never evicts a cart in use: the new cart is refused.
+     */
+    public void testDelegateBoundedSize() throws Exception {
+        final ShoppingCartRegistry registry = new ShoppingCartRegistry(2, 60000);
+        final TestCart cart1 = new TestCart();
+        final TestCart cart2 = new TestCart();
+        final TestCart cart3 = new TestCart();
+
+        registry.register("session1", cart1);
+        registry.register("session2", cart2);
+        assertNull(registry.register("session3", cart3));
+
+        assertEquals(2, registry.getLiveCarts());
+        assertEquals(1, cart3.removed);
+        assertNull(registry.get("session3"));
+        assertSame(cart1, registry.get("session1"));
+        assertSame(cart2, registry.get("session2"));
+        assertEquals(0, registry.getEvictedCarts());
+        assertEquals(1, registry.getRefusedCarts());
+
+        // A released cart makes room
+        registry.release("session1");
+        assertSame(cart3, registry.register("session3", cart3));
+        assertEquals(2, registry.getLiveCarts());
+    }
+
+    /**
+     * This test makes sure that the idle carts are evicted, all at once, and that the
+     * ones used meanwhile are kept.
+     */
+    public void testDelegateIdleEviction() throws Exception {
+        final ShoppingCartRegistry registry = new ShoppingCartRegistry(3, 50);
+        registry.register("session1", new TestCart());
+        registry.register("session2", new TestCart());
+        registry.register("session0", new TestCart());
+        Thread.sleep(100);
+        registry.get("session0");
+        registry.register("session3", new TestCart());
+        registry.register("session4", new TestCart());
+
+        assertEquals(3, registry.getLiveCarts());
+        assertEquals(2, registry.getEvictedCarts());
+        assertNotNull(registry.get("session0"));
+        assertNotNull(registry.get("session3"));
+        assertNull(registry.get("session1"));
+
+        registry.releaseAll();
+        assertEquals(0, registry.getLiveCarts());
+    }
+
+    //==================================
+    //=         Private Methods        =
+    //==================================
+    private static final class TestCart implements ShoppingCart {
+        private int removed;
+
+        public Map getCart() {
+            return Collections.EMPTY_MAP;
+        }
+
+        public Collection getItems() {
+            return Collections.EMPTY_LIST;
+        }
+
+        public ShoppingCartDTO getCartView() {
+            return new ShoppingCartDTO();
+        }
+
+        public void addItem(final String itemId) {
+        }
+
+        public void removeItem(final String itemId) {
+        }
+
+        public void updateItemQuantity(final String itemId, final int newQty) {
+        }
+
+        public Double getTotal() {
+            return new Double(0);
+        }
+
+        public void empty() {
+        }
+
+        public void remove() {
+            removed++;
+        }
+    }
+}
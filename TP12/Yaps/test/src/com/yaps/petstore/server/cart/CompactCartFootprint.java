@@ -0,0 +1,78 @@
+package com.yaps.petstore.server.cart;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * This program gives the bytes per cart, on the heap and written, of the compact cart
+ * and of the HashMap of boxed quantities it replaces. It is run by hand, it is not part
+ * of the tests.
+ */
+public class CompactCartFootprint {
+
+    // Number of carts measured and number of items of each cart
+    private static final int CARTS = 100000;
+    private static final int ITEMS_PER_CART = 5;
+
+    public static void main(String[] args) throws IOException {
+        final String[] itemIds = new String[ITEMS_PER_CART * 20];
+        for (int i = 0; i < itemIds.length; i++) {
+            itemIds[i] = "EST" + i;
+        }
+        // The ids are those of the catalog, they all get a code
+        new CompactCart().compact(Arrays.asList(itemIds));
+
+        final Object[] maps = new Object[CARTS];
+        final long mapHeap = measureHeap(maps, itemIds, false);
+        final Object[] carts = new Object[CARTS];
+        final long cartHeap = measureHeap(carts, itemIds, true);
+
+        System.out.println("Bytes per cart of " + ITEMS_PER_CART + " items:");
+        System.out.println(" HashMap     heap=" + mapHeap / CARTS + " written=" + serialize((Serializable) maps[0]).length);
+        System.out.println(" CompactCart heap=" + cartHeap / CARTS + " written=" + serialize((Serializable) carts[0]).length);
+    }
+
+    /**
+     * Fills the array with carts and returns the heap they use.
+     */
+    private static long measureHeap(final Object[] holder, final String[] itemIds, final boolean compact) {
+        final long before = usedHeap();
+        for (int i = 0; i < holder.length; i++) {
+            if (compact) {
+                final CompactCart cart = new CompactCart();
+                for (int j = 0; j < ITEMS_PER_CART; j++) {
+                    cart.put(itemIds[(i + j * 7) % itemIds.length], j + 1);
+                }
+                holder[i] = cart;
+            } else {
+                final Map<String, Integer> map = new HashMap<String, Integer>();
+                for (int j = 0; j < ITEMS_PER_CART; j++) {
+                    map.put(itemIds[(i + j * 7) % itemIds.length], j + 1);
+                }
+                holder[i] = map;
+            }
+        }
+        return usedHeap() - before;
+    }
+
+    private static long usedHeap() {
+        final Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+
+    private static byte[] serialize(final Serializable object) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(object);
+        out.close();
+        return bytes.toByteArray();
+    }
+}
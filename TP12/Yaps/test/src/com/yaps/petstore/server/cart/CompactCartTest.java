@@ -0,0 +1,162 @@
+package com.yaps.petstore.server.cart;
+
+import com.yaps.petstore.AbstractTestCase;
+import junit.framework.TestSuite;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class tests the CompactCart class. Its footprint is measured by
+ * CompactCartFootprint, which is not part of the tests.
+ */
+public final class CompactCartTest extends AbstractTestCase {
+
+    public CompactCartTest(final String s) {
+        super(s);
+    }
+
+    public static TestSuite suite() {
+        return new TestSuite(CompactCartTest.class);
+    }
+
+    //==================================
+    //=            Test cases          =
+    //==================================
+    /**
+     * This test puts, updates and removes items, enough for the table to grow.
+     */
+    public void testCartPutAndRemove() throws Exception {
+        final String prefix = "cart" + getPossibleUniqueStringId() + "_";
+        final CompactCart cart = new CompactCart();
+        final Map<String, Integer> expected = new HashMap<String, Integer>();
+        assertTrue(cart.isEmpty());
+        assertEquals(0, cart.getQuantity(prefix + "unknown"));
+        assertFalse(cart.remove(prefix + "unknown"));
+
+        for (int i = 0; i < 50; i++) {
+            cart.put(prefix + i, i + 1);
+            expected.put(prefix + i, i + 1);
+        }
+        cart.put(prefix + 7, 70);
+        expected.put(prefix + 7, 70);
+        assertEquals(50, cart.size());
+        assertEquals(expected, cart.toMap());
+
+        // Removing every third item moves back the following ones of their cluster
+        for (int i = 0; i < 50; i += 3) {
+            assertTrue(cart.remove(prefix + i));
+            expected.remove(prefix + i);
+        }
+        assertFalse(cart.remove(prefix + 0));
+        assertEquals(expected.size(), cart.size());
+        assertEquals(expected, cart.toMap());
+        for (int i = 0; i < 50; i++) {
+            final Integer quantity = expected.get(prefix + i);
+            assertEquals(quantity == null ? 0 : quantity.intValue(), cart.getQuantity(prefix + i));
+        }
+        assertEquals(expected.size(), cart.getItemIds().size());
+
+        try {
+            cart.put(prefix + 1, 0);
+            fail("A quantity must be positive");
+        } catch (IllegalArgumentException e) {
+        }
+
+        cart.clear();
+        assertTrue(cart.isEmpty());
+        assertEquals(0, cart.getQuantity(prefix + 1));
+    }
+
+    /**
+     * This test makes sure that a cart is read back with the same items and quantities.
+     */
+    public void testCartExternalizable() throws Exception {
+        final CompactCart cart = new CompactCart();
+        for (int i = 0; i < 10; i++) {
+            cart.put("EST" + i, i + 1);
+        }
+        cart.remove("EST3");
+
+        final CompactCart copy = (CompactCart) deserialize(serialize(cart));
+        assertEquals(cart.toMap(), copy.toMap());
+        assertEquals(9, copy.size());
+        copy.put("EST3", 4);
+        assertEquals(4, copy.getQuantity("EST3"));
+
+        assertEquals(0, ((CompactCart) deserialize(serialize(new CompactCart()))).size());
+
+        // The written cart is smaller than the map it replaces
+        final Map<String, Integer> map = new HashMap<String, Integer>(cart.toMap());
+        cart.compact(map.keySet());
+        assertTrue(serialize(cart).length < serialize((Serializable) map).length);
+    }
+
+    /**
+     * This test makes sure that only the ids found in the catalog get a code, the
+     * others are kept as they are and never enter the dictionary.
+     */
+    public void testCartCompact() throws Exception {
+        final String prefix = "compact" + getPossibleUniqueStringId() + "_";
+        final int dictionarySize = ItemIdDictionary.size();
+        final CompactCart cart = new CompactCart();
+        for (int i = 0; i < 10; i++) {
+            cart.put(prefix + i, i + 1);
+        }
+        assertEquals(dictionarySize, ItemIdDictionary.size());
+        assertEquals(10, cart.size());
+
+        // Half of the items are in the catalog
+        final List<String> catalogItemIds = new ArrayList<String>();
+        for (int i = 0; i < 10; i += 2) {
+            catalogItemIds.add(prefix + i);
+        }
+        cart.compact(catalogItemIds);
+        assertEquals(dictionarySize + 5, ItemIdDictionary.size());
+        assertEquals(10, cart.size());
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i + 1, cart.getQuantity(prefix + i));
+        }
+
+        // An item coded by another cart is moved when it is put again
+        final CompactCart other = new CompactCart();
+        other.put(prefix + 1, 1);
+        cart.compact(Collections.singleton(prefix + 1));
+        assertEquals(1, other.getQuantity(prefix + 1));
+        other.put(prefix + 1, 3);
+        assertEquals(1, other.size());
+        assertEquals(3, other.getQuantity(prefix + 1));
+        assertTrue(other.remove(prefix + 1));
+        assertTrue(other.isEmpty());
+
+        assertTrue(cart.remove(prefix + 0));
+        assertTrue(cart.remove(prefix + 3));
+        assertFalse(cart.remove(prefix + 3));
+        assertEquals(8, cart.size());
+        assertEquals(8, ((CompactCart) deserialize(serialize(cart))).toMap().size());
+    }
+
+    //==================================
+    //=         Private Methods        =
+    //==================================
+    private static byte[] serialize(final Serializable object) throws Exception {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(object);
+        out.close();
+        return bytes.toByteArray();
+    }
+
+    private static Object deserialize(final byte[] bytes) throws Exception {
+        final ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes));
+        return in.readObject();
+    }
+}
@@ -4,6 +4,7 @@ import com.yaps.petstore.AbstractTestCase;
 import com.yaps.petstore.common.dto.CategoryDTO;
 import com.yaps.petstore.common.dto.ItemDTO;
 import com.yaps.petstore.common.dto.ProductDTO;
+import com.yaps.petstore.common.dto.ShoppingCartDTO;
 import com.yaps.petstore.common.exception.*;
 import com.yaps.petstore.common.locator.ServiceLocator;
 import com.yaps.petstore.server.service.catalog.CatalogService;
@@ -78,6 +79,11 @@ public final class ShoppingCartTest extends AbstractTestCase {
         total = (itemDTO.getUnitCost() * 10) + newItemDTO.getUnitCost();
         assertEquals("The total should be equal to " + total, shoppingCart.getTotal(), new Double(total));
 
+        // The view of the shopping cart holds the lines and the same total
+        final ShoppingCartDTO cartDTO = shoppingCart.getCartView();
+        assertEquals(2, cartDTO.getItems().size());
+        assertEquals("The total should be equal to " + total, new Double(cartDTO.getTotal()), new Double(total));
+
         // Removes the new item from the shopping cart [10 items]
         shoppingCart.removeItem(newItemDTO.getId());
 
@@ -264,6 +264,41 @@ public final class CategoryDAOTest extends AbstractTestCase {
 
     }
 
+    /**
+     * This test ensures that the writes that do not read the object first still
+     * report an unknown or a duplicate object, and that their changes are stored.
+     */
+    public void testDomainWriteWithoutReading() throws Exception {
+        final String id = getUniqueId();
+
+        // Deletes an unknown object
+        try {
+            removeCategory(id);
+            fail("Deleting an unknown object should break");
+        } catch (ObjectNotFoundException e) {
+        }
+
+        // Creates the object twice, the DAO can be used after the duplicate
+        createCategory(id);
+        try {
+            createCategory(id);
+            fail("An object with the same id has already been created");
+        } catch (DuplicateKeyException e) {
+        }
+
+        // Updates the object read by the DAO, another DAO sees the new values
+        updateCategory(findCategory(id), id + 1);
+        checkCategory((Category) new CategoryDAO().findByPrimaryKey(id), id + 1);
+
+        // Cleans the test environment
+        removeCategory(id);
+        try {
+            removeCategory(id);
+            fail("Object has been deleted it cannot be deleted again");
+        } catch (ObjectNotFoundException e) {
+        }
+    }
+
     //==================================
     //=         Private Methods        =
     //==================================
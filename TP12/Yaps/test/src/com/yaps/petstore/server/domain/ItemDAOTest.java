@@ -1,6 +1,7 @@
 package com.yaps.petstore.server.domain;
 
 import com.yaps.petstore.AbstractTestCase;
+import com.yaps.petstore.common.dto.ItemDTO;
 import com.yaps.petstore.server.domain.category.Category;
 import com.yaps.petstore.server.domain.category.CategoryDAO;
 import com.yaps.petstore.server.domain.item.Item;
@@ -15,6 +16,8 @@ import java.sql.Connection;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * This class tests the ItemDAO class
@@ -154,6 +157,58 @@ public final class ItemDAOTest extends AbstractTestCase {
         removeProduct(newProduct);
     }
 
+    /**
+     * This test ensures that the DTOs of the items are built with the data of their
+     * product by the projection query.
+     */
+    public void testDomainFindAllItemDTOs() throws Exception {
+    	Product newProduct = createNewProduct();
+    	final String productId = newProduct.getId();
+        Item item = createItemForProduct(newProduct);
+
+        // The DTO of the item carries the data of the product
+        final ItemDTO itemDTO = findItemDTO(item.getId());
+        assertNotNull(itemDTO);
+        assertEquals("name", "name" + item.getId(), itemDTO.getName());
+        assertEquals("unitCost", new Double(_defaultUnitCost), new Double(itemDTO.getUnitCost()));
+        assertEquals("imagePath", "imagePath" + item.getId(), itemDTO.getImagePath());
+        assertEquals("productId", productId, itemDTO.getProductId());
+        assertEquals("productName", newProduct.getName(), itemDTO.getProductName());
+        assertEquals("productDescription", newProduct.getDescription(), itemDTO.getProductDescription());
+
+        assertEquals(findAllItems(), _dao.findAllDTOs().size());
+
+        // Cleans the test environment
+        _dao.remove(item.getId());
+        removeProduct(newProduct);
+        assertNull("Object has been deleted it shouldn't be found", findItemDTO(item.getId()));
+    }
+
+    /**
+     * This test ensures that the DTOs of a set of items are read in one select.
+     */
+    public void testDomainFindItemDTOsByIds() throws Exception {
+    	Product newProduct = createNewProduct();
+        final Item item1 = createItemForProduct(newProduct);
+        final Item item2 = createItemForProduct(newProduct);
+
+        final List<String> itemIds = new ArrayList<String>();
+        itemIds.add(item1.getId());
+        itemIds.add(item2.getId());
+        itemIds.add("unknown" + item1.getId());
+        final List<ItemDTO> itemDTOs = _dao.findDTOs(itemIds);
+        assertEquals(2, itemDTOs.size());
+        for (ItemDTO itemDTO : itemDTOs) {
+            assertEquals("productDescription", newProduct.getDescription(), itemDTO.getProductDescription());
+        }
+        assertEquals(0, _dao.findDTOs(new ArrayList<String>()).size());
+
+        // Cleans the test environment
+        _dao.remove(item1.getId());
+        _dao.remove(item2.getId());
+        removeProduct(newProduct);
+    }
+
     /**
      * This test ensures that the method search works. It does a first search, creates
      * a new object and does a second search.
@@ -398,6 +453,17 @@ public final class ItemDAOTest extends AbstractTestCase {
         }
     }
 
+    private ItemDTO findItemDTO(String itemId) throws FinderException {
+        try {
+            for (ItemDTO itemDTO : _dao.findAllDTOs()) {
+                if (itemDTO.getId().equals(itemId))
+                    return itemDTO;
+            }
+        } catch (ObjectNotFoundException e) {
+        }
+        return null;
+    }
+
     private int findAllItems(String productId) throws FinderException {
         try {
             return _dao.findAllInProduct(productId).size();
@@ -17,6 +17,8 @@ import com.yaps.petstore.common.exception.*;
 
 import junit.framework.TestSuite;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Date;
 
 /**
@@ -209,6 +211,49 @@ public final class OrderLineDAOTest extends AbstractTestCase {
         }
     }
 
+    /**
+     * This test ensures that several order lines can be created and updated in one batch.
+     */
+    public void testDomainCreateOrderLinesInBatch() throws Exception {
+        final String id = getUniqueId();
+
+        // Creates a first order line with its order and item
+        final String orderLineId = createOrderLine(id);
+        final OrderLine first = findOrderLine(orderLineId);
+        final Order order = first.getOrder();
+        final Item item = first.getItem();
+
+        // Creates three more lines in one batch, their ids are generated
+        final Collection<OrderLine> orderLines = new ArrayList<OrderLine>();
+        for (int i = 1; i <= 3; i++) {
+            orderLines.add(new OrderLine(i, _defaultUnitCost, order, item));
+        }
+        _orderLineDAO.insertAll(orderLines);
+        assertEquals("The order must have four lines", 4, _orderLineDAO.findAllInOrder(order.getId()).size());
+
+        // Updates the lines in one batch
+        for (OrderLine orderLine : orderLines) {
+            orderLine.setQuantity(_defaultQuantity);
+        }
+        _orderLineDAO.updateAll(orderLines);
+        for (OrderLine orderLine : orderLines) {
+            checkOrderLine(findOrderLine(orderLine.getId()), id);
+        }
+
+        // Cleans the test environment
+        for (OrderLine orderLine : orderLines) {
+            _orderLineDAO.remove(orderLine.getId());
+        }
+        removeOrderLine(orderLineId);
+
+        // Updating lines that don't exist anymore fails
+        try {
+            _orderLineDAO.updateAll(orderLines);
+            fail("Deleted order lines should not be updated");
+        } catch (ObjectNotFoundException e) {
+        }
+    }
+
     //==================================
     //=         Private Methods        =
     //==================================
@@ -1,6 +1,7 @@
 package com.yaps.petstore.server.domain;
 
 import com.yaps.petstore.AbstractTestCase;
+import com.yaps.petstore.common.dto.ProductDTO;
 import com.yaps.petstore.server.domain.category.Category;
 import com.yaps.petstore.server.domain.category.CategoryDAO;
 import com.yaps.petstore.server.domain.item.Item;
@@ -133,6 +134,30 @@ public final class ProductDAOTest extends AbstractTestCase {
 
     }
 
+    /**
+     * This test ensures that the DTOs of the products are built with the data of
+     * their category by the projection query.
+     */
+    public void testDomainFindAllProductDTOs() throws Exception {
+    	Category newCategory = createNewCategory();
+    	final String categoryId = newCategory.getId();
+        Product product = createProductForCategory(newCategory);
+
+        // The DTO of the product carries the data of the category
+        final ProductDTO productDTO = findProductDTO(product.getId());
+        assertNotNull(productDTO);
+        assertEquals("name", product.getName(), productDTO.getName());
+        assertEquals("description", product.getDescription(), productDTO.getDescription());
+        assertEquals("categoryId", categoryId, productDTO.getCategoryId());
+        assertEquals("categoryName", newCategory.getName(), productDTO.getCategoryName());
+
+        assertEquals(findAllProducts(), _dao.findAllDTOs().size());
+
+        // Cleans the test environment
+        removeProduct(product.getId());
+        assertNull("Object has been deleted it shouldn't be found", findProductDTO(product.getId()));
+    }
+
     /**
      * This method ensures that creating an object works. It first finds the object,
      * makes sure it doesn't exist, creates it and checks it then exists.
@@ -354,6 +379,17 @@ public final class ProductDAOTest extends AbstractTestCase {
         }
     }
 
+    private ProductDTO findProductDTO(String productId) throws FinderException {
+        try {
+            for (ProductDTO productDTO : _dao.findAllDTOs()) {
+                if (productDTO.getId().equals(productId))
+                    return productDTO;
+            }
+        } catch (ObjectNotFoundException e) {
+        }
+        return null;
+    }
+
     private int findAllProducts(String categoryId) throws ObjectNotFoundException {
         try {
             return _dao.findAllInCategory(categoryId).size();
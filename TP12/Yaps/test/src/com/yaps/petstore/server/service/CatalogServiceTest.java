@@ -3,6 +3,8 @@ package com.yaps.petstore.server.service;
 import com.yaps.petstore.AbstractTestCase;
 import com.yaps.petstore.common.dto.CategoryDTO;
 import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.ItemFacetQueryDTO;
+import com.yaps.petstore.common.dto.ItemFacetResultDTO;
 import com.yaps.petstore.common.dto.ProductDTO;
 import com.yaps.petstore.common.exception.*;
 import com.yaps.petstore.common.locator.ServiceLocator;
@@ -15,6 +17,7 @@ import com.yaps.petstore.server.service.catalog.CatalogServiceHome;
 import junit.framework.TestSuite;
 
 import java.rmi.RemoteException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
 
@@ -805,6 +808,38 @@ public final class CatalogServiceTest extends AbstractTestCase {
         }
     }
 
+    /**
+     * This test ensures that the items of a set of ids are found in one call, the
+     * unknown ids being left out.
+     */
+    public void testServiceFindItemsByIds() throws Exception {
+        final CatalogService service = getCatalogService();
+        ProductDTO newProduct = createNewProduct();
+        final ItemDTO item1 = createItemForProduct(newProduct);
+        final ItemDTO item2 = createItemForProduct(newProduct);
+
+        final Collection itemIds = new ArrayList();
+        itemIds.add(item1.getId());
+        itemIds.add(item2.getId());
+        itemIds.add(getUniqueId("Item"));
+        final Collection items = service.findItems(itemIds);
+        assertEquals(2, items.size());
+        for (Iterator iterator = items.iterator(); iterator.hasNext();) {
+            assertEquals("productName", newProduct.getName(), ((ItemDTO) iterator.next()).getProductName());
+        }
+        assertTrue(service.findItems(new ArrayList()).isEmpty());
+
+        try {
+            service.findItems((Collection) null);
+            fail("Objects with null ids should not be found");
+        } catch (CheckException e) {
+        }
+
+        // Cleans the test environment
+        deleteItem(item1.getId());
+        deleteItem(item2.getId());
+    }
+
     /**
      * This test ensures that the method search works. It does a first search, creates
      * a new object and does a second search.
@@ -841,6 +876,67 @@ public final class CatalogServiceTest extends AbstractTestCase {
         }
     }
 
+    /**
+     * This test ensures that the method autocomplete works. It creates an object
+     * and completes the beginning of its name.
+     */
+    public void testServiceAutocomplete() throws Exception {
+        final String id = getUniqueId("Item");
+        final CatalogService service = getCatalogService();
+
+        // Completes a name that does not exist
+        assertEquals(0, service.autocomplete("name" + id, 10).size());
+
+        // Creates an object
+        createItem(id);
+
+        // Completes its name
+        final Collection names = service.autocomplete("NAME" + id, 10);
+        assertEquals(1, names.size());
+        assertEquals("name" + id, names.iterator().next());
+
+        // Completes with an invalid limit
+        try {
+            service.autocomplete("name" + id, 0);
+            fail("Completing with an invalid limit should break");
+        } catch (CheckException e) {
+        }
+
+        // Cleans the test environment
+        deleteItem(id);
+        assertEquals(0, service.autocomplete("name" + id, 10).size());
+    }
+
+    /**
+     * This test ensures that the method browseItems works. It browses the items of a
+     * new product before and after creating an item.
+     */
+    public void testServiceBrowseItems() throws Exception {
+        final String id = getUniqueId("Item");
+        final CatalogService service = getCatalogService();
+
+        // Browses with a null query
+        try {
+            service.browseItems(null);
+            fail("Browsing with a null query should break");
+        } catch (CheckException e) {
+        }
+
+        // Creates an object and browses its product
+        createItem(id);
+        final ItemFacetQueryDTO query = new ItemFacetQueryDTO();
+        query.addProductId(findItem(id).getProductId());
+        ItemFacetResultDTO result = service.browseItems(query);
+        assertEquals(1, result.getItems().size());
+        assertEquals(id, result.getItems().get(0).getId());
+        assertEquals(1, result.getProductCounts().size());
+
+        // Cleans the test environment
+        deleteItem(id);
+        result = service.browseItems(query);
+        assertEquals(0, result.getItems().size());
+    }
+
     /**
      * This method ensures that creating an object works. It first finds the object,
      * makes sure it doesn't exist, creates it and checks it then exists.
@@ -1074,6 +1170,37 @@ public final class CatalogServiceTest extends AbstractTestCase {
         }
     }
 
+    /**
+     * This test tries to restock an object with invalid values.
+     */
+    public void testServiceRestockItemWithInvalidValues() throws Exception {
+        final CatalogService service = getCatalogService();
+        final String id = getUniqueId("Item");
+
+        // Restocks an object with null id
+        try {
+            service.restockItem(null, 1);
+            fail("Object with null id should not be restocked");
+        } catch (CheckException e) {
+        }
+
+        // Restocks an unknown object
+        try {
+            service.restockItem(id, 1);
+            fail("Unknown object should not be restocked");
+        } catch (CheckException e) {
+        }
+
+        // Restocks an object with no quantity
+        createItem(id);
+        try {
+            service.restockItem(id, 0);
+            fail("Object should not be restocked with no quantity");
+        } catch (CheckException e) {
+        }
+        deleteItem(id);
+    }
+
     //==================================
     //=         Private Methods        =
     //==================================
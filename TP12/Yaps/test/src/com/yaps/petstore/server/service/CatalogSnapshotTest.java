@@ -0,0 +1,125 @@
+package com.yaps.petstore.server.service;
+
+import com.yaps.petstore.AbstractTestCase;
+import com.yaps.petstore.common.dto.CategoryDTO;
+import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.ProductDTO;
+import com.yaps.petstore.common.exception.ObjectNotFoundException;
+import com.yaps.petstore.server.service.catalog.CatalogSnapshot;
+import junit.framework.TestSuite;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class tests the CatalogSnapshot class, it does not need the container
+ */
+public final class CatalogSnapshotTest extends AbstractTestCase {
+
+    private CatalogSnapshot _snapshot;
+
+    public CatalogSnapshotTest(final String s) {
+        super(s);
+    }
+
+    public static TestSuite suite() {
+        return new TestSuite(CatalogSnapshotTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        final List<CategoryDTO> categories = new ArrayList<CategoryDTO>();
+        categories.add(new CategoryDTO("FISH", "Fish", "Any of numerous cold-blooded aquatic vertebrates"));
+        categories.add(new CategoryDTO("DOGS", "Dogs", "A domesticated carnivorous mammal"));
+
+        final List<ProductDTO> products = new ArrayList<ProductDTO>();
+        products.add(new ProductDTO("FISH1", "Angelfish", "Salt water fish from Australia", "FISH", null));
+        products.add(new ProductDTO("DOGS1", "Bulldog", "Friendly dog from England", "DOGS", null));
+
+        final List<ItemDTO> items = new ArrayList<ItemDTO>();
+        items.add(new ItemDTO("EST1", "Large Angelfish", 10, "fish1.gif", "FISH1", null, null));
+        items.add(new ItemDTO("EST2", "Small Angelfish", 12, "fish1.gif", "FISH1", null, null));
+        items.add(new ItemDTO("EST3", "Male Bulldog", 100, "dog1.gif", "DOGS1", null, null));
+
+        _snapshot = new CatalogSnapshot(categories, products, items);
+    }
+
+    //==================================
+    //=            Test cases          =
+    //==================================
+    /**
+     * This test makes sure that the snapshot finds the objects by id and by parent,
+     * with the names of their parent.
+     */
+    public void testServiceFindInSnapshot() throws Exception {
+        assertEquals(2, _snapshot.findCategories().size());
+        assertEquals("Fish", _snapshot.findCategory("FISH").getName());
+        assertEquals("Fish", _snapshot.findProduct("FISH1").getCategoryName());
+        assertEquals(1, _snapshot.findProducts("DOGS").size());
+        assertEquals(3, _snapshot.findItems().size());
+        assertEquals(2, _snapshot.findItems("FISH1").size());
+        final List<String> itemIds = new ArrayList<String>();
+        itemIds.add("EST3");
+        itemIds.add("EST9");
+        itemIds.add("EST1");
+        final List<ItemDTO> found = new ArrayList<ItemDTO>(_snapshot.findItems(itemIds));
+        assertEquals(2, found.size());
+        assertEquals("Bulldog", found.get(0).getProductName());
+        assertEquals("EST1", found.get(1).getId());
+
+        final ItemDTO item = _snapshot.findItem("EST3");
+        assertEquals("dog1.gif", item.getImagePath());
+        assertEquals("Bulldog", item.getProductName());
+        assertEquals("Friendly dog from England", item.getProductDescription());
+
+        try {
+            _snapshot.findItem("EST4");
+            fail("Object with unknown id should not be found");
+        } catch (ObjectNotFoundException e) {
+        }
+        try {
+            _snapshot.findItems("DOGS2");
+            fail("Objects of an unknown product should not be found");
+        } catch (ObjectNotFoundException e) {
+        }
+    }
+
+    /**
+     * This test makes sure that the DTOs returned are copies: changing them does not
+     * change the snapshot.
+     */
+    public void testServiceSnapshotIsImmutable() throws Exception {
+        _snapshot.findItem("EST1").setName("Changed");
+        _snapshot.findItems("FISH1").clear();
+        assertEquals("Large Angelfish", _snapshot.findItem("EST1").getName());
+        assertEquals(2, _snapshot.findItems("FISH1").size());
+    }
+
+    /**
+     * This test makes sure that the changes give a new snapshot and leave the old one
+     * as it was.
+     */
+    public void testServiceCopyOnWrite() throws Exception {
+        // Renames a category, its products get the new name
+        final CatalogSnapshot renamed = _snapshot.withCategory(new CategoryDTO("FISH", "Poissons", "Poissons"));
+        assertEquals("Poissons", renamed.findProduct("FISH1").getCategoryName());
+        assertEquals("Fish", _snapshot.findProduct("FISH1").getCategoryName());
+
+        // Moves an item to another product
+        final CatalogSnapshot moved = _snapshot.withItem(new ItemDTO("EST2", "Small Angelfish", 12, null, "DOGS1", null, null));
+        assertEquals(1, moved.findItems("FISH1").size());
+        assertEquals(2, moved.findItems("DOGS1").size());
+        assertEquals("Bulldog", moved.findItem("EST2").getProductName());
+        assertEquals(2, _snapshot.findItems("FISH1").size());
+
+        // Deleting a category deletes its products and their items
+        final CatalogSnapshot deleted = _snapshot.withoutCategory("FISH");
+        assertEquals(1, deleted.findItems().size());
+        try {
+            deleted.findProduct("FISH1");
+            fail("Product of a deleted category should not be found");
+        } catch (ObjectNotFoundException e) {
+        }
+        assertEquals(1, _snapshot.withoutProduct("FISH1").findItems().size());
+        assertEquals(2, _snapshot.withoutItem("EST3").findItems().size());
+    }
+}
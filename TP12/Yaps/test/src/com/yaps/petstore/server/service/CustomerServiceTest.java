@@ -327,7 +327,7 @@ public final class CustomerServiceTest extends AbstractTestCase {
         try {
             deleteCustomer(id);
             fail("Deleting an unknown object should break");
-        } catch (CheckException e) {
+        } catch (RemoveException e) {
         }
     }
 
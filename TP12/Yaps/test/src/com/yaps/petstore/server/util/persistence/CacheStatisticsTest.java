@@ -0,0 +1,89 @@
+package com.yaps.petstore.server.util.persistence;
+
+import com.yaps.petstore.AbstractTestCase;
+import com.yaps.petstore.server.domain.category.Category;
+import com.yaps.petstore.server.domain.category.CategoryDAO;
+import com.yaps.petstore.server.domain.customer.CustomerDAO;
+import junit.framework.TestSuite;
+
+import javax.persistence.EntityManager;
+
+/**
+ * This class tests the shared cache of the catalog entities and its CacheStatistics
+ */
+public final class CacheStatisticsTest extends AbstractTestCase {
+
+    private static final String PERSISTENCE_UNIT_NAME = "petstorePU";
+
+    private final CategoryDAO _dao = new CategoryDAO();
+
+    public CacheStatisticsTest(final String s) {
+        super(s);
+    }
+
+    public static TestSuite suite() {
+        return new TestSuite(CacheStatisticsTest.class);
+    }
+
+    //==================================
+    //=            Test cases          =
+    //==================================
+    /**
+     * This test makes sure that only the catalog entities are cached.
+     */
+    public void testUtilCacheableEntities() throws Exception {
+        assertTrue(_dao.isCacheable());
+        assertFalse(new CustomerDAO().isCacheable());
+    }
+
+    /**
+     * This test makes sure that a DAO finds an entity read by another DAO in the
+     * shared cache, and that the hits, misses and evictions are counted.
+     */
+    public void testUtilHitsAndMisses() throws Exception {
+        final String id = _dao.getUniqueId();
+        _dao.insert(new Category(id, "name" + id, "description" + id));
+        _dao.evict(id);
+
+        final CacheStatistics statistics = _dao.getCacheStatistics();
+        statistics.reset();
+
+        // The first find reads the database, the DAO with its own entity manager uses the cache
+        new CategoryDAO().findByPrimaryKey(id);
+        new CategoryDAO().findByPrimaryKey(id);
+        assertEquals(1, statistics.getMisses());
+        assertEquals(1, statistics.getHits());
+        assertEquals(0.5, statistics.getHitRatio(), 0.001);
+
+        _dao.evict(id);
+        new CategoryDAO().findByPrimaryKey(id);
+        assertEquals(2, statistics.getMisses());
+        assertEquals(1, statistics.getEvictions());
+
+        // Cleans the test environment
+        _dao.remove(id);
+    }
+
+    /**
+     * This test makes sure that evictAll forgets the rows changed behind the
+     * entity manager, and the cached query results.
+     */
+    public void testUtilEvictAll() throws Exception {
+        final String id = _dao.getUniqueId();
+        _dao.insert(new Category(id, "name" + id, "description" + id));
+        final int size = new CategoryDAO().findAll().size();
+
+        // Deletes the row without the entity manager
+        final EntityManager em = EntityManagerFactoryRegistry.getFactory(PERSISTENCE_UNIT_NAME).createEntityManager();
+        em.getTransaction().begin();
+        em.createNativeQuery("DELETE FROM T_CATEGORY WHERE id = ?1").setParameter(1, id).executeUpdate();
+        em.getTransaction().commit();
+        em.close();
+
+        // The cached results still hold it
+        assertEquals(size, new CategoryDAO().findAll().size());
+
+        _dao.evictAll();
+        assertEquals(size - 1, new CategoryDAO().findAll().size());
+    }
+}
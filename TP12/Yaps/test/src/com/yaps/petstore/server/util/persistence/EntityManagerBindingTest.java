@@ -0,0 +1,117 @@
+package com.yaps.petstore.server.util.persistence;
+
+import com.yaps.petstore.AbstractTestCase;
+import com.yaps.petstore.common.exception.ObjectNotFoundException;
+import com.yaps.petstore.server.domain.category.Category;
+import com.yaps.petstore.server.domain.category.CategoryDAO;
+import junit.framework.TestSuite;
+
+import javax.persistence.EntityManager;
+
+/**
+ * This class tests the EntityManagerBinding class
+ */
+public final class EntityManagerBindingTest extends AbstractTestCase {
+
+    private static final String PERSISTENCE_UNIT_NAME = "petstorePU";
+
+    private final CategoryDAO _dao = new CategoryDAO();
+
+    public EntityManagerBindingTest(final String s) {
+        super(s);
+    }
+
+    public static TestSuite suite() {
+        return new TestSuite(EntityManagerBindingTest.class);
+    }
+
+    //==================================
+    //=            Test cases          =
+    //==================================
+    /**
+     * This test makes sure that the bindings nest.
+     */
+    public void testUtilNestedBindings() throws Exception {
+        final EntityManager first = createEntityManager();
+        final EntityManager second = createEntityManager();
+        assertNull(EntityManagerBinding.getEntityManager());
+
+        final EntityManager none = EntityManagerBinding.bind(first);
+        final EntityManager previous = EntityManagerBinding.bind(second);
+        assertSame(first, previous);
+        assertSame(second, EntityManagerBinding.getEntityManager());
+        EntityManagerBinding.restore(previous);
+        assertSame(first, EntityManagerBinding.getEntityManager());
+        EntityManagerBinding.restore(none);
+        assertNull(EntityManagerBinding.getEntityManager());
+
+        first.close();
+        second.close();
+    }
+
+    /**
+     * This test makes sure that a DAO uses the entity manager bound to the thread
+     * and leaves the transaction to the caller.
+     */
+    public void testUtilDAOUsesBoundEntityManager() throws Exception {
+        final EntityManager em = createEntityManager();
+        final String id = "bind" + System.currentTimeMillis() % 100000;
+
+        final EntityManager previous = EntityManagerBinding.bind(em);
+        try {
+            em.getTransaction().begin();
+            _dao.insert(new Category(id, "name" + id, "description" + id));
+            // The DAO has not committed, the category is only in the bound persistence context
+            assertTrue(em.getTransaction().isActive());
+            assertNotNull(_dao.findByPrimaryKey(id));
+            em.getTransaction().rollback();
+        } finally {
+            EntityManagerBinding.restore(previous);
+            em.close();
+        }
+
+        // The transaction of the caller has been rolled back
+        try {
+            _dao.findByPrimaryKey(id);
+            fail("The insert has been rolled back, the category shouldn't be found");
+        } catch (ObjectNotFoundException e) {
+        }
+    }
+
+    /**
+     * This test makes sure that threads using the same DAO each get their own entity manager.
+     */
+    public void testUtilBindingsPerThread() throws Exception {
+        final EntityManager[] bound = new EntityManager[8];
+        final EntityManager[] used = new EntityManager[bound.length];
+        final Thread[] threads = new Thread[bound.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            bound[i] = createEntityManager();
+            threads[i] = new Thread() {
+                public void run() {
+                    final EntityManager previous = EntityManagerBinding.bind(bound[index]);
+                    try {
+                        Thread.yield();
+                        used[index] = _dao.getEntityManager();
+                    } finally {
+                        EntityManagerBinding.restore(previous);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+            assertSame(bound[i], used[i]);
+            bound[i].close();
+        }
+    }
+
+    //==================================
+    //=         Private Methods        =
+    //==================================
+    private EntityManager createEntityManager() {
+        return EntityManagerFactoryRegistry.getFactory(PERSISTENCE_UNIT_NAME).createEntityManager();
+    }
+}
@@ -0,0 +1,61 @@
+package com.yaps.petstore.server.util.persistence;
+
+import com.yaps.petstore.AbstractTestCase;
+import com.yaps.petstore.server.domain.category.CategoryDAO;
+import junit.framework.TestSuite;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * This class tests the EntityManagerFactoryRegistry class
+ */
+public final class EntityManagerFactoryRegistryTest extends AbstractTestCase {
+
+    private static final String PERSISTENCE_UNIT_NAME = "petstorePU";
+
+    public EntityManagerFactoryRegistryTest(final String s) {
+        super(s);
+    }
+
+    public static TestSuite suite() {
+        return new TestSuite(EntityManagerFactoryRegistryTest.class);
+    }
+
+    //==================================
+    //=            Test cases          =
+    //==================================
+    /**
+     * This test makes sure that the factory of a persistence unit is created once.
+     */
+    public void testUtilSharedFactory() throws Exception {
+        EntityManagerFactoryRegistry.warmUp(PERSISTENCE_UNIT_NAME);
+        final EntityManagerFactory factory = EntityManagerFactoryRegistry.getFactory(PERSISTENCE_UNIT_NAME);
+        assertTrue(factory.isOpen());
+
+        // Creating DAOs does not create factories
+        new CategoryDAO();
+        new CategoryDAO();
+        assertSame(factory, EntityManagerFactoryRegistry.getFactory(PERSISTENCE_UNIT_NAME));
+    }
+
+    /**
+     * This test makes sure that threads asking for the factory at the same time get the same one.
+     */
+    public void testUtilConcurrentAccess() throws Exception {
+        final EntityManagerFactory[] factories = new EntityManagerFactory[8];
+        final Thread[] threads = new Thread[factories.length];
+        for (int i = 0; i < threads.length; i++) {
+            final int index = i;
+            threads[i] = new Thread() {
+                public void run() {
+                    factories[index] = EntityManagerFactoryRegistry.getFactory(PERSISTENCE_UNIT_NAME);
+                }
+            };
+            threads[i].start();
+        }
+        for (int i = 0; i < threads.length; i++) {
+            threads[i].join();
+            assertSame(factories[0], factories[i]);
+        }
+    }
+}
@@ -0,0 +1,215 @@
+package com.yaps.petstore.server.util.search;
+
+import com.yaps.petstore.AbstractTestCase;
+import com.yaps.petstore.common.dto.ItemDTO;
+import com.yaps.petstore.common.dto.ItemFacetQueryDTO;
+import com.yaps.petstore.common.dto.ItemFacetResultDTO;
+import com.yaps.petstore.common.dto.ProductDTO;
+import junit.framework.TestSuite;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class tests the ItemSearchIndex class
+ */
+public final class ItemSearchIndexTest extends AbstractTestCase {
+
+    private final ItemSearchIndex _index = ItemSearchIndex.getInstance();
+
+    public ItemSearchIndexTest(final String s) {
+        super(s);
+    }
+
+    public static TestSuite suite() {
+        return new TestSuite(ItemSearchIndexTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        final Map<String, String> categoryNames = new HashMap<String, String>();
+        categoryNames.put("FISH", "Fish");
+        categoryNames.put("DOGS", "Dogs");
+
+        final List<ProductDTO> products = new ArrayList<ProductDTO>();
+        products.add(new ProductDTO("FISH1", "Angelfish", "Salt water fish from Australia", "FISH", null));
+        products.add(new ProductDTO("DOGS1", "Bulldog", "Friendly dog from England", "DOGS", null));
+
+        final List<ItemDTO> items = new ArrayList<ItemDTO>();
+        items.add(new ItemDTO("EST1", "Large Angelfish", 10, null, "FISH1", null, null));
+        items.add(new ItemDTO("EST2", "Small Angelfish", 12, null, "FISH1", null, null));
+        items.add(new ItemDTO("EST3", "Male Bulldog", 100, null, "DOGS1", null, null));
+
+        _index.load(categoryNames, products, items);
+    }
+
+    protected void tearDown() throws Exception {
+        _index.clear();
+    }
+
+    //==================================
+    //=            Test cases          =
+    //==================================
+    /**
+     * This test makes sure that the words are found without case and accents.
+     */
+    public void testUtilTokenize() throws Exception {
+        final List<String> words = ItemSearchIndex.tokenize("  Poisson-CLOWN  d'Oc\u00e9anie, n\u00b02 ");
+        assertEquals(6, words.size());
+        assertEquals("poisson", words.get(0));
+        assertEquals("clown", words.get(1));
+        assertEquals("oceanie", words.get(3));
+        assertEquals("2", words.get(5));
+        assertTrue(ItemSearchIndex.tokenize(null).isEmpty());
+    }
+
+    /**
+     * This test searches the items by the words of the item, of its product and
+     * of its category, and makes sure that all the words have to match.
+     */
+    public void testUtilSearch() throws Exception {
+        assertEquals(2, _index.search("angelfish").size());
+        assertEquals(2, _index.search("AUSTRALIA").size());
+        assertEquals(2, _index.search("fish").size());
+        assertEquals(1, _index.search("small angelfish").size());
+        assertEquals(1, _index.search("est3").size());
+        assertEquals(0, _index.search("small bulldog").size());
+        assertEquals(0, _index.search("cat").size());
+        assertEquals(0, _index.search("").size());
+
+        // The DTOs hold the product
+        final ItemDTO item = _index.search("male").get(0);
+        assertEquals("EST3", item.getId());
+        assertEquals("DOGS1", item.getProductId());
+        assertEquals("Bulldog", item.getProductName());
+        assertEquals("Friendly dog from England", item.getProductDescription());
+    }
+
+    /**
+     * This test makes sure that the items matching in their own name come first.
+     */
+    public void testUtilRanking() throws Exception {
+        _index.putItem(new ItemDTO("EST4", "Friendly Angelfish", 15, null, "FISH1", null, null));
+
+        final List<ItemDTO> items = _index.search("friendly");
+        assertEquals(2, items.size());
+        assertEquals("EST4", items.get(0).getId());
+        assertEquals("EST3", items.get(1).getId());
+
+        // Same score, sorted by name
+        final List<ItemDTO> angelfish = _index.search("angelfish");
+        assertEquals("Friendly Angelfish", angelfish.get(0).getName());
+        assertEquals("Large Angelfish", angelfish.get(1).getName());
+    }
+
+    /**
+     * This test makes sure that the index follows the changes of the catalog.
+     */
+    public void testUtilIncrementalUpdates() throws Exception {
+        // Renames an item, the old words are forgotten
+        _index.putItem(new ItemDTO("EST1", "Huge Angelfish", 10, null, "FISH1", null, null));
+        assertEquals(0, _index.search("large").size());
+        assertEquals(1, _index.search("huge").size());
+
+        // Renames a category and changes a product, their items are indexed again
+        _index.putCategory("DOGS", "Chiens");
+        assertEquals(0, _index.search("dogs").size());
+        assertEquals(1, _index.search("chiens").size());
+        _index.putProduct(new ProductDTO("FISH1", "Angelfish", "Fresh water fish", "DOGS", null));
+        assertEquals(0, _index.search("australia").size());
+        assertEquals(3, _index.search("chiens").size());
+        assertEquals("Fresh water fish", _index.search("huge").get(0).getProductDescription());
+
+        // Removes an item, a product and a category
+        _index.removeItem("EST2");
+        assertEquals(1, _index.search("angelfish").size());
+        _index.removeProduct("FISH1");
+        assertEquals(0, _index.search("angelfish").size());
+        _index.removeCategory("DOGS");
+        assertEquals(0, _index.search("bulldog").size());
+    }
+
+    /**
+     * This test completes the beginning of the names of the items and the products.
+     */
+    public void testUtilComplete() throws Exception {
+        List<String> names = _index.complete("ANG", 10);
+        assertEquals(3, names.size());
+        assertEquals("Angelfish", names.get(0));
+        assertEquals("Large Angelfish", names.get(1));
+        assertEquals("Small Angelfish", names.get(2));
+
+        // Several words, the limit
+        assertEquals("Small Angelfish", _index.complete("small  ang", 10).get(0));
+        assertEquals(2, _index.complete("angelfish", 2).size());
+        assertEquals(0, _index.complete("cat", 10).size());
+        assertEquals(0, _index.complete("  ", 10).size());
+        assertEquals(0, _index.complete("ang", 0).size());
+
+        // The names follow the changes
+        _index.putItem(new ItemDTO("EST4", "Angel Shark", 15, null, "FISH1", null, null));
+        _index.removeItem("EST2");
+        names = _index.complete("ang", 10);
+        assertEquals(3, names.size());
+        assertEquals("Angel Shark", names.get(0));
+        assertFalse(names.contains("Small Angelfish"));
+    }
+
+    /**
+     * This test browses the items by category, product and price range, and checks the
+     * counts of each facet value.
+     */
+    public void testUtilBrowse() throws Exception {
+        assertEquals("0-10", ItemFacetQueryDTO.getPriceRangeName(9.99));
+        assertEquals("10-50", ItemFacetQueryDTO.getPriceRangeName(10));
+        assertEquals("500+", ItemFacetQueryDTO.getPriceRangeName(1000));
+
+        // No filter, all the items
+        ItemFacetResultDTO result = _index.browse(new ItemFacetQueryDTO());
+        assertEquals(3, result.getItems().size());
+        assertEquals("Large Angelfish", result.getItems().get(0).getName());
+        assertEquals(new Integer(2), result.getCategoryCounts().get("FISH"));
+        assertEquals(new Integer(1), result.getCategoryCounts().get("DOGS"));
+        assertEquals(new Integer(2), result.getPriceRangeCounts().get("10-50"));
+        assertEquals(new Integer(1), result.getPriceRangeCounts().get("100-500"));
+        assertEquals(2, result.getPriceRangeCounts().size());
+
+        // Fish under 50, the counts of a facet ignore its own filter
+        final ItemFacetQueryDTO query = new ItemFacetQueryDTO();
+        query.addCategoryId("FISH");
+        query.addPriceRange("0-10");
+        query.addPriceRange("10-50");
+        result = _index.browse(query);
+        assertEquals(2, result.getItems().size());
+        assertEquals(new Integer(2), result.getCategoryCounts().get("FISH"));
+        assertNull(result.getCategoryCounts().get("DOGS"));
+        assertEquals(new Integer(2), result.getProductCounts().get("FISH1"));
+        assertEquals(new Integer(2), result.getPriceRangeCounts().get("10-50"));
+        assertNull(result.getPriceRangeCounts().get("100-500"));
+
+        // The bitmaps follow the changes
+        _index.putItem(new ItemDTO("EST2", "Small Angelfish", 200, null, "FISH1", null, null));
+        _index.putProduct(new ProductDTO("DOGS1", "Bulldog", "Friendly dog from England", "FISH", null));
+        result = _index.browse(query);
+        assertEquals(1, result.getItems().size());
+        assertEquals(new Integer(1), result.getCategoryCounts().get("FISH"));
+        assertEquals(new Integer(2), result.getPriceRangeCounts().get("100-500"));
+        _index.removeProduct("FISH1");
+        result = _index.browse(new ItemFacetQueryDTO());
+        assertEquals(1, result.getItems().size());
+        assertEquals("EST3", result.getItems().get(0).getId());
+    }
+
+    /**
+     * This test makes sure that the changes are ignored until the index is loaded.
+     */
+    public void testUtilNotLoaded() throws Exception {
+        assertTrue(_index.isLoaded());
+        _index.clear();
+        assertFalse(_index.isLoaded());
+
+        _index.putItem(new ItemDTO("EST1", "Large Angelfish", 10, null, "FISH1", null, null));
+        assertEquals(0, _index.search("angelfish").size());
+    }
+}
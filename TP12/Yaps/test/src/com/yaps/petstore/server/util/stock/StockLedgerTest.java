@@ -0,0 +1,156 @@
+package com.yaps.petstore.server.util.stock;
+
+import com.yaps.petstore.AbstractTestCase;
+import junit.framework.TestSuite;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * This class tests the StockLedger class
+ */
+public final class StockLedgerTest extends AbstractTestCase {
+
+    private final StockLedger _ledger = StockLedger.getInstance();
+
+    public StockLedgerTest(final String s) {
+        super(s);
+    }
+
+    public static TestSuite suite() {
+        return new TestSuite(StockLedgerTest.class);
+    }
+
+    protected void setUp() throws Exception {
+        _ledger.clear();
+    }
+
+    protected void tearDown() throws Exception {
+        _ledger.clear();
+    }
+
+    //==================================
+    //=            Test cases          =
+    //==================================
+    /**
+     * This test reserves and releases the quantities of an order.
+     */
+    public void testUtilReserveAndRelease() throws Exception {
+        final StockLedger.Reservation reservation = _ledger.newReservation();
+        assertTrue(reservation.reserve("EST1", new Integer(5), 2));
+        assertTrue(reservation.reserve("EST2", new Integer(1), 1));
+        // The stock of this item is not tracked
+        assertTrue(reservation.reserve("EST3", null, 100));
+        assertEquals(3, _ledger.getAvailable("EST1"));
+        assertEquals(0, _ledger.getAvailable("EST2"));
+        assertEquals(-1, _ledger.getAvailable("EST3"));
+
+        // The quantity on hand is only read the first time
+        final StockLedger.Reservation other = _ledger.newReservation();
+        assertFalse(other.reserve("EST2", new Integer(10), 1));
+        assertTrue(other.reserve("EST1", new Integer(5), 3));
+        assertFalse(other.reserve("EST1", new Integer(5), 1));
+        assertEquals(0, _ledger.getAvailable("EST1"));
+
+        // Released twice, given back once
+        reservation.release();
+        reservation.release();
+        assertEquals(2, _ledger.getAvailable("EST1"));
+        assertEquals(1, _ledger.getAvailable("EST2"));
+    }
+
+    /**
+     * This test makes sure that concurrent orders never take more than the stock.
+     */
+    public void testUtilConcurrentReservations() throws Exception {
+        final int stock = 500;
+        final int threads = 8;
+        final int ordersPerThread = 200;
+        final AtomicInteger reserved = new AtomicInteger();
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+
+        for (int i = 0; i < threads; i++) {
+            new Thread() {
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < ordersPerThread; j++) {
+                            if (_ledger.newReservation().reserve("EST1", new Integer(stock), 1)) {
+                                reserved.incrementAndGet();
+                            }
+                        }
+                    } catch (InterruptedException e) {
+                        // The test fails on the count
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            }.start();
+        }
+        start.countDown();
+        done.await();
+
+        assertEquals(stock, reserved.get());
+        assertEquals(0, _ledger.getAvailable("EST1"));
+    }
+
+    /**
+     * This test makes sure that a restock adds to the counter, read from the quantity
+     * on hand the first time only, and is written with the other changes.
+     */
+    public void testUtilRestock() throws Exception {
+        assertEquals(15, _ledger.restock("EST1", 5, 10));
+        assertTrue(_ledger.newReservation().reserve("EST1", new Integer(5), 12));
+        assertEquals(3, _ledger.getAvailable("EST1"));
+        assertEquals(8, _ledger.restock("EST1", 5, 5));
+        assertEquals(new Integer(8), _ledger.drainChanges().get("EST1"));
+
+        // A deleted item is forgotten
+        _ledger.remove("EST1");
+        assertEquals(-1, _ledger.getAvailable("EST1"));
+    }
+
+    /**
+     * This test makes sure that a non-positive quantity cannot be reserved, it would
+     * add to the stock.
+     */
+    public void testUtilReserveInvalidQuantity() throws Exception {
+        final StockLedger.Reservation reservation = _ledger.newReservation();
+        assertTrue(reservation.reserve("EST1", new Integer(5), 2));
+        try {
+            reservation.reserve("EST1", new Integer(5), -3);
+            fail("A negative quantity should not be reserved");
+        } catch (IllegalArgumentException e) {
+        }
+        try {
+            reservation.reserve("EST1", new Integer(5), 0);
+            fail("A zero quantity should not be reserved");
+        } catch (IllegalArgumentException e) {
+        }
+        assertEquals(3, _ledger.getAvailable("EST1"));
+    }
+
+    /**
+     * This test makes sure that only the quantities changed are written.
+     */
+    public void testUtilDrainChanges() throws Exception {
+        _ledger.newReservation().reserve("EST1", new Integer(10), 4);
+        _ledger.newReservation().reserve("EST2", new Integer(10), 1);
+
+        Map<String, Integer> changes = _ledger.drainChanges();
+        assertEquals(2, changes.size());
+        assertEquals(new Integer(6), changes.get("EST1"));
+        assertTrue(_ledger.drainChanges().isEmpty());
+
+        // An item not written is given again
+        _ledger.restoreChanges(Collections.singleton("EST2"));
+        _ledger.newReservation().reserve("EST1", new Integer(10), 1);
+        changes = _ledger.drainChanges();
+        assertEquals(2, changes.size());
+        assertEquals(new Integer(5), changes.get("EST1"));
+        assertEquals(new Integer(9), changes.get("EST2"));
+    }
+}
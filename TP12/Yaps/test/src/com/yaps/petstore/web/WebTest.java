@@ -205,6 +205,12 @@ public class WebTest extends AbstractTestCase {
             fail("The SearchItemsServlet hasn't been found");
         }
 
+        try {
+            webConversation.getResponse(URL_PETSTORE + "/autocomplete?prefix=a");
+        } catch (Exception e) {
+            fail("The AutocompleteServlet hasn't been found");
+        }
+
         try {
             webConversation.getResponse(URL_BARKBANK + "/dummy");
             fail("A dummy servlet has been found on barkbank");
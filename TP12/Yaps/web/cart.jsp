@@ -29,7 +29,7 @@
 
         <c:choose>
             <%-- Shopping Cart is empty --%>
-            <c:when test="${empty requestScope.cartItemsDTO}">
+            <c:when test="${requestScope.cartDTO.empty}">
                 <P><strong>The Shopping Cart is empty</strong></P>
             </c:when>
 
@@ -41,7 +41,7 @@
                             <TABLE cellSpacing=0 cellPadding=2 width="100%" border=0>
 
                                 <%-- Lists all the items in the shopping cart --%>
-                                <c:forEach items="${cartItemsDTO}" var="cartItemDTO">
+                                <c:forEach items="${requestScope.cartDTO.items}" var="cartItemDTO">
                                     <form name="cartForm" method="post" action="<%= request.getContextPath() %>/updatecart">
                                         <tr valign="top">
                                             <td width="50%">
@@ -79,7 +79,7 @@
                                         <b>Total:</b>
                                     </td>
                                     <td bgcolor="#CCCCFF" align="right">
-                                        ${requestScope.total}
+                                        ${requestScope.cartDTO.total}
                                     </td>
                                 </tr>
                             </table>